@@ -27,7 +27,10 @@
 #include "gen_cpp/Status_types.h"
 #include "olap/storage_engine.h"
 #include "olap/utils.h"
+#include "runtime/exec_env.h"
+#include "runtime/fragment_mgr.h"
 #include "service/backend_options.h"
+#include "util/doris_metrics.h"
 #include "util/thrift_server.h"
 
 using std::fstream;
@@ -68,6 +71,13 @@ void HeartbeatServer::heartbeat(
         heartbeat_result.backend_info.__set_http_port(config::webserver_port);
         heartbeat_result.backend_info.__set_be_rpc_port(-1);
         heartbeat_result.backend_info.__set_brpc_port(config::brpc_port);
+        // load of this backend, used by FE to choose replicas for queries
+        heartbeat_result.backend_info.__set_max_disk_io_util_percent(
+                DorisMetrics::max_disk_io_util_percent.value());
+        FragmentMgr* fragment_mgr = ExecEnv::GetInstance()->fragment_mgr();
+        if (fragment_mgr != nullptr) {
+            heartbeat_result.backend_info.__set_running_fragment_num(fragment_mgr->running_fragment_num());
+        }
     }
 }
 
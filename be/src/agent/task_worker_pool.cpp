@@ -1254,6 +1254,12 @@ void* TaskWorkerPool::_report_tablet_worker_thread_callback(void* arg_this) {
     request.__isset.tablets = true;
     AgentStatus status = DORIS_SUCCESS;
 
+    // tablets of the last tablet report accepted by FE, which delta reports are based on
+    std::map<TTabletId, TTablet> accepted_tablets;
+    bool has_accepted_report = false;
+    int64_t accepted_generation = 0;
+    int64_t generation = time(NULL) * 10000;
+
 #ifndef BE_TEST
     while (true) {
         if (worker_pool_this->_master_info.network_address.port == 0) {
@@ -1265,10 +1271,14 @@ void* TaskWorkerPool::_report_tablet_worker_thread_callback(void* arg_this) {
         }
 #endif
         request.tablets.clear();
+        request.__isset.base_tablet_report_generation = false;
+        request.__isset.dropped_tablets = false;
+        request.dropped_tablets.clear();
 
         request.__set_report_version(_s_report_version);
+        std::map<TTabletId, TTablet> tablets;
         OLAPStatus report_all_tablets_info_status =
-                StorageEngine::instance()->tablet_manager()->report_all_tablets_info(&request.tablets);
+                StorageEngine::instance()->tablet_manager()->report_all_tablets_info(&tablets);
         if (report_all_tablets_info_status != OLAP_SUCCESS) {
             OLAP_LOG_WARNING("report get all tablets info failed. status: %d",
                              report_all_tablets_info_status);
@@ -1282,9 +1292,44 @@ void* TaskWorkerPool::_report_tablet_worker_thread_callback(void* arg_this) {
 #endif
         }
 
+        ++generation;
+        request.__set_tablet_report_generation(generation);
+        if (config::enable_delta_tablet_report && has_accepted_report) {
+            // only report the tablets changed since the last accepted report
+            for (auto& it : tablets) {
+                auto last = accepted_tablets.find(it.first);
+                if (last == accepted_tablets.end() || !(last->second == it.second)) {
+                    request.tablets[it.first] = it.second;
+                }
+            }
+            for (auto& it : accepted_tablets) {
+                if (tablets.find(it.first) == tablets.end()) {
+                    request.dropped_tablets.push_back(it.first);
+                }
+            }
+            request.__set_base_tablet_report_generation(accepted_generation);
+            request.__isset.dropped_tablets = true;
+        } else {
+            request.tablets = tablets;
+        }
+
         TMasterResult result;
         status = worker_pool_this->_master_client->report(request, &result);
 
+        // next report is a full report unless this report is accepted by a frontend supporting
+        // delta reports. a frontend not upgraded yet would take a delta report as a full one,
+        // and drop the replicas not reported.
+        has_accepted_report = status == DORIS_SUCCESS
+                && result.status.status_code == TStatusCode::OK
+                && result.__isset.support_delta_tablet_report && result.support_delta_tablet_report
+                && !(result.__isset.need_full_tablet_report && result.need_full_tablet_report);
+        if (has_accepted_report) {
+            accepted_tablets.swap(tablets);
+            accepted_generation = generation;
+        } else {
+            accepted_tablets.clear();
+        }
+
         if (status != DORIS_SUCCESS) {
             DorisMetrics::report_all_tablets_requests_failed.increment(1);
             LOG(WARNING) << "finish report olap table state failed. status:" << status
@@ -90,6 +90,9 @@ namespace config {
     CONF_Int32(report_disk_state_interval_seconds, "60");
     // the interval time(seconds) for agent report olap table to FE
     CONF_Int32(report_tablet_interval_seconds, "60");
+    // only report the tablets changed since the last tablet report accepted by FE.
+    // delta reports are sent only to FE which replies it supports them.
+    CONF_Bool(enable_delta_tablet_report, "true");
     // the timeout(seconds) for alter table
     CONF_Int32(alter_tablet_timeout_seconds, "86400");
     // the timeout(seconds) for make snapshot
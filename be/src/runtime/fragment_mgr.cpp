@@ -548,6 +548,11 @@ Status FragmentMgr::trigger_profile_report(const PTriggerProfileReportRequest* r
 }
 
 
+size_t FragmentMgr::running_fragment_num() {
+    std::lock_guard<std::mutex> lock(_lock);
+    return _fragment_map.size();
+}
+
 void FragmentMgr::debug(std::stringstream& ss) {
     // Keep things simple
     std::lock_guard<std::mutex> lock(_lock);
@@ -69,6 +69,9 @@ public:
 
     Status trigger_profile_report(const PTriggerProfileReportRequest* request);
 
+    // number of fragment instances which are running or waiting to run
+    size_t running_fragment_num();
+
     // input: TScanOpenParams fragment_instance_id
     // output: selected_columns
     // execute external query, all query info are packed in TScanOpenParams
@@ -88,6 +88,21 @@ void PInternalServiceImpl<T>::exec_plan_fragment(
     st.to_protobuf(response->mutable_status());
 }
 
+template<typename T>
+void PInternalServiceImpl<T>::exec_plan_fragment_batch(
+        google::protobuf::RpcController* cntl_base,
+        const PExecPlanFragmentRequest* request,
+        PExecPlanFragmentResult* response,
+        google::protobuf::Closure* done) {
+    brpc::ClosureGuard closure_guard(done);
+    brpc::Controller* cntl = static_cast<brpc::Controller*>(cntl_base);
+    auto st = _exec_plan_fragment_batch(cntl);
+    if (!st.ok()) {
+        LOG(WARNING) << "exec plan fragment batch failed, errmsg=" << st.get_error_msg();
+    }
+    st.to_protobuf(response->mutable_status());
+}
+
 template<typename T>
 void PInternalServiceImpl<T>::tablet_writer_add_batch(google::protobuf::RpcController* controller,
                                                    const PTabletWriterAddBatchRequest* request,
@@ -151,6 +166,35 @@ Status PInternalServiceImpl<T>::_exec_plan_fragment(brpc::Controller* cntl) {
     return _exec_env->fragment_mgr()->exec_plan_fragment(t_request);
 }
 
+template<typename T>
+Status PInternalServiceImpl<T>::_exec_plan_fragment_batch(brpc::Controller* cntl) {
+    auto ser_request = cntl->request_attachment().to_string();
+    TExecPlanFragmentBatchParams t_batch_request;
+    {
+        const uint8_t* buf = (const uint8_t*)ser_request.data();
+        uint32_t len = ser_request.size();
+        RETURN_IF_ERROR(deserialize_thrift_msg(buf, &len, false, &t_batch_request));
+    }
+    if (t_batch_request.instance_params.size() != t_batch_request.backend_nums.size()) {
+        return Status::InvalidArgument("number of instance params and backend nums are not equal");
+    }
+    // params shared by all instances are deserialized only once
+    TExecPlanFragmentParams t_request;
+    {
+        const uint8_t* buf = (const uint8_t*)t_batch_request.common_params.data();
+        uint32_t len = t_batch_request.common_params.size();
+        RETURN_IF_ERROR(deserialize_thrift_msg(buf, &len, false, &t_request));
+    }
+    for (int i = 0; i < t_batch_request.instance_params.size(); ++i) {
+        t_request.__set_params(t_batch_request.instance_params[i]);
+        t_request.__set_backend_num(t_batch_request.backend_nums[i]);
+        LOG(INFO) << "exec plan fragment, fragment_instance_id=" << print_id(t_request.params.fragment_instance_id)
+            << ", coord=" << t_request.coord << ", backend=" << t_request.backend_num;
+        RETURN_IF_ERROR(_exec_env->fragment_mgr()->exec_plan_fragment(t_request));
+    }
+    return Status::OK();
+}
+
 template<typename T>
 void PInternalServiceImpl<T>::cancel_plan_fragment(
         google::protobuf::RpcController* cntl_base,
@@ -47,6 +47,12 @@ public:
         PExecPlanFragmentResult* result,
         google::protobuf::Closure* done) override;
 
+    void exec_plan_fragment_batch(
+        google::protobuf::RpcController* controller,
+        const PExecPlanFragmentRequest* request,
+        PExecPlanFragmentResult* result,
+        google::protobuf::Closure* done) override;
+
     void cancel_plan_fragment(
         google::protobuf::RpcController* controller,
         const PCancelPlanFragmentRequest* request,
@@ -88,6 +94,7 @@ public:
 
 private:
     Status _exec_plan_fragment(brpc::Controller* cntl);
+    Status _exec_plan_fragment_batch(brpc::Controller* cntl);
 private:
     ExecEnv* _exec_env;
     ThreadPool _tablet_worker_pool;
@@ -148,6 +148,8 @@ public class Analyzer {
     }
     public boolean setHasPlanHints() { return globalState.hasPlanHints = true; }
     public boolean hasPlanHints() { return globalState.hasPlanHints; }
+    public void setHasNondeterministicFn() { globalState.hasNondeterministicFn = true; }
+    public boolean hasNondeterministicFn() { return globalState.hasNondeterministicFn; }
     public void setIsWithClause() { isWithClause_ = true; }
     public boolean isWithClause() { return isWithClause_; }
     
@@ -176,6 +178,10 @@ public class Analyzer {
         // True if at least one of the analyzers belongs to a subquery.
         public boolean containsSubquery = false;
 
+        // True if the result of the statement may change between executions on the same data,
+        // eg. it calls now() or rand().
+        public boolean hasNondeterministicFn = false;
+
         // all registered conjuncts (map from id to Predicate)
         private final Map<ExprId, Expr> conjuncts = Maps.newHashMap();
 
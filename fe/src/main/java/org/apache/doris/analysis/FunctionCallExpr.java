@@ -69,6 +69,13 @@ public class FunctionCallExpr extends Expr {
                     .add("stddev").add("stddev_val").add("stddev_samp")
                     .add("variance").add("variance_pop").add("variance_pop").add("var_samp").add("var_pop").build();
 
+    // functions whose result may change between executions on the same data
+    private static final ImmutableSet<String> NONDETERMINISTIC_FUNCTION_SET =
+            new ImmutableSortedSet.Builder(String.CASE_INSENSITIVE_ORDER)
+                    .add("now").add("curdate").add("curtime").add("current_date").add("current_time")
+                    .add("current_timestamp").add("localtime").add("localtimestamp").add("utc_timestamp")
+                    .add("rand").add("random").add("uuid").add("sleep").build();
+
     public void setIsAnalyticFnCall(boolean v) {
         isAnalyticFnCall = v;
     }
@@ -489,6 +496,12 @@ public class FunctionCallExpr extends Expr {
             return;
         }
 
+        // unix_timestamp() without argument returns the current time
+        if (NONDETERMINISTIC_FUNCTION_SET.contains(fnName.getFunction())
+                || (fnName.getFunction().equalsIgnoreCase("unix_timestamp") && children.isEmpty())) {
+            analyzer.setHasNondeterministicFn();
+        }
+
         if (fnName.getFunction().equals("count") && fnParams.isDistinct()) {
             // Treat COUNT(DISTINCT ...) special because of how we do the rewrite.
             // There is no version of COUNT() that takes more than 1 argument but after
@@ -48,6 +48,8 @@ public class InformationFunction extends Expr {
 
     @Override
     protected void analyzeImpl(Analyzer analyzer) throws AnalysisException {
+        // the result depends on the connection, not only on the data
+        analyzer.setHasNondeterministicFn();
         if (funcType.equalsIgnoreCase("DATABASE")) {
             type = Type.VARCHAR;
             strValue = analyzer.getDefaultDb();
@@ -0,0 +1,83 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.analysis;
+
+import org.apache.doris.catalog.Type;
+import org.apache.doris.common.AnalysisException;
+
+/*
+ * Placeholder '?' of a prepared statement.
+ * The parsed prepared statement is kept as a template and never analyzed. Before each execution,
+ * a value is bound to each placeholder and the template is cloned, in which the placeholder is
+ * replaced by the literal of its value.
+ * Without a bound value, a placeholder is cloned as itself and analyzed as NULL, and the type it is
+ * casted to is remembered by the placeholder in template as the type of the parameter.
+ */
+public class PlaceHolderExpr extends NullLiteral {
+    // index of the placeholder in statement, starts from 0
+    private final int index;
+    // the placeholder in template, null if this is in template
+    private final PlaceHolderExpr origin;
+    private LiteralExpr value = null;
+    private Type paramType = Type.NULL;
+
+    public PlaceHolderExpr(int index) {
+        super();
+        this.index = index;
+        this.origin = null;
+    }
+
+    protected PlaceHolderExpr(PlaceHolderExpr other) {
+        super(other);
+        this.index = other.index;
+        this.origin = other.origin == null ? other : other.origin;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setValue(LiteralExpr value) {
+        this.value = value;
+    }
+
+    public Type getParamType() {
+        return paramType;
+    }
+
+    @Override
+    public Expr clone() {
+        if (value != null) {
+            return value.clone();
+        }
+        return new PlaceHolderExpr(this);
+    }
+
+    @Override
+    protected Expr uncheckedCastTo(Type targetType) throws AnalysisException {
+        if (origin != null && origin.paramType.isNull()) {
+            origin.paramType = targetType;
+        }
+        return super.uncheckedCastTo(targetType);
+    }
+
+    @Override
+    public String toSqlImpl() {
+        return value != null ? value.toSql() : "?";
+    }
+}
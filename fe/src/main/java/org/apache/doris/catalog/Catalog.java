@@ -139,6 +139,7 @@ import org.apache.doris.load.routineload.RoutineLoadScheduler;
 import org.apache.doris.load.routineload.RoutineLoadTaskScheduler;
 import org.apache.doris.master.Checkpoint;
 import org.apache.doris.master.MetaHelper;
+import org.apache.doris.master.ReportHandler;
 import org.apache.doris.meta.MetaContext;
 import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.mysql.privilege.PaloAuth;
@@ -157,6 +158,7 @@ import org.apache.doris.persist.ModifyPartitionInfo;
 import org.apache.doris.persist.PartitionPersistInfo;
 import org.apache.doris.persist.RecoverInfo;
 import org.apache.doris.persist.ReplicaPersistInfo;
+import org.apache.doris.persist.SectionedImage;
 import org.apache.doris.persist.Storage;
 import org.apache.doris.persist.StorageInfo;
 import org.apache.doris.persist.TableInfo;
@@ -194,6 +196,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Range;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sleepycat.je.rep.InsufficientLogException;
 import com.sleepycat.je.rep.NetworkRestore;
 import com.sleepycat.je.rep.NetworkRestoreConfig;
@@ -229,6 +232,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -242,6 +247,25 @@ public class Catalog {
     public static final String BDB_DIR = Config.meta_dir + "/bdb";
     public static final String IMAGE_DIR = Config.meta_dir + "/image";
 
+    // section names of sectioned image
+    private static final String IMAGE_SECTION_META = "meta";
+    private static final String IMAGE_SECTION_DB_INDEX = "dbIndex";
+    private static final String IMAGE_SECTION_DB = "db";
+    private static final String IMAGE_SECTION_LOAD_JOB = "loadJob";
+    private static final String IMAGE_SECTION_ALTER_JOB = "alterJob";
+    private static final String IMAGE_SECTION_RECYCLE_BIN = "recycleBin";
+    private static final String IMAGE_SECTION_GLOBAL_VARIABLE = "globalVariable";
+    private static final String IMAGE_SECTION_CLUSTER = "cluster";
+    private static final String IMAGE_SECTION_BROKER = "broker";
+    private static final String IMAGE_SECTION_EXPORT_JOB = "exportJob";
+    private static final String IMAGE_SECTION_BACKUP_HANDLER = "backupHandler";
+    private static final String IMAGE_SECTION_AUTH = "auth";
+    private static final String IMAGE_SECTION_TRANSACTION = "transaction";
+    private static final String IMAGE_SECTION_COLOCATE_INDEX = "colocateIndex";
+    private static final String IMAGE_SECTION_ROUTINE_LOAD_JOB = "routineLoadJob";
+    private static final String IMAGE_SECTION_LOAD_JOB_V2 = "loadJobV2";
+    private static final String IMAGE_SECTION_SMALL_FILE = "smallFile";
+
     // Current journal meta data version. Use this version to load journals
     // private int journalVersion = 0;
     private MetaContext metaContext;
@@ -257,6 +281,8 @@ public class Catalog {
 
     private ConcurrentHashMap<Long, Database> idToDb;
     private ConcurrentHashMap<String, Database> fullNameToDb;
+    // not null only in checkpoint catalog of incremental checkpoint, see loadSectionedImage()
+    private LazyDatabaseIndex lazyDatabaseIndex = null;
 
     private ConcurrentHashMap<Long, Cluster> idToCluster;
     private ConcurrentHashMap<String, Cluster> nameToCluster;
@@ -295,7 +321,7 @@ public class Catalog {
     private FrontendNodeType feType;
     private FrontendNodeType formerFeType;
     // replica and observer use this value to decide provide read service or not
-    private long synchronizedTimeMs;
+    private volatile long synchronizedTimeMs;
     private int masterRpcPort;
     private int masterHttpPort;
     private String masterIp;
@@ -311,6 +337,9 @@ public class Catalog {
 
     private static Catalog CHECKPOINT = null;
     private static long checkpointThreadId = -1;
+    // threads which save or load image sections for checkpoint thread
+    private static final ThreadLocal<Boolean> isCheckpointWorker = ThreadLocal.withInitial(() -> false);
+    private static volatile ExecutorService imageExecutor = null;
     private Checkpoint checkpointer;
     private List<Pair<String, Integer>> helperNodes = Lists.newArrayList();
     private Pair<String, Integer> selfNode = null;
@@ -353,6 +382,9 @@ public class Catalog {
 
     private TabletChecker tabletChecker;
 
+    // started by MasterImpl to handle reports of backends
+    private ReportHandler reportHandler;
+
     private MasterTaskExecutor loadTaskScheduler;
 
     private LoadJobScheduler loadJobScheduler;
@@ -468,6 +500,7 @@ public class Catalog {
         this.brokerMgr = new BrokerMgr();
 
         this.globalTransactionMgr = new GlobalTransactionMgr(this);
+        this.globalTransactionMgr.setPublishVersionDaemon(publishVersionDaemon);
         this.tabletStatMgr = new TabletStatMgr();
 
         this.auth = new PaloAuth();
@@ -481,6 +514,7 @@ public class Catalog {
         this.stat = new TabletSchedulerStat();
         this.tabletScheduler = new TabletScheduler(this, systemInfo, tabletInvertedIndex, stat);
         this.tabletChecker = new TabletChecker(this, systemInfo, tabletScheduler, stat);
+        this.reportHandler = new ReportHandler();
 
         this.loadTaskScheduler = new MasterTaskExecutor(Config.async_load_task_pool_size);
         this.loadJobScheduler = new LoadJobScheduler();
@@ -535,6 +569,10 @@ public class Catalog {
         return globalTransactionMgr;
     }
 
+    public PublishVersionDaemon getPublishVersionDaemon() {
+        return publishVersionDaemon;
+    }
+
     public PaloAuth getAuth() {
         return auth;
     }
@@ -547,6 +585,10 @@ public class Catalog {
         return tabletChecker;
     }
 
+    public ReportHandler getReportHandler() {
+        return reportHandler;
+    }
+
     // use this to get correct ClusterInfoService instance
     public static SystemInfoService getCurrentSystemInfo() {
         return getCurrentCatalog().getClusterInfo();
@@ -576,7 +618,24 @@ public class Catalog {
     }
 
     public static final boolean isCheckpointThread() {
-        return Thread.currentThread().getId() == checkpointThreadId;
+        return Thread.currentThread().getId() == checkpointThreadId || isCheckpointWorker.get();
+    }
+
+    // only for threads working for checkpoint thread, eg: saving image sections in parallel
+    public static void setCheckpointWorker(boolean isWorker) {
+        isCheckpointWorker.set(isWorker);
+    }
+
+    private static ExecutorService getImageExecutor() {
+        if (imageExecutor == null) {
+            synchronized (Catalog.class) {
+                if (imageExecutor == null) {
+                    imageExecutor = Executors.newFixedThreadPool(Config.image_parallel_thread_num,
+                            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("image-worker-%d").build());
+                }
+            }
+        }
+        return imageExecutor;
     }
 
     // Use tryLock to avoid potential dead lock
@@ -1300,6 +1359,11 @@ public class Catalog {
         replayedJournalId.set(storage.getImageSeq());
         LOG.info("start load image from {}. is ckpt: {}", curFile.getAbsolutePath(), Catalog.isCheckpointThread());
         long loadImageStartTime = System.currentTimeMillis();
+        if (SectionedImage.isSectionedImage(curFile)) {
+            loadSectionedImage(curFile);
+            LOG.info("finished load sectioned image in {} ms", System.currentTimeMillis() - loadImageStartTime);
+            return;
+        }
         DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(curFile)));
 
         long checksum = 0;
@@ -1343,39 +1407,114 @@ public class Catalog {
         }
 
         // create inverted index
-        TabletInvertedIndex invertedIndex = Catalog.getCurrentInvertedIndex();
         for (Database db : this.fullNameToDb.values()) {
-            long dbId = db.getId();
-            for (Table table : db.getTables()) {
-                if (table.getType() != TableType.OLAP) {
-                    continue;
-                }
+            recreateTabletInvertIndex(db);
+        } // end for dbs
+    }
 
-                OlapTable olapTable = (OlapTable) table;
-                long tableId = olapTable.getId();
-                for (Partition partition : olapTable.getPartitions()) {
-                    long partitionId = partition.getId();
-                    TStorageMedium medium = olapTable.getPartitionInfo().getDataProperty(
-                            partitionId).getStorageMedium();
-                    for (MaterializedIndex index : partition.getMaterializedIndices(IndexExtState.ALL)) {
-                        long indexId = index.getId();
-                        int schemaHash = olapTable.getSchemaHashByIndexId(indexId);
-                        TabletMeta tabletMeta = new TabletMeta(dbId, tableId, partitionId, indexId, schemaHash, medium);
-                        for (Tablet tablet : index.getTablets()) {
-                            long tabletId = tablet.getId();
-                            invertedIndex.addTablet(tabletId, tabletMeta);
-                            for (Replica replica : tablet.getReplicas()) {
-                                invertedIndex.addReplica(tabletId, replica);
-                                if (MetaContext.get().getMetaVersion() < FeMetaVersion.VERSION_48) {
-                                    // set replica's schema hash
-                                    replica.setSchemaHash(schemaHash);
-                                }
+    private void recreateTabletInvertIndex(Database db) {
+        TabletInvertedIndex invertedIndex = Catalog.getCurrentInvertedIndex();
+        long dbId = db.getId();
+        for (Table table : db.getTables()) {
+            if (table.getType() != TableType.OLAP) {
+                continue;
+            }
+
+            OlapTable olapTable = (OlapTable) table;
+            long tableId = olapTable.getId();
+            for (Partition partition : olapTable.getPartitions()) {
+                long partitionId = partition.getId();
+                TStorageMedium medium = olapTable.getPartitionInfo().getDataProperty(
+                        partitionId).getStorageMedium();
+                for (MaterializedIndex index : partition.getMaterializedIndices(IndexExtState.ALL)) {
+                    long indexId = index.getId();
+                    int schemaHash = olapTable.getSchemaHashByIndexId(indexId);
+                    TabletMeta tabletMeta = new TabletMeta(dbId, tableId, partitionId, indexId, schemaHash, medium);
+                    for (Tablet tablet : index.getTablets()) {
+                        long tabletId = tablet.getId();
+                        invertedIndex.addTablet(tabletId, tabletMeta);
+                        for (Replica replica : tablet.getReplicas()) {
+                            invertedIndex.addReplica(tabletId, replica);
+                            if (MetaContext.get().getMetaVersion() < FeMetaVersion.VERSION_48) {
+                                // set replica's schema hash
+                                replica.setSchemaHash(schemaHash);
                             }
                         }
-                    } // end for indices
-                } // end for partitions
-            } // end for tables
-        } // end for dbs
+                    }
+                } // end for indices
+            } // end for partitions
+        } // end for tables
+    }
+
+    /*
+     * Sections of databases are loaded in parallel, and the tablet inverted index of each database
+     * is rebuilt in the same task. Then the large independent sections (load jobs, alter jobs, auth
+     * and transactions) are loaded in parallel. Other sections are small and loaded in the original order.
+     *
+     * In incremental checkpoint, databases are not loaded here but when they are accessed, and sections
+     * of databases which are never accessed are copied to the new image as is. This only works if the
+     * image is of current meta version, otherwise the copied sections could not be read with the new header.
+     */
+    private void loadSectionedImage(File curFile) throws IOException {
+        SectionedImage.Reader reader = new SectionedImage.Reader(curFile);
+        reader.load(IMAGE_SECTION_META, dis -> {
+            long checksum = loadHeader(dis, 0);
+            checksum = loadMasterInfo(dis, checksum);
+            checksum = loadFrontends(dis, checksum);
+            Catalog.getCurrentSystemInfo().loadBackends(dis, checksum);
+        });
+
+        if (isCheckpointThread() && Config.enable_incremental_checkpoint
+                && MetaContext.get().getMetaVersion() == FeConstants.meta_version) {
+            List<LazyDatabaseIndex.Entry> dbEntries = LazyDatabaseIndex.readEntries(reader,
+                    IMAGE_SECTION_DB_INDEX, IMAGE_SECTION_DB);
+            if (dbEntries != null) {
+                lazyDatabaseIndex = new LazyDatabaseIndex(reader, MetaContext.get().getMetaVersion(), dbEntries);
+                idToDb = lazyDatabaseIndex.getIdToDb();
+                fullNameToDb = lazyDatabaseIndex.getFullNameToDb();
+                LOG.info("{} databases of image will be loaded when accessed", dbEntries.size());
+            }
+        }
+        if (lazyDatabaseIndex == null) {
+            loadSectionedDbs(reader);
+        }
+
+        List<Pair<List<SectionedImage.Section>, SectionedImage.SectionLoader>> tasks = Lists.newArrayList();
+        tasks.add(Pair.create(reader.getSections(IMAGE_SECTION_LOAD_JOB), dis -> loadLoadJob(dis, 0)));
+        tasks.add(Pair.create(reader.getSections(IMAGE_SECTION_ALTER_JOB), dis -> loadAlterJob(dis, 0)));
+        tasks.add(Pair.create(reader.getSections(IMAGE_SECTION_AUTH), dis -> loadPaloAuth(dis, 0)));
+        tasks.add(Pair.create(reader.getSections(IMAGE_SECTION_TRANSACTION), dis -> loadTransactionState(dis, 0)));
+        reader.loadInParallel(getImageExecutor(), tasks);
+
+        reader.load(IMAGE_SECTION_RECYCLE_BIN, dis -> loadRecycleBin(dis, 0));
+        reader.load(IMAGE_SECTION_GLOBAL_VARIABLE, dis -> loadGlobalVariable(dis, 0));
+        reader.load(IMAGE_SECTION_CLUSTER, dis -> loadCluster(dis, 0));
+        reader.load(IMAGE_SECTION_BROKER, dis -> loadBrokers(dis, 0));
+        reader.load(IMAGE_SECTION_EXPORT_JOB, dis -> loadExportJob(dis, 0));
+        reader.load(IMAGE_SECTION_BACKUP_HANDLER, dis -> loadBackupHandler(dis, 0));
+        reader.load(IMAGE_SECTION_COLOCATE_INDEX, dis -> loadColocateTableIndex(dis, 0));
+        reader.load(IMAGE_SECTION_ROUTINE_LOAD_JOB, dis -> loadRoutineLoadJobs(dis, 0));
+        reader.load(IMAGE_SECTION_LOAD_JOB_V2, dis -> loadLoadJobsV2(dis, 0));
+        reader.load(IMAGE_SECTION_SMALL_FILE, dis -> loadSmallFiles(dis, 0));
+    }
+
+    private void loadSectionedDbs(SectionedImage.Reader reader) throws IOException {
+        List<Pair<List<SectionedImage.Section>, SectionedImage.SectionLoader>> dbTasks = Lists.newArrayList();
+        for (SectionedImage.Section section : reader.getSections(IMAGE_SECTION_DB)) {
+            dbTasks.add(Pair.create(Lists.newArrayList(section), dis -> {
+                Database db = new Database();
+                db.readFields(dis);
+                idToDb.put(db.getId(), db);
+                fullNameToDb.put(db.getFullName(), db);
+                if (db.getDbState() == DbState.LINK) {
+                    fullNameToDb.put(db.getAttachDb(), db);
+                }
+                if (!isCheckpointThread()) {
+                    recreateTabletInvertIndex(db);
+                }
+            }));
+        }
+        reader.loadInParallel(getImageExecutor(), dbTasks);
     }
 
     public long loadHeader(DataInputStream dis, long checksum) throws IOException {
@@ -1730,10 +1869,20 @@ public class Catalog {
     }
 
     public void saveImage(File curFile, long replayedJournalId) throws IOException {
+        saveImage(curFile, replayedJournalId, false);
+    }
+
+    // dbLocked is true if the caller holds the read locks of all databases, see dumpImage()
+    private void saveImage(File curFile, long replayedJournalId, boolean dbLocked) throws IOException {
         if (!curFile.exists()) {
             curFile.createNewFile();
         }
 
+        if (Config.enable_sectioned_image) {
+            saveSectionedImage(curFile, replayedJournalId, dbLocked);
+            return;
+        }
+
         // save image does not need any lock. because only checkpoint thread will call this method.
         LOG.info("start save image to {}. is ckpt: {}", curFile.getAbsolutePath(), Catalog.isCheckpointThread());
 
@@ -1770,6 +1919,86 @@ public class Catalog {
                 curFile.getAbsolutePath(), (saveImageEndTime - saveImageStartTime), checksum);
     }
 
+    // Each database is a section. All sections are serialized in parallel.
+    private void saveSectionedImage(File curFile, long replayedJournalId, boolean dbLocked) throws IOException {
+        LOG.info("start save sectioned image to {}. is ckpt: {}", curFile.getAbsolutePath(),
+                 Catalog.isCheckpointThread());
+        long saveImageStartTime = System.currentTimeMillis();
+        SectionedImage.Writer writer = new SectionedImage.Writer(curFile, getImageExecutor(),
+                Config.image_parallel_thread_num * 2);
+        long checksum;
+        try {
+            writer.addSection(IMAGE_SECTION_META, dos -> {
+                long sectionChecksum = saveHeader(dos, replayedJournalId, 0);
+                sectionChecksum = saveMasterInfo(dos, sectionChecksum);
+                sectionChecksum = saveFrontends(dos, sectionChecksum);
+                Catalog.getCurrentSystemInfo().saveBackends(dos, sectionChecksum);
+            });
+            // databases not loaded in incremental checkpoint are copied from the previous image
+            Collection<Database> dbs = lazyDatabaseIndex == null ? idToDb.values()
+                    : lazyDatabaseIndex.getLoadedDatabases();
+            List<LazyDatabaseIndex.Entry> unloadedEntries = lazyDatabaseIndex == null ? Lists.newArrayList()
+                    : lazyDatabaseIndex.getUnloadedEntries();
+            List<Database> savedDbs = Lists.newArrayList();
+            List<LazyDatabaseIndex.Entry> dbEntries = Lists.newArrayList();
+            for (Database db : dbs) {
+                if (db.getId() < NEXT_ID_INIT_VALUE) {
+                    // database of cluster, same as saveDb()
+                    continue;
+                }
+                savedDbs.add(db);
+                dbEntries.add(LazyDatabaseIndex.Entry.of(db));
+            }
+            dbEntries.addAll(unloadedEntries);
+            // entries are in the same order as the database sections
+            writer.addSection(IMAGE_SECTION_DB_INDEX, dos -> LazyDatabaseIndex.writeEntries(dos, dbEntries));
+            for (Database db : savedDbs) {
+                writer.addSection(IMAGE_SECTION_DB, dos -> {
+                    // Databases are written by image workers, not by the caller. If the caller already holds
+                    // the read lock, locking it again in a worker may wait behind a queued writer of the fair
+                    // lock, while the writer waits for the caller.
+                    if (dbLocked) {
+                        db.write(dos);
+                        return;
+                    }
+                    db.readLock();
+                    try {
+                        db.write(dos);
+                    } finally {
+                        db.readUnlock();
+                    }
+                });
+            }
+            for (LazyDatabaseIndex.Entry entry : unloadedEntries) {
+                writer.addRawSection(IMAGE_SECTION_DB, lazyDatabaseIndex.getImageFile(), entry.getSection());
+            }
+            if (lazyDatabaseIndex != null) {
+                LOG.info("incremental checkpoint saves {} databases and copies {} databases from image {}",
+                        savedDbs.size(), unloadedEntries.size(), lazyDatabaseIndex.getImageFile().getName());
+            }
+            writer.addSection(IMAGE_SECTION_LOAD_JOB, dos -> saveLoadJob(dos, 0));
+            writer.addSection(IMAGE_SECTION_ALTER_JOB, dos -> saveAlterJob(dos, 0));
+            writer.addSection(IMAGE_SECTION_RECYCLE_BIN, dos -> saveRecycleBin(dos, 0));
+            writer.addSection(IMAGE_SECTION_GLOBAL_VARIABLE, dos -> saveGlobalVariable(dos, 0));
+            writer.addSection(IMAGE_SECTION_CLUSTER, dos -> saveCluster(dos, 0));
+            writer.addSection(IMAGE_SECTION_BROKER, dos -> saveBrokers(dos, 0));
+            writer.addSection(IMAGE_SECTION_EXPORT_JOB, dos -> saveExportJob(dos, 0));
+            writer.addSection(IMAGE_SECTION_BACKUP_HANDLER, dos -> saveBackupHandler(dos, 0));
+            writer.addSection(IMAGE_SECTION_AUTH, dos -> savePaloAuth(dos, 0));
+            writer.addSection(IMAGE_SECTION_TRANSACTION, dos -> saveTransactionState(dos, 0));
+            writer.addSection(IMAGE_SECTION_COLOCATE_INDEX, dos -> saveColocateTableIndex(dos, 0));
+            writer.addSection(IMAGE_SECTION_ROUTINE_LOAD_JOB, dos -> saveRoutineLoadJobs(dos, 0));
+            writer.addSection(IMAGE_SECTION_LOAD_JOB_V2, dos -> saveLoadJobsV2(dos, 0));
+            writer.addSection(IMAGE_SECTION_SMALL_FILE, dos -> saveSmallFiles(dos, 0));
+            checksum = writer.finish();
+        } finally {
+            writer.close();
+        }
+
+        LOG.info("finished save sectioned image {} in {} ms. checksum is {}",
+                curFile.getAbsolutePath(), (System.currentTimeMillis() - saveImageStartTime), checksum);
+    }
+
     public long saveHeader(DataOutputStream dos, long replayedJournalId, long checksum) throws IOException {
         // Write meta version
         checksum ^= FeConstants.meta_version;
@@ -2242,22 +2471,26 @@ public class Catalog {
 
         long startTime = System.currentTimeMillis();
         boolean hasLog = false;
-        while (true) {
-            JournalEntity entity = cursor.next();
-            if (entity == null) {
-                break;
-            }
-            hasLog = true;
-            EditLog.loadJournal(this, entity);
-            replayedJournalId.incrementAndGet();
-            LOG.debug("journal {} replayed.", replayedJournalId);
-            if (!isMaster) {
-                journalObservable.notifyObservers(replayedJournalId.get());
-            }
-            if (MetricRepo.isInit.get()) {
-                // Metric repo may not init after this replay thread start
-                MetricRepo.COUNTER_EDIT_LOG_READ.increase(1L);
+        try {
+            while (true) {
+                JournalEntity entity = cursor.next();
+                if (entity == null) {
+                    break;
+                }
+                hasLog = true;
+                EditLog.loadJournal(this, entity);
+                replayedJournalId.incrementAndGet();
+                LOG.debug("journal {} replayed.", replayedJournalId);
+                if (!isMaster) {
+                    journalObservable.notifyObservers(replayedJournalId.get());
+                }
+                if (MetricRepo.isInit.get()) {
+                    // Metric repo may not init after this replay thread start
+                    MetricRepo.COUNTER_EDIT_LOG_READ.increase(1L);
+                }
             }
+        } finally {
+            cursor.close();
         }
         long cost = System.currentTimeMillis() - startTime;
         if (cost >= 1000) {
@@ -2489,6 +2722,7 @@ public class Catalog {
             final Cluster cluster = nameToCluster.get(db.getClusterName());
             cluster.removeDb(dbName, db.getId());
             editLog.logDropDb(dbName);
+            globalTransactionMgr.removeDatabaseTransactionMgr(db.getId());
         } finally {
             unlock();
         }
@@ -2535,6 +2769,7 @@ public class Catalog {
             idToDb.remove(db.getId());
             final Cluster cluster = nameToCluster.get(db.getClusterName());
             cluster.removeDb(dbName, db.getId());
+            globalTransactionMgr.removeDatabaseTransactionMgr(db.getId());
         } finally {
             unlock();
         }
@@ -4654,6 +4889,10 @@ public class Catalog {
         this.synchronizedTimeMs = time;
     }
 
+    public long getSynchronizedTime() {
+        return synchronizedTimeMs;
+    }
+
     public void setEditLog(EditLog editLog) {
         this.editLog = editLog;
     }
@@ -5861,7 +6100,7 @@ public class Catalog {
             dumpFilePath = dumpFile.getAbsolutePath();
             try {
                 LOG.info("begin to dump {}", dumpFilePath);
-                saveImage(dumpFile, journalId);
+                saveImage(dumpFile, journalId, true);
             } catch (IOException e) {
                 LOG.error("failed to dump image to {}", dumpFilePath, e);
             }
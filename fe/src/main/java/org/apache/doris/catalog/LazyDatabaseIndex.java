@@ -0,0 +1,455 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.catalog.Database.DbState;
+import org.apache.doris.common.io.Text;
+import org.apache.doris.meta.MetaContext;
+import org.apache.doris.persist.SectionedImage;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ * Databases of a sectioned image which are loaded only when they are accessed.
+ * It is used by the checkpoint catalog in incremental checkpoint: databases not touched by the replayed
+ * journals are never deserialized, and their sections are copied from the previous image as is.
+ *
+ * idToDb and fullNameToDb of the checkpoint catalog are replaced by the maps of this class.
+ * Accessing a database by key loads it. Operations over the whole map, such as iteration and size,
+ * load all remaining databases first, so callers always see the complete catalog.
+ */
+public class LazyDatabaseIndex {
+
+    // id and names of a database in image, so that it can be found without loading it
+    public static class Entry {
+        private final long dbId;
+        private final String fullName;
+        // not null only if the database is in LINK state
+        private final String attachDb;
+        private SectionedImage.Section section;
+
+        public Entry(long dbId, String fullName, String attachDb) {
+            this.dbId = dbId;
+            this.fullName = fullName;
+            this.attachDb = attachDb;
+        }
+
+        public static Entry of(Database db) {
+            return new Entry(db.getId(), db.getFullName(),
+                    db.getDbState() == DbState.LINK ? db.getAttachDb() : null);
+        }
+
+        public long getDbId() {
+            return dbId;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getAttachDb() {
+            return attachDb;
+        }
+
+        public SectionedImage.Section getSection() {
+            return section;
+        }
+    }
+
+    private final SectionedImage.Reader reader;
+    // databases in image are deserialized with the meta version of the image,
+    // which may be changed by the replayed journals
+    private final int metaVersion;
+
+    // guarded by this
+    private final Map<Long, Entry> unloadedById = Maps.newHashMap();
+    private final Map<String, Long> unloadedIdByName = Maps.newHashMap();
+    private volatile boolean allLoaded;
+
+    private final IdMap idToDb = new IdMap();
+    private final NameMap fullNameToDb = new NameMap();
+
+    public LazyDatabaseIndex(SectionedImage.Reader reader, int metaVersion, List<Entry> entries) {
+        this.reader = reader;
+        this.metaVersion = metaVersion;
+        for (Entry entry : entries) {
+            unloadedById.put(entry.dbId, entry);
+            unloadedIdByName.put(entry.fullName, entry.dbId);
+            if (entry.attachDb != null) {
+                unloadedIdByName.put(entry.attachDb, entry.dbId);
+            }
+        }
+        allLoaded = entries.isEmpty();
+    }
+
+    public static void writeEntries(DataOutputStream dos, List<Entry> entries) throws IOException {
+        dos.writeInt(entries.size());
+        for (Entry entry : entries) {
+            dos.writeLong(entry.dbId);
+            Text.writeString(dos, entry.fullName);
+            dos.writeBoolean(entry.attachDb != null);
+            if (entry.attachDb != null) {
+                Text.writeString(dos, entry.attachDb);
+            }
+        }
+    }
+
+    /*
+     * Read the entries from the index section, and match them with the database sections in order.
+     * Return null if there is no index section in image.
+     */
+    public static List<Entry> readEntries(SectionedImage.Reader reader, String indexSectionName,
+                                          String dbSectionName) throws IOException {
+        List<SectionedImage.Section> indexSections = reader.getSections(indexSectionName);
+        if (indexSections.isEmpty()) {
+            return null;
+        }
+        List<Entry> entries = Lists.newArrayList();
+        reader.load(indexSections.get(0), dis -> readEntries(dis, entries));
+        List<SectionedImage.Section> dbSections = reader.getSections(dbSectionName);
+        if (dbSections.size() != entries.size()) {
+            throw new IOException("database index of image mismatch: " + entries.size() + " entries vs. "
+                    + dbSections.size() + " sections");
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).section = dbSections.get(i);
+        }
+        return entries;
+    }
+
+    private static void readEntries(DataInputStream dis, List<Entry> entries) throws IOException {
+        int size = dis.readInt();
+        for (int i = 0; i < size; i++) {
+            long dbId = dis.readLong();
+            String fullName = Text.readString(dis);
+            String attachDb = dis.readBoolean() ? Text.readString(dis) : null;
+            entries.add(new Entry(dbId, fullName, attachDb));
+        }
+    }
+
+    public ConcurrentHashMap<Long, Database> getIdToDb() {
+        return idToDb;
+    }
+
+    public ConcurrentHashMap<String, Database> getFullNameToDb() {
+        return fullNameToDb;
+    }
+
+    public File getImageFile() {
+        return reader.getFile();
+    }
+
+    // databases which are loaded or added after image is loaded, do not load the others
+    public List<Database> getLoadedDatabases() {
+        return idToDb.loadedValues();
+    }
+
+    public synchronized List<Entry> getUnloadedEntries() {
+        return Lists.newArrayList(unloadedById.values());
+    }
+
+    private void loadById(Object key) {
+        if (allLoaded || !(key instanceof Long)) {
+            return;
+        }
+        synchronized (this) {
+            Entry entry = unloadedById.get(key);
+            if (entry != null) {
+                load(entry);
+            }
+        }
+    }
+
+    private void loadByName(Object key) {
+        if (allLoaded || !(key instanceof String)) {
+            return;
+        }
+        synchronized (this) {
+            Long dbId = unloadedIdByName.get(key);
+            if (dbId != null) {
+                load(unloadedById.get(dbId));
+            }
+        }
+    }
+
+    private synchronized void loadAll() {
+        if (allLoaded) {
+            return;
+        }
+        for (Entry entry : Lists.newArrayList(unloadedById.values())) {
+            load(entry);
+        }
+    }
+
+    // must hold the lock of this
+    // the section is verified by its CRC32 when loaded, it may have been copied through several images
+    private void load(Entry entry) {
+        MetaContext metaContext = MetaContext.get();
+        int curMetaVersion = metaContext.getMetaVersion();
+        Database[] loaded = new Database[1];
+        metaContext.setMetaVersion(metaVersion);
+        try {
+            reader.load(entry.section, dis -> {
+                Database db = new Database();
+                db.readFields(dis);
+                loaded[0] = db;
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to load database " + entry.fullName + " from image", e);
+        } finally {
+            metaContext.setMetaVersion(curMetaVersion);
+        }
+
+        Database db = loaded[0];
+        unloadedById.remove(entry.dbId);
+        unloadedIdByName.remove(entry.fullName);
+        idToDb.putLoaded(db.getId(), db);
+        fullNameToDb.putLoaded(db.getFullName(), db);
+        if (entry.attachDb != null) {
+            unloadedIdByName.remove(entry.attachDb);
+            fullNameToDb.putLoaded(entry.attachDb, db);
+        }
+        allLoaded = unloadedById.isEmpty();
+    }
+
+    private abstract class LazyMap<K> extends ConcurrentHashMap<K, Database> {
+        abstract void loadKey(Object key);
+
+        void putLoaded(K key, Database db) {
+            super.put(key, db);
+        }
+
+        List<Database> loadedValues() {
+            return Lists.newArrayList(super.values());
+        }
+
+        @Override
+        public Database get(Object key) {
+            loadKey(key);
+            return super.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            loadKey(key);
+            return super.containsKey(key);
+        }
+
+        @Override
+        public Database getOrDefault(Object key, Database defaultValue) {
+            loadKey(key);
+            return super.getOrDefault(key, defaultValue);
+        }
+
+        @Override
+        public Database put(K key, Database value) {
+            loadKey(key);
+            return super.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends Database> m) {
+            for (Map.Entry<? extends K, ? extends Database> e : m.entrySet()) {
+                put(e.getKey(), e.getValue());
+            }
+        }
+
+        @Override
+        public Database putIfAbsent(K key, Database value) {
+            loadKey(key);
+            return super.putIfAbsent(key, value);
+        }
+
+        @Override
+        public Database remove(Object key) {
+            loadKey(key);
+            return super.remove(key);
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            loadKey(key);
+            return super.remove(key, value);
+        }
+
+        @Override
+        public Database replace(K key, Database value) {
+            loadKey(key);
+            return super.replace(key, value);
+        }
+
+        @Override
+        public boolean replace(K key, Database oldValue, Database newValue) {
+            loadKey(key);
+            return super.replace(key, oldValue, newValue);
+        }
+
+        @Override
+        public Database computeIfAbsent(K key, Function<? super K, ? extends Database> mappingFunction) {
+            loadKey(key);
+            return super.computeIfAbsent(key, mappingFunction);
+        }
+
+        @Override
+        public Database computeIfPresent(
+                K key, BiFunction<? super K, ? super Database, ? extends Database> remappingFunction) {
+            loadKey(key);
+            return super.computeIfPresent(key, remappingFunction);
+        }
+
+        @Override
+        public Database compute(K key, BiFunction<? super K, ? super Database, ? extends Database> remappingFunction) {
+            loadKey(key);
+            return super.compute(key, remappingFunction);
+        }
+
+        @Override
+        public Database merge(K key, Database value,
+                              BiFunction<? super Database, ? super Database, ? extends Database> remappingFunction) {
+            loadKey(key);
+            return super.merge(key, value, remappingFunction);
+        }
+
+        // operations over the whole map
+
+        @Override
+        public int size() {
+            loadAll();
+            return super.size();
+        }
+
+        @Override
+        public long mappingCount() {
+            loadAll();
+            return super.mappingCount();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            loadAll();
+            return super.isEmpty();
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            loadAll();
+            return super.containsValue(value);
+        }
+
+        @Override
+        public boolean contains(Object value) {
+            loadAll();
+            return super.contains(value);
+        }
+
+        @Override
+        public KeySetView<K, Database> keySet() {
+            loadAll();
+            return super.keySet();
+        }
+
+        @Override
+        public Collection<Database> values() {
+            loadAll();
+            return super.values();
+        }
+
+        @Override
+        public Set<Map.Entry<K, Database>> entrySet() {
+            loadAll();
+            return super.entrySet();
+        }
+
+        @Override
+        public Enumeration<K> keys() {
+            loadAll();
+            return super.keys();
+        }
+
+        @Override
+        public Enumeration<Database> elements() {
+            loadAll();
+            return super.elements();
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super K, ? super Database> action) {
+            loadAll();
+            super.forEach(action);
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super Database, ? extends Database> function) {
+            loadAll();
+            super.replaceAll(function);
+        }
+
+        @Override
+        public void clear() {
+            loadAll();
+            super.clear();
+        }
+
+        @Override
+        public String toString() {
+            loadAll();
+            return super.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            loadAll();
+            return super.equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            loadAll();
+            return super.hashCode();
+        }
+    }
+
+    private class IdMap extends LazyMap<Long> {
+        @Override
+        void loadKey(Object key) {
+            loadById(key);
+        }
+    }
+
+    private class NameMap extends LazyMap<String> {
+        @Override
+        void loadKey(Object key) {
+            loadByName(key);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.doris.catalog;
 
 import org.apache.doris.common.io.Text;
 import org.apache.doris.common.io.Writable;
+import org.apache.doris.common.util.LongObjectHashMap;
 
 import com.google.common.collect.Lists;
 
@@ -26,10 +27,7 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * The OlapTraditional table is a materialized table which stored as rowcolumnar file or columnar file
@@ -59,7 +57,7 @@ public class MaterializedIndex extends MetaObject implements Writable {
     private IndexState state;
     private long rowCount;
 
-    private Map<Long, Tablet> idToTablets;
+    private LongObjectHashMap<Tablet> idToTablets;
     // this is for keeping tablet order
     private List<Tablet> tablets;
 
@@ -69,7 +67,7 @@ public class MaterializedIndex extends MetaObject implements Writable {
 
     public MaterializedIndex() {
         this.state = IndexState.NORMAL;
-        this.idToTablets = new HashMap<Long, Tablet>();
+        this.idToTablets = new LongObjectHashMap<Tablet>();
         this.tablets = new ArrayList<Tablet>();
     }
 
@@ -81,7 +79,7 @@ public class MaterializedIndex extends MetaObject implements Writable {
             this.state = IndexState.NORMAL;
         }
 
-        this.idToTablets = new HashMap<Long, Tablet>();
+        this.idToTablets = new LongObjectHashMap<Tablet>();
         this.tablets = new ArrayList<Tablet>();
 
         this.rowCount = 0;
@@ -247,12 +245,9 @@ public class MaterializedIndex extends MetaObject implements Writable {
         if (idToTablets.size() != table.idToTablets.size()) {
             return false;
         }
-        for (Entry<Long, Tablet> entry : idToTablets.entrySet()) {
-            long key = entry.getKey();
-            if (!table.idToTablets.containsKey(key)) {
-                return false;
-            }
-            if (!entry.getValue().equals(table.idToTablets.get(key))) {
+        for (Tablet tablet : tablets) {
+            Tablet otherTablet = table.idToTablets.get(tablet.getId());
+            if (otherTablet == null || !tablet.equals(otherTablet)) {
                 return false;
             }
         }
@@ -221,6 +221,11 @@ public class Replica implements Writable {
             return false;
         }
         this.bad = bad;
+        // the health of the tablet is changed, let TabletChecker check its partition again
+        TabletMeta tabletMeta = Catalog.getCurrentInvertedIndex().getTabletMetaByReplica(id);
+        if (tabletMeta != null) {
+            Catalog.getCurrentInvertedIndex().markPartitionDirty(tabletMeta.getPartitionId());
+        }
         return true;
     }
 
@@ -18,6 +18,9 @@
 package org.apache.doris.catalog;
 
 import org.apache.doris.catalog.Replica.ReplicaState;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.util.LongLongHashMap;
+import org.apache.doris.common.util.LongObjectHashMap;
 import org.apache.doris.thrift.TPartitionVersionInfo;
 import org.apache.doris.thrift.TStorageMedium;
 import org.apache.doris.thrift.TTablet;
@@ -35,37 +38,50 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 import com.google.common.collect.Table;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
 
 /*
  * this class stores a inverted index
  * key is tablet id. value is the related ids of this tablet
  * Checkpoint thread is no need to modify this inverted index, because this inverted index will not be wrote
  * into images, all meta data are in catalog, and the inverted index will be rebuild when FE restart.
+ *
+ * The index is partitioned into shards by tablet id, and each shard has its own lock,
+ * so a tablet report only blocks modifications of the shard it is diffing.
  */
 public class TabletInvertedIndex {
     private static final Logger LOG = LogManager.getLogger(TabletInvertedIndex.class);
 
     public static final int NOT_EXIST_VALUE = -1;
 
-    private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // shared by all inverted indexes, created when first used
+    private static volatile ExecutorService reportDiffExecutor = null;
+
+    private static final LongObjectHashMap<Replica> EMPTY_REPLICAS = new LongObjectHashMap<>();
+
+    private final Shard[] shards;
+
+    // replica id -> tablet id, striped by replica id. each stripe is protected by itself.
+    private final LongLongHashMap[] replicaToTabletMaps;
 
-    // tablet id -> tablet meta
-    private Map<Long, TabletMeta> tabletMetaMap = Maps.newHashMap();
-    
-    // replica id -> tablet id
-    private Map<Long, Long> replicaToTabletMap = Maps.newHashMap();
-    
     /*
      *  we use this to save memory.
      *  we do not need create TabletMeta instance for each tablet,
@@ -74,35 +90,241 @@ public class TabletInvertedIndex {
      *  we use 'tabletMetaTable' to do the update things
      *      (eg. update schema hash in TabletMeta)
      *  partition id -> (index id -> tablet meta)
+     *
+     *  tablets of one index are in different shards, so this table is protected by its own lock.
+     *  lock order: shard lock -> tabletMetaTableLock
      */
+    private ReentrantReadWriteLock tabletMetaTableLock = new ReentrantReadWriteLock();
     private Table<Long, Long, TabletMeta> tabletMetaTable = HashBasedTable.create();
-    
-    // tablet id -> (backend id -> replica)
-    private Table<Long, Long, Replica> replicaMetaTable = HashBasedTable.create();
-    // backing replica table, for visiting backend replicas faster.
-    // backend id -> (tablet id -> replica)
-    private Table<Long, Long, Replica> backingReplicaMetaTable = HashBasedTable.create();
+
+    // partition id -> epoch of the last change of replicas in the partition
+    private Map<Long, Long> partitionDirtyEpochs = Maps.newConcurrentMap();
+    private AtomicLong dirtyEpoch = new AtomicLong(0);
+
+    // tablets with same (tablet id % shard num) and their replicas
+    private static class Shard {
+        private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // tablet id -> tablet meta
+        private LongObjectHashMap<TabletMeta> tabletMetaMap = new LongObjectHashMap<>();
+        // tablet id -> replicas of tablet. a tablet only has a few replicas, so array is enough.
+        private LongObjectHashMap<Replica[]> replicaMetaTable = new LongObjectHashMap<>();
+        // backing replica table, for visiting backend replicas faster.
+        // backend id -> (tablet id -> replica)
+        private Map<Long, LongObjectHashMap<Replica>> backingReplicaMetaTable = Maps.newHashMap();
+
+        private final void readLock() {
+            this.lock.readLock().lock();
+        }
+
+        private final void readUnlock() {
+            this.lock.readLock().unlock();
+        }
+
+        private final void writeLock() {
+            this.lock.writeLock().lock();
+        }
+
+        private final void writeUnlock() {
+            this.lock.writeLock().unlock();
+        }
+
+        private Replica getReplica(long tabletId, long backendId) {
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                for (Replica replica : replicas) {
+                    if (replica.getBackendId() == backendId) {
+                        return replica;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void putReplica(long tabletId, Replica replica) {
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas == null) {
+                replicaMetaTable.put(tabletId, new Replica[] { replica });
+            } else {
+                int idx = 0;
+                while (idx < replicas.length && replicas[idx].getBackendId() != replica.getBackendId()) {
+                    idx++;
+                }
+                Replica[] newReplicas = Arrays.copyOf(replicas, Math.max(replicas.length, idx + 1));
+                newReplicas[idx] = replica;
+                replicaMetaTable.put(tabletId, newReplicas);
+            }
+
+            LongObjectHashMap<Replica> backendReplicas = backingReplicaMetaTable.get(replica.getBackendId());
+            if (backendReplicas == null) {
+                backendReplicas = new LongObjectHashMap<>();
+                backingReplicaMetaTable.put(replica.getBackendId(), backendReplicas);
+            }
+            backendReplicas.put(tabletId, replica);
+        }
+
+        private Replica removeReplica(long tabletId, long backendId) {
+            Replica[] replicas = replicaMetaTable.get(tabletId);
+            if (replicas == null) {
+                return null;
+            }
+            Replica removed = null;
+            List<Replica> remained = Lists.newArrayListWithCapacity(replicas.length);
+            for (Replica replica : replicas) {
+                if (replica.getBackendId() == backendId) {
+                    removed = replica;
+                } else {
+                    remained.add(replica);
+                }
+            }
+            if (removed == null) {
+                return null;
+            }
+            if (remained.isEmpty()) {
+                replicaMetaTable.remove(tabletId);
+            } else {
+                replicaMetaTable.put(tabletId, remained.toArray(new Replica[remained.size()]));
+            }
+            removeBackingReplica(backendId, tabletId);
+            return removed;
+        }
+
+        // remove all replicas of tablet, return the removed replicas
+        private Replica[] removeReplicas(long tabletId) {
+            Replica[] replicas = replicaMetaTable.remove(tabletId);
+            if (replicas != null) {
+                for (Replica replica : replicas) {
+                    removeBackingReplica(replica.getBackendId(), tabletId);
+                }
+            }
+            return replicas;
+        }
+
+        private void removeBackingReplica(long backendId, long tabletId) {
+            LongObjectHashMap<Replica> backendReplicas = backingReplicaMetaTable.get(backendId);
+            if (backendReplicas != null) {
+                backendReplicas.remove(tabletId);
+                if (backendReplicas.isEmpty()) {
+                    backingReplicaMetaTable.remove(backendId);
+                }
+            }
+        }
+
+        private LongObjectHashMap<Replica> getBackendReplicas(long backendId) {
+            LongObjectHashMap<Replica> backendReplicas = backingReplicaMetaTable.get(backendId);
+            return backendReplicas == null ? EMPTY_REPLICAS : backendReplicas;
+        }
+    }
+
+    // results of diffing tablet report with the inverted index
+    private static class ReportDiff {
+        private ListMultimap<Long, Long> tabletSyncMap;
+        private ListMultimap<Long, Long> tabletDeleteFromMeta;
+        private Set<Long> foundTabletsWithValidSchema;
+        private Map<Long, TTabletInfo> foundTabletsWithInvalidSchema;
+        private ListMultimap<TStorageMedium, Long> tabletMigrationMap;
+        private Map<Long, ListMultimap<Long, TPartitionVersionInfo>> transactionsToPublish;
+        private ListMultimap<Long, Long> transactionsToClear;
+        private ListMultimap<Long, Long> tabletRecoveryMap;
+
+        // diff of one shard, will be merged into the final result later
+        private ReportDiff() {
+            this(ArrayListMultimap.create(), ArrayListMultimap.create(), Sets.newHashSet(), Maps.newHashMap(),
+                 ArrayListMultimap.create(), Maps.newHashMap(), ArrayListMultimap.create(),
+                 ArrayListMultimap.create());
+        }
+
+        private ReportDiff(ListMultimap<Long, Long> tabletSyncMap,
+                           ListMultimap<Long, Long> tabletDeleteFromMeta,
+                           Set<Long> foundTabletsWithValidSchema,
+                           Map<Long, TTabletInfo> foundTabletsWithInvalidSchema,
+                           ListMultimap<TStorageMedium, Long> tabletMigrationMap,
+                           Map<Long, ListMultimap<Long, TPartitionVersionInfo>> transactionsToPublish,
+                           ListMultimap<Long, Long> transactionsToClear,
+                           ListMultimap<Long, Long> tabletRecoveryMap) {
+            this.tabletSyncMap = tabletSyncMap;
+            this.tabletDeleteFromMeta = tabletDeleteFromMeta;
+            this.foundTabletsWithValidSchema = foundTabletsWithValidSchema;
+            this.foundTabletsWithInvalidSchema = foundTabletsWithInvalidSchema;
+            this.tabletMigrationMap = tabletMigrationMap;
+            this.transactionsToPublish = transactionsToPublish;
+            this.transactionsToClear = transactionsToClear;
+            this.tabletRecoveryMap = tabletRecoveryMap;
+        }
+
+        private void mergeTo(ReportDiff result) {
+            result.tabletSyncMap.putAll(tabletSyncMap);
+            result.tabletDeleteFromMeta.putAll(tabletDeleteFromMeta);
+            result.foundTabletsWithValidSchema.addAll(foundTabletsWithValidSchema);
+            result.foundTabletsWithInvalidSchema.putAll(foundTabletsWithInvalidSchema);
+            result.tabletMigrationMap.putAll(tabletMigrationMap);
+            for (Map.Entry<Long, ListMultimap<Long, TPartitionVersionInfo>> entry : transactionsToPublish.entrySet()) {
+                ListMultimap<Long, TPartitionVersionInfo> map = result.transactionsToPublish.get(entry.getKey());
+                if (map == null) {
+                    result.transactionsToPublish.put(entry.getKey(), entry.getValue());
+                } else {
+                    map.putAll(entry.getValue());
+                }
+            }
+            result.transactionsToClear.putAll(transactionsToClear);
+            result.tabletRecoveryMap.putAll(tabletRecoveryMap);
+        }
+    }
 
     public TabletInvertedIndex() {
+        this(Config.tablet_inverted_index_shard_num);
+    }
+
+    public TabletInvertedIndex(int shardNum) {
+        Preconditions.checkArgument(shardNum > 0, shardNum);
+        shards = new Shard[shardNum];
+        replicaToTabletMaps = new LongLongHashMap[shardNum];
+        for (int i = 0; i < shardNum; i++) {
+            shards[i] = new Shard();
+            replicaToTabletMaps[i] = new LongLongHashMap();
+        }
+    }
+
+    private Shard getShard(long tabletId) {
+        return shards[(int) Math.floorMod(tabletId, (long) shards.length)];
     }
 
-    private final void readLock() {
-        this.lock.readLock().lock();
+    private LongLongHashMap getReplicaToTabletMap(long replicaId) {
+        return replicaToTabletMaps[(int) Math.floorMod(replicaId, (long) replicaToTabletMaps.length)];
     }
 
-    private final void readUnlock() {
-        this.lock.readLock().unlock();
+    private void putReplicaToTablet(long replicaId, long tabletId) {
+        LongLongHashMap replicaToTabletMap = getReplicaToTabletMap(replicaId);
+        synchronized (replicaToTabletMap) {
+            replicaToTabletMap.put(replicaId, tabletId);
+        }
     }
 
-    private final void writeLock() {
-        this.lock.writeLock().lock();
+    private void removeReplicaToTablet(long replicaId) {
+        LongLongHashMap replicaToTabletMap = getReplicaToTabletMap(replicaId);
+        synchronized (replicaToTabletMap) {
+            replicaToTabletMap.remove(replicaId);
+        }
     }
 
-    private final void writeUnlock() {
-        this.lock.writeLock().unlock();
+    private static ExecutorService getReportDiffExecutor() {
+        if (reportDiffExecutor == null) {
+            synchronized (TabletInvertedIndex.class) {
+                if (reportDiffExecutor == null) {
+                    reportDiffExecutor = Executors.newFixedThreadPool(Config.tablet_report_diff_thread_num,
+                            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("tablet-report-diff-%d").build());
+                }
+            }
+        }
+        return reportDiffExecutor;
     }
 
-    public void tabletReport(long backendId, Map<Long, TTablet> backendTablets,
+    /*
+     * Diff the reported tablets with meta.
+     * If droppedTabletIds is not null, it is a delta report, backendTablets only contains the changed tablets
+     * and droppedTabletIds are the tablets dropped in backend. Only these tablets are diffed.
+     */
+    public void tabletReport(long backendId, Map<Long, TTablet> backendTablets, List<Long> droppedTabletIds,
                              final HashMap<Long, TStorageMedium> storageMediumMap,
                              ListMultimap<Long, Long> tabletSyncMap,
                              ListMultimap<Long, Long> tabletDeleteFromMeta,
@@ -113,125 +335,49 @@ public class TabletInvertedIndex {
                              ListMultimap<Long, Long> transactionsToClear,
                              ListMultimap<Long, Long> tabletRecoveryMap,
                              SetMultimap<Long, Integer> tabletWithoutPartitionId) {
-        long start = 0L;
-        readLock();
-        try {
-            LOG.info("begin to do tablet diff with backend[{}]. num: {}", backendId, backendTablets.size());
-            start = System.currentTimeMillis();
-            for (TTablet backendTablet : backendTablets.values()) {
-                for (TTabletInfo tabletInfo : backendTablet.tablet_infos) {
-                    if (!tabletInfo.isSetPartition_id() || tabletInfo.getPartition_id() < 1) {
-                        tabletWithoutPartitionId.put(tabletInfo.getTablet_id(), tabletInfo.getSchema_hash());
-                    }
+        LOG.info("begin to do tablet diff with backend[{}]. num: {}", backendId, backendTablets.size());
+        long start = System.currentTimeMillis();
+        for (TTablet backendTablet : backendTablets.values()) {
+            for (TTabletInfo tabletInfo : backendTablet.tablet_infos) {
+                if (!tabletInfo.isSetPartition_id() || tabletInfo.getPartition_id() < 1) {
+                    tabletWithoutPartitionId.put(tabletInfo.getTablet_id(), tabletInfo.getSchema_hash());
                 }
             }
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
-            if (replicaMetaWithBackend != null) {
-                // traverse replicas in meta with this backend
-                for (Map.Entry<Long, Replica> entry : replicaMetaWithBackend.entrySet()) {
-                    long tabletId = entry.getKey();
-                    Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
-                    TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
-
-                    if (backendTablets.containsKey(tabletId)) {
-                        TTablet backendTablet = backendTablets.get(tabletId);
-                        Replica replica = entry.getValue();
-                        for (TTabletInfo backendTabletInfo : backendTablet.getTablet_infos()) {
-                            if (tabletMeta.containsSchemaHash(backendTabletInfo.getSchema_hash())) {
-                                foundTabletsWithValidSchema.add(tabletId);
-                                // 1. (intersection)
-                                if (needSync(replica, backendTabletInfo)) {
-                                    // need sync
-                                    tabletSyncMap.put(tabletMeta.getDbId(), tabletId);
-                                }
-                                
-                                // check and set path
-                                // path info of replica is only saved in Master FE
-                                if (backendTabletInfo.isSetPath_hash() &&
-                                        replica.getPathHash() != backendTabletInfo.getPath_hash()) {
-                                    replica.setPathHash(backendTabletInfo.getPath_hash());
-                                }
-
-                                if (backendTabletInfo.isSetSchema_hash() && replica.getState() == ReplicaState.NORMAL
-                                        && replica.getSchemaHash() != backendTabletInfo.getSchema_hash()) {
-                                    // update the schema hash only when replica is normal
-                                    replica.setSchemaHash(backendTabletInfo.getSchema_hash());
-                                }
-
-                                if (needRecover(replica, tabletMeta.getOldSchemaHash(), backendTabletInfo)) {
-                                    LOG.warn("replica {} of tablet {} on backend {} need recovery. "
-                                            + "replica in FE: {}, report version {}-{}, report schema hash: {},"
-                                            + " is bad: {}, is version missing: {}",
-                                            replica.getId(), tabletId, backendId, replica,
-                                            backendTabletInfo.getVersion(),
-                                            backendTabletInfo.getVersion_hash(),
-                                            backendTabletInfo.getSchema_hash(),
-                                            backendTabletInfo.isSetUsed() ? backendTabletInfo.isUsed() : "unknown",
-                                            backendTabletInfo.isSetVersion_miss() ? backendTabletInfo.isVersion_miss() : "unset");
-                                    tabletRecoveryMap.put(tabletMeta.getDbId(), tabletId);
-                                }
+        }
 
-                                // check if need migration
-                                long partitionId = tabletMeta.getPartitionId();
-                                TStorageMedium storageMedium = storageMediumMap.get(partitionId);
-                                if (storageMedium != null && backendTabletInfo.isSetStorage_medium()) {
-                                    if (storageMedium != backendTabletInfo.getStorage_medium()) {
-                                        tabletMigrationMap.put(storageMedium, tabletId);
-                                    }
-                                    if (storageMedium != tabletMeta.getStorageMedium()) {
-                                        tabletMeta.setStorageMedium(storageMedium);
-                                    }
-                                }
-                                // check if should clear transactions
-                                if (backendTabletInfo.isSetTransaction_ids()) {
-                                    List<Long> transactionIds = backendTabletInfo.getTransaction_ids();
-                                    GlobalTransactionMgr transactionMgr = Catalog.getCurrentGlobalTransactionMgr();
-                                    for (Long transactionId : transactionIds) {
-                                        TransactionState transactionState = transactionMgr.getTransactionState(transactionId);
-                                        if (transactionState == null || transactionState.getTransactionStatus() == TransactionStatus.ABORTED) {
-                                            transactionsToClear.put(transactionId, tabletMeta.getPartitionId());
-                                            LOG.debug("transaction id [{}] is not valid any more, " 
-                                                    + "clear it from backend [{}]", transactionId, backendId);
-                                        } else if (transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
-                                            TableCommitInfo tableCommitInfo = transactionState.getTableCommitInfo(tabletMeta.getTableId());
-                                            PartitionCommitInfo partitionCommitInfo = tableCommitInfo.getPartitionCommitInfo(partitionId);
-                                            if (partitionCommitInfo == null) {
-                                                LOG.warn("failed to find partition commit info. table: {}, partition: {}, tablet: {}, txn id: {}",
-                                                        tabletMeta.getTableId(), partitionId, tabletId, transactionState.getTransactionId());
-                                            }
-                                            TPartitionVersionInfo versionInfo = new TPartitionVersionInfo(tabletMeta.getPartitionId(), 
-                                                    partitionCommitInfo.getVersion(),
-                                                    partitionCommitInfo.getVersionHash());
-                                            ListMultimap<Long, TPartitionVersionInfo> map = transactionsToPublish.get(transactionState.getDbId());
-                                            if (map == null) {
-                                                map = ArrayListMultimap.create();
-                                                transactionsToPublish.put(transactionState.getDbId(), map);
-                                            }
-                                            map.put(transactionId, versionInfo);
-                                        }
-                                    }
-                                } // end for txn id
-
-                                // update replicas's version count
-                                // no need to write log, and no need to get db lock.
-                                if (backendTabletInfo.isSetVersion_count()) {
-                                    replica.setVersionCount(backendTabletInfo.getVersion_count());
-                                }
-                            } else {
-                                // tablet with invalid schemahash
-                                foundTabletsWithInvalidSchema.put(tabletId, backendTabletInfo);
-                            } // end for be tablet info
-                        }
-                    }  else {
-                        // 2. (meta - be)
-                        // may need delete from meta
-                        LOG.debug("backend[{}] does not report tablet[{}-{}]", backendId, tabletId, tabletMeta);
-                        tabletDeleteFromMeta.put(tabletMeta.getDbId(), tabletId);
+        ReportDiff result = new ReportDiff(tabletSyncMap, tabletDeleteFromMeta, foundTabletsWithValidSchema,
+                foundTabletsWithInvalidSchema, tabletMigrationMap, transactionsToPublish, transactionsToClear,
+                tabletRecoveryMap);
+        if (droppedTabletIds != null) {
+            diffTablets(backendTablets.keySet(), backendId, backendTablets, storageMediumMap, result);
+            diffTablets(droppedTabletIds, backendId, backendTablets, storageMediumMap, result);
+        } else if (shards.length == 1 || Config.tablet_report_diff_thread_num <= 1) {
+            for (Shard shard : shards) {
+                diffShard(shard, backendId, backendTablets, storageMediumMap, result);
+            }
+        } else {
+            // each shard is diffed into its own result, and merged in this thread
+            List<Future<ReportDiff>> futures = Lists.newArrayListWithCapacity(shards.length);
+            for (Shard shard : shards) {
+                futures.add(getReportDiffExecutor().submit(() -> {
+                    ReportDiff diff = new ReportDiff();
+                    diffShard(shard, backendId, backendTablets, storageMediumMap, diff);
+                    return diff;
+                }));
+            }
+            for (Future<ReportDiff> future : futures) {
+                try {
+                    future.get().mergeTo(result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("interrupted when diffing tablet report of backend " + backendId, e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
                     }
-                } // end for replicaMetaWithBackend
+                    throw new RuntimeException(e.getCause());
+                }
             }
-        } finally {
-            readUnlock();
         }
 
         long end = System.currentTimeMillis();
@@ -242,103 +388,222 @@ public class TabletInvertedIndex {
                  tabletMigrationMap.size(), transactionsToClear.size(), transactionsToPublish.size(), (end - start));
     }
 
-    public long getDbId(long tabletId) {
-        readLock();
+    private void diffShard(Shard shard, long backendId, Map<Long, TTablet> backendTablets,
+                           Map<Long, TStorageMedium> storageMediumMap, ReportDiff diff) {
+        shard.readLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getDbId();
-            }
-            return NOT_EXIST_VALUE;
+            // traverse replicas in meta with this backend
+            shard.getBackendReplicas(backendId).forEach((tabletId, replica) -> {
+                Preconditions.checkState(shard.tabletMetaMap.containsKey(tabletId));
+                TabletMeta tabletMeta = shard.tabletMetaMap.get(tabletId);
+                diffTablet(backendId, tabletId, replica, tabletMeta, backendTablets, storageMediumMap, diff);
+            });
         } finally {
-            readUnlock();
+            shard.readUnlock();
+        }
+    }
+
+    private void diffTablets(Collection<Long> tabletIds, long backendId, Map<Long, TTablet> backendTablets,
+                             Map<Long, TStorageMedium> storageMediumMap, ReportDiff diff) {
+        for (long tabletId : tabletIds) {
+            Shard shard = getShard(tabletId);
+            shard.readLock();
+            try {
+                Replica replica = shard.getReplica(tabletId, backendId);
+                TabletMeta tabletMeta = shard.tabletMetaMap.get(tabletId);
+                if (replica != null && tabletMeta != null) {
+                    // the tablet is changed in backend
+                    markPartitionDirty(tabletMeta.getPartitionId());
+                    diffTablet(backendId, tabletId, replica, tabletMeta, backendTablets, storageMediumMap, diff);
+                }
+            } finally {
+                shard.readUnlock();
+            }
         }
     }
 
-    public long getTableId(long tabletId) {
-        readLock();
-        try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getTableId();
+    private void diffTablet(long backendId, long tabletId, Replica replica, TabletMeta tabletMeta,
+                            Map<Long, TTablet> backendTablets, Map<Long, TStorageMedium> storageMediumMap,
+                            ReportDiff diff) {
+        if (backendTablets.containsKey(tabletId)) {
+            TTablet backendTablet = backendTablets.get(tabletId);
+            for (TTabletInfo backendTabletInfo : backendTablet.getTablet_infos()) {
+                if (tabletMeta.containsSchemaHash(backendTabletInfo.getSchema_hash())) {
+                    diff.foundTabletsWithValidSchema.add(tabletId);
+                    // 1. (intersection)
+                    if (needSync(replica, backendTabletInfo)) {
+                        // need sync
+                        diff.tabletSyncMap.put(tabletMeta.getDbId(), tabletId);
+                        markPartitionDirty(tabletMeta.getPartitionId());
+                    }
+                                
+                    // check and set path
+                    // path info of replica is only saved in Master FE
+                    if (backendTabletInfo.isSetPath_hash() &&
+                            replica.getPathHash() != backendTabletInfo.getPath_hash()) {
+                        replica.setPathHash(backendTabletInfo.getPath_hash());
+                    }
+
+                    if (backendTabletInfo.isSetSchema_hash() && replica.getState() == ReplicaState.NORMAL
+                            && replica.getSchemaHash() != backendTabletInfo.getSchema_hash()) {
+                        // update the schema hash only when replica is normal
+                        replica.setSchemaHash(backendTabletInfo.getSchema_hash());
+                    }
+
+                    if (needRecover(replica, tabletMeta.getOldSchemaHash(), backendTabletInfo)) {
+                        LOG.warn("replica {} of tablet {} on backend {} need recovery. "
+                                + "replica in FE: {}, report version {}-{}, report schema hash: {},"
+                                + " is bad: {}, is version missing: {}",
+                                replica.getId(), tabletId, backendId, replica,
+                                backendTabletInfo.getVersion(),
+                                backendTabletInfo.getVersion_hash(),
+                                backendTabletInfo.getSchema_hash(),
+                                backendTabletInfo.isSetUsed() ? backendTabletInfo.isUsed() : "unknown",
+                                backendTabletInfo.isSetVersion_miss() ? backendTabletInfo.isVersion_miss() : "unset");
+                        diff.tabletRecoveryMap.put(tabletMeta.getDbId(), tabletId);
+                        markPartitionDirty(tabletMeta.getPartitionId());
+                    }
+
+                    // check if need migration
+                    long partitionId = tabletMeta.getPartitionId();
+                    TStorageMedium storageMedium = storageMediumMap.get(partitionId);
+                    if (storageMedium != null && backendTabletInfo.isSetStorage_medium()) {
+                        if (storageMedium != backendTabletInfo.getStorage_medium()) {
+                            diff.tabletMigrationMap.put(storageMedium, tabletId);
+                        }
+                        if (storageMedium != tabletMeta.getStorageMedium()) {
+                            tabletMeta.setStorageMedium(storageMedium);
+                        }
+                    }
+                    // check if should clear transactions
+                    if (backendTabletInfo.isSetTransaction_ids()) {
+                        List<Long> transactionIds = backendTabletInfo.getTransaction_ids();
+                        GlobalTransactionMgr transactionMgr = Catalog.getCurrentGlobalTransactionMgr();
+                        for (Long transactionId : transactionIds) {
+                            TransactionState transactionState = transactionMgr.getTransactionState(transactionId);
+                            if (transactionState == null || transactionState.getTransactionStatus() == TransactionStatus.ABORTED) {
+                                diff.transactionsToClear.put(transactionId, tabletMeta.getPartitionId());
+                                LOG.debug("transaction id [{}] is not valid any more, " 
+                                        + "clear it from backend [{}]", transactionId, backendId);
+                            } else if (transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
+                                TableCommitInfo tableCommitInfo = transactionState.getTableCommitInfo(tabletMeta.getTableId());
+                                PartitionCommitInfo partitionCommitInfo = tableCommitInfo.getPartitionCommitInfo(partitionId);
+                                if (partitionCommitInfo == null) {
+                                    LOG.warn("failed to find partition commit info. table: {}, partition: {}, tablet: {}, txn id: {}",
+                                            tabletMeta.getTableId(), partitionId, tabletId, transactionState.getTransactionId());
+                                }
+                                TPartitionVersionInfo versionInfo = new TPartitionVersionInfo(tabletMeta.getPartitionId(), 
+                                        partitionCommitInfo.getVersion(),
+                                        partitionCommitInfo.getVersionHash());
+                                ListMultimap<Long, TPartitionVersionInfo> map = diff.transactionsToPublish.get(transactionState.getDbId());
+                                if (map == null) {
+                                    map = ArrayListMultimap.create();
+                                    diff.transactionsToPublish.put(transactionState.getDbId(), map);
+                                }
+                                map.put(transactionId, versionInfo);
+                            }
+                        }
+                    } // end for txn id
+
+                    // update replicas's version count
+                    // no need to write log, and no need to get db lock.
+                    if (backendTabletInfo.isSetVersion_count()) {
+                        replica.setVersionCount(backendTabletInfo.getVersion_count());
+                    }
+                } else {
+                    // tablet with invalid schemahash
+                    diff.foundTabletsWithInvalidSchema.put(tabletId, backendTabletInfo);
+                } // end for be tablet info
             }
-            return NOT_EXIST_VALUE;
-        } finally {
-            readUnlock();
+        }  else {
+            // 2. (meta - be)
+            // may need delete from meta
+            LOG.debug("backend[{}] does not report tablet[{}-{}]", backendId, tabletId, tabletMeta);
+            diff.tabletDeleteFromMeta.put(tabletMeta.getDbId(), tabletId);
+            markPartitionDirty(tabletMeta.getPartitionId());
         }
     }
+
+    /*
+     * Mark that replicas of the partition are changed, so that TabletChecker will check the partition
+     * again instead of skipping it as healthy.
+     */
+    public void markPartitionDirty(long partitionId) {
+        partitionDirtyEpochs.put(partitionId, dirtyEpoch.incrementAndGet());
+    }
+
+    public long getPartitionDirtyEpoch(long partitionId) {
+        return partitionDirtyEpochs.getOrDefault(partitionId, 0L);
+    }
+
+    public long getDbId(long tabletId) {
+        TabletMeta tabletMeta = getTabletMeta(tabletId);
+        return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getDbId();
+    }
+
+    public long getTableId(long tabletId) {
+        TabletMeta tabletMeta = getTabletMeta(tabletId);
+        return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getTableId();
+    }
     
     public TabletMeta getTabletMetaByReplica(long replicaId) {
-        readLock();
-        try {
-            Long tabletId = replicaToTabletMap.get(replicaId);
-            if (tabletId == null) {
-                return null;
-            }
-            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
-            return tabletMeta;
-        } finally {
-            readUnlock();
+        Long tabletId = getTabletIdByReplica(replicaId);
+        if (tabletId == null) {
+            return null;
         }
+        return getTabletMeta(tabletId);
     }
     
     public Long getTabletIdByReplica(long replicaId) {
-        readLock();
-        try {
-            Long tabletId = replicaToTabletMap.get(replicaId);
-            return tabletId;
-        } finally {
-            readUnlock();
+        LongLongHashMap replicaToTabletMap = getReplicaToTabletMap(replicaId);
+        long tabletId;
+        synchronized (replicaToTabletMap) {
+            tabletId = replicaToTabletMap.get(replicaId, NOT_EXIST_VALUE);
         }
+        return tabletId == NOT_EXIST_VALUE ? null : tabletId;
     }
 
     public long getPartitionId(long tabletId) {
-        readLock();
-        try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getPartitionId();
-            }
-            return NOT_EXIST_VALUE;
-        } finally {
-            readUnlock();
-        }
+        TabletMeta tabletMeta = getTabletMeta(tabletId);
+        return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getPartitionId();
     }
 
     public long getIndexId(long tabletId) {
-        readLock();
-        try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getIndexId();
-            }
-            return NOT_EXIST_VALUE;
-        } finally {
-            readUnlock();
-        }
+        TabletMeta tabletMeta = getTabletMeta(tabletId);
+        return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getIndexId();
     }
 
     public int getEffectiveSchemaHash(long tabletId) {
         // always get old schema hash(as effective one)
-        readLock();
-        try {
-            if (tabletMetaMap.containsKey(tabletId)) {
-                return tabletMetaMap.get(tabletId).getOldSchemaHash();
-            }
-            return NOT_EXIST_VALUE;
-        } finally {
-            readUnlock();
-        }
+        TabletMeta tabletMeta = getTabletMeta(tabletId);
+        return tabletMeta == null ? NOT_EXIST_VALUE : tabletMeta.getOldSchemaHash();
     }
 
     public TabletMeta getTabletMeta(long tabletId) {
-        readLock();
+        Shard shard = getShard(tabletId);
+        shard.readLock();
         try {
-            return tabletMetaMap.get(tabletId);
+            return shard.tabletMetaMap.get(tabletId);
         } finally {
-            readUnlock();
+            shard.readUnlock();
         }
     }
     
     public Set<Long> getTabletBackends(long tabletId) {
-        Map<Long, Replica> backendIdToReplica = replicaMetaTable.row(tabletId);
-        return backendIdToReplica.keySet();
+        Shard shard = getShard(tabletId);
+        shard.readLock();
+        try {
+            Set<Long> backendIds = Sets.newHashSet();
+            Replica[] replicas = shard.replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                for (Replica replica : replicas) {
+                    backendIds.add(replica.getBackendId());
+                }
+            }
+            return backendIds;
+        } finally {
+            shard.readUnlock();
+        }
     }
 
     private boolean needSync(Replica replicaInFe, TTabletInfo backendTabletInfo) {
@@ -424,20 +689,27 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        Shard shard = getShard(tabletId);
+        shard.writeLock();
         try {
-            if (tabletMetaMap.containsKey(tabletId)) {
+            if (shard.tabletMetaMap.containsKey(tabletId)) {
                 return;
             }
-            tabletMetaMap.put(tabletId, tabletMeta);
-            if (!tabletMetaTable.contains(tabletMeta.getPartitionId(), tabletMeta.getIndexId())) {
-                tabletMetaTable.put(tabletMeta.getPartitionId(), tabletMeta.getIndexId(), tabletMeta);
-                LOG.debug("add tablet meta: {}", tabletId);
+            shard.tabletMetaMap.put(tabletId, tabletMeta);
+            markPartitionDirty(tabletMeta.getPartitionId());
+            tabletMetaTableLock.writeLock().lock();
+            try {
+                if (!tabletMetaTable.contains(tabletMeta.getPartitionId(), tabletMeta.getIndexId())) {
+                    tabletMetaTable.put(tabletMeta.getPartitionId(), tabletMeta.getIndexId(), tabletMeta);
+                    LOG.debug("add tablet meta: {}", tabletId);
+                }
+            } finally {
+                tabletMetaTableLock.writeLock().unlock();
             }
 
             LOG.debug("add tablet: {}", tabletId);
         } finally {
-            writeUnlock();
+            shard.writeUnlock();
         }
     }
 
@@ -445,27 +717,34 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        Shard shard = getShard(tabletId);
+        shard.writeLock();
         try {
-            Map<Long, Replica> replicas = replicaMetaTable.rowMap().remove(tabletId);
+            Replica[] replicas = shard.removeReplicas(tabletId);
             if (replicas != null) {
-                for (Replica replica : replicas.values()) {
-                    replicaToTabletMap.remove(replica.getId());
-                }
-
-                for (long backendId : replicas.keySet()) {
-                    backingReplicaMetaTable.remove(backendId, tabletId);
+                for (Replica replica : replicas) {
+                    removeReplicaToTablet(replica.getId());
                 }
             }
-            TabletMeta tabletMeta = tabletMetaMap.remove(tabletId);
+            TabletMeta tabletMeta = shard.tabletMetaMap.remove(tabletId);
             if (tabletMeta != null) {
-                tabletMetaTable.remove(tabletMeta.getPartitionId(), tabletMeta.getIndexId());
+                tabletMetaTableLock.writeLock().lock();
+                try {
+                    tabletMetaTable.remove(tabletMeta.getPartitionId(), tabletMeta.getIndexId());
+                    if (!tabletMetaTable.containsRow(tabletMeta.getPartitionId())) {
+                        partitionDirtyEpochs.remove(tabletMeta.getPartitionId());
+                    } else {
+                        markPartitionDirty(tabletMeta.getPartitionId());
+                    }
+                } finally {
+                    tabletMetaTableLock.writeLock().unlock();
+                }
                 LOG.debug("delete tablet meta: {}", tabletId);
             }
 
             LOG.debug("delete tablet: {}", tabletId);
         } finally {
-            writeUnlock();
+            shard.writeUnlock();
         }
     }
 
@@ -473,16 +752,17 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        Shard shard = getShard(tabletId);
+        shard.writeLock();
         try {
-            Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
-            replicaMetaTable.put(tabletId, replica.getBackendId(), replica);
-            replicaToTabletMap.put(replica.getId(), tabletId);
-            backingReplicaMetaTable.put(replica.getBackendId(), tabletId, replica);
+            Preconditions.checkState(shard.tabletMetaMap.containsKey(tabletId));
+            shard.putReplica(tabletId, replica);
+            markPartitionDirty(shard.tabletMetaMap.get(tabletId).getPartitionId());
+            putReplicaToTablet(replica.getId(), tabletId);
             LOG.debug("add replica {} of tablet {} in backend {}",
                     replica.getId(), tabletId, replica.getBackendId());
         } finally {
-            writeUnlock();
+            shard.writeUnlock();
         }
     }
 
@@ -490,15 +770,17 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        Shard shard = getShard(tabletId);
+        shard.writeLock();
         try {
-            Preconditions.checkState(tabletMetaMap.containsKey(tabletId));
-            TabletMeta tabletMeta = tabletMetaMap.get(tabletId);
-            if (replicaMetaTable.containsRow(tabletId)) {
-                Replica replica = replicaMetaTable.remove(tabletId, backendId);
-                replicaToTabletMap.remove(replica.getId());
-                replicaMetaTable.remove(tabletId, backendId);
-                backingReplicaMetaTable.remove(backendId, tabletId);
+            Preconditions.checkState(shard.tabletMetaMap.containsKey(tabletId));
+            if (shard.replicaMetaTable.containsKey(tabletId)) {
+                Replica replica = shard.removeReplica(tabletId, backendId);
+                if (replica == null) {
+                    return;
+                }
+                removeReplicaToTablet(replica.getId());
+                markPartitionDirty(shard.tabletMetaMap.get(tabletId).getPartitionId());
                 LOG.debug("delete replica {} of tablet {} in backend {}",
                         replica.getId(), tabletId, backendId);
             } else {
@@ -507,29 +789,32 @@ public class TabletInvertedIndex {
                 LOG.error("tablet[{}] contains no replica in inverted index", tabletId);
             }
         } finally {
-            writeUnlock();
+            shard.writeUnlock();
         }
     }
     
     public Replica getReplica(long tabletId, long backendId) {
-        readLock();
+        Shard shard = getShard(tabletId);
+        shard.readLock();
         try {
-            Preconditions.checkState(tabletMetaMap.containsKey(tabletId), tabletId);
-            return replicaMetaTable.get(tabletId, backendId);
+            Preconditions.checkState(shard.tabletMetaMap.containsKey(tabletId), tabletId);
+            return shard.getReplica(tabletId, backendId);
         } finally {
-            readUnlock();
+            shard.readUnlock();
         }
     }
 
     public List<Replica> getReplicasByTabletId(long tabletId) {
-        readLock();
+        Shard shard = getShard(tabletId);
+        shard.readLock();
         try {
-            if (replicaMetaTable.containsRow(tabletId)) {
-                return Lists.newArrayList(replicaMetaTable.row(tabletId).values());
+            Replica[] replicas = shard.replicaMetaTable.get(tabletId);
+            if (replicas != null) {
+                return Lists.newArrayList(replicas);
             }
             return Lists.newArrayList();
         } finally {
-            readUnlock();
+            shard.readUnlock();
         }
     }
 
@@ -537,12 +822,12 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        tabletMetaTableLock.writeLock().lock();
         try {
             Preconditions.checkState(tabletMetaTable.contains(partitionId, indexId));
             tabletMetaTable.get(partitionId, indexId).setNewSchemaHash(newSchemaHash);
         } finally {
-            writeUnlock();
+            tabletMetaTableLock.writeLock().unlock();
         }
     }
 
@@ -550,12 +835,12 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        tabletMetaTableLock.writeLock().lock();
         try {
             Preconditions.checkState(tabletMetaTable.contains(partitionId, indexId));
             tabletMetaTable.get(partitionId, indexId).updateToNewSchemaHash();
         } finally {
-            writeUnlock();
+            tabletMetaTableLock.writeLock().unlock();
         }
     }
 
@@ -563,77 +848,79 @@ public class TabletInvertedIndex {
         if (Catalog.isCheckpointThread()) {
             return;
         }
-        writeLock();
+        tabletMetaTableLock.writeLock().lock();
         try {
             TabletMeta tabletMeta = tabletMetaTable.get(partitionId, indexId);
             if (tabletMeta != null) {
                 tabletMeta.deleteNewSchemaHash();
             }
         } finally {
-            writeUnlock();
+            tabletMetaTableLock.writeLock().unlock();
         }
     }
 
+    // The following methods visit shards one by one, so the result is not a snapshot of the whole index.
+
     public List<Long> getTabletIdsByBackendId(long backendId) {
         List<Long> tabletIds = Lists.newArrayList();
-        readLock();
-        try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
-            if (replicaMetaWithBackend != null) {
-                tabletIds.addAll(replicaMetaWithBackend.keySet());
+        for (Shard shard : shards) {
+            shard.readLock();
+            try {
+                tabletIds.addAll(shard.getBackendReplicas(backendId).keyList());
+            } finally {
+                shard.readUnlock();
             }
-        } finally {
-            readUnlock();
         }
         return tabletIds;
     }
 
     public List<Long> getTabletIdsByBackendIdAndStorageMedium(long backendId, TStorageMedium storageMedium) {
         List<Long> tabletIds = Lists.newArrayList();
-        readLock();
-        try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
-            if (replicaMetaWithBackend != null) {
-                tabletIds = replicaMetaWithBackend.keySet().stream().filter(
-                        id -> tabletMetaMap.get(id).getStorageMedium() == storageMedium).collect(Collectors.toList());
+        for (Shard shard : shards) {
+            shard.readLock();
+            try {
+                shard.getBackendReplicas(backendId).forEach((tabletId, replica) -> {
+                    if (shard.tabletMetaMap.get(tabletId).getStorageMedium() == storageMedium) {
+                        tabletIds.add(tabletId);
+                    }
+                });
+            } finally {
+                shard.readUnlock();
             }
-        } finally {
-            readUnlock();
         }
         return tabletIds;
     }
 
     public int getTabletNumByBackendId(long backendId) {
-        readLock();
-        try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
-            if (replicaMetaWithBackend != null) {
-                return replicaMetaWithBackend.size();
+        int num = 0;
+        for (Shard shard : shards) {
+            shard.readLock();
+            try {
+                num += shard.getBackendReplicas(backendId).size();
+            } finally {
+                shard.readUnlock();
             }
-        } finally {
-            readUnlock();
         }
-        return 0;
+        return num;
     }
 
     public Map<TStorageMedium, Long> getReplicaNumByBeIdAndStorageMedium(long backendId) {
         Map<TStorageMedium, Long> replicaNumMap = Maps.newHashMap();
         long hddNum = 0;
         long ssdNum = 0;
-        readLock();
-        try {
-            Map<Long, Replica> replicaMetaWithBackend = backingReplicaMetaTable.row(backendId);
-            if (replicaMetaWithBackend != null) {
-                for (long tabletId : replicaMetaWithBackend.keySet()) {
-                    if (tabletMetaMap.get(tabletId).getStorageMedium() == TStorageMedium.HDD) {
+        for (Shard shard : shards) {
+            shard.readLock();
+            try {
+                for (long tabletId : shard.getBackendReplicas(backendId).keyList()) {
+                    if (shard.tabletMetaMap.get(tabletId).getStorageMedium() == TStorageMedium.HDD) {
                         hddNum++;
                     } else {
                         ssdNum++;
                     }
                 }
+            } finally {
+                shard.readUnlock();
             }
-        } finally {
-            readUnlock();
         }
         replicaNumMap.put(TStorageMedium.HDD, hddNum);
         replicaNumMap.put(TStorageMedium.SSD, ssdNum);
@@ -642,20 +929,26 @@ public class TabletInvertedIndex {
 
     // just for test
     public void clear() {
-        writeLock();
+        for (Shard shard : shards) {
+            shard.writeLock();
+            try {
+                shard.tabletMetaMap.clear();
+                shard.replicaMetaTable.clear();
+                shard.backingReplicaMetaTable.clear();
+            } finally {
+                shard.writeUnlock();
+            }
+        }
+        for (LongLongHashMap replicaToTabletMap : replicaToTabletMaps) {
+            synchronized (replicaToTabletMap) {
+                replicaToTabletMap.clear();
+            }
+        }
+        tabletMetaTableLock.writeLock().lock();
         try {
-            tabletMetaMap.clear();
-            replicaToTabletMap.clear();
             tabletMetaTable.clear();
-            replicaMetaTable.clear();
-            backingReplicaMetaTable.clear();
         } finally {
-            writeUnlock();
+            tabletMetaTableLock.writeLock().unlock();
         }
     }
-
-    public Map<Long, Long> getReplicaToTabletMap() {
-        return replicaToTabletMap;
-    }
 }
-
@@ -0,0 +1,205 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.clone;
+
+import org.apache.doris.clone.TabletSchedCtx.Priority;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/*
+ * Pending tablets of TabletScheduler. The tablet with the highest priority is polled first,
+ * same as a PriorityQueue of TabletSchedCtx.
+ *
+ * It is a binary heap indexed by tablet id and partition id, so the priority of a tablet can be changed
+ * in O(log n) without rebuilding the queue.
+ * Tablets are offered to a lock free inbox, and moved into the heap by the next operation on the heap,
+ * so producers like TabletChecker do not block the scheduling thread.
+ */
+public class PendingTabletQueue {
+    private final Queue<TabletSchedCtx> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    // guarded by this
+    private final List<TabletSchedCtx> heap = Lists.newArrayList();
+    // tablet id -> index in heap
+    private final Map<Long, Integer> tabletIdToIndex = Maps.newHashMap();
+    // partition id -> tablet ids in heap
+    private final Map<Long, Set<Long>> partitionToTabletIds = Maps.newHashMap();
+
+    // a tablet already in the queue is replaced
+    public void offer(TabletSchedCtx tabletCtx) {
+        size.incrementAndGet();
+        inbox.add(tabletCtx);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public synchronized TabletSchedCtx poll() {
+        drainInbox();
+        if (heap.isEmpty()) {
+            return null;
+        }
+        TabletSchedCtx tabletCtx = heap.get(0);
+        removeAt(0);
+        return tabletCtx;
+    }
+
+    /*
+     * Set the priority of pending tablets in the given partitions.
+     * Return the number of tablets changed.
+     */
+    public synchronized int setPriority(long dbId, long tblId, Collection<Long> partitionIds, Priority priority) {
+        drainInbox();
+        int changedNum = 0;
+        for (Long partitionId : partitionIds) {
+            Set<Long> tabletIds = partitionToTabletIds.get(partitionId);
+            if (tabletIds == null) {
+                continue;
+            }
+            for (Long tabletId : tabletIds) {
+                int index = tabletIdToIndex.get(tabletId);
+                TabletSchedCtx tabletCtx = heap.get(index);
+                if (tabletCtx.getDbId() == dbId && tabletCtx.getTblId() == tblId) {
+                    tabletCtx.setOrigPriority(priority);
+                    fix(index);
+                    changedNum++;
+                }
+            }
+        }
+        return changedNum;
+    }
+
+    /*
+     * Apply the updater to all pending tablets, which returns true if the priority of the tablet is changed.
+     * Return the number of tablets changed.
+     */
+    public synchronized int updatePriorities(Predicate<TabletSchedCtx> updater) {
+        drainInbox();
+        int changedNum = 0;
+        for (TabletSchedCtx tabletCtx : heap) {
+            if (updater.test(tabletCtx)) {
+                changedNum++;
+            }
+        }
+        if (changedNum > 0) {
+            for (int i = heap.size() / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+        return changedNum;
+    }
+
+    // return at most limit tablets, not in priority order
+    public synchronized List<TabletSchedCtx> getTablets(int limit) {
+        drainInbox();
+        return Lists.newArrayList(heap.subList(0, Math.min(limit, heap.size())));
+    }
+
+    public synchronized long count(Predicate<TabletSchedCtx> predicate) {
+        drainInbox();
+        return heap.stream().filter(predicate).count();
+    }
+
+    private void drainInbox() {
+        TabletSchedCtx tabletCtx;
+        while ((tabletCtx = inbox.poll()) != null) {
+            Integer index = tabletIdToIndex.get(tabletCtx.getTabletId());
+            if (index != null) {
+                // replace the old one
+                removeAt(index);
+            }
+            heap.add(tabletCtx);
+            tabletIdToIndex.put(tabletCtx.getTabletId(), heap.size() - 1);
+            partitionToTabletIds.computeIfAbsent(tabletCtx.getPartitionId(), k -> Sets.newHashSet())
+                    .add(tabletCtx.getTabletId());
+            siftUp(heap.size() - 1);
+        }
+    }
+
+    private void removeAt(int index) {
+        TabletSchedCtx removed = heap.get(index);
+        tabletIdToIndex.remove(removed.getTabletId());
+        Set<Long> tabletIds = partitionToTabletIds.get(removed.getPartitionId());
+        tabletIds.remove(removed.getTabletId());
+        if (tabletIds.isEmpty()) {
+            partitionToTabletIds.remove(removed.getPartitionId());
+        }
+        size.decrementAndGet();
+
+        TabletSchedCtx last = heap.remove(heap.size() - 1);
+        if (index < heap.size()) {
+            set(index, last);
+            fix(index);
+        }
+    }
+
+    private void fix(int index) {
+        siftDown(siftUp(index));
+    }
+
+    // return the new index
+    private int siftUp(int index) {
+        TabletSchedCtx tabletCtx = heap.get(index);
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap.get(parent).compareTo(tabletCtx) <= 0) {
+                break;
+            }
+            set(index, heap.get(parent));
+            index = parent;
+        }
+        set(index, tabletCtx);
+        return index;
+    }
+
+    private void siftDown(int index) {
+        TabletSchedCtx tabletCtx = heap.get(index);
+        int half = heap.size() / 2;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < heap.size() && heap.get(right).compareTo(heap.get(child)) < 0) {
+                child = right;
+            }
+            if (tabletCtx.compareTo(heap.get(child)) <= 0) {
+                break;
+            }
+            set(index, heap.get(child));
+            index = child;
+        }
+        set(index, tabletCtx);
+    }
+
+    private void set(int index, TabletSchedCtx tabletCtx) {
+        heap.set(index, tabletCtx);
+        tabletIdToIndex.put(tabletCtx.getTabletId(), index);
+    }
+}
@@ -31,14 +31,17 @@ import org.apache.doris.catalog.Table.TableType;
 import org.apache.doris.catalog.Tablet;
 import org.apache.doris.catalog.Tablet.TabletStatus;
 import org.apache.doris.clone.TabletScheduler.AddResult;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.DdlException;
 import org.apache.doris.common.Pair;
 import org.apache.doris.common.util.Daemon;
+import org.apache.doris.system.Backend;
 import org.apache.doris.system.SystemInfoService;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Table.Cell;
 
@@ -48,7 +51,12 @@ import org.apache.logging.log4j.Logger;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /*
@@ -68,7 +76,58 @@ public class TabletChecker extends Daemon {
     // db id -> (tbl id -> PrioPart)
     // priority of replicas of partitions in this table will be set to VERY_HIGH if not healthy
     private com.google.common.collect.Table<Long, Long, Set<PrioPart>> prios = HashBasedTable.create();
-    
+
+    // partition id -> HealthyPartition, partitions in which all tablets were healthy in last check
+    private Map<Long, HealthyPartition> healthyPartitions = Maps.newConcurrentMap();
+    // backends changed since last check if signature changed
+    private long backendsSignature = 0;
+    // created when first used, so that the thread num can be set in fe.conf
+    private ForkJoinPool checkPool = null;
+
+    /*
+     * A partition in which all tablets are healthy.
+     * It will be skipped by following checks until its replicas, visible version or replication num changed,
+     * or it has not been fully checked for tablet_checker_full_check_interval_second.
+     */
+    private static class HealthyPartition {
+        private final long dirtyEpoch;
+        private final long visibleVersion;
+        private final long visibleVersionHash;
+        private final short replicationNum;
+        private final long checkTimeMs;
+        // the last time all tablets of this partition are known to be healthy
+        private volatile long lastHealthyTimeMs;
+
+        public HealthyPartition(long dirtyEpoch, Partition partition, short replicationNum, long checkTimeMs) {
+            this.dirtyEpoch = dirtyEpoch;
+            this.visibleVersion = partition.getVisibleVersion();
+            this.visibleVersionHash = partition.getVisibleVersionHash();
+            this.replicationNum = replicationNum;
+            this.checkTimeMs = checkTimeMs;
+            this.lastHealthyTimeMs = checkTimeMs;
+        }
+
+        public boolean isUnchanged(long dirtyEpoch, Partition partition, short replicationNum, long currentTimeMs) {
+            return this.dirtyEpoch == dirtyEpoch
+                    && visibleVersion == partition.getVisibleVersion()
+                    && visibleVersionHash == partition.getVisibleVersionHash()
+                    && this.replicationNum == replicationNum
+                    && currentTimeMs - checkTimeMs < Config.tablet_checker_full_check_interval_second * 1000L;
+        }
+    }
+
+    private static class CheckStat {
+        private final AtomicLong totalTabletNum = new AtomicLong(0);
+        private final AtomicLong unhealthyTabletNum = new AtomicLong(0);
+        private final AtomicLong addToSchedulerTabletNum = new AtomicLong(0);
+        private final AtomicLong tabletInScheduler = new AtomicLong(0);
+        private final AtomicLong tabletNotReady = new AtomicLong(0);
+        private final AtomicLong skippedPartitionNum = new AtomicLong(0);
+        // partitions of all checked tables, the others in healthyPartitions are dropped
+        private final Set<Long> checkedPartitionIds = Sets.newConcurrentHashSet();
+        private final AtomicBoolean limitExceeded = new AtomicBoolean(false);
+    }
+
     // represent a partition which need to be repaired preferentially
     public static class PrioPart {
         public long partId;
@@ -157,10 +216,10 @@ public class TabletChecker extends Daemon {
     protected void runOneCycle() {
         int pendingNum = tabletScheduler.getPendingNum();
         int runningNum = tabletScheduler.getRunningNum();
-        if (pendingNum > TabletScheduler.MAX_SCHEDULING_TABLETS
-                || runningNum > TabletScheduler.MAX_SCHEDULING_TABLETS) {
+        if (pendingNum > Config.max_scheduling_tablets
+                || runningNum > Config.max_scheduling_tablets) {
             LOG.info("too many tablets are being scheduled. pending: {}, running: {}, limit: {}. skip check",
-                    pendingNum, runningNum, TabletScheduler.MAX_SCHEDULING_TABLETS);
+                    pendingNum, runningNum, Config.max_scheduling_tablets);
             return;
         }
         
@@ -174,120 +233,223 @@ public class TabletChecker extends Daemon {
 
     private void checkTablets() {
         long start = System.currentTimeMillis();
-        long totalTabletNum = 0;
-        long unhealthyTabletNum = 0;
-        long addToSchedulerTabletNum = 0;
-        long tabletInScheduler = 0;
-        long tabletNotReady = 0;
-
-        List<Long> dbIds = catalog.getDbIds();
-        OUT: for (Long dbId : dbIds) {
-            Database db = catalog.getDb(dbId);
-            if (db == null) {
-                continue;
-            }
+        CheckStat checkStat = new CheckStat();
 
-            if (db.isInfoSchemaDb()) {
+        // the health of tablets depends on the backends, so all partitions are checked again if backends changed
+        long signature = getBackendsSignature();
+        if (signature != backendsSignature) {
+            healthyPartitions.clear();
+            backendsSignature = signature;
+        }
+
+        // collect tables, and check them in parallel, each with the db lock held for only one partition.
+        List<Pair<Database, Long>> tables = Lists.newArrayList();
+        for (Long dbId : catalog.getDbIds()) {
+            Database db = catalog.getDb(dbId);
+            if (db == null || db.isInfoSchemaDb()) {
                 continue;
             }
 
             db.readLock();
             try {
-                int availableBackendsNum = infoService.getClusterBackendIds(db.getClusterName(), true).size();
                 for (Table table : db.getTables()) {
-                    if (!table.needSchedule()) {
-                        continue;
+                    if (table.needSchedule()) {
+                        tables.add(Pair.create(db, table.getId()));
                     }
-
-                    OlapTable olapTbl = (OlapTable) table;
-                    for (Partition partition : olapTbl.getPartitions()) {
-                        if (partition.getState() != PartitionState.NORMAL) {
-                            // when alter job is in FINISHING state, partition state will be set to NORMAL,
-                            // and we can schedule the tablets in it.
-                            continue;
-                        }
-                        boolean isInPrios = isInPrios(dbId, table.getId(), partition.getId());
-                        boolean prioPartIsHealthy = true;
-                        /*
-                         * Tablet in SHADOW index can not be repaired of balanced
-                         */
-                        for (MaterializedIndex idx : partition.getMaterializedIndices(IndexExtState.VISIBLE)) {
-                            for (Tablet tablet : idx.getTablets()) {
-                                totalTabletNum++;
-                                
-                                if (tabletScheduler.containsTablet(tablet.getId())) {
-                                    tabletInScheduler++;
-                                    continue;
-                                }
-                                
-                                Pair<TabletStatus, TabletSchedCtx.Priority> statusWithPrio = tablet.getHealthStatusWithPriority(
-                                        infoService,
-                                        db.getClusterName(),
-                                        partition.getVisibleVersion(),
-                                        partition.getVisibleVersionHash(),
-                                        olapTbl.getPartitionInfo().getReplicationNum(partition.getId()),
-                                        availableBackendsNum);
-
-                                if (statusWithPrio.first == TabletStatus.HEALTHY) {
-                                    // Only set last status check time when status is healthy.
-                                    tablet.setLastStatusCheckTime(start);
-                                    continue;
-                                } else if (isInPrios) {
-                                    statusWithPrio.second = TabletSchedCtx.Priority.VERY_HIGH;
-                                    prioPartIsHealthy = false;
-                                }
-
-                                unhealthyTabletNum++;
-
-                                if (!tablet.readyToBeRepaired(statusWithPrio.second)) {
-                                    tabletNotReady++;
-                                    continue;
-                                }
-
-                                TabletSchedCtx tabletCtx = new TabletSchedCtx(
-                                        TabletSchedCtx.Type.REPAIR,
-                                        db.getClusterName(),
-                                        db.getId(), olapTbl.getId(),
-                                        partition.getId(), idx.getId(), tablet.getId(),
-                                        System.currentTimeMillis());
-                                // the tablet status will be set again when being scheduled
-                                tabletCtx.setTabletStatus(statusWithPrio.first);
-                                tabletCtx.setOrigPriority(statusWithPrio.second);
-
-                                AddResult res = tabletScheduler.addTablet(tabletCtx, false /* not force */);
-                                if (res == AddResult.LIMIT_EXCEED) {
-                                    LOG.info("number of scheduling tablets in tablet scheduler"
-                                            + " exceed to limit. stop tablet checker");
-                                    break OUT;
-                                } else if (res == AddResult.ADDED) {
-                                    addToSchedulerTabletNum++;
-                                }
-                            }
-                        } // indices
-
-                        if (prioPartIsHealthy && isInPrios) {
-                            // if all replicas in this partition are healthy, remove this partition from
-                            // priorities.
-                            LOG.debug("partition is healthy, remove from prios: {}-{}-{}",
-                                    db.getId(), olapTbl.getId(), partition.getId());
-                            removePrios(db.getId(), olapTbl.getId(), Lists.newArrayList(partition.getId()));
-                        }
-                    } // partitions
-                } // tables
+                }
             } finally {
                 db.readUnlock();
             }
-        } // end for dbs
+        }
+
+        boolean finished = false;
+        try {
+            getCheckPool().submit(() -> tables.parallelStream().forEach(
+                    t -> checkTable(t.first, t.second, start, checkStat))).get();
+            finished = !checkStat.limitExceeded.get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.warn("failed to check tablets", e);
+        }
+        if (finished) {
+            // remove partitions of dropped dbs, tables and partitions
+            healthyPartitions.keySet().retainAll(checkStat.checkedPartitionIds);
+        }
 
         long cost = System.currentTimeMillis() - start;
 
         stat.counterTabletCheckCostMs.addAndGet(cost);
-        stat.counterTabletChecked.addAndGet(totalTabletNum);
-        stat.counterUnhealthyTabletNum.addAndGet(unhealthyTabletNum);
-        stat.counterTabletAddToBeScheduled.addAndGet(addToSchedulerTabletNum);
+        stat.counterTabletChecked.addAndGet(checkStat.totalTabletNum.get());
+        stat.counterUnhealthyTabletNum.addAndGet(checkStat.unhealthyTabletNum.get());
+        stat.counterTabletAddToBeScheduled.addAndGet(checkStat.addToSchedulerTabletNum.get());
+
+        LOG.info("finished to check tablets. unhealth/total/added/in_sched/not_ready: {}/{}/{}/{}/{}, "
+                + "skipped healthy partitions: {}, cost: {} ms",
+                checkStat.unhealthyTabletNum, checkStat.totalTabletNum, checkStat.addToSchedulerTabletNum,
+                checkStat.tabletInScheduler, checkStat.tabletNotReady, checkStat.skippedPartitionNum, cost);
+    }
+
+    private synchronized ForkJoinPool getCheckPool() {
+        if (checkPool == null) {
+            checkPool = new ForkJoinPool(Math.max(1, Config.tablet_checker_thread_num));
+        }
+        return checkPool;
+    }
+
+    private long getBackendsSignature() {
+        long signature = 0;
+        for (Backend backend : infoService.getIdToBackend().values()) {
+            signature += Objects.hash(backend.getId(), backend.isAlive(), backend.isDecommissioned(),
+                    backend.getOwnerClusterName());
+        }
+        return signature;
+    }
+
+    private void checkTable(Database db, long tblId, long start, CheckStat checkStat) {
+        if (checkStat.limitExceeded.get()) {
+            return;
+        }
+
+        List<Long> partitionIds;
+        int availableBackendsNum = infoService.getClusterBackendIds(db.getClusterName(), true).size();
+        db.readLock();
+        try {
+            Table table = db.getTable(tblId);
+            if (table == null || !table.needSchedule()) {
+                return;
+            }
+            partitionIds = ((OlapTable) table).getPartitions().stream().map(Partition::getId)
+                    .collect(Collectors.toList());
+        } finally {
+            db.readUnlock();
+        }
+        checkStat.checkedPartitionIds.addAll(partitionIds);
+
+        for (Long partitionId : partitionIds) {
+            if (checkStat.limitExceeded.get()) {
+                return;
+            }
+            db.readLock();
+            try {
+                OlapTable olapTbl = (OlapTable) db.getTable(tblId);
+                if (olapTbl == null) {
+                    return;
+                }
+                Partition partition = olapTbl.getPartition(partitionId);
+                if (partition == null) {
+                    healthyPartitions.remove(partitionId);
+                    continue;
+                }
+                checkPartition(db, olapTbl, partition, availableBackendsNum, start, checkStat);
+            } finally {
+                db.readUnlock();
+            }
+        }
+    }
+
+    // must be called with the db lock held
+    private void checkPartition(Database db, OlapTable olapTbl, Partition partition, int availableBackendsNum,
+            long start, CheckStat checkStat) {
+        if (partition.getState() != PartitionState.NORMAL) {
+            // when alter job is in FINISHING state, partition state will be set to NORMAL,
+            // and we can schedule the tablets in it.
+            healthyPartitions.remove(partition.getId());
+            return;
+        }
 
-        LOG.info("finished to check tablets. unhealth/total/added/in_sched/not_ready: {}/{}/{}/{}/{}, cost: {} ms",
-                unhealthyTabletNum, totalTabletNum, addToSchedulerTabletNum, tabletInScheduler, tabletNotReady, cost);
+        boolean isInPrios = isInPrios(db.getId(), olapTbl.getId(), partition.getId());
+        short replicationNum = olapTbl.getPartitionInfo().getReplicationNum(partition.getId());
+        // read the epoch before checking, so that changes during the check will be seen in next round
+        long dirtyEpoch = Catalog.getCurrentInvertedIndex().getPartitionDirtyEpoch(partition.getId());
+        HealthyPartition cached = healthyPartitions.get(partition.getId());
+        if (cached != null && !isInPrios && cached.isUnchanged(dirtyEpoch, partition, replicationNum, start)) {
+            cached.lastHealthyTimeMs = start;
+            checkStat.skippedPartitionNum.incrementAndGet();
+            return;
+        }
+
+        boolean isHealthy = true;
+        boolean prioPartIsHealthy = true;
+        /*
+         * Tablet in SHADOW index can not be repaired of balanced
+         */
+        for (MaterializedIndex idx : partition.getMaterializedIndices(IndexExtState.VISIBLE)) {
+            for (Tablet tablet : idx.getTablets()) {
+                checkStat.totalTabletNum.incrementAndGet();
+
+                if (tabletScheduler.containsTablet(tablet.getId())) {
+                    checkStat.tabletInScheduler.incrementAndGet();
+                    isHealthy = false;
+                    continue;
+                }
+
+                if (cached != null) {
+                    // the tablet was healthy until the last round which skipped this partition
+                    tablet.setLastStatusCheckTime(cached.lastHealthyTimeMs);
+                }
+
+                Pair<TabletStatus, TabletSchedCtx.Priority> statusWithPrio = tablet.getHealthStatusWithPriority(
+                        infoService,
+                        db.getClusterName(),
+                        partition.getVisibleVersion(),
+                        partition.getVisibleVersionHash(),
+                        replicationNum,
+                        availableBackendsNum);
+
+                if (statusWithPrio.first == TabletStatus.HEALTHY) {
+                    // Only set last status check time when status is healthy.
+                    tablet.setLastStatusCheckTime(start);
+                    continue;
+                } else if (isInPrios) {
+                    statusWithPrio.second = TabletSchedCtx.Priority.VERY_HIGH;
+                    prioPartIsHealthy = false;
+                }
+
+                isHealthy = false;
+                checkStat.unhealthyTabletNum.incrementAndGet();
+
+                if (!tablet.readyToBeRepaired(statusWithPrio.second)) {
+                    checkStat.tabletNotReady.incrementAndGet();
+                    continue;
+                }
+
+                TabletSchedCtx tabletCtx = new TabletSchedCtx(
+                        TabletSchedCtx.Type.REPAIR,
+                        db.getClusterName(),
+                        db.getId(), olapTbl.getId(),
+                        partition.getId(), idx.getId(), tablet.getId(),
+                        System.currentTimeMillis());
+                // the tablet status will be set again when being scheduled
+                tabletCtx.setTabletStatus(statusWithPrio.first);
+                tabletCtx.setOrigPriority(statusWithPrio.second);
+
+                AddResult res = tabletScheduler.addTablet(tabletCtx, false /* not force */);
+                if (res == AddResult.LIMIT_EXCEED) {
+                    if (checkStat.limitExceeded.compareAndSet(false, true)) {
+                        LOG.info("number of scheduling tablets in tablet scheduler"
+                                + " exceed to limit. stop tablet checker");
+                    }
+                    healthyPartitions.remove(partition.getId());
+                    return;
+                } else if (res == AddResult.ADDED) {
+                    checkStat.addToSchedulerTabletNum.incrementAndGet();
+                }
+            }
+        } // indices
+
+        if (isHealthy) {
+            healthyPartitions.put(partition.getId(),
+                    new HealthyPartition(dirtyEpoch, partition, replicationNum, start));
+        } else {
+            healthyPartitions.remove(partition.getId());
+        }
+
+        if (prioPartIsHealthy && isInPrios) {
+            // if all replicas in this partition are healthy, remove this partition from
+            // priorities.
+            LOG.debug("partition is healthy, remove from prios: {}-{}-{}",
+                    db.getId(), olapTbl.getId(), partition.getId());
+            removePrios(db.getId(), olapTbl.getId(), Lists.newArrayList(partition.getId()));
+        }
     }
 
     private boolean isInPrios(long dbId, long tblId, long partId) {
@@ -63,7 +63,6 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -96,9 +95,6 @@ public class TabletScheduler extends Daemon {
 
     public static final int BALANCE_SLOT_NUM_FOR_PATH = 2;
 
-    // if the number of scheduled tablets in TabletScheduler exceed this threshold,
-    // skip checking.
-    public static final int MAX_SCHEDULING_TABLETS = 2000;
     // if the number of balancing tablets in TabletScheduler exceed this threshold,
     // no more balance check
     public static final int MAX_BALANCING_TABLETS = 100;
@@ -112,12 +108,13 @@ public class TabletScheduler extends Daemon {
      * 
      * pendingTablets + runningTablets = allTabletIds
      * 
-     * pendingTablets, allTabletIds, runningTablets and schedHistory are protected by 'synchronized' 
+     * pendingTablets and allTabletIds can be accessed concurrently, so that adding tablets does not block
+     * the scheduling. runningTablets and schedHistory are protected by 'synchronized'
      */
-    private PriorityQueue<TabletSchedCtx> pendingTablets = new PriorityQueue<>();
-    private Set<Long> allTabletIds = Sets.newHashSet();
+    private PendingTabletQueue pendingTablets = new PendingTabletQueue();
+    private Set<Long> allTabletIds = Sets.newConcurrentHashSet();
     // contains all tabletCtxs which state are RUNNING
-    private Map<Long, TabletSchedCtx> runningTablets = Maps.newHashMap();
+    private Map<Long, TabletSchedCtx> runningTablets = Maps.newConcurrentMap();
     // save the latest 1000 scheduled tablet info
     private Queue<TabletSchedCtx> schedHistory = EvictingQueue.create(1000);
 
@@ -211,7 +208,7 @@ public class TabletScheduler extends Daemon {
      * add a ready-to-be-scheduled tablet to pendingTablets, if it has not being added before.
      * if force is true, do not check if tablet is already added before.
      */
-    public synchronized AddResult addTablet(TabletSchedCtx tablet, boolean force) {
+    public AddResult addTablet(TabletSchedCtx tablet, boolean force) {
         if (!force && containsTablet(tablet.getTabletId())) {
             return AddResult.ALREADY_IN;
         }
@@ -220,32 +217,29 @@ public class TabletScheduler extends Daemon {
         // and number of scheduling tablets exceed the limit,
         // refuse to add.
         if (tablet.getType() != TabletSchedCtx.Type.BALANCE && !force
-                && (pendingTablets.size() > MAX_SCHEDULING_TABLETS || runningTablets.size() > MAX_SCHEDULING_TABLETS)) {
+                && (pendingTablets.size() > Config.max_scheduling_tablets
+                || runningTablets.size() > Config.max_scheduling_tablets)) {
             return AddResult.LIMIT_EXCEED;
         }
 
-        allTabletIds.add(tablet.getTabletId());
+        if (!allTabletIds.add(tablet.getTabletId()) && !force) {
+            // added by others concurrently
+            return AddResult.ALREADY_IN;
+        }
         pendingTablets.offer(tablet);
         return AddResult.ADDED;
     }
 
-    public synchronized boolean containsTablet(long tabletId) {
+    public boolean containsTablet(long tabletId) {
         return allTabletIds.contains(tabletId);
     }
 
     /*
-     * Iterate current tablets, change their priority if necessary.
+     * Change the priority of pending tablets in the given partitions to VERY_HIGH.
      */
-    public synchronized void changePriorityOfTablets(long dbId, long tblId, List<Long> partitionIds) {
-        PriorityQueue<TabletSchedCtx> newPendingTablets = new PriorityQueue<>();
-        for (TabletSchedCtx tabletCtx : pendingTablets) {
-            if (tabletCtx.getDbId() == dbId && tabletCtx.getTblId() == tblId
-                    && partitionIds.contains(tabletCtx.getPartitionId())) {
-                tabletCtx.setOrigPriority(Priority.VERY_HIGH);
-            }
-            newPendingTablets.add(tabletCtx);
-        }
-        pendingTablets = newPendingTablets;
+    public void changePriorityOfTablets(long dbId, long tblId, List<Long> partitionIds) {
+        int changedNum = pendingTablets.setPriority(dbId, tblId, partitionIds, Priority.VERY_HIGH);
+        LOG.debug("change priority of {} tablets of table {} to VERY_HIGH", changedNum, tblId);
     }
 
     /*
@@ -320,23 +314,9 @@ public class TabletScheduler extends Daemon {
     /*
      * adjust priorities of all tablet infos
      */
-    private synchronized void adjustPriorities() {
-        int size = pendingTablets.size();
-        int changedNum = 0;
-        TabletSchedCtx tabletCtx = null;
-        for (int i = 0; i < size; i++) {
-            tabletCtx = pendingTablets.poll();
-            if (tabletCtx == null) {
-                break;
-            }
-
-            if (tabletCtx.adjustPriority(stat)) {
-                changedNum++;
-            }
-            pendingTablets.add(tabletCtx);
-        }
-
-        LOG.info("adjust priority for all tablets. changed: {}, total: {}", changedNum, size);
+    private void adjustPriorities() {
+        int changedNum = pendingTablets.updatePriorities(tabletCtx -> tabletCtx.adjustPriority(stat));
+        LOG.info("adjust priority for all tablets. changed: {}, total: {}", changedNum, pendingTablets.size());
     }
 
     /*
@@ -1107,7 +1087,7 @@ public class TabletScheduler extends Daemon {
 
 
     // get next batch of tablets from queue.
-    private synchronized List<TabletSchedCtx> getNextTabletCtxBatch() {
+    private List<TabletSchedCtx> getNextTabletCtxBatch() {
         List<TabletSchedCtx> list = Lists.newArrayList();
         int count = Math.max(MIN_BATCH_NUM, getCurrentAvailableSlotNum());
         while (count > 0) {
@@ -1245,7 +1225,7 @@ public class TabletScheduler extends Daemon {
     }
 
     public List<List<String>> getPendingTabletsInfo(int limit) {
-        List<TabletSchedCtx> tabletCtxs = getCopiedTablets(pendingTablets, limit);
+        List<TabletSchedCtx> tabletCtxs = pendingTablets.getTablets(limit);
         return collectTabletCtx(tabletCtxs);
     }
 
@@ -1275,7 +1255,7 @@ public class TabletScheduler extends Daemon {
         return tabletCtxs;
     }
 
-    public synchronized int getPendingNum() {
+    public int getPendingNum() {
         return pendingTablets.size();
     }
 
@@ -1291,8 +1271,8 @@ public class TabletScheduler extends Daemon {
         return allTabletIds.size();
     }
 
-    public synchronized long getBalanceTabletsNumber() {
-        return pendingTablets.stream().filter(t -> t.getType() == Type.BALANCE).count()
+    public long getBalanceTabletsNumber() {
+        return pendingTablets.count(t -> t.getType() == Type.BALANCE)
                 + runningTablets.values().stream().filter(t -> t.getType() == Type.BALANCE).count();
     }
 
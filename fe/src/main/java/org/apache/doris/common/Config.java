@@ -135,6 +135,38 @@ public class Config extends ConfigBase {
      */
     @ConfField(mutable = true, masterOnly = true)
     public static int edit_log_roll_num = 50000;
+    /*
+     * If true, master FE writes edit log in group-commit mode.
+     * Concurrent journal writes are queued, and a single writer thread commits
+     * up to *edit_log_group_commit_max_batch_size* of them in one bdbje transaction.
+     * Only takes effect when *edit_log_type* is BDB.
+     */
+    @ConfField public static boolean edit_log_group_commit = false;
+    /*
+     * Max number of journals committed in one bdbje transaction in group-commit mode.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int edit_log_group_commit_max_batch_size = 128;
+    /*
+     * If true, master FE compresses the journals not smaller than *edit_log_compress_min_bytes*
+     * with snappy before writing them into bdbje, which reduces the replication traffic and disk usage of bdbje.
+     * Journals of both formats can be replayed, but FE of old version can not read compressed journals,
+     * so only enable it after all FEs are upgraded. Only takes effect when *edit_log_type* is BDB.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static boolean edit_log_compress = false;
+    @ConfField(mutable = true, masterOnly = true)
+    public static int edit_log_compress_min_bytes = 1024;
+    /*
+     * Number of threads to deserialize journals ahead of replaying them, when a large number of journals
+     * are replayed, eg. a non-master FE catching up after restart, or checkpoint.
+     * Journals are still replayed one by one in order. Set to 0 to deserialize journals in the replay thread.
+     */
+    @ConfField public static int edit_log_replay_prefetch_thread_num = 4;
+    /*
+     * Max number of journals deserialized ahead of replaying.
+     */
+    @ConfField public static int edit_log_replay_prefetch_num = 1024;
     /*
      * Non-master FE will stop offering service
      * if meta data delay gap exceeds *meta_delay_toleration_second*
@@ -280,6 +312,19 @@ public class Config extends ConfigBase {
      */
     @ConfField public static int publish_version_interval_ms = 100;
 
+    /*
+     * Max number of threads sending agent tasks to backends.
+     * Tasks are queued by priority if all threads are busy.
+     */
+    @ConfField public static int agent_task_executor_thread_num = 64;
+
+    /*
+     * Agent tasks submitted to a backend within this window are sent to the backend in one rpc.
+     * Set to 0 to send tasks without waiting.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int agent_task_batch_window_ms = 5;
+
     /*
      * Maximal wait seconds for straggler node in load
      * eg.
@@ -500,6 +545,12 @@ public class Config extends ConfigBase {
      */
     @ConfField(mutable = true, masterOnly = true)
     public static int max_backend_down_time_second = 3600; // 1h
+    /*
+     * Heartbeats of one round are spread over this time instead of being sent all at once.
+     * Each node still has a full heartbeat timeout to response.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int heartbeat_stagger_ms = 1000;
     /*
      * When create a table(or partition), you can specify its storage media(HDD or SSD).
      * If set to SSD, this specifies the default duration that tablets will stay on SSD.
@@ -573,6 +624,49 @@ public class Config extends ConfigBase {
      */
     @ConfField public static int max_conn_per_user = 100;
 
+    /*
+     * If true, results of queries which only scan olap tables are cached in FE.
+     * The cache key contains the statement and versions of all scanned partitions,
+     * so a cached result is never returned after any scanned partition is loaded.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_query_result_cache = false;
+    /*
+     * Max total bytes of results cached in one FE. Least recently used results are evicted first.
+     */
+    @ConfField(mutable = true)
+    public static long query_result_cache_max_bytes = 256 * 1024 * 1024L; // 256MB
+    /*
+     * Results larger than this are not cached.
+     */
+    @ConfField(mutable = true)
+    public static long query_result_cache_max_entry_bytes = 4 * 1024 * 1024L; // 4MB
+
+    /*
+     * Max number of result batches fetched from backend ahead of being sent to client.
+     * Set to 1 to fetch the next batch only after the previous one is sent.
+     */
+    @ConfField(mutable = true)
+    public static int result_prefetch_batch_num = 2;
+
+    /*
+     * Maximal number of statements prepared by COM_STMT_PREPARE in one connection.
+     */
+    @ConfField(mutable = true)
+    public static int max_prepared_stmt_num_per_connection = 1024;
+
+    /*
+     * If true, idle mysql connections are watched by a selector instead of each holding a thread,
+     * and commands are executed in a worker pool of *mysql_service_nio_worker_threads* threads.
+     * If false, each connection is served by a dedicated thread.
+     */
+    @ConfField public static boolean mysql_service_nio_enabled = false;
+    /*
+     * Number of threads to execute mysql commands when *mysql_service_nio_enabled* is true.
+     * This is also the max number of statements that can run concurrently on one FE.
+     */
+    @ConfField public static int mysql_service_nio_worker_threads = 256;
+
     /*
     * The memory_limit for colocote join PlanFragment instance =
     * exec_mem_limit / min (query_colocate_join_memory_limit_penalty_factor, instance_num)
@@ -736,6 +830,37 @@ public class Config extends ConfigBase {
      */
     @ConfField(mutable = true)
     public static long remote_fragment_exec_timeout_ms = 5000; // 5 sec
+
+    /*
+     * If true, instances of all fragments of a query are sent in parallel, and a fragment is sent once
+     * all instances of its destination fragment are started.
+     * Otherwise, fragments are sent one by one.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_parallel_fragment_dispatch = true;
+
+    /*
+     * Max number of fragment instance rpcs in flight of one query when sending fragments in parallel.
+     */
+    @ConfField(mutable = true)
+    public static int max_fragment_dispatch_rpc_per_query = 32;
+
+    /*
+     * If true, instances of a fragment on the same backend are sent in one rpc, in which params shared by
+     * the instances are sent only once. Enable it after all backends are upgraded.
+     * A backend not upgraded yet still works: after the batch rpc to it fails, the instances are sent again
+     * one by one, and later instances are sent to it one by one until it is restarted.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_fragment_exec_batch_rpc = false;
+
+    /*
+     * If true, the replica to scan is chosen by comparing loads of two random available replicas,
+     * including fragment instances in flight, recent fragment latency and disk io util reported by heartbeat.
+     * Otherwise the first available replica is chosen.
+     */
+    @ConfField(mutable = true)
+    public static boolean enable_load_aware_replica_selection = false;
     
     /*
      * The number of query retries. 
@@ -808,6 +933,25 @@ public class Config extends ConfigBase {
      */
     @ConfField(mutable = true, masterOnly = true)
     public static boolean disable_balance = false;
+
+    /*
+     * If the number of pending or running tablets in TabletScheduler exceeds this limit,
+     * tablet checker will skip checking and unhealthy tablets will not be added.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int max_scheduling_tablets = 10000;
+
+    /*
+     * Number of threads used by tablet checker to check tables in parallel.
+     */
+    @ConfField public static int tablet_checker_thread_num = 4;
+
+    /*
+     * Tablet checker skips a partition in which all tablets were healthy, until its replicas are changed.
+     * A partition is still fully checked at least once in this interval.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int tablet_checker_full_check_interval_second = 300;
     
     // This threshold is to avoid piling up too many report task in FE, which may cause OOM exception.
     // In some large Doris cluster, eg: 100 Backends with ten million replicas, a tablet report may cost
@@ -822,7 +966,35 @@ public class Config extends ConfigBase {
     //      10000 replicas: 200ms
     @ConfField(mutable = true, masterOnly = true)
     public static int report_queue_size = 100;
-    
+
+    /*
+     * Number of threads handling reports. Reports of different backends are handled concurrently,
+     * and task and disk reports are handled before tablet reports.
+     */
+    @ConfField public static int report_handler_thread_num = 4;
+
+    /*
+     * Number of shards of the tablet inverted index. Each shard is locked independently,
+     * so tablet report and tablet modifications on different shards do not block each other.
+     */
+    @ConfField public static int tablet_inverted_index_shard_num = 16;
+
+    /*
+     * Number of threads to diff one tablet report with the tablet inverted index.
+     * Each shard of the index is diffed as a separate task. Set to 1 to diff in the report thread.
+     */
+    @ConfField public static int tablet_report_diff_thread_num = 4;
+
+    /*
+     * Backends send delta tablet reports which only contain the changed tablets.
+     * If a backend has not sent a full tablet report for this time, its delta report is rejected,
+     * and the backend will send a full tablet report next time.
+     * A full tablet report is also requested when a version is not published to the backend, or storage
+     * medium of a partition is changed, since they can not be found by delta reports.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static int tablet_report_full_interval_second = 600;
+
     /*
      * If set to true, metric collector will be run as a daemon timer to collect metrics at fix interval
      */
@@ -898,5 +1070,27 @@ public class Config extends ConfigBase {
     @ConfField(mutable = true, masterOnly = true)
     public static boolean force_do_metadata_checkpoint = false;
 
+    /*
+     * If set to true, checkpoint saves image in sectioned format, each database is a section,
+     * and sections are saved and loaded in parallel.
+     * Image of both formats can be loaded, but FE of old version can not load sectioned image,
+     * so only enable it after all FEs are upgraded.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static boolean enable_sectioned_image = false;
+
+    /*
+     * Number of threads to save and load sections of sectioned image.
+     */
+    @ConfField public static int image_parallel_thread_num = 8;
+
+    /*
+     * If set to true, checkpoint loads databases of the previous sectioned image only when they are
+     * accessed by the replayed journals, and copies sections of the other databases to the new image as is.
+     * This reduces the memory and cpu usage of checkpoint. Only takes effect if enable_sectioned_image is true.
+     */
+    @ConfField(mutable = true, masterOnly = true)
+    public static boolean enable_incremental_checkpoint = false;
+
 }
 
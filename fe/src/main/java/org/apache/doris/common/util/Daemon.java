@@ -34,6 +34,10 @@ public class Daemon extends Thread {
     
     private MetaContext metaContext = null;
 
+    // used to start next cycle before the interval elapses
+    private final Object wakeupLock = new Object();
+    private boolean wakeupRequested = false;
+
     {
         setDaemon(true);
     }
@@ -89,6 +93,17 @@ public class Daemon extends Thread {
     public void setInterval(long intervalMs) {
         this.intervalMs = intervalMs;
     }
+
+    /**
+     * run next cycle as soon as current cycle is done, instead of waiting for the interval.
+     * wakeups during a cycle are merged into one.
+     */
+    public void wakeup() {
+        synchronized (wakeupLock) {
+            wakeupRequested = true;
+            wakeupLock.notifyAll();
+        }
+    }
     
     /**
      * implement in child
@@ -111,7 +126,12 @@ public class Daemon extends Thread {
             }
 
             try {
-                Thread.sleep(intervalMs);
+                synchronized (wakeupLock) {
+                    if (!wakeupRequested && intervalMs > 0) {
+                        wakeupLock.wait(intervalMs);
+                    }
+                    wakeupRequested = false;
+                }
             } catch (InterruptedException e) {
                 LOG.error("InterruptedException: ", e);
             }
@@ -0,0 +1,158 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import java.util.Arrays;
+
+/*
+ * A hash map from primitive long to primitive long, with open addressing and linear probing.
+ * Key 0 marks a free slot in the table, so the mapping of key 0 is saved outside the table.
+ * Not thread safe.
+ */
+public class LongLongHashMap {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private long[] values;
+    // number of mappings in table, not including key 0
+    private int tableSize;
+    private int threshold;
+
+    private boolean hasZeroKey = false;
+    private long zeroValue;
+
+    public LongLongHashMap() {
+        this(0);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        allocate(LongObjectHashMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return hasZeroKey ? tableSize + 1 : tableSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return keys[findSlot(key)] != 0;
+    }
+
+    // return defaultValue if there is no mapping for the key
+    public long get(long key, long defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = findSlot(key);
+        return keys[slot] != 0 ? values[slot] : defaultValue;
+    }
+
+    public void put(long key, long value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int slot = findSlot(key);
+        if (keys[slot] == 0) {
+            keys[slot] = key;
+            if (++tableSize >= threshold) {
+                values[slot] = value;
+                resize(keys.length << 1);
+                return;
+            }
+        }
+        values[slot] = value;
+    }
+
+    // return true if there was a mapping for the key
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean existed = hasZeroKey;
+            hasZeroKey = false;
+            return existed;
+        }
+        int slot = findSlot(key);
+        if (keys[slot] == 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        tableSize = 0;
+        hasZeroKey = false;
+    }
+
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = LongObjectHashMap.mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (keys[next] != 0) {
+            int ideal = LongObjectHashMap.mix(keys[next]) & mask;
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = 0;
+        tableSize--;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = LongObjectHashMap.mix(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
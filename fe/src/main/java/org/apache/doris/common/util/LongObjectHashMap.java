@@ -0,0 +1,201 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * A hash map from primitive long to object, with open addressing and linear probing.
+ * Compared with HashMap<Long, V>, there is no boxed key and no entry object for each mapping,
+ * which saves most of the memory when holding millions of catalog objects.
+ *
+ * Null value is not allowed, a null slot in values means the slot is free.
+ * Not thread safe.
+ */
+public class LongObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    // resize when size reaches this
+    private int threshold;
+
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return values[findSlot(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[findSlot(key)];
+    }
+
+    // return the previous value, or null if there is no mapping for the key
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Preconditions.checkNotNull(value);
+        int slot = findSlot(key);
+        V old = (V) values[slot];
+        if (old == null) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size >= threshold) {
+                resize(keys.length << 1);
+            }
+        } else {
+            values[slot] = value;
+        }
+        return old;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int slot = findSlot(key);
+        V old = (V) values[slot];
+        if (old != null) {
+            deleteSlot(slot);
+        }
+        return old;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    public List<Long> keyList() {
+        List<Long> keyList = Lists.newArrayListWithCapacity(size);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                keyList.add(keys[i]);
+            }
+        }
+        return keyList;
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<V> valueList() {
+        List<V> valueList = Lists.newArrayListWithCapacity(size);
+        for (Object value : values) {
+            if (value != null) {
+                valueList.add((V) value);
+            }
+        }
+        return valueList;
+    }
+
+    // return the slot of the key, or the free slot where the key should be put
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // shift the following entries back, so that there is no tombstone
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int next = (free + 1) & mask;
+        while (values[next] != null) {
+            int ideal = mix(keys[next]) & mask;
+            // move the entry if its ideal slot is not in (free, next]
+            if (((next - ideal) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[free] = null;
+        size--;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * LOAD_FACTOR <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // ids are usually sequential, so spread them before masking
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
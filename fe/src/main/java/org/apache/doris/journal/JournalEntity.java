@@ -29,6 +29,7 @@ import org.apache.doris.catalog.Function;
 import org.apache.doris.catalog.FunctionSearchDesc;
 import org.apache.doris.cluster.BaseParam;
 import org.apache.doris.cluster.Cluster;
+import org.apache.doris.common.io.DataOutputBuffer;
 import org.apache.doris.common.io.Text;
 import org.apache.doris.common.io.Writable;
 import org.apache.doris.common.util.SmallFileMgr.SmallFile;
@@ -71,14 +72,23 @@ import org.apache.doris.transaction.TransactionState;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.xerial.snappy.Snappy;
 
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
+import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.IOException;
 
 // this is the value written to bdb or local edit files. key is an auto-increasing long.
+//
+// The serialized entity may be compressed by compress(), in format:
+//   OP_COMPRESSED(2) | compressed length(4) | snappy compressed bytes of the serialized entity
+// readFields() reads entities of both formats.
 public class JournalEntity implements Writable {
     public static final Logger LOG = LogManager.getLogger(Checkpoint.class);
+    // opCode and length of a compressed entity
+    private static final int COMPRESSED_HEADER_SIZE = 6;
 
     private short opCode;
     private Writable data;
@@ -114,6 +124,10 @@ public class JournalEntity implements Writable {
         boolean needRead = true;
         opCode = in.readShort();
         LOG.debug("get opcode: {}", opCode);
+        if (opCode == OperationType.OP_COMPRESSED) {
+            readCompressed(in);
+            return;
+        }
         switch (opCode) {
             case OperationType.OP_SAVE_NEXTID: {
                 data = new Text();
@@ -433,4 +447,28 @@ public class JournalEntity implements Writable {
             data.readFields(in);
         }
     }
+
+    private void readCompressed(DataInput in) throws IOException {
+        byte[] compressed = new byte[in.readInt()];
+        in.readFully(compressed);
+        byte[] raw = Snappy.uncompress(compressed);
+        readFields(new DataInputStream(new ByteArrayInputStream(raw)));
+    }
+
+    /*
+     * Compress the serialized entity of the given length.
+     * Return null if compressing does not make it smaller.
+     */
+    public static byte[] compress(byte[] raw, int length) throws IOException {
+        byte[] compressed = new byte[Snappy.maxCompressedLength(length)];
+        int compressedLength = Snappy.compress(raw, 0, length, compressed, 0);
+        if (compressedLength + COMPRESSED_HEADER_SIZE >= length) {
+            return null;
+        }
+        DataOutputBuffer buffer = new DataOutputBuffer(compressedLength + COMPRESSED_HEADER_SIZE);
+        buffer.writeShort(OperationType.OP_COMPRESSED);
+        buffer.writeInt(compressedLength);
+        buffer.write(compressed, 0, compressedLength);
+        return buffer.getData();
+    }
 }
@@ -0,0 +1,181 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.journal;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.meta.MetaContext;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+/*
+ * A journal cursor which reads serialized journals in a background thread, and deserializes them
+ * in a thread pool ahead of the caller. Journals are still returned in order.
+ *
+ * Journals are deserialized with the meta version of the caller when they are prefetched.
+ * If the replayed journals change the meta version, the prefetched journals are dropped
+ * and read again from the next journal.
+ */
+public class PrefetchJournalCursor implements JournalCursor {
+    private static final Logger LOG = LogManager.getLogger(PrefetchJournalCursor.class);
+    // marks that there is no more journals
+    private static final Future<JournalEntity> END = CompletableFuture.completedFuture(null);
+
+    // create a supplier of serialized journals from the given key, which returns null at the end
+    private final LongFunction<Supplier<byte[]>> sourceFactory;
+    private final ExecutorService executor;
+    private final int capacity;
+    private final boolean isCheckpoint;
+
+    private long nextKey;
+    private Prefetcher prefetcher;
+    private boolean finished = false;
+
+    public PrefetchJournalCursor(long fromKey, LongFunction<Supplier<byte[]>> sourceFactory,
+                                 ExecutorService executor, int capacity) {
+        this.sourceFactory = sourceFactory;
+        this.executor = executor;
+        this.capacity = Math.max(1, capacity);
+        this.isCheckpoint = Catalog.isCheckpointThread();
+        this.nextKey = fromKey;
+        this.prefetcher = startPrefetcher();
+    }
+
+    private Prefetcher startPrefetcher() {
+        Prefetcher newPrefetcher = new Prefetcher(sourceFactory.apply(nextKey), MetaContext.get().getMetaVersion());
+        newPrefetcher.start();
+        return newPrefetcher;
+    }
+
+    @Override
+    public JournalEntity next() {
+        if (finished) {
+            return null;
+        }
+        if (MetaContext.get().getMetaVersion() != prefetcher.metaVersion) {
+            LOG.info("meta version changed from {} to {}, prefetch journals again from {}",
+                    prefetcher.metaVersion, MetaContext.get().getMetaVersion(), nextKey);
+            prefetcher.stopPrefetch();
+            prefetcher = startPrefetcher();
+        }
+
+        JournalEntity entity;
+        try {
+            Future<JournalEntity> future = prefetcher.queue.take();
+            if (future == END) {
+                finished = true;
+                return null;
+            }
+            entity = future.get();
+        } catch (InterruptedException e) {
+            LOG.warn("interrupted when waiting journal {}", nextKey, e);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            // same as BDBJournalCursor
+            LOG.error("fail to read journal entity key={}, will exit", nextKey, e.getCause());
+            System.exit(-1);
+            return null;
+        }
+        nextKey++;
+        return entity;
+    }
+
+    @Override
+    public void close() {
+        prefetcher.stopPrefetch();
+    }
+
+    private JournalEntity deserialize(byte[] data, int metaVersion) throws Exception {
+        MetaContext metaContext = new MetaContext();
+        metaContext.setMetaVersion(metaVersion);
+        metaContext.setThreadLocalInfo();
+        Catalog.setCheckpointWorker(isCheckpoint);
+        try {
+            JournalEntity entity = new JournalEntity();
+            entity.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+            return entity;
+        } finally {
+            Catalog.setCheckpointWorker(false);
+            MetaContext.remove();
+        }
+    }
+
+    private class Prefetcher extends Thread {
+        private final Supplier<byte[]> source;
+        private final int metaVersion;
+        private final BlockingQueue<Future<JournalEntity>> queue;
+        private volatile boolean stopped = false;
+
+        Prefetcher(Supplier<byte[]> source, int metaVersion) {
+            super("journal-prefetcher");
+            setDaemon(true);
+            this.source = source;
+            this.metaVersion = metaVersion;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        // Do not interrupt the thread, which may invalidate the bdb environment.
+        void stopPrefetch() {
+            stopped = true;
+            for (Future<JournalEntity> future : queue) {
+                future.cancel(false);
+            }
+            queue.clear();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped) {
+                    byte[] data = source.get();
+                    Future<JournalEntity> future = data == null ? END
+                            : executor.submit(() -> deserialize(data, metaVersion));
+                    while (!stopped && !queue.offer(future, 100, TimeUnit.MILLISECONDS)) {
+                        // wait until the caller takes some journals
+                    }
+                    if (data == null) {
+                        return;
+                    }
+                }
+            } catch (Throwable t) {
+                LOG.warn("failed to prefetch journals", t);
+                // let the caller stop at here, same as the cursor returns null
+                try {
+                    while (!stopped && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                        // wait until the caller takes some journals
+                    }
+                } catch (InterruptedException e) {
+                    LOG.warn("interrupted when finishing prefetch", e);
+                }
+            }
+        }
+    }
+}
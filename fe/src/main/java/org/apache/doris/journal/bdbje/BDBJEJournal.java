@@ -18,21 +18,29 @@
 package org.apache.doris.journal.bdbje;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.Pair;
 import org.apache.doris.common.io.DataOutputBuffer;
 import org.apache.doris.common.io.Writable;
+import org.apache.doris.common.util.Daemon;
 import org.apache.doris.journal.Journal;
 import org.apache.doris.journal.JournalCursor;
 import org.apache.doris.journal.JournalEntity;
+import org.apache.doris.journal.PrefetchJournalCursor;
 import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.persist.OperationType;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Database;
 import com.sleepycat.je.DatabaseEntry;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.LockMode;
 import com.sleepycat.je.OperationStatus;
+import com.sleepycat.je.Transaction;
 import com.sleepycat.je.rep.InsufficientLogException;
 import com.sleepycat.je.rep.NetworkRestore;
 import com.sleepycat.je.rep.NetworkRestoreConfig;
@@ -47,7 +55,16 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /* 
@@ -56,11 +73,18 @@ import java.util.concurrent.atomic.AtomicLong;
  * We can also get journal id information by calling get***Id functions.
  * Finally, close this journal.
  * This class encapsulates the read, write APIs of bdbje
+ *
+ * If Config.edit_log_group_commit is true, journals are not put into bdbje by the calling thread.
+ * They are queued and a single JournalWriter thread commits a batch of them in one bdbje transaction,
+ * so that concurrent writers share one fsync and one replication round trip.
  */
 public class BDBJEJournal implements Journal {
     public static final Logger LOG = LogManager.getLogger(BDBJEJournal.class);
     private static final int OUTPUT_BUFFER_INIT_SIZE = 128;
     private static final int RETRY_TIME = 3;
+    // journals are prefetched only if reading at least this number of journals
+    private static final int PREFETCH_MIN_JOURNAL_NUM = 100;
+    private static volatile ExecutorService prefetchExecutor = null;
     
     private String environmentPath = null;
     private String selfNodeName;
@@ -69,9 +93,15 @@ public class BDBJEJournal implements Journal {
     private BDBEnvironment bdbEnvironment = null;
     private Database currentJournalDB;
     private AtomicLong journalId = new AtomicLong(1);
+
+    // the following are only used in group-commit mode
+    private final boolean groupCommit;
+    private BlockingQueue<JournalTask> journalQueue = Queues.newLinkedBlockingQueue();
+    private volatile JournalWriter journalWriter = null;
     
     public BDBJEJournal(String nodeName) {
         initBDBEnv(nodeName);
+        groupCommit = Config.edit_log_group_commit;
     }
     
     /* 
@@ -122,36 +152,68 @@ public class BDBJEJournal implements Journal {
     }
 
     @Override
-    public synchronized void write(short op, Writable writable) {
-        if (!Catalog.getInstance().canWrite() && op != OperationType.OP_META_VERSION
-                && op != OperationType.OP_ADD_FIRST_FRONTEND) {
-            LOG.error("the canWrite flag has not set to true yet. can not write journal. will exit. op: {}", op);
+    public void write(short op, Writable writable) {
+        if (!groupCommit) {
+            writeOneJournal(op, writable);
+            return;
+        }
+
+        Future<Long> future = writeAsync(op, writable);
+        try {
+            future.get();
+        } catch (InterruptedException | ExecutionException e) {
+            LOG.error("write bdb failed in group-commit mode. will exit. op: {}", op, e);
             System.exit(-1);
         }
-        
-        JournalEntity entity = new JournalEntity();
-        entity.setOpCode(op);
-        entity.setData(writable);
+    }
+
+    /*
+     * Queue the journal and return a future which is completed with the journal id
+     * after the batch containing this journal is committed.
+     * Only available in group-commit mode.
+     */
+    public Future<Long> writeAsync(short op, Writable writable) {
+        Preconditions.checkState(groupCommit, "edit log group commit is not enabled");
+        checkCanWrite(op);
+
+        JournalTask task;
+        try {
+            task = new JournalTask(op, new DatabaseEntry(serializeEntity(op, writable)));
+        } catch (IOException e) {
+            LOG.warn("failed to serialize journal. op: {}", op, e);
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        JournalWriter writer = journalWriter;
+        if (writer == null) {
+            task.future.completeExceptionally(new IOException("bdbje journal is not opened"));
+            return task.future;
+        }
+        journalQueue.add(task);
+        // the writer may be stopped by close() before the task is queued
+        if (journalWriter != writer && journalQueue.remove(task)) {
+            task.future.completeExceptionally(new IOException("bdbje journal is closed"));
+        }
+        return task.future;
+    }
+
+    private synchronized void writeOneJournal(short op, Writable writable) {
+        checkCanWrite(op);
         
         // id is the key
         long id = journalId.getAndIncrement();
-        Long idLong = new Long(id);
-        DatabaseEntry theKey = new DatabaseEntry();
-        TupleBinding<Long> idBinding = TupleBinding.getPrimitiveBinding(Long.class);
-        idBinding.objectToEntry(idLong, theKey);
+        DatabaseEntry theKey = getKeyEntry(id);
         
         // entity is the value
-        DataOutputBuffer buffer = new DataOutputBuffer(OUTPUT_BUFFER_INIT_SIZE);
+        DatabaseEntry theData;
         try {
-            entity.write(buffer);
+            theData = new DatabaseEntry(serializeEntity(op, writable));
         } catch (IOException e) {
-            e.printStackTrace();
-        }
-        DatabaseEntry theData = new DatabaseEntry(buffer.getData());
-        if (MetricRepo.isInit.get()) {
-            MetricRepo.COUNTER_EDIT_LOG_SIZE_BYTES.increase((long) theData.getSize());
+            LOG.error("failed to serialize journal. will exit. op: {}", op, e);
+            System.exit(-1);
+            return;
         }
-        LOG.debug("opCode = {}, journal size = {}", op, theData.getSize()); 
         // Write the key value pair to bdb.
         boolean writeSuccessed = false;
         for (int i = 0; i < RETRY_TIME; i++) {
@@ -191,6 +253,134 @@ public class BDBJEJournal implements Journal {
         }
     }
 
+    private void checkCanWrite(short op) {
+        if (!Catalog.getInstance().canWrite() && op != OperationType.OP_META_VERSION
+                && op != OperationType.OP_ADD_FIRST_FRONTEND) {
+            LOG.error("the canWrite flag has not set to true yet. can not write journal. will exit. op: {}", op);
+            System.exit(-1);
+        }
+    }
+
+    private byte[] serializeEntity(short op, Writable writable) throws IOException {
+        JournalEntity entity = new JournalEntity();
+        entity.setOpCode(op);
+        entity.setData(writable);
+
+        DataOutputBuffer buffer = new DataOutputBuffer(OUTPUT_BUFFER_INIT_SIZE);
+        entity.write(buffer);
+
+        int rawLength = buffer.getLength();
+        byte[] data = null;
+        if (Config.edit_log_compress && rawLength >= Config.edit_log_compress_min_bytes) {
+            try {
+                data = JournalEntity.compress(buffer.getData(), rawLength);
+            } catch (IOException e) {
+                LOG.warn("failed to compress journal, write it uncompressed. op: {}", op, e);
+            }
+        }
+        if (data == null) {
+            // the buffer may be larger than the serialized entity
+            data = rawLength == buffer.getData().length ? buffer.getData() : Arrays.copyOf(buffer.getData(), rawLength);
+        }
+
+        if (MetricRepo.isInit.get()) {
+            MetricRepo.COUNTER_EDIT_LOG_RAW_SIZE_BYTES.increase((long) rawLength);
+            MetricRepo.COUNTER_EDIT_LOG_SIZE_BYTES.increase((long) data.length);
+        }
+        LOG.debug("opCode = {}, journal size = {}, raw size = {}", op, data.length, rawLength);
+        return data;
+    }
+
+    private DatabaseEntry getKeyEntry(long id) {
+        DatabaseEntry theKey = new DatabaseEntry();
+        TupleBinding<Long> idBinding = TupleBinding.getPrimitiveBinding(Long.class);
+        idBinding.objectToEntry(id, theKey);
+        return theKey;
+    }
+
+    /*
+     * Put all journals of the batch into bdb in one transaction, and complete their futures.
+     * Journal ids are assigned here, under the same lock as rollJournal(),
+     * so the order of ids is the order in which journals are committed.
+     */
+    private synchronized void commitBatch(JournalWriter writer, List<JournalTask> batch) {
+        long firstId = journalId.get();
+        boolean writeSuccessed = false;
+        for (int i = 0; i < RETRY_TIME; i++) {
+            Transaction txn = null;
+            try {
+                txn = bdbEnvironment.getReplicatedEnvironment().beginTransaction(null, null);
+                boolean allPut = true;
+                long id = firstId;
+                for (JournalTask task : batch) {
+                    if (currentJournalDB.put(txn, getKeyEntry(id++), task.data) != OperationStatus.SUCCESS) {
+                        allPut = false;
+                        break;
+                    }
+                }
+                if (allPut) {
+                    txn.commit();
+                    writeSuccessed = true;
+                    LOG.debug("master write journal {} to {} finished. db name {}, current time {}",
+                              firstId, id - 1, currentJournalDB.getDatabaseName(), System.currentTimeMillis());
+                    break;
+                }
+                txn.abort();
+            } catch (DatabaseException e) {
+                LOG.error("catch an exception when writing batch to database. sleep and retry. first journal id {},"
+                        + " batch size {}", firstId, batch.size(), e);
+                abortQuietly(txn);
+                if (writer.awaitStop(5 * 1000)) {
+                    // stopped by close(), do not retry any more
+                    LOG.warn("journal writer is stopped when retrying to write batch. first journal id {}", firstId);
+                    for (JournalTask task : batch) {
+                        task.future.completeExceptionally(new IOException("bdbje journal is closed"));
+                    }
+                    return;
+                }
+                continue;
+            }
+        }
+
+        if (!writeSuccessed) {
+            boolean allTimestamp = true;
+            for (JournalTask task : batch) {
+                if (task.op != OperationType.OP_TIMESTAMP) {
+                    allTimestamp = false;
+                    break;
+                }
+            }
+            if (allTimestamp) {
+                // same as writeOneJournal(), do not exit if we only failed to write OP_TIMESTAMP
+                LOG.warn("master can not achieve quorum. write timestamp fail. but will not exit.");
+                for (JournalTask task : batch) {
+                    task.future.complete(-1L);
+                }
+                return;
+            }
+            LOG.error("write bdb failed. will exit. first journalId:{}, batch size: {}, bdb database Name:{}",
+                      firstId, batch.size(), currentJournalDB.getDatabaseName());
+            System.exit(-1);
+        }
+
+        journalId.set(firstId + batch.size());
+        long id = firstId;
+        for (JournalTask task : batch) {
+            task.future.complete(id++);
+        }
+    }
+
+    private void abortQuietly(Transaction txn) {
+        if (txn == null) {
+            return;
+        }
+        try {
+            txn.abort();
+        } catch (DatabaseException e) {
+            LOG.warn("failed to abort bdb transaction", e);
+        }
+    }
+
     @Override
     public JournalEntity read(long journalId) {
         List<Long> dbNames = bdbEnvironment.getDatabaseNames();
@@ -245,9 +435,29 @@ public class BDBJEJournal implements Journal {
 
     @Override
     public JournalCursor read(long fromKey, long toKey) {
+        if (Config.edit_log_replay_prefetch_thread_num > 0 && toKey - fromKey + 1 >= PREFETCH_MIN_JOURNAL_NUM
+                && fromKey >= 0) {
+            return new PrefetchJournalCursor(fromKey, key -> {
+                BDBJournalCursor cursor = BDBJournalCursor.getJournalCursor(bdbEnvironment, key, toKey);
+                return cursor == null ? () -> null : cursor::nextData;
+            }, getPrefetchExecutor(), Config.edit_log_replay_prefetch_num);
+        }
         JournalCursor cursor = BDBJournalCursor.getJournalCursor(bdbEnvironment, fromKey, toKey);
         return cursor;
     }
+
+    private static ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            synchronized (BDBJEJournal.class) {
+                if (prefetchExecutor == null) {
+                    prefetchExecutor = Executors.newFixedThreadPool(Config.edit_log_replay_prefetch_thread_num,
+                            new ThreadFactoryBuilder().setDaemon(true)
+                                    .setNameFormat("journal-deserializer-%d").build());
+                }
+            }
+        }
+        return prefetchExecutor;
+    }
     
     @Override
     public long getMaxJournalId() {
@@ -298,8 +508,38 @@ public class BDBJEJournal implements Journal {
 
     @Override
     public void close() {
-        bdbEnvironment.close();
-        bdbEnvironment = null;
+        // the writer is stopped without holding the lock, since it needs the lock to commit its batch
+        stopJournalWriter();
+        synchronized (this) {
+            bdbEnvironment.close();
+            bdbEnvironment = null;
+        }
+    }
+
+    /*
+     * Stop the writer and fail the journals still queued.
+     * The writer stops retrying the batch being written, but it is not interrupted,
+     * because interrupting a thread in bdbje operations invalidates the environment.
+     */
+    private void stopJournalWriter() {
+        JournalWriter writer = journalWriter;
+        if (writer == null) {
+            return;
+        }
+        journalWriter = null;
+        writer.stopWriter();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            LOG.warn("interrupted when waiting for journal writer to stop", e);
+        }
+
+        List<JournalTask> pendingTasks = Lists.newArrayList();
+        journalQueue.drainTo(pendingTasks);
+        for (JournalTask task : pendingTasks) {
+            task.future.completeExceptionally(new IOException("bdbje journal is closed"));
+        }
+        LOG.info("journal writer is stopped, {} pending journals are failed", pendingTasks.size());
     }
 
     @Override
@@ -343,6 +583,11 @@ public class BDBJEJournal implements Journal {
                 }
                 
                 journalId.set(getMaxJournalId() + 1);
+
+                if (groupCommit && journalWriter == null) {
+                    journalWriter = new JournalWriter();
+                    journalWriter.start();
+                }
                 
                 break;
             } catch (InsufficientLogException insufficientLogEx) {
@@ -431,4 +676,77 @@ public class BDBJEJournal implements Journal {
         }  
         return flag;  
     }
+
+    private static class JournalTask {
+        public final short op;
+        public final DatabaseEntry data;
+        public final long createTimeMs = System.currentTimeMillis();
+        public final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        public JournalTask(short op, DatabaseEntry data) {
+            this.op = op;
+            this.data = data;
+        }
+    }
+
+    /*
+     * The single writer thread in group-commit mode.
+     * It takes all queued journals (at most edit_log_group_commit_max_batch_size) and commits them together.
+     */
+    private class JournalWriter extends Daemon {
+        private final CountDownLatch stopLatch = new CountDownLatch(1);
+
+        public JournalWriter() {
+            super("bdbje journal writer", 0);
+        }
+
+        public void stopWriter() {
+            exit();
+            stopLatch.countDown();
+        }
+
+        // wait for at most timeoutMs, return true if the writer is stopped
+        public boolean awaitStop(long timeoutMs) {
+            try {
+                return stopLatch.await(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                LOG.warn("journal writer is interrupted", e);
+                return false;
+            }
+        }
+
+        @Override
+        protected void runOneCycle() {
+            List<JournalTask> batch = Lists.newArrayList();
+            try {
+                // wait with timeout so that the writer can see exit() called by close()
+                JournalTask task = journalQueue.poll(1, TimeUnit.SECONDS);
+                if (task == null) {
+                    return;
+                }
+                batch.add(task);
+            } catch (InterruptedException e) {
+                LOG.warn("journal writer is interrupted", e);
+                return;
+            }
+            journalQueue.drainTo(batch, Math.max(Config.edit_log_group_commit_max_batch_size - 1, 0));
+
+            if (MetricRepo.isInit.get()) {
+                long now = System.currentTimeMillis();
+                MetricRepo.HISTO_EDIT_LOG_WRITE_BATCH_SIZE.update(batch.size());
+                for (JournalTask task : batch) {
+                    MetricRepo.HISTO_EDIT_LOG_WRITE_QUEUE_WAIT.update(now - task.createTimeMs);
+                }
+            }
+
+            try {
+                commitBatch(this, batch);
+            } catch (Throwable t) {
+                LOG.error("failed to commit journal batch. batch size: {}", batch.size(), t);
+                for (JournalTask task : batch) {
+                    task.future.completeExceptionally(t);
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -90,9 +90,24 @@ public class BDBJournalCursor implements JournalCursor {
     
     @Override
     public JournalEntity next() {
-        JournalEntity ret = null;
+        byte[] data = nextData();
+        if (data == null) {
+            return null;
+        }
+        JournalEntity ret = new JournalEntity();
+        try {
+            ret.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+        } catch (Exception e) {
+            LOG.error("fail to read journal entity key={}, will exit", currentKey - 1, e);
+            System.exit(-1);
+        }
+        return ret;
+    }
+
+    // Return the serialized data of the next journal, or null when there is no more journals
+    public byte[] nextData() {
         if (currentKey > toKey) {
-            return ret;
+            return null;
         }
         Long key = new Long(currentKey);
         DatabaseEntry theKey = new DatabaseEntry();
@@ -108,18 +123,8 @@ public class BDBJournalCursor implements JournalCursor {
             while (true) {
                 OperationStatus operationStatus = database.get(null, theKey, theData, LockMode.READ_COMMITTED);
                 if (operationStatus == OperationStatus.SUCCESS) {
-                    // Recreate the data String.
-                    byte[] retData = theData.getData();
-                    DataInputStream in = new DataInputStream(new ByteArrayInputStream(retData));
-                    ret = new JournalEntity();
-                    try {
-                        ret.readFields(in);
-                    } catch (Exception e) {
-                        LOG.error("fail to read journal entity key={}, will exit", currentKey, e);
-                        System.exit(-1);
-                    }
                     currentKey++;
-                    return ret;
+                    return theData.getData();
                 } else if (nextDbPositionIndex < dbNames.size() && currentKey == dbNames.get(nextDbPositionIndex)) {
                     database = environment.openDatabase(dbNames.get(nextDbPositionIndex).toString());
                     nextDbPositionIndex++;
@@ -79,7 +79,7 @@ import java.util.List;
 public class MasterImpl {
     private static final Logger LOG = LogManager.getLogger(MasterImpl.class);
 
-    ReportHandler reportHandler = new ReportHandler();
+    ReportHandler reportHandler = Catalog.getCurrentCatalog().getReportHandler();
 
     public MasterImpl() {
         reportHandler.start();
@@ -595,6 +595,8 @@ public class MasterImpl {
         AgentTaskQueue.removeTask(publishVersionTask.getBackendId(), 
                                   publishVersionTask.getTaskType(), 
                                   publishVersionTask.getSignature());
+        // try to finish the transaction now, instead of in a later round of publish version daemon
+        Catalog.getCurrentCatalog().getPublishVersionDaemon().onPublishTaskFinished(publishVersionTask);
     }
     
     private ReplicaPersistInfo updateReplicaInfo(OlapTable olapTable, Partition partition,
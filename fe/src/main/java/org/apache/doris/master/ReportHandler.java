@@ -73,8 +73,8 @@ import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Queues;
 import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Sets;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -82,30 +82,42 @@ import org.apache.logging.log4j.Logger;
 import org.apache.thrift.TException;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ReportHandler extends Daemon {
     private static final Logger LOG = LogManager.getLogger(ReportHandler.class);
 
-    private BlockingQueue<ReportTask> reportQueue = Queues.newLinkedBlockingQueue();
+    // task and disk reports are handled before tablet reports
+    private static final Comparator<ReportSlot> REPORT_ORDER = Comparator.<ReportSlot>comparingInt(
+            slot -> slot.type == ReportType.TABLET ? 1 : 0).thenComparingLong(slot -> slot.seq);
+
+    // slots having a pending report
+    private BlockingQueue<ReportSlot> reportQueue = new PriorityBlockingQueue<>(64, REPORT_ORDER);
+    // backend id -> report type -> slot
+    private Map<Long, Map<ReportType, ReportSlot>> backendToReportSlots = Maps.newConcurrentMap();
+    private AtomicLong reportSeq = new AtomicLong(0);
+    private boolean workersStarted = false;
 
     private GaugeMetric<Long> gaugeQueueSize;
 
-    public ReportHandler() {
-        gaugeQueueSize = (GaugeMetric<Long>) new GaugeMetric<Long>(
-                "report_queue_size", "report queue size") {
-            @Override
-            public Long getValue() {
-                return (long) reportQueue.size();
-            }
-        };
-        MetricRepo.addMetric(gaugeQueueSize);
-    }
+    // backend id -> generation of the last accepted tablet report, which delta tablet reports are based on
+    private Map<Long, Long> backendToTabletReportGeneration = Maps.newConcurrentMap();
+    // backend id -> time of the last accepted full tablet report
+    private Map<Long, Long> backendToFullTabletReportTimeMs = Maps.newConcurrentMap();
+    // backends which should send a full tablet report next time, because FE has found work which can only
+    // be found by diffing unchanged tablets, such as versions to publish again or tablets to migrate
+    private Set<Long> backendsNeedFullTabletReport = Sets.newConcurrentHashSet();
+    // partition id -> storage medium, used by the last tablet report
+    private Map<Long, TStorageMedium> lastStorageMediumMap = Maps.newHashMap();
 
     public TMasterResult handleReport(TReportRequest request) throws TException {
         TMasterResult result = new TMasterResult();
@@ -129,6 +141,7 @@ public class ReportHandler extends Daemon {
         Map<TTaskType, Set<Long>> tasks = null;
         Map<String, TDisk> disks = null;
         Map<Long, TTablet> tablets = null;
+        List<Long> droppedTablets = null;
         boolean forceRecovery = false;
         long reportVersion = -1;
 
@@ -153,14 +166,36 @@ public class ReportHandler extends Daemon {
             reportVersion = request.getReport_version();
             reportType += "tablet";
         }
+
+        if (tablets != null && request.isSetBase_tablet_report_generation()) {
+            if (acceptDeltaTabletReport(beId, request.getBase_tablet_report_generation())) {
+                droppedTablets = request.isSetDropped_tablets() ? request.getDropped_tablets() : Lists.newArrayList();
+                reportType += "(delta)";
+            } else {
+                // let backend send a full tablet report next time
+                result.setNeed_full_tablet_report(true);
+                tablets = null;
+                if (MetricRepo.isInit.get()) {
+                    MetricRepo.COUNTER_DELTA_TABLET_REPORT_REJECTED.increase(1L);
+                }
+            }
+        }
         
         if (request.isSetForce_recovery()) {
             forceRecovery = request.isForce_recovery();
         }
         
-        ReportTask reportTask = new ReportTask(beId, tasks, disks, tablets, reportVersion, forceRecovery);
         try {
-            putToQueue(reportTask);
+            if (tasks != null) {
+                putToQueue(ReportType.TASK, new ReportTask(beId, tasks, null, null, null, reportVersion, false));
+            }
+            if (disks != null) {
+                putToQueue(ReportType.DISK, new ReportTask(beId, null, disks, null, null, reportVersion, false));
+            }
+            if (tablets != null) {
+                putToQueue(ReportType.TABLET,
+                        new ReportTask(beId, null, null, tablets, droppedTablets, reportVersion, forceRecovery));
+            }
         } catch (Exception e) {
             tStatus.setStatus_code(TStatusCode.INTERNAL_ERROR);
             List<String> errorMsgs = Lists.newArrayList();
@@ -169,20 +204,121 @@ public class ReportHandler extends Daemon {
             tStatus.setError_msgs(errorMsgs);
             return result;
         }
+
+        if (tablets != null) {
+            result.setSupport_delta_tablet_report(true);
+            if (request.isSetTablet_report_generation()) {
+                backendToTabletReportGeneration.put(beId, request.getTablet_report_generation());
+            } else {
+                backendToTabletReportGeneration.remove(beId);
+            }
+            if (droppedTablets == null) {
+                backendToFullTabletReportTimeMs.put(beId, System.currentTimeMillis());
+                backendsNeedFullTabletReport.remove(beId);
+            } else if (backendsNeedFullTabletReport.contains(beId)) {
+                // the delta report is still handled, and the backend will send a full tablet report next time
+                result.setNeed_full_tablet_report(true);
+            }
+        }
         
         LOG.info("receive report from be {}. type: {}, current queue size: {}",
                 backend.getId(), reportType, reportQueue.size());
         return result;
     }
 
-    private void putToQueue(ReportTask reportTask) throws Exception {
-        int currentSize = reportQueue.size();
-        if (currentSize > Config.report_queue_size) {
-            LOG.warn("the report queue size exceeds the limit: {}. current: {}",  Config.report_queue_size, currentSize);
-            throw new Exception(
-                    "the report queue size exceeds the limit: " +  Config.report_queue_size + ". current: " + currentSize);
+    // let the backend send a full tablet report next time, instead of a delta tablet report
+    public void requestFullTabletReport(long backendId) {
+        backendsNeedFullTabletReport.add(backendId);
+    }
+
+    // if storage medium of any partition changed, tablets to migrate can only be found by full tablet reports
+    private synchronized void checkStorageMediumChanged(Map<Long, TStorageMedium> storageMediumMap) {
+        for (Map.Entry<Long, TStorageMedium> entry : storageMediumMap.entrySet()) {
+            TStorageMedium lastStorageMedium = lastStorageMediumMap.get(entry.getKey());
+            if (lastStorageMedium != null && lastStorageMedium != entry.getValue()) {
+                LOG.info("storage medium of partition {} changed from {} to {}, request full tablet reports",
+                        entry.getKey(), lastStorageMedium, entry.getValue());
+                backendsNeedFullTabletReport.addAll(Catalog.getCurrentSystemInfo().getBackendIds(false));
+                break;
+            }
+        }
+        lastStorageMediumMap = storageMediumMap;
+    }
+
+    // a delta tablet report is accepted only if it is based on the last accepted tablet report,
+    // and a full tablet report is accepted within Config.tablet_report_full_interval_second
+    private boolean acceptDeltaTabletReport(long beId, long baseGeneration) {
+        Long generation = backendToTabletReportGeneration.get(beId);
+        if (generation == null || generation != baseGeneration) {
+            LOG.info("base generation {} of delta tablet report from backend {} mismatch, last generation: {}",
+                    baseGeneration, beId, generation);
+            return false;
+        }
+        Long fullReportTimeMs = backendToFullTabletReportTimeMs.get(beId);
+        return fullReportTimeMs != null
+                && System.currentTimeMillis() - fullReportTimeMs < Config.tablet_report_full_interval_second * 1000L;
+    }
+
+    // a report supersedes the pending report of the same backend and type
+    private void putToQueue(ReportType type, ReportTask reportTask) throws Exception {
+        ReportSlot slot = backendToReportSlots.computeIfAbsent(reportTask.beId, beId -> {
+            Map<ReportType, ReportSlot> slots = new EnumMap<>(ReportType.class);
+            for (ReportType reportType : ReportType.values()) {
+                slots.put(reportType, new ReportSlot(reportType));
+            }
+            return slots;
+        }).get(type);
+
+        synchronized (slot) {
+            if (slot.pendingTask != null) {
+                reportTask.mergeOlder(slot.pendingTask);
+                slot.pendingTask = reportTask;
+                return;
+            }
+            int currentSize = reportQueue.size();
+            if (currentSize > Config.report_queue_size) {
+                LOG.warn("the report queue size exceeds the limit: {}. current: {}",
+                        Config.report_queue_size, currentSize);
+                throw new Exception("the report queue size exceeds the limit: " + Config.report_queue_size
+                        + ". current: " + currentSize);
+            }
+            slot.pendingTask = reportTask;
+            if (!slot.running) {
+                slot.seq = reportSeq.incrementAndGet();
+                reportQueue.put(slot);
+            }
+        }
+    }
+
+    private void handleReports() {
+        while (true) {
+            ReportSlot slot;
+            try {
+                slot = reportQueue.take();
+            } catch (InterruptedException e) {
+                LOG.warn("got interupted exception when executing report", e);
+                continue;
+            }
+
+            ReportTask task;
+            synchronized (slot) {
+                task = slot.pendingTask;
+                slot.pendingTask = null;
+                slot.running = true;
+            }
+            try {
+                task.run();
+            } finally {
+                synchronized (slot) {
+                    slot.running = false;
+                    if (slot.pendingTask != null) {
+                        // a newer report came when running
+                        slot.seq = reportSeq.incrementAndGet();
+                        reportQueue.add(slot);
+                    }
+                }
+            }
         }
-        reportQueue.put(reportTask);
     }
 
     private Map<Long, TTablet> buildTabletMap(List<TTablet> tabletList) {
@@ -197,27 +333,63 @@ public class ReportHandler extends Daemon {
         return tabletMap;
     }
 
+    private enum ReportType {
+        TASK,
+        DISK,
+        TABLET
+    }
+
+    // reports of one backend and one type are handled one by one
+    private static class ReportSlot {
+        private final ReportType type;
+        // guarded by this
+        private ReportTask pendingTask;
+        private boolean running = false;
+        // order in report queue
+        private long seq;
+
+        ReportSlot(ReportType type) {
+            this.type = type;
+        }
+    }
+
     private class ReportTask extends MasterTask {
 
         private long beId;
         private Map<TTaskType, Set<Long>> tasks;
         private Map<String, TDisk> disks;
         private Map<Long, TTablet> tablets;
+        // null if it is a full tablet report
+        private List<Long> droppedTablets;
         private long reportVersion;
         private boolean forceRecovery = false;
 
         public ReportTask(long beId, Map<TTaskType, Set<Long>> tasks,
                 Map<String, TDisk> disks,
-                Map<Long, TTablet> tablets, long reportVersion, 
+                Map<Long, TTablet> tablets, List<Long> droppedTablets, long reportVersion,
                 boolean forceRecovery) {
             this.beId = beId;
             this.tasks = tasks;
             this.disks = disks;
             this.tablets = tablets;
+            this.droppedTablets = droppedTablets;
             this.reportVersion = reportVersion;
             this.forceRecovery = forceRecovery;
         }
 
+        // merge the older pending report of the same type into this report
+        private void mergeOlder(ReportTask older) {
+            if (tablets == null) {
+                // task and disk reports contain the whole state, so the older report is useless
+                return;
+            }
+            Pair<Map<Long, TTablet>, List<Long>> merged = mergeTabletReports(older.tablets, older.droppedTablets,
+                    tablets, droppedTablets);
+            tablets = merged.first;
+            droppedTablets = merged.second;
+            forceRecovery |= older.forceRecovery;
+        }
+
         @Override
         protected void exec() {
             if (tasks != null) {
@@ -231,21 +403,52 @@ public class ReportHandler extends Daemon {
                 if (reportVersion < backendReportVersion) {
                     LOG.warn("out of date report version {} from backend[{}]. current report version[{}]",
                              reportVersion, beId, backendReportVersion);
+                    // changes in this report are lost, so the next delta report can not be based on it
+                    backendToTabletReportGeneration.remove(beId);
                 } else {
-                    ReportHandler.tabletReport(beId, tablets, reportVersion, forceRecovery);
+                    tabletReport(beId, tablets, droppedTablets, reportVersion, forceRecovery);
                 }
             }
         }
     }
 
-    private static void tabletReport(long backendId, Map<Long, TTablet> backendTablets, long backendReportVersion, 
-            boolean forceRecovery) {
+    /*
+     * Merge an older pending tablet report of a backend into the newer one.
+     * Returns the merged reported tablets and dropped tablets, the dropped tablets is null if the merged
+     * report is a full report.
+     */
+    static Pair<Map<Long, TTablet>, List<Long>> mergeTabletReports(Map<Long, TTablet> olderTablets,
+            List<Long> olderDroppedTablets, Map<Long, TTablet> tablets, List<Long> droppedTablets) {
+        if (droppedTablets == null) {
+            // a full tablet report contains the whole state, so the older report is useless
+            return Pair.create(tablets, null);
+        }
+        // this delta tablet report is based on the older tablet report
+        Map<Long, TTablet> mergedTablets = Maps.newHashMap(olderTablets);
+        for (Long tabletId : droppedTablets) {
+            mergedTablets.remove(tabletId);
+        }
+        mergedTablets.putAll(tablets);
+        List<Long> mergedDroppedTablets = null;
+        if (olderDroppedTablets != null) {
+            Set<Long> dropped = Sets.newHashSet(olderDroppedTablets);
+            dropped.addAll(droppedTablets);
+            dropped.removeAll(tablets.keySet());
+            mergedDroppedTablets = Lists.newArrayList(dropped);
+        }
+        return Pair.create(mergedTablets, mergedDroppedTablets);
+    }
+
+    private void tabletReport(long backendId, Map<Long, TTablet> backendTablets, List<Long> droppedTablets,
+            long backendReportVersion, boolean forceRecovery) {
         long start = System.currentTimeMillis();
-        LOG.info("backend[{}] reports {} tablet(s). report version: {}",
-                 backendId, backendTablets.size(), backendReportVersion);
+        LOG.info("backend[{}] reports {} tablet(s), {} dropped tablet(s). report version: {}",
+                 backendId, backendTablets.size(), droppedTablets == null ? "unknown" : droppedTablets.size(),
+                 backendReportVersion);
 
         // storage medium map
         HashMap<Long, TStorageMedium> storageMediumMap = Catalog.getInstance().getPartitionIdToStorageMediumMap();
+        checkStorageMediumChanged(storageMediumMap);
 
         // db id -> tablet id
         ListMultimap<Long, Long> tabletSyncMap = LinkedListMultimap.create();
@@ -268,7 +471,7 @@ public class ReportHandler extends Daemon {
         SetMultimap<Long, Integer> tabletWithoutPartitionId = HashMultimap.create();
 
         // 1. do the diff. find out (intersection) / (be - meta) / (meta - be)
-        Catalog.getCurrentInvertedIndex().tabletReport(backendId, backendTablets, storageMediumMap,
+        Catalog.getCurrentInvertedIndex().tabletReport(backendId, backendTablets, droppedTablets, storageMediumMap,
                                                        tabletSyncMap,
                                                        tabletDeleteFromMeta,
                                                        foundTabletsWithValidSchema,
@@ -310,6 +513,11 @@ public class ReportHandler extends Daemon {
         
         long end = System.currentTimeMillis();
         LOG.info("tablet report from backend[{}] cost: {} ms", backendId, (end - start));
+        if (MetricRepo.isInit.get()) {
+            MetricRepo.HISTO_TABLET_REPORT_LATENCY.update(end - start);
+            MetricRepo.HISTO_TABLET_REPORT_SIZE.update(
+                    backendTablets.size() + (droppedTablets == null ? 0 : droppedTablets.size()));
+        }
     }
 
     private static void taskReport(long backendId, Map<TTaskType, Set<Long>> runningTasks) {
@@ -1024,15 +1232,24 @@ public class ReportHandler extends Daemon {
 
     @Override
     protected void runOneCycle() {
-        while (true) {
-            ReportTask task = null;
-            try {
-                task = reportQueue.take();
-                task.exec();
-            } catch (InterruptedException e) {
-                LOG.warn("got interupted exception when executing report", e);
-                continue;
+        // reports of different backends or different types are handled concurrently,
+        // the daemon thread is also one of the workers.
+        if (!workersStarted) {
+            workersStarted = true;
+            gaugeQueueSize = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                    "report_queue_size", "report queue size") {
+                @Override
+                public Long getValue() {
+                    return (long) reportQueue.size();
+                }
+            };
+            MetricRepo.addMetric(gaugeQueueSize);
+            for (int i = 1; i < Config.report_handler_thread_num; i++) {
+                Thread worker = new Thread(this::handleReports, "report-handler-" + i);
+                worker.setDaemon(true);
+                worker.start();
             }
         }
+        handleReports();
     }
 }
@@ -41,4 +41,8 @@ public class DorisMetricRegistry {
     public synchronized void removeMetrics(String name) {
         paloMetrics = paloMetrics.stream().filter(m -> !(m.getName().equals(name))).collect(Collectors.toList());
     }
+
+    public synchronized void removeMetric(Metric paloMetric) {
+        paloMetrics.remove(paloMetric);
+    }
 }
@@ -28,6 +28,7 @@ public class MetricCalculator extends TimerTask {
     private long lastQueryCounter = -1;
     private long lastRequestCounter = -1;
     private long lastQueryErrCounter = -1;
+    private long lastEditLogReadCounter = -1;
 
     @Override
     public void run() {
@@ -41,6 +42,7 @@ public class MetricCalculator extends TimerTask {
             lastQueryCounter = MetricRepo.COUNTER_QUERY_ALL.getValue();
             lastRequestCounter = MetricRepo.COUNTER_REQUEST_ALL.getValue();
             lastQueryErrCounter = MetricRepo.COUNTER_QUERY_ERR.getValue();
+            lastEditLogReadCounter = MetricRepo.COUNTER_EDIT_LOG_READ.getValue();
             return;
         }
 
@@ -64,6 +66,12 @@ public class MetricCalculator extends TimerTask {
         MetricRepo.GAUGE_QUERY_ERR_RATE.setValue(errRate < 0 ? 0.0 : errRate);
         lastQueryErrCounter = currentErrCounter;
 
+        // journal replay rate
+        long currentEditLogReadCounter = MetricRepo.COUNTER_EDIT_LOG_READ.getValue();
+        double replayRate = (double) (currentEditLogReadCounter - lastEditLogReadCounter) / interval;
+        MetricRepo.GAUGE_EDIT_LOG_REPLAY_PER_SECOND.setValue(replayRate < 0 ? 0.0 : replayRate);
+        lastEditLogReadCounter = currentEditLogReadCounter;
+
         lastTs = currentTs;
     }
 }
@@ -28,9 +28,12 @@ import org.apache.doris.load.LoadJob.JobState;
 import org.apache.doris.monitor.jvm.JvmService;
 import org.apache.doris.monitor.jvm.JvmStats;
 import org.apache.doris.persist.EditLog;
+import org.apache.doris.qe.QueryResultCache;
 import org.apache.doris.service.ExecuteEnv;
 import org.apache.doris.system.Backend;
 import org.apache.doris.system.SystemInfoService;
+import org.apache.doris.task.AgentTaskQueue;
+import org.apache.doris.thrift.TTaskType;
 
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
@@ -54,11 +57,14 @@ public final class MetricRepo {
     public static LongCounterMetric COUNTER_REQUEST_ALL;
     public static LongCounterMetric COUNTER_QUERY_ALL;
     public static LongCounterMetric COUNTER_QUERY_ERR;
+    public static LongCounterMetric COUNTER_QUERY_RESULT_CACHE_HIT;
+    public static LongCounterMetric COUNTER_QUERY_RESULT_CACHE_MISS;
     public static LongCounterMetric COUNTER_LOAD_ADD;
     public static LongCounterMetric COUNTER_LOAD_FINISHED;
     public static LongCounterMetric COUNTER_EDIT_LOG_WRITE;
     public static LongCounterMetric COUNTER_EDIT_LOG_READ;
     public static LongCounterMetric COUNTER_EDIT_LOG_SIZE_BYTES;
+    public static LongCounterMetric COUNTER_EDIT_LOG_RAW_SIZE_BYTES;
     public static LongCounterMetric COUNTER_IMAGE_WRITE;
     public static LongCounterMetric COUNTER_IMAGE_PUSH;
     public static LongCounterMetric COUNTER_TXN_REJECT;
@@ -68,14 +74,24 @@ public final class MetricRepo {
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_ROWS;
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_RECEIVED_BYTES;
     public static LongCounterMetric COUNTER_ROUTINE_LOAD_ERROR_ROWS;
+    public static LongCounterMetric COUNTER_AGENT_TASK_RPC;
+    public static LongCounterMetric COUNTER_DELTA_TABLET_REPORT_REJECTED;
 
     public static Histogram HISTO_QUERY_LATENCY;
     public static Histogram HISTO_EDIT_LOG_WRITE_LATENCY;
+    public static Histogram HISTO_EDIT_LOG_WRITE_BATCH_SIZE;
+    public static Histogram HISTO_EDIT_LOG_WRITE_QUEUE_WAIT;
+    public static Histogram HISTO_TXN_LOCK_WAIT;
+    public static Histogram HISTO_AGENT_TASK_QUEUE_WAIT;
+    public static Histogram HISTO_AGENT_TASK_RPC_BATCH_SIZE;
+    public static Histogram HISTO_TABLET_REPORT_LATENCY;
+    public static Histogram HISTO_TABLET_REPORT_SIZE;
 
     // following metrics will be updated by metric calculator
     public static GaugeMetricImpl<Double> GAUGE_QUERY_PER_SECOND;
     public static GaugeMetricImpl<Double> GAUGE_REQUEST_PER_SECOND;
     public static GaugeMetricImpl<Double> GAUGE_QUERY_ERR_RATE;
+    public static GaugeMetricImpl<Double> GAUGE_EDIT_LOG_REPLAY_PER_SECOND;
 
     private static Timer metricTimer = new Timer();
     private static MetricCalculator metricCalculator = new MetricCalculator();
@@ -161,6 +177,33 @@ public final class MetricRepo {
         };
         PALO_METRIC_REGISTER.addPaloMetrics(maxJournalId);
 
+        // journal replay lag of non-master FE
+        GaugeMetric<Long> replayLagJournals = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                "edit_log_replay_lag_journals", "number of journals not replayed yet") {
+            @Override
+            public Long getValue() {
+                Catalog catalog = Catalog.getInstance();
+                EditLog editLog = catalog.getEditLog();
+                if (editLog == null || catalog.isMaster()) {
+                    return 0L;
+                }
+                return Math.max(0L, editLog.getMaxJournalId() - catalog.getReplayedJournalId());
+            }
+        };
+        PALO_METRIC_REGISTER.addPaloMetrics(replayLagJournals);
+        GaugeMetric<Long> replayLagMs = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                "edit_log_replay_lag_ms", "time since the timestamp of the last replayed journal from master") {
+            @Override
+            public Long getValue() {
+                Catalog catalog = Catalog.getInstance();
+                if (catalog.isMaster() || catalog.getSynchronizedTime() <= 0) {
+                    return 0L;
+                }
+                return Math.max(0L, System.currentTimeMillis() - catalog.getSynchronizedTime());
+            }
+        };
+        PALO_METRIC_REGISTER.addPaloMetrics(replayLagMs);
+
         // scheduled tablet num
         GaugeMetric<Long> scheduledTabletNum = (GaugeMetric<Long>) new GaugeMetric<Long>(
                 "scheduled_tablet_num", "number of tablets being scheduled") {
@@ -174,6 +217,29 @@ public final class MetricRepo {
         };
         PALO_METRIC_REGISTER.addPaloMetrics(scheduledTabletNum);
 
+        // agent tasks waiting to be finished by backends, of each type
+        for (TTaskType taskType : TTaskType.values()) {
+            GaugeMetric<Long> agentTaskNum = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                    "agent_task_queue_size", "number of agent tasks in queue") {
+                @Override
+                public Long getValue() {
+                    return (long) AgentTaskQueue.getTaskNum(taskType);
+                }
+            };
+            agentTaskNum.addLabel(new MetricLabel("type", taskType.name()));
+            PALO_METRIC_REGISTER.addPaloMetrics(agentTaskNum);
+        }
+
+        // query result cache
+        GaugeMetric<Long> queryResultCacheBytes = (GaugeMetric<Long>) new GaugeMetric<Long>(
+                "query_result_cache_bytes", "total bytes of query results cached") {
+            @Override
+            public Long getValue() {
+                return QueryResultCache.INSTANCE.getTotalBytes();
+            }
+        };
+        PALO_METRIC_REGISTER.addPaloMetrics(queryResultCacheBytes);
+
         // qps, rps and error rate
         // these metrics should be set an init value, in case that metric calculator is not running
         GAUGE_QUERY_PER_SECOND = new GaugeMetricImpl<>("qps", "query per second");
@@ -185,6 +251,10 @@ public final class MetricRepo {
         GAUGE_QUERY_ERR_RATE = new GaugeMetricImpl<>("query_err_rate", "query_error_rate");
         PALO_METRIC_REGISTER.addPaloMetrics(GAUGE_QUERY_ERR_RATE);
         GAUGE_QUERY_ERR_RATE.setValue(0.0);
+        GAUGE_EDIT_LOG_REPLAY_PER_SECOND = new GaugeMetricImpl<>("edit_log_replay_per_second",
+                "journals replayed per second");
+        GAUGE_EDIT_LOG_REPLAY_PER_SECOND.setValue(0.0);
+        PALO_METRIC_REGISTER.addPaloMetrics(GAUGE_EDIT_LOG_REPLAY_PER_SECOND);
 
         // 2. counter
         COUNTER_REQUEST_ALL = new LongCounterMetric("request_total", "total request");
@@ -193,6 +263,12 @@ public final class MetricRepo {
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_QUERY_ALL);
         COUNTER_QUERY_ERR = new LongCounterMetric("query_err", "total error query");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_QUERY_ERR);
+        COUNTER_QUERY_RESULT_CACHE_HIT = new LongCounterMetric("query_result_cache_hit",
+                "total query whose result is returned from cache");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_QUERY_RESULT_CACHE_HIT);
+        COUNTER_QUERY_RESULT_CACHE_MISS = new LongCounterMetric("query_result_cache_miss",
+                "total cacheable query whose result is not in cache");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_QUERY_RESULT_CACHE_MISS);
         COUNTER_LOAD_ADD = new LongCounterMetric("load_add", "total laod submit");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_LOAD_ADD);
         COUNTER_LOAD_FINISHED = new LongCounterMetric("load_finished", "total laod finished");
@@ -201,8 +277,12 @@ public final class MetricRepo {
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_WRITE);
         COUNTER_EDIT_LOG_READ = new LongCounterMetric("edit_log_read", "counter of edit log read from bdbje");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_READ);
-        COUNTER_EDIT_LOG_SIZE_BYTES = new LongCounterMetric("edit_log_size_bytes", "size of edit log");
+        COUNTER_EDIT_LOG_SIZE_BYTES = new LongCounterMetric("edit_log_size_bytes",
+                "size of edit log written into bdbje, after compression");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_SIZE_BYTES);
+        COUNTER_EDIT_LOG_RAW_SIZE_BYTES = new LongCounterMetric("edit_log_raw_size_bytes",
+                "size of edit log before compression");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_EDIT_LOG_RAW_SIZE_BYTES);
         COUNTER_IMAGE_WRITE = new LongCounterMetric("image_write", "counter of image generated");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_IMAGE_WRITE);
         COUNTER_IMAGE_PUSH = new LongCounterMetric("image_push",
@@ -226,11 +306,31 @@ public final class MetricRepo {
         COUNTER_ROUTINE_LOAD_ERROR_ROWS = new LongCounterMetric("routine_load_error_rows",
                 "total error rows of routine load");
         PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_ROUTINE_LOAD_ERROR_ROWS);
+        COUNTER_AGENT_TASK_RPC = new LongCounterMetric("agent_task_rpc", "counter of rpcs sending agent tasks");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_AGENT_TASK_RPC);
+        COUNTER_DELTA_TABLET_REPORT_REJECTED = new LongCounterMetric("delta_tablet_report_rejected",
+                "counter of delta tablet reports rejected, after which backends send full tablet reports");
+        PALO_METRIC_REGISTER.addPaloMetrics(COUNTER_DELTA_TABLET_REPORT_REJECTED);
 
         // 3. histogram
         HISTO_QUERY_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("query", "latency", "ms"));
         HISTO_EDIT_LOG_WRITE_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("editlog", "write", "latency",
                                                                                      "ms"));
+        // only updated in edit log group-commit mode
+        HISTO_EDIT_LOG_WRITE_BATCH_SIZE = METRIC_REGISTER.histogram(MetricRegistry.name("editlog", "write", "batch",
+                                                                                        "size"));
+        HISTO_EDIT_LOG_WRITE_QUEUE_WAIT = METRIC_REGISTER.histogram(MetricRegistry.name("editlog", "write", "queue",
+                                                                                        "wait", "ms"));
+        // time waiting for the transaction lock of a db
+        HISTO_TXN_LOCK_WAIT = METRIC_REGISTER.histogram(MetricRegistry.name("txn", "lock", "wait", "us"));
+        // time from an agent task being submitted to being sent, and number of agent tasks sent in one rpc
+        HISTO_AGENT_TASK_QUEUE_WAIT = METRIC_REGISTER.histogram(MetricRegistry.name("agent_task", "queue", "wait",
+                                                                                    "ms"));
+        HISTO_AGENT_TASK_RPC_BATCH_SIZE = METRIC_REGISTER.histogram(MetricRegistry.name("agent_task", "rpc", "batch",
+                                                                                        "size"));
+        // processing time and number of reported tablets of tablet reports
+        HISTO_TABLET_REPORT_LATENCY = METRIC_REGISTER.histogram(MetricRegistry.name("tablet_report", "latency", "ms"));
+        HISTO_TABLET_REPORT_SIZE = METRIC_REGISTER.histogram(MetricRegistry.name("tablet_report", "size"));
 
         isInit.set(true);
 
@@ -273,6 +373,15 @@ public final class MetricRepo {
         } // end for backends
     }
 
+    // rtt of heartbeats to a node
+    public static void updateHeartbeatRtt(String node, long rttMs) {
+        METRIC_REGISTER.histogram(MetricRegistry.name("heartbeat", "rtt", "ms", node)).update(rttMs);
+    }
+
+    public static void removeHeartbeatRtt(String node) {
+        METRIC_REGISTER.remove(MetricRegistry.name("heartbeat", "rtt", "ms", node));
+    }
+
     public static synchronized String getMetric(MetricVisitor visitor) {
         if (!isInit.get()) {
             return "";
@@ -306,5 +415,9 @@ public final class MetricRepo {
         init();
         PALO_METRIC_REGISTER.addPaloMetrics(metric);
     }
+
+    public static void removeMetric(Metric<?> metric) {
+        PALO_METRIC_REGISTER.removeMetric(metric);
+    }
 }
 
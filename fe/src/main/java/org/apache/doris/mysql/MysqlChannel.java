@@ -23,7 +23,10 @@ import org.apache.logging.log4j.Logger;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
+import java.util.List;
 
 /**
  * This class used to read/write MySQL logical packet.
@@ -34,6 +37,9 @@ public class MysqlChannel {
     // max length which one MySQL physical can hold, if one logical packet is bigger than this,
     // one packet will split to many packets
     private static final int MAX_PHYSICAL_PACKET_LENGTH = 0xffffff - 1;
+    // client reads a physical packet of this length as part of a logical packet, and an empty packet is sent
+    // after the last one if the length of logical packet is a multiple of it.
+    private static final int MAX_SEND_PHYSICAL_PACKET_LENGTH = 0xffffff;
     // MySQL packet header length
     private static final int PACKET_HEADER_LEN = 4;
     // logger for this class
@@ -51,6 +57,12 @@ public class MysqlChannel {
     private String remoteHostPortString;
     private String remoteIp;
     private boolean isSend;
+    // the next packet being read in non-blocking mode, kept between reads until it is whole. null if none.
+    private ByteBuffer nonBlockingPacket = null;
+    // number of physical packets of nonBlockingPacket which have been read
+    private int nonBlockingPacketNum = 0;
+    // whole packet read in non-blocking mode, returned by the next fetchOnePacket()
+    private ByteBuffer readyPacket = null;
 
     public MysqlChannel(SocketChannel channel) {
         this.sequenceId = 0;
@@ -112,6 +124,95 @@ public class MysqlChannel {
         }
     }
 
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    // Register the channel to selector in non-blocking mode to wait for the next command,
+    // so that an idle connection does not hold a thread.
+    public SelectionKey registerForRead(Selector selector, Object attachment) throws IOException {
+        channel.configureBlocking(false);
+        return channel.register(selector, SelectionKey.OP_READ, attachment);
+    }
+
+    // Switch back to block mode before reading packets.
+    // The selection key of this channel must have been cancelled and flushed by selector.
+    public void configureBlocking() throws IOException {
+        channel.configureBlocking(true);
+    }
+
+    // Read the next command packet in non-blocking mode, with the channel registered to a selector.
+    // Data available now is read and kept, and the read is resumed when the channel is readable again,
+    // so no thread is blocked by a client which sends a packet in pieces.
+    // Return true if the whole packet is read, it will be returned by the next fetchOnePacket().
+    // Throw IOException if remote closes the channel or the packet is bad.
+    public boolean readPacketNonBlocking() throws IOException {
+        if (readyPacket != null) {
+            return true;
+        }
+        if (nonBlockingPacket == null) {
+            nonBlockingPacket = defaultBuffer;
+            nonBlockingPacket.clear();
+            nonBlockingPacketNum = 0;
+            headerByteBuffer.clear();
+        }
+
+        while (true) {
+            if (headerByteBuffer.hasRemaining()) {
+                if (channel.read(headerByteBuffer) == -1) {
+                    throw new IOException("Remote closed the channel when receiving packet header.");
+                }
+                if (headerByteBuffer.hasRemaining()) {
+                    return false;
+                }
+                // sequence id of a command starts from 0
+                if (packetId() != (nonBlockingPacketNum & 0xFF)) {
+                    LOG.warn("receive packet sequence id[" + packetId() + "] want to get["
+                            + (nonBlockingPacketNum & 0xFF) + "]");
+                    throw new IOException("Bad packet sequence.");
+                }
+                nonBlockingPacket = prepareBuffer(nonBlockingPacket, packetLen());
+            }
+
+            if (nonBlockingPacket.hasRemaining()) {
+                if (channel.read(nonBlockingPacket) == -1) {
+                    throw new IOException("Remote closed the channel when receiving packet content.");
+                }
+                if (nonBlockingPacket.hasRemaining()) {
+                    return false;
+                }
+            }
+            nonBlockingPacketNum++;
+            if (packetLen() != MAX_PHYSICAL_PACKET_LENGTH) {
+                nonBlockingPacket.flip();
+                readyPacket = nonBlockingPacket;
+                nonBlockingPacket = null;
+                return true;
+            }
+            headerByteBuffer.clear();
+        }
+    }
+
+    // Make sure the buffer can hold one more physical packet after its position,
+    // and set limit to read only this packet.
+    private ByteBuffer prepareBuffer(ByteBuffer result, int packetLen) {
+        if ((result.capacity() - result.position()) < packetLen) {
+            // byte buffer is not enough, new one packet
+            ByteBuffer tmp;
+            if (packetLen < MAX_PHYSICAL_PACKET_LENGTH) {
+                // last packet, enough to this packet is OK.
+                tmp = ByteBuffer.allocate(packetLen + result.position());
+            } else {
+                // already have packet, to allocate two packet.
+                tmp = ByteBuffer.allocate(2 * packetLen + result.position());
+            }
+            tmp.put(result.array(), 0, result.position());
+            result = tmp;
+        }
+        result.limit(result.position() + packetLen);
+        return result;
+    }
+
     private int readAll(ByteBuffer dstBuf) throws IOException {
         int readLen = 0;
         while (dstBuf.remaining() != 0) {
@@ -129,6 +230,15 @@ public class MysqlChannel {
     // null for channel is closed.
     // NOTE: all of the following code is assumed that the channel is in block mode.
     public ByteBuffer fetchOnePacket() throws IOException {
+        if (readyPacket != null) {
+            ByteBuffer result = readyPacket;
+            readyPacket = null;
+            for (int i = 0; i < nonBlockingPacketNum; i++) {
+                accSequenceId();
+            }
+            return result;
+        }
+
         int readLen;
         ByteBuffer result = defaultBuffer;
         result.clear();
@@ -146,23 +256,9 @@ public class MysqlChannel {
                 throw new IOException("Bad packet sequence.");
             }
             int packetLen = packetLen();
-            if ((result.capacity() - result.position()) < packetLen) {
-                // byte buffer is not enough, new one packet
-                ByteBuffer tmp;
-                if (packetLen < MAX_PHYSICAL_PACKET_LENGTH) {
-                    // last packet, enough to this packet is OK.
-                    tmp = ByteBuffer.allocate(packetLen + result.position());
-                } else {
-                    // already have packet, to allocate two packet.
-                    tmp = ByteBuffer.allocate(2 * packetLen + result.position());
-                }
-                tmp.put(result.array(), 0, result.position());
-                result = tmp;
-            }
-
             // read one physical packet
             // before read, set limit to make read only one packet
-            result.limit(result.position() + packetLen);
+            result = prepareBuffer(result, packetLen);
             readLen = readAll(result);
             if (readLen != packetLen) {
                 LOG.warn("Length of received packet content(" + readLen
@@ -189,6 +285,21 @@ public class MysqlChannel {
         isSend = true;
     }
 
+    // write all of the buffers, the gathering write may only write part of them
+    private void realNetSend(ByteBuffer[] buffers) throws IOException {
+        int offset = 0;
+        while (offset < buffers.length) {
+            long writeLen = channel.write(buffers, offset, buffers.length - offset);
+            while (offset < buffers.length && !buffers[offset].hasRemaining()) {
+                offset++;
+            }
+            if (writeLen <= 0 && offset < buffers.length) {
+                throw new IOException("Write mysql packet failed.[write=" + writeLen + "]");
+            }
+        }
+        isSend = true;
+    }
+
     public void flush() throws IOException {
         if (null == sendBuffer || sendBuffer.position() == 0) {
             // Nothing to send
@@ -239,8 +350,8 @@ public class MysqlChannel {
     public void sendOnePacket(ByteBuffer packet) throws IOException {
         int bufLen;
         int oldLimit = packet.limit();
-        while (oldLimit - packet.position() >= MAX_PHYSICAL_PACKET_LENGTH) {
-            bufLen = MAX_PHYSICAL_PACKET_LENGTH;
+        while (oldLimit - packet.position() >= MAX_SEND_PHYSICAL_PACKET_LENGTH) {
+            bufLen = MAX_SEND_PHYSICAL_PACKET_LENGTH;
             packet.limit(packet.position() + bufLen);
             writeHeader(bufLen);
             writeBuffer(packet);
@@ -252,6 +363,57 @@ public class MysqlChannel {
         accSequenceId();
     }
 
+    /*
+     * Send packets like sendOnePacket, but without copying them to send buffer.
+     * Headers and packets are sent by gathering writes after buffered data is flushed.
+     * Packets are still copied to send buffer if they fit in it, to be sent together with other packets.
+     */
+    public void sendPackets(List<ByteBuffer> packets) throws IOException {
+        if (null == sendBuffer) {
+            return;
+        }
+        int physicalPacketNum = 0;
+        long totalLen = 0;
+        for (ByteBuffer packet : packets) {
+            physicalPacketNum += packet.remaining() / MAX_SEND_PHYSICAL_PACKET_LENGTH + 1;
+            totalLen += packet.remaining();
+        }
+        if (totalLen + (long) physicalPacketNum * PACKET_HEADER_LEN <= sendBuffer.remaining()) {
+            for (ByteBuffer packet : packets) {
+                sendOnePacket(packet);
+            }
+            return;
+        }
+        ByteBuffer headers = ByteBuffer.allocate(physicalPacketNum * PACKET_HEADER_LEN);
+        ByteBuffer[] buffers = new ByteBuffer[physicalPacketNum * 2];
+        int index = 0;
+        for (ByteBuffer packet : packets) {
+            int position = packet.position();
+            int limit = packet.limit();
+            int bufLen;
+            do {
+                bufLen = Math.min(limit - position, MAX_SEND_PHYSICAL_PACKET_LENGTH);
+                ByteBuffer header = headers.slice();
+                header.limit(PACKET_HEADER_LEN);
+                header.put((byte) bufLen).put((byte) (bufLen >> 8)).put((byte) (bufLen >> 16)).put((byte) sequenceId);
+                header.flip();
+                headers.position(headers.position() + PACKET_HEADER_LEN);
+
+                ByteBuffer buffer = packet.duplicate();
+                buffer.position(position);
+                buffer.limit(position + bufLen);
+                buffers[index++] = header;
+                buffers[index++] = buffer;
+                position += bufLen;
+                accSequenceId();
+            } while (bufLen == MAX_SEND_PHYSICAL_PACKET_LENGTH);
+            packet.position(limit);
+        }
+
+        flush();
+        realNetSend(buffers);
+    }
+
     public void sendAndFlush(ByteBuffer packet) throws IOException {
         sendOnePacket(packet);
         flush();
@@ -36,6 +36,7 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 // MySQL protocol util
@@ -258,6 +259,156 @@ public class MysqlProto {
         return buf;
     }
 
+    // Convert one result row of text protocol to binary protocol, used to reply COM_STMT_EXECUTE.
+    // Each non-null value is encoded by the type of its column.
+    // http://dev.mysql.com/doc/internals/en/binary-protocol-resultset-row.html
+    public static ByteBuffer textRowToBinaryRow(ByteBuffer textRow, List<MysqlColType> colTypes) {
+        ByteBuffer row = textRow.duplicate();
+        int columnCount = colTypes.size();
+        // null bitmap of result row has an offset of 2
+        byte[] nullBitmap = new byte[(columnCount + 7 + 2) / 8];
+        MysqlSerializer values = MysqlSerializer.newInstance();
+        for (int i = 0; i < columnCount; i++) {
+            if ((row.get(row.position()) & 0xFF) == 0xFB) {
+                row.get();
+                nullBitmap[(i + 2) / 8] |= (byte) (1 << ((i + 2) % 8));
+                continue;
+            }
+            int start = row.position();
+            long length = readVInt(row);
+            int valueStart = row.position();
+            switch (colTypes.get(i)) {
+                case MYSQL_TYPE_TINY:
+                case MYSQL_TYPE_SHORT:
+                case MYSQL_TYPE_LONG:
+                case MYSQL_TYPE_LONGLONG:
+                case MYSQL_TYPE_FLOAT:
+                case MYSQL_TYPE_DOUBLE:
+                case MYSQL_TYPE_DATE:
+                case MYSQL_TYPE_DATETIME:
+                case MYSQL_TYPE_TIME:
+                    writeBinaryValue(values, colTypes.get(i),
+                            new String(readFixedString(row, (int) length), StandardCharsets.UTF_8));
+                    break;
+                default:
+                    // length encoded string, same as text protocol
+                    row.position(start);
+                    values.writeBytes(readFixedString(row, valueStart - start + (int) length));
+                    break;
+            }
+        }
+
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt1(0);
+        serializer.writeBytes(nullBitmap);
+        serializer.writeBytes(values.toArray());
+        return serializer.toByteBuffer();
+    }
+
+    // http://dev.mysql.com/doc/internals/en/binary-protocol-value.html
+    private static void writeBinaryValue(MysqlSerializer serializer, MysqlColType type, String value) {
+        switch (type) {
+            case MYSQL_TYPE_TINY:
+                serializer.writeInt1((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_SHORT:
+                serializer.writeInt2((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_LONG:
+                serializer.writeInt4((int) parseLong(value));
+                break;
+            case MYSQL_TYPE_LONGLONG:
+                serializer.writeInt8(parseLong(value));
+                break;
+            case MYSQL_TYPE_FLOAT:
+                serializer.writeInt4(Float.floatToIntBits((float) parseDouble(value)));
+                break;
+            case MYSQL_TYPE_DOUBLE:
+                serializer.writeInt8(Double.doubleToLongBits(parseDouble(value)));
+                break;
+            case MYSQL_TYPE_TIME:
+                writeBinaryTime(serializer, value);
+                break;
+            default:
+                writeBinaryDateTime(serializer, value, type == MysqlColType.MYSQL_TYPE_DATE);
+                break;
+        }
+    }
+
+    private static long parseLong(String value) {
+        // boolean is sent as tinyint
+        if (value.equalsIgnoreCase("true")) {
+            return 1;
+        } else if (value.equalsIgnoreCase("false")) {
+            return 0;
+        }
+        return Long.parseLong(value);
+    }
+
+    private static double parseDouble(String value) {
+        switch (value.toLowerCase()) {
+            case "inf":
+            case "infinity":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+            case "-infinity":
+                return Double.NEGATIVE_INFINITY;
+            case "nan":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(value);
+        }
+    }
+
+    // value is in format of 'yyyy-MM-dd[ HH:mm:ss[.ffffff]]'
+    private static void writeBinaryDateTime(MysqlSerializer serializer, String value, boolean isDate) {
+        String[] dateAndTime = value.trim().split(" ");
+        String[] date = dateAndTime[0].split("-");
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        int microsecond = 0;
+        if (dateAndTime.length > 1) {
+            String[] time = dateAndTime[1].split("[:.]");
+            hour = Integer.parseInt(time[0]);
+            minute = Integer.parseInt(time[1]);
+            second = Integer.parseInt(time[2]);
+            if (time.length > 3) {
+                // fraction may have less than 6 digits
+                microsecond = Integer.parseInt((time[3] + "00000").substring(0, 6));
+            }
+        }
+        if (isDate) {
+            serializer.writeInt1(4);
+        } else {
+            serializer.writeInt1(microsecond == 0 ? 7 : 11);
+        }
+        serializer.writeInt2(Integer.parseInt(date[0]));
+        serializer.writeInt1(Integer.parseInt(date[1]));
+        serializer.writeInt1(Integer.parseInt(date[2]));
+        if (!isDate) {
+            serializer.writeInt1(hour);
+            serializer.writeInt1(minute);
+            serializer.writeInt1(second);
+            if (microsecond != 0) {
+                serializer.writeInt4(microsecond);
+            }
+        }
+    }
+
+    // value is in format of '[-]HH:mm:ss', hours may be larger than 24
+    private static void writeBinaryTime(MysqlSerializer serializer, String value) {
+        boolean negative = value.startsWith("-");
+        String[] time = (negative ? value.substring(1) : value).split("[:.]");
+        long hours = Long.parseLong(time[0]);
+        serializer.writeInt1(8);
+        serializer.writeInt1(negative ? 1 : 0);
+        serializer.writeInt4((int) (hours / 24));
+        serializer.writeInt1((int) (hours % 24));
+        serializer.writeInt1(Integer.parseInt(time[1]));
+        serializer.writeInt1(Integer.parseInt(time[2]));
+    }
+
     public static byte[] readNulTerminateString(ByteBuffer buffer) {
         int oldPos = buffer.position();
         int nullPos = oldPos;
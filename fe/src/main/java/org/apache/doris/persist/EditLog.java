@@ -85,11 +85,14 @@ public class EditLog {
     private long totalTimeTransactions;
 
     private Journal journal;
+    // if true, journal writes are batched by BDBJEJournal, so logEdit() should not hold the lock while writing
+    private boolean groupCommit = false;
 
     public EditLog(String nodeName) {
         String journalType = Config.edit_log_type;
         if (journalType.equalsIgnoreCase("bdb")) {
             journal = new BDBJEJournal(nodeName);
+            groupCommit = Config.edit_log_group_commit;
         } else if (journalType.equalsIgnoreCase("local")) {
             journal = new LocalJournal(Catalog.IMAGE_DIR);
             Catalog.getInstance().setIsMaster(true);
@@ -738,21 +741,36 @@ public class EditLog {
     /**
      * Write an operation to the edit log. Do not sync to persistent store yet.
      */
-    private synchronized void logEdit(short op, Writable writable) {
+    private void logEdit(short op, Writable writable) {
+        if (groupCommit) {
+            // concurrent writers wait in journal.write() together and are committed in one batch
+            long start = System.currentTimeMillis();
+            writeJournal(op, writable);
+            afterLogEdit(op, start);
+        } else {
+            synchronized (this) {
+                long start = System.currentTimeMillis();
+                writeJournal(op, writable);
+                afterLogEdit(op, start);
+            }
+        }
+    }
+
+    private void writeJournal(short op, Writable writable) {
         if (this.getNumEditStreams() == 0) {
             LOG.error("Fatal Error : no editLog stream", new Exception());
             throw new Error("Fatal Error : no editLog stream");
         }
 
-        long start = System.currentTimeMillis();
-
         try {
             journal.write(op, writable);
         } catch (Exception e) {
             LOG.error("Fatal Error : write stream Exception", e);
             System.exit(-1);
         }
+    }
 
+    private synchronized void afterLogEdit(short op, long start) {
         // get a new transactionId
         txId++;
 
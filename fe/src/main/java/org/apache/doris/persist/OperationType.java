@@ -19,6 +19,8 @@ package org.apache.doris.persist;
 
 public class OperationType {
     public static final short OP_INVALID = -1;
+    // not a real operation, marks a journal entity compressed by JournalEntity.compress()
+    public static final short OP_COMPRESSED = -2;
     public static final short OP_SAVE_NEXTID = 0;
     public static final short OP_CREATE_DB = 1;
     public static final short OP_DROP_DB = 2;
@@ -0,0 +1,381 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Pair;
+import org.apache.doris.meta.MetaContext;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/*
+ * Image file made of independent sections, so that sections can be saved and loaded in parallel.
+ *
+ * magic(8) | section 1 | section 2 | ... | footer | footer offset(8) | magic(8)
+ * footer: section num(4), and for each section: name, offset(8), length(8), checksum(8)
+ * The checksum of a section is the CRC32 of its bytes, and is verified when the section is loaded.
+ *
+ * Image of the old format begins with the meta version, which never equals to the magic.
+ */
+public class SectionedImage {
+    private static final Logger LOG = LogManager.getLogger(SectionedImage.class);
+
+    // "DORISIMG"
+    public static final long MAGIC = 0x444F524953494D47L;
+
+    public interface SectionSaver {
+        void save(DataOutputStream dos) throws Exception;
+    }
+
+    public interface SectionLoader {
+        void load(DataInputStream dis) throws Exception;
+    }
+
+    public static class Section {
+        private final String name;
+        private final long offset;
+        private final long length;
+        private final long checksum;
+
+        public Section(String name, long offset, long length, long checksum) {
+            this.name = name;
+            this.offset = offset;
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+    }
+
+    public static boolean isSectionedImage(File file) throws IOException {
+        if (file.length() < 8) {
+            return false;
+        }
+        try (DataInputStream dis = new DataInputStream(new FileInputStream(file))) {
+            return dis.readLong() == MAGIC;
+        }
+    }
+
+    // Run the task with the meta context and checkpoint identity of current thread.
+    private static <T> Callable<T> inheritContext(Callable<T> task) {
+        final MetaContext metaContext = MetaContext.get();
+        final boolean isCheckpoint = Catalog.isCheckpointThread();
+        return () -> {
+            if (metaContext != null) {
+                metaContext.setThreadLocalInfo();
+            }
+            Catalog.setCheckpointWorker(isCheckpoint);
+            try {
+                return task.call();
+            } finally {
+                Catalog.setCheckpointWorker(false);
+                MetaContext.remove();
+            }
+        };
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted when waiting image section", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static class PendingSection {
+        private final String name;
+        // future of the serialized bytes and checksum, or null if the section is copied from srcFile
+        private final Future<Pair<byte[], Long>> future;
+        private final File srcFile;
+        private final Section srcSection;
+
+        PendingSection(String name, Future<Pair<byte[], Long>> future, File srcFile, Section srcSection) {
+            this.name = name;
+            this.future = future;
+            this.srcFile = srcFile;
+            this.srcSection = srcSection;
+        }
+    }
+
+    /*
+     * Sections are serialized in parallel into memory, and written to file in the order of adding.
+     * At most maxPendingSections serialized sections are kept in memory.
+     */
+    public static class Writer {
+        private final File file;
+        private final ExecutorService executor;
+        private final int maxPendingSections;
+        private final FileOutputStream fos;
+        private final DataOutputStream dos;
+        private final Deque<PendingSection> pendingSections = new ArrayDeque<>();
+        private final List<Section> sections = Lists.newArrayList();
+        private long offset = 0;
+
+        public Writer(File file, ExecutorService executor, int maxPendingSections) throws IOException {
+            this.file = file;
+            this.executor = executor;
+            this.maxPendingSections = Math.max(1, maxPendingSections);
+            this.fos = new FileOutputStream(file);
+            this.dos = new DataOutputStream(fos);
+            dos.writeLong(MAGIC);
+            offset = 8;
+        }
+
+        public void addSection(String name, SectionSaver saver) throws IOException {
+            while (pendingSections.size() >= maxPendingSections) {
+                writePendingSection();
+            }
+            Future<Pair<byte[], Long>> future = executor.submit(inheritContext(() -> {
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                DataOutputStream sectionDos = new DataOutputStream(bos);
+                saver.save(sectionDos);
+                sectionDos.flush();
+                byte[] bytes = bos.toByteArray();
+                CRC32 crc32 = new CRC32();
+                crc32.update(bytes);
+                return Pair.create(bytes, crc32.getValue());
+            }));
+            pendingSections.add(new PendingSection(name, future, null, null));
+        }
+
+        // copy a section of another sectioned image as is, without deserializing it
+        public void addRawSection(String name, File srcFile, Section srcSection) throws IOException {
+            while (pendingSections.size() >= maxPendingSections) {
+                writePendingSection();
+            }
+            pendingSections.add(new PendingSection(name, null, srcFile, srcSection));
+        }
+
+        private void writePendingSection() throws IOException {
+            PendingSection pending = pendingSections.poll();
+            if (pending.srcFile != null) {
+                copyRawSection(pending);
+                return;
+            }
+            Pair<byte[], Long> result = getResult(pending.future);
+            dos.write(result.first);
+            sections.add(new Section(pending.name, offset, result.first.length, result.second));
+            offset += result.first.length;
+        }
+
+        private void copyRawSection(PendingSection pending) throws IOException {
+            Section src = pending.srcSection;
+            dos.flush();
+            FileChannel out = fos.getChannel();
+            try (FileInputStream srcFis = new FileInputStream(pending.srcFile)) {
+                FileChannel in = srcFis.getChannel();
+                long position = src.getOffset();
+                long remaining = src.getLength();
+                while (remaining > 0) {
+                    long transferred = in.transferTo(position, remaining, out);
+                    if (transferred <= 0) {
+                        throw new IOException("failed to copy section " + src.getName() + " from "
+                                + pending.srcFile.getAbsolutePath());
+                    }
+                    position += transferred;
+                    remaining -= transferred;
+                }
+            }
+            sections.add(new Section(pending.name, offset, src.getLength(), src.getChecksum()));
+            offset += src.getLength();
+        }
+
+        // write all pending sections and the footer, return the checksum of the whole image
+        public long finish() throws IOException {
+            try {
+                while (!pendingSections.isEmpty()) {
+                    writePendingSection();
+                }
+                long footerOffset = offset;
+                long checksum = 0;
+                dos.writeInt(sections.size());
+                for (Section section : sections) {
+                    dos.writeUTF(section.getName());
+                    dos.writeLong(section.getOffset());
+                    dos.writeLong(section.getLength());
+                    dos.writeLong(section.getChecksum());
+                    checksum ^= section.getChecksum();
+                }
+                dos.writeLong(footerOffset);
+                dos.writeLong(MAGIC);
+                dos.flush();
+                LOG.info("finished to write {} sections to image {}", sections.size(), file.getAbsolutePath());
+                return checksum;
+            } finally {
+                close();
+            }
+        }
+
+        public void close() throws IOException {
+            for (PendingSection pending : pendingSections) {
+                if (pending.future != null) {
+                    pending.future.cancel(true);
+                }
+            }
+            pendingSections.clear();
+            dos.close();
+        }
+    }
+
+    /*
+     * Each section is read by its own stream, so sections can be loaded in parallel.
+     */
+    public static class Reader {
+        private final File file;
+        private final List<Section> sections = Lists.newArrayList();
+
+        public Reader(File file) throws IOException {
+            this.file = file;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(0);
+                if (raf.readLong() != MAGIC) {
+                    throw new IOException("not a sectioned image: " + file.getAbsolutePath());
+                }
+                raf.seek(raf.length() - 16);
+                long footerOffset = raf.readLong();
+                if (raf.readLong() != MAGIC) {
+                    throw new IOException("image is incomplete: " + file.getAbsolutePath());
+                }
+                raf.seek(footerOffset);
+                int sectionNum = raf.readInt();
+                for (int i = 0; i < sectionNum; i++) {
+                    String name = raf.readUTF();
+                    sections.add(new Section(name, raf.readLong(), raf.readLong(), raf.readLong()));
+                }
+            }
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public List<Section> getSections(String name) {
+            List<Section> result = Lists.newArrayList();
+            for (Section section : sections) {
+                if (section.getName().equals(name)) {
+                    result.add(section);
+                }
+            }
+            return result;
+        }
+
+        // load all sections with this name in current thread
+        public void load(String name, SectionLoader loader) throws IOException {
+            for (Section section : getSections(name)) {
+                load(section, loader);
+            }
+        }
+
+        public void load(Section section, SectionLoader loader) throws IOException {
+            long checksum;
+            FileInputStream fis = new FileInputStream(file);
+            try {
+                fis.getChannel().position(section.getOffset());
+                CheckedInputStream cis = new CheckedInputStream(ByteStreams.limit(fis, section.getLength()),
+                        new CRC32());
+                DataInputStream dis = new DataInputStream(new BufferedInputStream(cis));
+                loader.load(dis);
+                // the checksum covers the whole section, even if the loader does not read all of it
+                ByteStreams.copy(dis, ByteStreams.nullOutputStream());
+                checksum = cis.getChecksum().getValue();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("failed to load image section " + section.getName(), e);
+            } finally {
+                fis.close();
+            }
+            if (checksum != section.getChecksum()) {
+                throw new IOException("checksum of image section " + section.getName() + " mismatch: "
+                        + checksum + " vs. " + section.getChecksum());
+            }
+        }
+
+        // each task loads a list of sections in order, and tasks run in parallel
+        public void loadInParallel(ExecutorService executor, List<Pair<List<Section>, SectionLoader>> tasks)
+                throws IOException {
+            List<Future<Void>> futures = Lists.newArrayList();
+            for (Pair<List<Section>, SectionLoader> task : tasks) {
+                futures.add(executor.submit(inheritContext(() -> {
+                    for (Section section : task.first) {
+                        load(section, task.second);
+                    }
+                    return null;
+                })));
+            }
+            IOException firstException = null;
+            // wait all tasks even if one of them fails, so that no task is still running after return
+            for (Future<Void> future : futures) {
+                try {
+                    getResult(future);
+                } catch (IOException e) {
+                    if (firstException == null) {
+                        firstException = e;
+                    }
+                }
+            }
+            if (firstException != null) {
+                throw firstException;
+            }
+        }
+    }
+}
@@ -28,12 +28,14 @@ import org.apache.doris.thrift.TResourceInfo;
 import org.apache.doris.thrift.TUniqueId;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.nio.channels.SocketChannel;
 import java.util.List;
+import java.util.Map;
 
 // When one client connect in, we create a connect context for it.
 // We store session information here. Meanwhile ConnectScheduler all
@@ -89,6 +91,12 @@ public class ConnectContext {
 
     private AuditBuilder auditBuilder;
 
+    // statements prepared by COM_STMT_PREPARE in this connection
+    private Map<Integer, PreparedStatementContext> preparedStmts = Maps.newHashMap();
+    private int nextPreparedStmtId = 1;
+    // true when executing COM_STMT_EXECUTE, result rows should be sent in binary protocol
+    private boolean isBinaryProtocol = false;
+
     private String remoteIP;
 
     public static ConnectContext get() {
@@ -99,6 +107,34 @@ public class ConnectContext {
         threadLocalInfo.remove();
     }
 
+    public int nextPreparedStmtId() {
+        return nextPreparedStmtId++;
+    }
+
+    public void addPreparedStmt(PreparedStatementContext preparedStmt) {
+        preparedStmts.put(preparedStmt.getStmtId(), preparedStmt);
+    }
+
+    public PreparedStatementContext getPreparedStmt(int stmtId) {
+        return preparedStmts.get(stmtId);
+    }
+
+    public void removePreparedStmt(int stmtId) {
+        preparedStmts.remove(stmtId);
+    }
+
+    public int getPreparedStmtNum() {
+        return preparedStmts.size();
+    }
+
+    public boolean isBinaryProtocol() {
+        return isBinaryProtocol;
+    }
+
+    public void setBinaryProtocol(boolean isBinaryProtocol) {
+        this.isBinaryProtocol = isBinaryProtocol;
+    }
+
     public void setIsSend(boolean isSend) {
         this.isSend = isSend;
     }
@@ -0,0 +1,189 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Queues;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+
+/*
+ * Watch idle mysql connections with one selector.
+ * A connection is registered here after each command is finished. The next command packet is read by the
+ * selector thread in non-blocking mode, and after it is whole, the connection is removed from selector and
+ * the command is processed in the worker pool, then the connection is registered again.
+ * So an idle connection, or a connection whose packet is partly received, holds no thread.
+ */
+public class ConnectIdleSelector implements Runnable {
+    private static final Logger LOG = LogManager.getLogger(ConnectIdleSelector.class);
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final ConnectScheduler scheduler;
+    private final ExecutorService workerPool;
+    private final Selector selector;
+    // connections waiting to be registered, added by worker threads
+    private final Queue<ConnectProcessor> pendingRegister = Queues.newConcurrentLinkedQueue();
+    // connections registered in selector. only accessed by selector thread
+    private final Map<ConnectContext, SelectionKey> idleConnections = Maps.newHashMap();
+
+    public ConnectIdleSelector(ConnectScheduler scheduler, ExecutorService workerPool) throws IOException {
+        this.scheduler = scheduler;
+        this.workerPool = workerPool;
+        this.selector = Selector.open();
+    }
+
+    // called by worker thread after one command is done.
+    public void register(ConnectProcessor processor) {
+        pendingRegister.add(processor);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                registerPending();
+                dispatchReadyConnections();
+                closeKilledConnections();
+            } catch (Throwable e) {
+                LOG.warn("connect idle selector encounter exception.", e);
+            }
+        }
+    }
+
+    private void registerPending() {
+        ConnectProcessor processor;
+        while ((processor = pendingRegister.poll()) != null) {
+            ConnectContext ctx = processor.getConnectContext();
+            if (ctx.isKilled()) {
+                scheduler.closeConnection(ctx);
+                continue;
+            }
+            try {
+                SelectionKey key = ctx.getMysqlChannel().registerForRead(selector, processor);
+                idleConnections.put(ctx, key);
+            } catch (IOException e) {
+                LOG.warn("register connection to selector failed. remote: {}",
+                         ctx.getMysqlChannel().getRemoteHostPortString(), e);
+                ctx.setKilled();
+                scheduler.closeConnection(ctx);
+            }
+        }
+    }
+
+    // Read command packets of readable connections without blocking. A connection is dispatched to the worker pool
+    // after its whole packet is read, otherwise it stays in selector, and reading is resumed when more data arrives.
+    private void dispatchReadyConnections() throws IOException {
+        if (selector.selectedKeys().isEmpty()) {
+            return;
+        }
+
+        List<ConnectProcessor> readyProcessors = Lists.newArrayList();
+        boolean hasCancelledKey = false;
+        Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+        while (iter.hasNext()) {
+            SelectionKey key = iter.next();
+            iter.remove();
+            ConnectProcessor processor = (ConnectProcessor) key.attachment();
+            ConnectContext ctx = processor.getConnectContext();
+            boolean packetReady;
+            try {
+                packetReady = ctx.getMysqlChannel().readPacketNonBlocking();
+            } catch (IOException e) {
+                LOG.info("receive packet failed, close connection. remote: {}, reason: {}",
+                         ctx.getMysqlChannel().getRemoteHostPortString(), e.getMessage());
+                key.cancel();
+                idleConnections.remove(ctx);
+                ctx.setKilled();
+                scheduler.closeConnection(ctx);
+                continue;
+            }
+            if (!packetReady) {
+                continue;
+            }
+            key.cancel();
+            hasCancelledKey = true;
+            idleConnections.remove(ctx);
+            readyProcessors.add(processor);
+        }
+        if (hasCancelledKey) {
+            // flush cancelled keys, so that channels can be switched back to block mode
+            selector.selectNow();
+        }
+
+        for (ConnectProcessor processor : readyProcessors) {
+            workerPool.submit(new CommandHandler(processor));
+        }
+    }
+
+    // channels closed by kill or timeout checker are removed from selector silently,
+    // so check them here to release the connections.
+    private void closeKilledConnections() {
+        Iterator<Map.Entry<ConnectContext, SelectionKey>> iter = idleConnections.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<ConnectContext, SelectionKey> entry = iter.next();
+            ConnectContext ctx = entry.getKey();
+            if (ctx.isKilled() || !ctx.getMysqlChannel().isOpen()) {
+                entry.getValue().cancel();
+                iter.remove();
+                scheduler.closeConnection(ctx);
+            }
+        }
+    }
+
+    private class CommandHandler implements Runnable {
+        private final ConnectProcessor processor;
+
+        CommandHandler(ConnectProcessor processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public void run() {
+            ConnectContext ctx = processor.getConnectContext();
+            try {
+                ctx.setThreadLocalInfo();
+                ctx.getMysqlChannel().configureBlocking();
+                processor.processOnce();
+            } catch (Exception e) {
+                LOG.warn("Exception happened in one session(" + ctx + ").", e);
+                ctx.setKilled();
+            } finally {
+                ConnectContext.remove();
+            }
+
+            if (ctx.isKilled()) {
+                scheduler.closeConnection(ctx);
+            } else {
+                register(processor);
+            }
+        }
+    }
+}
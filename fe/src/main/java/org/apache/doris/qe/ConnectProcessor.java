@@ -17,21 +17,28 @@
 
 package org.apache.doris.qe;
 
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
 import org.apache.doris.analysis.StatementBase;
 import org.apache.doris.catalog.Catalog;
 import org.apache.doris.catalog.Column;
 import org.apache.doris.catalog.Database;
 import org.apache.doris.catalog.Table;
+import org.apache.doris.catalog.Type;
 import org.apache.doris.cluster.ClusterNamespace;
+import org.apache.doris.common.AnalysisException;
 import org.apache.doris.common.AuditLog;
 import org.apache.doris.common.Config;
 import org.apache.doris.common.DdlException;
 import org.apache.doris.common.ErrorCode;
 import org.apache.doris.common.ErrorReport;
+import org.apache.doris.common.UserException;
 import org.apache.doris.common.util.DebugUtil;
 import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.mysql.MysqlChannel;
 import org.apache.doris.mysql.MysqlCommand;
+import org.apache.doris.mysql.MysqlEofPacket;
 import org.apache.doris.mysql.MysqlPacket;
 import org.apache.doris.mysql.MysqlProto;
 import org.apache.doris.mysql.MysqlSerializer;
@@ -41,12 +48,14 @@ import org.apache.doris.thrift.TMasterOpResult;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.AsynchronousCloseException;
 import java.util.List;
@@ -66,6 +75,10 @@ public class ConnectProcessor {
         this.ctx = context;
     }
 
+    public ConnectContext getConnectContext() {
+        return ctx;
+    }
+
     // COM_INIT_DB: change current database of this session.
     private void handleInitDb() {
         String dbName = new String(packetBuf.array(), 1, packetBuf.limit() - 1);
@@ -156,6 +169,15 @@ public class ConnectProcessor {
             ctx.getState().setError("Unsupported character set(UTF-8)");
             return;
         }
+        executeStmt(stmt);
+    }
+
+    private void executeStmt(String stmt) {
+        executeStmt(stmt, null);
+    }
+
+    // parsedStmt is null if stmt is not parsed yet
+    private void executeStmt(String stmt, StatementBase parsedStmt) {
         ctx.getAuditBuilder().reset();
         ctx.getAuditBuilder().put("Client", ctx.getMysqlChannel().getRemoteHostPortString());
         ctx.getAuditBuilder().put("User", ctx.getQualifiedUser());
@@ -163,7 +185,7 @@ public class ConnectProcessor {
 
         // execute this query.
         try {
-            executor = new StmtExecutor(ctx, stmt);
+            executor = parsedStmt == null ? new StmtExecutor(ctx, stmt) : new StmtExecutor(ctx, stmt, parsedStmt);
             ctx.setExecutor(executor);
             executor.execute();
             // set if this is a QueryStmt
@@ -188,6 +210,142 @@ public class ConnectProcessor {
                 executor.getQueryStatisticsForAuditLog());
     }
 
+    // COM_STMT_PREPARE: parse and analyze the statement once, remember the parsed statement,
+    // and reply the statement id, result columns and parameters.
+    // Only query statement is supported.
+    private void handleStmtPrepare() throws IOException {
+        String stmt = null;
+        try {
+            stmt = new String(packetBuf.array(), 1, packetBuf.limit() - 1, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // impossible
+            LOG.error("UTF8 is not supported in this environment.");
+            ctx.getState().setError("Unsupported character set(UTF-8)");
+            return;
+        }
+        if (ctx.getPreparedStmtNum() >= Config.max_prepared_stmt_num_per_connection) {
+            ctx.getState().setError("Reach limit of prepared statements: "
+                    + Config.max_prepared_stmt_num_per_connection);
+            return;
+        }
+
+        PreparedStatementContext preparedStmt = null;
+        try {
+            List<PlaceHolderExpr> placeHolders = Lists.newArrayList();
+            StatementBase parsedStmt = StmtExecutor.parse(stmt, placeHolders);
+            if (!(parsedStmt instanceof QueryStmt) || parsedStmt.isExplain()) {
+                ctx.getState().setError("Only SELECT statement can be prepared");
+                return;
+            }
+            preparedStmt = new PreparedStatementContext(ctx.nextPreparedStmtId(), stmt, (QueryStmt) parsedStmt,
+                    placeHolders);
+            QueryStmt analyzedStmt = StmtExecutor.analyzePreparedStmt(ctx, preparedStmt);
+            List<Type> resultTypes = Lists.newArrayList();
+            for (Expr expr : analyzedStmt.getResultExprs()) {
+                resultTypes.add(expr.getType());
+            }
+            preparedStmt.setMetadata(Lists.newArrayList(analyzedStmt.getColLabels()), resultTypes);
+        } catch (UserException e) {
+            ctx.getState().setError(e.getMessage());
+            return;
+        } catch (Exception e) {
+            LOG.warn("failed to prepare statement: {}", stmt, e);
+            ctx.getState().setError("Unexpected exception: " + e.getMessage());
+            return;
+        }
+        ctx.addPreparedStmt(preparedStmt);
+
+        MysqlChannel channel = ctx.getMysqlChannel();
+        MysqlSerializer serializer = ctx.getSerializer();
+        serializer.reset();
+        // status: OK
+        serializer.writeInt1(0);
+        serializer.writeInt4(preparedStmt.getStmtId());
+        serializer.writeInt2(preparedStmt.getColLabels().size());
+        serializer.writeInt2(preparedStmt.getNumParams());
+        // reserved
+        serializer.writeInt1(0);
+        // warning count
+        serializer.writeInt2(0);
+        channel.sendOnePacket(serializer.toByteBuffer());
+        if (preparedStmt.getNumParams() > 0) {
+            for (int i = 0; i < preparedStmt.getNumParams(); i++) {
+                serializer.reset();
+                serializer.writeField("?", preparedStmt.getParamType(i).getPrimitiveType());
+                channel.sendOnePacket(serializer.toByteBuffer());
+            }
+            sendEofPacket(serializer, channel);
+        }
+        if (!preparedStmt.getColLabels().isEmpty()) {
+            for (int i = 0; i < preparedStmt.getColLabels().size(); i++) {
+                serializer.reset();
+                serializer.writeField(preparedStmt.getColLabels().get(i),
+                        preparedStmt.getResultTypes().get(i).getPrimitiveType());
+                channel.sendOnePacket(serializer.toByteBuffer());
+            }
+            sendEofPacket(serializer, channel);
+        }
+        channel.flush();
+        ctx.getState().setNoop();
+    }
+
+    private void sendEofPacket(MysqlSerializer serializer, MysqlChannel channel) throws IOException {
+        serializer.reset();
+        MysqlEofPacket eofPacket = new MysqlEofPacket(ctx.getState());
+        eofPacket.writeTo(serializer);
+        channel.sendOnePacket(serializer.toByteBuffer());
+    }
+
+    // COM_STMT_EXECUTE: bind parameters to a clone of the parsed prepared statement and execute it.
+    // Result rows are sent in binary protocol.
+    private void handleStmtExecute() {
+        MetricRepo.COUNTER_REQUEST_ALL.increase(1L);
+        int stmtId = MysqlProto.readInt4(packetBuf);
+        PreparedStatementContext preparedStmt = ctx.getPreparedStmt(stmtId);
+        if (preparedStmt == null) {
+            ctx.getState().setError("Unknown prepared statement handler (" + stmtId + ") given to execute");
+            return;
+        }
+        // flags and iteration count, cursor is not supported
+        MysqlProto.readInt1(packetBuf);
+        MysqlProto.readInt4(packetBuf);
+
+        QueryStmt stmt = null;
+        try {
+            stmt = preparedStmt.bindParams(packetBuf);
+        } catch (AnalysisException e) {
+            ctx.getState().setError(e.getMessage());
+            return;
+        } catch (BufferUnderflowException e) {
+            ctx.getState().setError("Malformed COM_STMT_EXECUTE packet");
+            return;
+        }
+
+        ctx.setBinaryProtocol(true);
+        try {
+            executeStmt(preparedStmt.getOriginStmt(), stmt);
+        } finally {
+            ctx.setBinaryProtocol(false);
+        }
+    }
+
+    // COM_STMT_CLOSE: no response is sent.
+    private void handleStmtClose() {
+        int stmtId = MysqlProto.readInt4(packetBuf);
+        ctx.removePreparedStmt(stmtId);
+        ctx.getState().setNoop();
+    }
+
+    // COM_STMT_RESET: long data is not supported, so nothing to reset.
+    private void handleStmtReset() {
+        int stmtId = MysqlProto.readInt4(packetBuf);
+        if (ctx.getPreparedStmt(stmtId) == null) {
+            ctx.getState().setError("Unknown prepared statement handler (" + stmtId + ") given to reset");
+            return;
+        }
+        ctx.getState().setOk();
+    }
+
     // Get the column definitions of a table
     private void handleFieldList() throws IOException {
         // Already get command code.
@@ -265,6 +423,19 @@ public class ConnectProcessor {
             case COM_PING:
                 handlePing();
                 break;
+            case COM_STMT_PREPARE:
+                handleStmtPrepare();
+                break;
+            case COM_STMT_EXECUTE:
+                handleStmtExecute();
+                ctx.setStartTime();
+                break;
+            case COM_STMT_CLOSE:
+                handleStmtClose();
+                break;
+            case COM_STMT_RESET:
+                handleStmtReset();
+                break;
             default:
                 ctx.getState().setError("Unsupported command(" + command + ")");
                 LOG.warn("Unsupported command(" + command + ")");
@@ -18,6 +18,7 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.mysql.MysqlProto;
 import org.apache.doris.mysql.privilege.PrivPredicate;
 
@@ -27,6 +28,7 @@ import com.google.common.collect.Maps;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
@@ -37,6 +39,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 // 查询请求的调度器
 // 当前的策略比较简单，有请求过来，就为其单独申请一个线程进行服务。
+// 如果开启了 mysql_service_nio_enabled，握手仍由单独的线程完成，之后连接空闲时由 ConnectIdleSelector 监听，
+// 不占用线程，每个命令在固定大小的线程池中执行。
 // TODO(zhaochun): 应当后面考虑本地文件的连接是否可以超过最大连接数
 public class ConnectScheduler {
     private static final Logger LOG = LogManager.getLogger(ConnectScheduler.class);
@@ -45,7 +49,11 @@ public class ConnectScheduler {
     private AtomicInteger nextConnectionId;
     private Map<Long, ConnectContext> connectionMap = Maps.newHashMap();
     private Map<String, AtomicInteger> connByUser = Maps.newHashMap();
+    // serve connections, or only do handshakes of connections if idleSelector is not null,
+    // so that slow clients in handshake do not hold threads of the bounded worker pool of idleSelector
     private ExecutorService executor = Executors.newCachedThreadPool();
+    // not null if Config.mysql_service_nio_enabled is true
+    private ConnectIdleSelector idleSelector = null;
 
     // Use a thread to check whether connection is timeout. Because
     // 1. If use a scheduler, the task maybe a huge number when query is messy.
@@ -59,6 +67,21 @@ public class ConnectScheduler {
         nextConnectionId = new AtomicInteger(0);
         checkTimer = new Timer("ConnectScheduler Check Timer", true);
         checkTimer.scheduleAtFixedRate(new TimeoutChecker(), 0, 1000);
+
+        if (Config.mysql_service_nio_enabled) {
+            ExecutorService workerPool = Executors.newFixedThreadPool(Config.mysql_service_nio_worker_threads);
+            try {
+                idleSelector = new ConnectIdleSelector(this, workerPool);
+            } catch (IOException e) {
+                LOG.warn("open selector failed, fall back to thread per connection.", e);
+                workerPool.shutdown();
+            }
+        }
+        if (idleSelector != null) {
+            Thread selectorThread = new Thread(idleSelector, "MySQL Connect Idle Selector");
+            selectorThread.setDaemon(true);
+            selectorThread.start();
+        }
     }
 
     private class TimeoutChecker extends TimerTask {
@@ -117,6 +140,12 @@ public class ConnectScheduler {
         }
     }
 
+    // release the connection after it is finished or killed
+    public void closeConnection(ConnectContext ctx) {
+        unregisterConnection(ctx);
+        ctx.cleanup();
+    }
+
     public synchronized ConnectContext getContext(long connectionId) {
         return connectionMap.get(connectionId);
     }
@@ -150,6 +179,7 @@ public class ConnectScheduler {
 
         @Override
         public void run() {
+            boolean handedOver = false;
             try {
                 // Set thread local info
                 context.setThreadLocalInfo();
@@ -169,12 +199,20 @@ public class ConnectScheduler {
 
                 context.setStartTime();
                 ConnectProcessor processor = new ConnectProcessor(context);
+                if (idleSelector != null) {
+                    // wait for the first command without holding this thread
+                    ConnectContext.remove();
+                    handedOver = true;
+                    idleSelector.register(processor);
+                    return;
+                }
                 processor.loop();
             } catch (Exception e) {
                 LOG.warn("connect processor exception because ", e);
             } finally {
-                unregisterConnection(context);
-                context.cleanup();
+                if (!handedOver) {
+                    closeConnection(context);
+                }
             }
         }
     }
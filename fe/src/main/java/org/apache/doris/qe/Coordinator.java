@@ -57,10 +57,12 @@ import org.apache.doris.task.LoadEtlTask;
 import org.apache.doris.thrift.PaloInternalServiceVersion;
 import org.apache.doris.thrift.TDescriptorTable;
 import org.apache.doris.thrift.TEsScanRange;
+import org.apache.doris.thrift.TExecPlanFragmentBatchParams;
 import org.apache.doris.thrift.TExecPlanFragmentParams;
 import org.apache.doris.thrift.TLoadErrorHubInfo;
 import org.apache.doris.thrift.TNetworkAddress;
 import org.apache.doris.thrift.TPaloScanRange;
+import org.apache.doris.thrift.TPlanFragment;
 import org.apache.doris.thrift.TPlanFragmentDestination;
 import org.apache.doris.thrift.TPlanFragmentExecParams;
 import org.apache.doris.thrift.TQueryGlobals;
@@ -86,12 +88,15 @@ import com.google.common.collect.Sets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.thrift.TException;
+import org.apache.thrift.TSerializer;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -105,12 +110,18 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 public class Coordinator {
     private static final Logger LOG = LogManager.getLogger(Coordinator.class);
 
     private static final DateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
 
+    // backend id -> start time of the backend, on which exec_plan_fragment_batch failed but
+    // exec_plan_fragment succeeded, i.e. the backend is not upgraded yet.
+    // batch rpc is tried again after the backend is restarted.
+    private static final Map<Long, Long> BATCH_RPC_UNSUPPORTED_BACKENDS = Maps.newConcurrentMap();
+
     private static String localIP = FrontendOptions.getLocalHostAddress();
 
     // Random is used to shuffle instances of partitioned
@@ -121,6 +132,8 @@ public class Coordinator {
     Status queryStatus = new Status();
 
     Map<TNetworkAddress, Long> addressToBackendID = Maps.newHashMap();
+    // number of scan ranges assigned to each backend by this query, to spread them by backend load
+    private Map<Long, Long> assignedScanRangeNumPerBackend = Maps.newHashMap();
 
     private ImmutableMap<Long, Backend> idToBackend = ImmutableMap.of();
 
@@ -418,7 +431,9 @@ public class Coordinator {
         }
         lock();
         try {
-            // execute all instances from up to bottom
+            // set up exec states of all instances from up to bottom
+            // fragment index -> exec states of instances of the fragment
+            List<List<BackendExecState>> fragmentExecStates = Lists.newArrayList();
             int backendId = 0;
             int profileFragmentId = 0;
             long memoryLimit = queryOptions.getMem_limit();
@@ -429,15 +444,18 @@ public class Coordinator {
                 int instanceNum = params.instanceExecParams.size();
                 Preconditions.checkState(instanceNum > 0);
                 List<TExecPlanFragmentParams> tParams = params.toThrift(backendId);
-                List<Pair<BackendExecState, Future<PExecPlanFragmentResult>>> futures = Lists.newArrayList();
+                List<BackendExecState> execStates = Lists.newArrayList();
 
                 //update memory limit for colocate join
                 if (colocateFragmentIds.contains(fragment.getFragmentId().asInt())) {
                     int rate = Math.min(Config.query_colocate_join_memory_limit_penalty_factor, instanceNum);
                     long newmemory = memoryLimit / rate;
 
+                    // query options are shared by all fragments
+                    TQueryOptions colocateQueryOptions = new TQueryOptions(queryOptions);
+                    colocateQueryOptions.setMem_limit(newmemory);
                     for (TExecPlanFragmentParams tParam : tParams) {
-                        tParam.query_options.setMem_limit(newmemory);
+                        tParam.setQuery_options(colocateQueryOptions);
                     }
                 }
                 
@@ -460,53 +478,29 @@ public class Coordinator {
                         LOG.debug("add need check backend {} for fragment, {} job: {}", execState.backend.getId(),
                                 fragment.getFragmentId().asInt(), jobId);
                     }
-                    futures.add(Pair.create(execState, execState.execRemoteFragmentAsync()));
+                    execStates.add(execState);
 
                     backendId++;
                 }
+                fragmentExecStates.add(execStates);
+                profileFragmentId += 1;
+            }
 
-                for (Pair<BackendExecState, Future<PExecPlanFragmentResult>> pair : futures) {
-                    TStatusCode code = TStatusCode.INTERNAL_ERROR;
-                    String errMsg = null;
-                    try {
-                        PExecPlanFragmentResult result = pair.second.get(Config.remote_fragment_exec_timeout_ms,
-                                                                         TimeUnit.MILLISECONDS);
-                        code = TStatusCode.findByValue(result.status.status_code);
-                        if (result.status.error_msgs != null && !result.status.error_msgs.isEmpty()) {
-                            errMsg = result.status.error_msgs.get(0);
-                        }
-                    } catch (ExecutionException e) {
-                        LOG.warn("catch a execute exception", e);
-                        code = TStatusCode.THRIFT_RPC_ERROR;
-                    } catch (InterruptedException e) {
-                        LOG.warn("catch a interrupt exception", e);
-                        code = TStatusCode.INTERNAL_ERROR;
-                    } catch (TimeoutException e) {
-                        LOG.warn("catch a timeout exception", e);
-                        code = TStatusCode.TIMEOUT;
+            if (Config.enable_parallel_fragment_dispatch) {
+                dispatchFragmentsInParallel(fragmentExecStates);
+            } else {
+                // wait for all instances of a fragment to be started before sending the next one
+                for (int i = 0; i < fragmentExecStates.size(); i++) {
+                    long startNs = System.nanoTime();
+                    List<Pair<List<BackendExecState>, Future<PExecPlanFragmentResult>>> futures = Lists.newArrayList();
+                    for (List<BackendExecState> batch : toExecBatches(fragmentExecStates.get(i))) {
+                        futures.add(Pair.create(batch, execRemoteFragmentsAsync(batch)));
                     }
-
-                    if (code != TStatusCode.OK) {
-                        if (errMsg == null) {
-                            errMsg = "exec rpc error. backend id: " + pair.first.backend.getId();
-                        }
-                        queryStatus.setStatus(errMsg);
-                        LOG.warn("exec plan fragment failed, errmsg={}, fragmentId={}, backend={}:{}",
-                                 errMsg, fragment.getFragmentId(),
-                                 pair.first.address.hostname, pair.first.address.port);
-                        cancelInternal(PPlanFragmentCancelReason.INTERNAL_ERROR);
-                        switch (code) {
-                        case TIMEOUT:
-                            throw new UserException("query timeout. backend id: " + pair.first.backend.getId());
-                        case THRIFT_RPC_ERROR:
-                            SimpleScheduler.updateBlacklistBackends(pair.first.backend.getId());
-                            throw new RpcException(pair.first.backend.getHost(), "rpc failed");
-                        default:
-                            throw new UserException(errMsg);
-                        }
+                    for (Pair<List<BackendExecState>, Future<PExecPlanFragmentResult>> pair : futures) {
+                        checkExecResult(pair.first.get(0), getExecResult(pair.first, pair.second));
                     }
+                    updateDispatchTime(i, startNs);
                 }
-                profileFragmentId += 1;
             }
             attachInstanceProfileToFragmentProfile();
         } finally {
@@ -514,6 +508,224 @@ public class Coordinator {
         }
     }
 
+    /*
+     * Send instances of all fragments in parallel, with at most Config.max_fragment_dispatch_rpc_per_query
+     * rpcs in flight. Rpcs are sent asynchronously by the calling thread, which also waits for their results,
+     * so no other thread is blocked by a slow backend.
+     * A fragment is sent after all instances of its destination fragment are started, otherwise data sent
+     * before the receiver is registered would be dropped by backend.
+     */
+    private void dispatchFragmentsInParallel(List<List<BackendExecState>> fragmentExecStates) throws Exception {
+        // fragment index -> indexes of fragments sending data to it
+        Map<Integer, List<Integer>> destToSources = Maps.newHashMap();
+        Map<PlanFragmentId, Integer> fragmentIdToIndex = Maps.newHashMap();
+        for (int i = 0; i < fragments.size(); i++) {
+            fragmentIdToIndex.put(fragments.get(i).getFragmentId(), i);
+        }
+        Deque<List<BackendExecState>> readyBatches = new ArrayDeque<>();
+        long[] readyTimeNs = new long[fragments.size()];
+        int[] unstartedNum = new int[fragments.size()];
+        for (int i = 0; i < fragments.size(); i++) {
+            unstartedNum[i] = fragmentExecStates.get(i).size();
+            PlanFragment destFragment = fragments.get(i).getDestFragment();
+            if (destFragment == null) {
+                readyBatches.addAll(toExecBatches(fragmentExecStates.get(i)));
+                readyTimeNs[i] = System.nanoTime();
+            } else {
+                destToSources.computeIfAbsent(fragmentIdToIndex.get(destFragment.getFragmentId()),
+                        k -> Lists.newArrayList()).add(i);
+            }
+        }
+
+        // batches in flight, in the order of being sent
+        List<Pair<List<BackendExecState>, Future<PExecPlanFragmentResult>>> inflightBatches = Lists.newLinkedList();
+        int maxInflightNum = Math.max(1, Config.max_fragment_dispatch_rpc_per_query);
+        int startedFragmentNum = 0;
+        while (startedFragmentNum < fragments.size()) {
+            while (inflightBatches.size() < maxInflightNum && !readyBatches.isEmpty()) {
+                List<BackendExecState> batch = readyBatches.poll();
+                try {
+                    inflightBatches.add(Pair.create(batch, execRemoteFragmentsAsync(batch)));
+                } catch (TException | RpcException e) {
+                    LOG.warn("exec plan fragment failed, query id: {}", DebugUtil.printId(queryId), e);
+                    queryStatus.setStatus(e.getMessage());
+                    cancelInternal(PPlanFragmentCancelReason.INTERNAL_ERROR);
+                    throw e;
+                }
+            }
+            Preconditions.checkState(!inflightBatches.isEmpty());
+
+            // take a finished rpc if there is one, otherwise wait for the earliest sent one
+            Pair<List<BackendExecState>, Future<PExecPlanFragmentResult>> result = inflightBatches.get(0);
+            for (Pair<List<BackendExecState>, Future<PExecPlanFragmentResult>> inflightBatch : inflightBatches) {
+                if (inflightBatch.second.isDone()) {
+                    result = inflightBatch;
+                    break;
+                }
+            }
+            inflightBatches.remove(result);
+            checkExecResult(result.first.get(0), getExecResult(result.first, result.second));
+
+            int index = result.first.get(0).profileFragmentId;
+            unstartedNum[index] -= result.first.size();
+            if (unstartedNum[index] == 0) {
+                startedFragmentNum++;
+                updateDispatchTime(index, readyTimeNs[index]);
+                for (int source : destToSources.getOrDefault(index, Collections.emptyList())) {
+                    readyBatches.addAll(toExecBatches(fragmentExecStates.get(source)));
+                    readyTimeNs[source] = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /*
+     * Group instances of a fragment by backend, instances in a group are sent in one rpc.
+     * Each instance is sent alone if Config.enable_fragment_exec_batch_rpc is false,
+     * or its backend does not support batch rpc.
+     */
+    private List<List<BackendExecState>> toExecBatches(List<BackendExecState> execStates) {
+        if (!Config.enable_fragment_exec_batch_rpc) {
+            return execStates.stream().map(Collections::singletonList).collect(Collectors.toList());
+        }
+        List<List<BackendExecState>> batches = Lists.newArrayList();
+        Map<Long, List<BackendExecState>> backendToStates = Maps.newLinkedHashMap();
+        for (BackendExecState execState : execStates) {
+            Backend backend = execState.backend;
+            Long unsupportedStartTime = BATCH_RPC_UNSUPPORTED_BACKENDS.get(backend.getId());
+            if (unsupportedStartTime != null && unsupportedStartTime == backend.getLastStartTime()) {
+                batches.add(Collections.singletonList(execState));
+            } else {
+                backendToStates.computeIfAbsent(backend.getId(), k -> Lists.newArrayList()).add(execState);
+            }
+        }
+        batches.addAll(backendToStates.values());
+        return batches;
+    }
+
+    private Future<PExecPlanFragmentResult> execRemoteFragmentsAsync(List<BackendExecState> batch)
+            throws TException, RpcException {
+        if (batch.size() == 1) {
+            return batch.get(0).execRemoteFragmentAsync();
+        }
+        return execRemoteFragmentsAsync(batch, 0);
+    }
+
+    // send the batch with locks of all exec states held, same as BackendExecState.execRemoteFragmentAsync
+    private Future<PExecPlanFragmentResult> execRemoteFragmentsAsync(List<BackendExecState> batch, int index)
+            throws TException, RpcException {
+        if (index < batch.size()) {
+            BackendExecState execState = batch.get(index);
+            synchronized (execState) {
+                if (execState.hasCanceled) {
+                    throw new TException("fragment instance is cancelled: "
+                            + DebugUtil.printId(execState.fragmentInstanceId()));
+                }
+                execState.markInitiated();
+                return execRemoteFragmentsAsync(batch, index + 1);
+            }
+        }
+
+        BackendExecState first = batch.get(0);
+        TExecPlanFragmentBatchParams batchParams = new TExecPlanFragmentBatchParams();
+        batchParams.setCommon_params(fragmentExecParamsMap.get(first.fragmentId).serializeCommonParams(
+                first.rpcParams));
+        for (BackendExecState execState : batch) {
+            batchParams.addToInstance_params(execState.rpcParams.getParams());
+            batchParams.addToBackend_nums(execState.rpcParams.getBackend_num());
+        }
+        try {
+            return BackendServiceProxy.getInstance().execPlanFragmentBatchAsync(
+                    new TNetworkAddress(first.backend.getHost(), first.backend.getBrpcPort()), batchParams);
+        } catch (RpcException e) {
+            SimpleScheduler.updateBlacklistBackends(first.backend.getId());
+            throw e;
+        }
+    }
+
+    /*
+     * Wait for the result of a batch. If the batch rpc failed, instances of the batch are sent again
+     * one by one, because the backend may not be upgraded yet and exec_plan_fragment_batch is unknown to it.
+     * If they succeed, the backend is remembered so that later batches to it are sent one by one directly,
+     * and it is not put into blacklist.
+     */
+    private Pair<TStatusCode, String> getExecResult(List<BackendExecState> batch,
+                                                    Future<PExecPlanFragmentResult> future)
+            throws TException, RpcException {
+        Pair<TStatusCode, String> result = getExecResult(future);
+        if (batch.size() == 1 || result.first != TStatusCode.THRIFT_RPC_ERROR) {
+            return result;
+        }
+        Backend backend = batch.get(0).backend;
+        LOG.warn("exec plan fragment batch failed on backend {}, send instances one by one. query id: {}",
+                 backend.getId(), DebugUtil.printId(queryId));
+        List<Future<PExecPlanFragmentResult>> futures = Lists.newArrayList();
+        for (BackendExecState execState : batch) {
+            futures.add(execState.execRemoteFragmentAsync());
+        }
+        for (Future<PExecPlanFragmentResult> instanceFuture : futures) {
+            result = getExecResult(instanceFuture);
+            if (result.first != TStatusCode.OK) {
+                return result;
+            }
+        }
+        BATCH_RPC_UNSUPPORTED_BACKENDS.put(backend.getId(), backend.getLastStartTime());
+        return result;
+    }
+
+    private Pair<TStatusCode, String> getExecResult(Future<PExecPlanFragmentResult> future) {
+        TStatusCode code = TStatusCode.INTERNAL_ERROR;
+        String errMsg = null;
+        try {
+            PExecPlanFragmentResult result = future.get(Config.remote_fragment_exec_timeout_ms,
+                                                        TimeUnit.MILLISECONDS);
+            code = TStatusCode.findByValue(result.status.status_code);
+            if (result.status.error_msgs != null && !result.status.error_msgs.isEmpty()) {
+                errMsg = result.status.error_msgs.get(0);
+            }
+        } catch (ExecutionException e) {
+            LOG.warn("catch a execute exception", e);
+            code = TStatusCode.THRIFT_RPC_ERROR;
+        } catch (InterruptedException e) {
+            LOG.warn("catch a interrupt exception", e);
+            code = TStatusCode.INTERNAL_ERROR;
+        } catch (TimeoutException e) {
+            LOG.warn("catch a timeout exception", e);
+            code = TStatusCode.TIMEOUT;
+        }
+        return Pair.create(code, errMsg);
+    }
+
+    private void checkExecResult(BackendExecState execState, Pair<TStatusCode, String> result) throws Exception {
+        TStatusCode code = result.first;
+        String errMsg = result.second;
+        if (code != TStatusCode.OK) {
+            if (errMsg == null) {
+                errMsg = "exec rpc error. backend id: " + execState.backend.getId();
+            }
+            queryStatus.setStatus(errMsg);
+            LOG.warn("exec plan fragment failed, errmsg={}, fragmentId={}, backend={}:{}",
+                     errMsg, execState.fragmentId,
+                     execState.address.hostname, execState.address.port);
+            cancelInternal(PPlanFragmentCancelReason.INTERNAL_ERROR);
+            switch (code) {
+            case TIMEOUT:
+                throw new UserException("query timeout. backend id: " + execState.backend.getId());
+            case THRIFT_RPC_ERROR:
+                SimpleScheduler.updateBlacklistBackends(execState.backend.getId());
+                throw new RpcException(execState.backend.getHost(), "rpc failed");
+            default:
+                throw new UserException(errMsg);
+            }
+        }
+    }
+
+    // time from the fragment is ready to be sent to all of its instances are started
+    private void updateDispatchTime(int fragmentIndex, long startNs) {
+        fragmentProfile.get(fragmentIndex).addInfoString("DispatchTime",
+                DebugUtil.getPrettyStringMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs)));
+    }
+
     public List<String> getExportFiles() {
         return exportFiles;
     }
@@ -1057,7 +1269,8 @@ public class Coordinator {
     private void getExecHostPortForBucketSeq(TScanRangeLocations seqLocation, Integer bucketSeq) throws Exception {
         int randomLocation = new Random().nextInt(seqLocation.locations.size());
         Reference<Long> backendIdRef = new Reference<Long>();
-        TNetworkAddress execHostPort = SimpleScheduler.getHost(seqLocation.locations.get(randomLocation).backend_id, seqLocation.locations, this.idToBackend, backendIdRef);
+        TNetworkAddress execHostPort = SimpleScheduler.getHost(seqLocation.locations.get(randomLocation).backend_id,
+                seqLocation.locations, this.idToBackend, backendIdRef, assignedScanRangeNumPerBackend);
         if (execHostPort == null) {
             throw new UserException("there is no scanNode Backend");
         }
@@ -1082,17 +1295,17 @@ public class Coordinator {
                     minLocation = location;
                 }
             }
-            Long scanRangeLength = getScanRangeLength(scanRangeLocations.scan_range);
-            assignedBytesPerHost.put(minLocation.server,
-                    assignedBytesPerHost.get(minLocation.server) + scanRangeLength);
-
             Reference<Long> backendIdRef = new Reference<Long>();
             TNetworkAddress execHostPort = SimpleScheduler.getHost(minLocation.backend_id,
-                    scanRangeLocations.getLocations(), this.idToBackend, backendIdRef);
+                    scanRangeLocations.getLocations(), this.idToBackend, backendIdRef, assignedScanRangeNumPerBackend);
             if (execHostPort == null) {
                 throw new UserException("there is no scanNode Backend");
             }
             this.addressToBackendID.put(execHostPort, backendIdRef.getRef());
+            // the chosen host may not be minLocation if it is unavailable or heavily loaded
+            Long scanRangeLength = getScanRangeLength(scanRangeLocations.scan_range);
+            assignedBytesPerHost.put(execHostPort,
+                    findOrInsert(assignedBytesPerHost, execHostPort, 0L) + scanRangeLength);
 
             Map<Integer, List<TScanRangeParams>> scanRanges = findOrInsert(assignment, execHostPort,
                     new HashMap<Integer, List<TScanRangeParams>>());
@@ -1269,6 +1482,8 @@ public class Coordinator {
         TNetworkAddress address;
         Backend backend;
         long lastMissingHeartbeatTime = -1;
+        long initiatedTimeMs = -1;
+        boolean loadReleased = false;
         
         public BackendExecState(PlanFragmentId fragmentId, int instanceId, int profileFragmentId,
             TExecPlanFragmentParams rpcParams, Map<TNetworkAddress, Long> addressToBackendID) {
@@ -1299,9 +1514,33 @@ public class Coordinator {
                 profile.update(params.profile);
             }
             this.done = params.done;
+            if (this.done) {
+                releaseLoad(true);
+            }
             return true;
         }
 
+        // must be called with lock of this exec state held
+        void markInitiated() {
+            if (this.initiated) {
+                // sent again after the batch rpc failed, already counted in the load of its backend
+                return;
+            }
+            this.initiated = true;
+            this.initiatedTimeMs = System.currentTimeMillis();
+            SimpleScheduler.fragmentStarted(backend);
+        }
+
+        // the instance is no longer counted in the load of its backend
+        public synchronized void releaseLoad(boolean finished) {
+            if (!this.initiated || this.loadReleased) {
+                return;
+            }
+            this.loadReleased = true;
+            SimpleScheduler.fragmentFinished(backend,
+                    finished ? System.currentTimeMillis() - initiatedTimeMs : -1);
+        }
+
         public synchronized void printProfile(StringBuilder builder) {
             this.profile.prettyPrint(builder, "");
         }
@@ -1314,6 +1553,8 @@ public class Coordinator {
                     DebugUtil.printId(fragmentInstanceId()), cancelReason.name());
             try {
                 if (!this.initiated) {
+                    // not sent yet, and it will not be sent by parallel dispatching
+                    this.hasCanceled = true;
                     return false;
                 }
                 // don't cancel if it is already finished
@@ -1359,14 +1600,19 @@ public class Coordinator {
             return true;
         }
 
-        public Future<PExecPlanFragmentResult> execRemoteFragmentAsync() throws TException, RpcException {
+        // synchronized with cancelFragmentInstance, because the query may be cancelled by another thread
+        public synchronized Future<PExecPlanFragmentResult> execRemoteFragmentAsync()
+                throws TException, RpcException {
+            if (this.hasCanceled) {
+                throw new TException("fragment instance is cancelled: " + DebugUtil.printId(fragmentInstanceId()));
+            }
             TNetworkAddress brpcAddress = null;
             try {
                 brpcAddress = new TNetworkAddress(backend.getHost(), backend.getBrpcPort());
             } catch (Exception e) {
                 throw new TException(e.getMessage());
             }
-            this.initiated = true;
+            markInitiated();
             try {
                 return BackendServiceProxy.getInstance().execPlanFragmentAsync(brpcAddress, rpcParams);
             } catch (RpcException e) {
@@ -1395,6 +1641,8 @@ public class Coordinator {
         public Map<Integer, Integer>          perExchNumSenders = Maps.newHashMap();
         
         public List<PlanFragmentId> inputFragments = Lists.newArrayList();
+        // serialized params shared by all instances, guarded by this
+        private byte[] serializedCommonParams = null;
         public List<FInstanceExecParam> instanceExecParams = Lists.newArrayList();
         public FragmentScanRangeAssignment scanRangeAssignment = new FragmentScanRangeAssignment();
 
@@ -1404,12 +1652,14 @@ public class Coordinator {
 
         List<TExecPlanFragmentParams> toThrift(int backendNum) {
             List<TExecPlanFragmentParams> paramsList = Lists.newArrayList();
+            // plan fragment is shared by all instances
+            TPlanFragment tFragment = fragment.toThrift();
 
             for (int i = 0; i < instanceExecParams.size(); ++i) {
                 final FInstanceExecParam instanceExecParam = instanceExecParams.get(i);
                 TExecPlanFragmentParams params = new TExecPlanFragmentParams();
                 params.setProtocol_version(PaloInternalServiceVersion.V1);
-                params.setFragment(fragment.toThrift());
+                params.setFragment(tFragment);
                 params.setDesc_tbl(descTable);
                 params.setParams(new TPlanFragmentExecParams());
                 params.setResource_info(tResourceInfo);
@@ -1447,6 +1697,35 @@ public class Coordinator {
             return paramsList;
         }
 
+        /*
+         * Serialize params shared by all instances of this fragment, which are all params except params
+         * and backend_num. It is serialized only once and cached for the whole query.
+         * New fields of TExecPlanFragmentParams which are same for all instances should be added here.
+         */
+        synchronized byte[] serializeCommonParams(TExecPlanFragmentParams instanceParams) throws TException {
+            if (serializedCommonParams == null) {
+                TExecPlanFragmentParams commonParams = new TExecPlanFragmentParams();
+                commonParams.setProtocol_version(instanceParams.getProtocol_version());
+                commonParams.setFragment(instanceParams.getFragment());
+                commonParams.setDesc_tbl(instanceParams.getDesc_tbl());
+                commonParams.setCoord(instanceParams.getCoord());
+                commonParams.setQuery_globals(instanceParams.getQuery_globals());
+                commonParams.setQuery_options(instanceParams.getQuery_options());
+                if (instanceParams.isSetIs_report_success()) {
+                    commonParams.setIs_report_success(instanceParams.isIs_report_success());
+                }
+                commonParams.setResource_info(instanceParams.getResource_info());
+                commonParams.setImport_label(instanceParams.getImport_label());
+                commonParams.setDb_name(instanceParams.getDb_name());
+                if (instanceParams.isSetLoad_job_id()) {
+                    commonParams.setLoad_job_id(instanceParams.getLoad_job_id());
+                }
+                commonParams.setLoad_error_hub_info(instanceParams.getLoad_error_hub_info());
+                serializedCommonParams = new TSerializer().serialize(commonParams);
+            }
+            return serializedCommonParams;
+        }
+
         // Append range information
         // [tablet_id(version),tablet_id(version)]
         public void appendScanRange(StringBuilder sb, List<TScanRangeParams> params) {
@@ -1534,6 +1813,13 @@ public class Coordinator {
         }
     }
 
+    // release loads of instances which did not report done, called when the query is unregistered
+    public void releaseBackendLoads() {
+        for (BackendExecState backendExecState : backendExecStates) {
+            backendExecState.releaseLoad(false);
+        }
+    }
+
     // consistent with EXPLAIN's fragment index
     public List<QueryStatisticsItem.FragmentInstanceInfo> getFragmentInstanceInfos() {
         final List<QueryStatisticsItem.FragmentInstanceInfo> result =
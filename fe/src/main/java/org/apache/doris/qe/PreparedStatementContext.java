@@ -0,0 +1,244 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.DateLiteral;
+import org.apache.doris.analysis.DecimalLiteral;
+import org.apache.doris.analysis.FloatLiteral;
+import org.apache.doris.analysis.IntLiteral;
+import org.apache.doris.analysis.LargeIntLiteral;
+import org.apache.doris.analysis.LiteralExpr;
+import org.apache.doris.analysis.NullLiteral;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.StringLiteral;
+import org.apache.doris.catalog.Type;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.mysql.MysqlProto;
+
+import com.google.common.collect.Lists;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/*
+ * A statement prepared by COM_STMT_PREPARE.
+ * The statement is parsed once when preparing and the parsed statement is kept as a template.
+ * When executing, the binary parameters sent by client are converted to literals and bound to
+ * the placeholders of the template, and a clone of the template is analyzed and executed.
+ * See PlaceHolderExpr.
+ */
+public class PreparedStatementContext {
+    // flag of unsigned integer in parameter type
+    private static final int UNSIGNED_FLAG = 0x80;
+
+    private final int stmtId;
+    private final String originStmt;
+    private final QueryStmt parsedStmt;
+    private final List<PlaceHolderExpr> placeHolders;
+    // result metadata and types of parameters, got by analyzing the statement when preparing
+    private List<String> colLabels = Lists.newArrayList();
+    private List<Type> resultTypes = Lists.newArrayList();
+    // parameter types are only sent by client when they are changed, so remember them
+    private int[] paramTypes;
+
+    public PreparedStatementContext(int stmtId, String originStmt, QueryStmt parsedStmt,
+                                    List<PlaceHolderExpr> placeHolders) {
+        this.stmtId = stmtId;
+        this.originStmt = originStmt;
+        this.parsedStmt = parsedStmt;
+        this.placeHolders = placeHolders;
+        this.paramTypes = null;
+    }
+
+    public int getStmtId() {
+        return stmtId;
+    }
+
+    public String getOriginStmt() {
+        return originStmt;
+    }
+
+    public int getNumParams() {
+        return placeHolders.size();
+    }
+
+    // clone of the statement to be analyzed, in which the unbound placeholders are analyzed as NULL
+    public QueryStmt cloneStmt() {
+        return parsedStmt.clone();
+    }
+
+    // set by the analyzed clone when preparing
+    public void setMetadata(List<String> colLabels, List<Type> resultTypes) {
+        this.colLabels = colLabels;
+        this.resultTypes = resultTypes;
+    }
+
+    public List<String> getColLabels() {
+        return colLabels;
+    }
+
+    public List<Type> getResultTypes() {
+        return resultTypes;
+    }
+
+    // type of the parameter inferred when preparing, VARCHAR if it can not be inferred
+    public Type getParamType(int index) {
+        Type type = placeHolders.get(index).getParamType();
+        return type.isValid() && !type.isNull() ? type : Type.VARCHAR;
+    }
+
+    // Read parameters of COM_STMT_EXECUTE from packet, and return the statement to execute.
+    // The packet position should be after 'iteration count'.
+    public QueryStmt bindParams(ByteBuffer packet) throws AnalysisException {
+        int numParams = getNumParams();
+        if (numParams == 0) {
+            return cloneStmt();
+        }
+
+        byte[] nullBitmap = MysqlProto.readFixedString(packet, (numParams + 7) / 8);
+        int newParamsBound = MysqlProto.readInt1(packet);
+        if (newParamsBound == 1) {
+            paramTypes = new int[numParams];
+            for (int i = 0; i < numParams; i++) {
+                paramTypes[i] = MysqlProto.readInt2(packet);
+            }
+        }
+        if (paramTypes == null) {
+            throw new AnalysisException("Types of parameters are not sent by client");
+        }
+
+        for (int i = 0; i < numParams; i++) {
+            if ((nullBitmap[i / 8] & (1 << (i % 8))) != 0) {
+                placeHolders.get(i).setValue(new NullLiteral());
+            } else {
+                placeHolders.get(i).setValue(readParam(packet, paramTypes[i]));
+            }
+        }
+        return cloneStmt();
+    }
+
+    // convert one binary protocol value to literal
+    // http://dev.mysql.com/doc/internals/en/binary-protocol-value.html
+    private static LiteralExpr readParam(ByteBuffer packet, int paramType) throws AnalysisException {
+        boolean unsigned = (paramType & (UNSIGNED_FLAG << 8)) != 0;
+        int typeCode = paramType & 0xFF;
+        switch (typeCode) {
+            case 1: // MYSQL_TYPE_TINY
+                return new IntLiteral(unsigned ? MysqlProto.readInt1(packet) : packet.get());
+            case 2: // MYSQL_TYPE_SHORT
+            case 13: // MYSQL_TYPE_YEAR
+                int shortValue = MysqlProto.readInt2(packet);
+                return new IntLiteral(unsigned ? shortValue : (short) shortValue);
+            case 3: // MYSQL_TYPE_LONG
+            case 9: // MYSQL_TYPE_INT24
+                int intValue = MysqlProto.readInt4(packet);
+                return new IntLiteral(unsigned ? intValue & 0xFFFFFFFFL : intValue);
+            case 8: // MYSQL_TYPE_LONGLONG
+                long longValue = MysqlProto.readInt8(packet);
+                if (unsigned && longValue < 0) {
+                    return new LargeIntLiteral(Long.toUnsignedString(longValue));
+                }
+                return new IntLiteral(longValue);
+            case 4: // MYSQL_TYPE_FLOAT
+                return new FloatLiteral((double) Float.intBitsToFloat(MysqlProto.readInt4(packet)));
+            case 5: // MYSQL_TYPE_DOUBLE
+                return new FloatLiteral(Double.longBitsToDouble(MysqlProto.readInt8(packet)));
+            case 6: // MYSQL_TYPE_NULL
+                return new NullLiteral();
+            case 7: // MYSQL_TYPE_TIMESTAMP
+            case 10: // MYSQL_TYPE_DATE
+            case 12: // MYSQL_TYPE_DATETIME
+                return readDateTime(packet, typeCode == 10);
+            case 11: // MYSQL_TYPE_TIME
+                return new StringLiteral(readTime(packet));
+            case 0: // MYSQL_TYPE_DECIMAL
+            case 246: // MYSQL_TYPE_NEWDECIMAL
+                return new DecimalLiteral(readString(packet));
+            case 15: // MYSQL_TYPE_VARCHAR
+            case 247: // MYSQL_TYPE_ENUM
+            case 248: // MYSQL_TYPE_SET
+            case 249: // MYSQL_TYPE_TINY_BLOB
+            case 250: // MYSQL_TYPE_MEDIUM_BLOB
+            case 251: // MYSQL_TYPE_LONG_BLOB
+            case 252: // MYSQL_TYPE_BLOB
+            case 253: // MYSQL_TYPE_VARSTRING
+            case 254: // MYSQL_TYPE_STRING
+                return new StringLiteral(readString(packet));
+            default:
+                throw new AnalysisException("Unsupported parameter type: " + typeCode);
+        }
+    }
+
+    private static String readString(ByteBuffer packet) throws AnalysisException {
+        try {
+            return new String(MysqlProto.readLenEncodedString(packet), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            // impossible
+            throw new AnalysisException("Unsupported character set(UTF-8)");
+        }
+    }
+
+    private static DateLiteral readDateTime(ByteBuffer packet, boolean isDate) {
+        int length = MysqlProto.readInt1(packet);
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        if (length >= 4) {
+            year = MysqlProto.readInt2(packet);
+            month = MysqlProto.readInt1(packet);
+            day = MysqlProto.readInt1(packet);
+        }
+        if (length >= 7) {
+            hour = MysqlProto.readInt1(packet);
+            minute = MysqlProto.readInt1(packet);
+            second = MysqlProto.readInt1(packet);
+        }
+        if (length >= 11) {
+            // microsecond is not supported, ignore it
+            MysqlProto.readInt4(packet);
+        }
+        if (isDate) {
+            return new DateLiteral(year, month, day);
+        }
+        return new DateLiteral(year, month, day, hour, minute, second);
+    }
+
+    private static String readTime(ByteBuffer packet) {
+        int length = MysqlProto.readInt1(packet);
+        boolean negative = false;
+        long hours = 0;
+        int minute = 0;
+        int second = 0;
+        if (length >= 8) {
+            negative = MysqlProto.readInt1(packet) == 1;
+            hours = (MysqlProto.readInt4(packet) & 0xFFFFFFFFL) * 24;
+            hours += MysqlProto.readInt1(packet);
+            minute = MysqlProto.readInt1(packet);
+            second = MysqlProto.readInt1(packet);
+        }
+        if (length >= 12) {
+            MysqlProto.readInt4(packet);
+        }
+        return String.format("%s%02d:%02d:%02d", negative ? "-" : "", hours, minute, second);
+    }
+}
@@ -74,7 +74,9 @@ public final class QeProcessorImpl implements QeProcessor {
 
     @Override
     public void unregisterQuery(TUniqueId queryId) {
-        if (coordinatorMap.remove(queryId) != null) {
+        QueryInfo queryInfo = coordinatorMap.remove(queryId);
+        if (queryInfo != null) {
+            queryInfo.getCoord().releaseBackendLoads();
             LOG.info("deregister query id {}", DebugUtil.printId(queryId));
         }
     }
@@ -0,0 +1,168 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.TupleDescriptor;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
+import org.apache.doris.catalog.Table;
+import org.apache.doris.common.Config;
+
+import com.google.common.collect.Maps;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/*
+ * Cache results of queries in FE.
+ * The key is the analyzed statement, the schema of all indexes and the versions of all partitions
+ * of the queried tables, so there is no need to invalidate: after a load or a schema change,
+ * the new version or schema hash makes a new key, and the old entry will be evicted as the least recently used one.
+ * The key is built before planning, so a hit skips planning as well as execution.
+ */
+public class QueryResultCache {
+    private static final Logger LOG = LogManager.getLogger(QueryResultCache.class);
+
+    public static final QueryResultCache INSTANCE = new QueryResultCache();
+
+    // access ordered, the first entry is the least recently used one
+    private final LinkedHashMap<String, CacheValue> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    public static class CacheValue {
+        private final List<byte[]> rows;
+        private final long bytes;
+
+        public CacheValue(List<byte[]> rows, long bytes) {
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+
+        public List<byte[]> getRows() {
+            return rows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    // Return null if the result of this query can not be cached.
+    // Must be called with the analyzer of the analyzed statement, before planning and holding the read locks
+    // of the databases, so that the partitions and indexes of the tables do not change while building the key.
+    public static String buildKey(ConnectContext context, Analyzer analyzer, QueryStmt queryStmt) {
+        if (!Config.enable_query_result_cache || queryStmt.isExplain()) {
+            return null;
+        }
+        // marked when analyzing the function calls, including those in subqueries and views
+        if (analyzer.hasNondeterministicFn()) {
+            return null;
+        }
+
+        // table id -> table, sorted to make the key stable
+        Map<Long, OlapTable> tables = Maps.newTreeMap();
+        for (TupleDescriptor tupleDesc : analyzer.getDescTbl().getTupleDescs()) {
+            Table table = tupleDesc.getTable();
+            if (table == null) {
+                // inline views and other tuples which are not table scans
+                continue;
+            }
+            // only data of olap table has version
+            if (!(table instanceof OlapTable)) {
+                return null;
+            }
+            tables.put(table.getId(), (OlapTable) table);
+        }
+        if (tables.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(context.getClusterName()).append('|').append(context.getDatabase()).append('|');
+        // keep results of different users apart
+        sb.append(context.getCurrentUserIdentity()).append('|');
+        // session variables which change the result
+        sb.append(context.getSessionVariable().getTimeZone()).append('|');
+        sb.append(context.getSessionVariable().getSqlMode()).append('|');
+        sb.append(queryStmt.toSql());
+        for (OlapTable table : tables.values()) {
+            sb.append('|').append(table.getId());
+            // schema change and rollup change the schema hash or the index ids,
+            // even if the versions of the partitions stay the same
+            for (Long indexId : new TreeSet<>(table.getIndexIdToSchemaHash().keySet())) {
+                sb.append(",i").append(indexId).append(':').append(table.getSchemaVersionByIndexId(indexId))
+                        .append(':').append(table.getSchemaHashByIndexId(indexId));
+            }
+            // partitions are not pruned yet, so a load into any partition of the table makes a new key
+            Map<Long, Partition> partitions = Maps.newTreeMap();
+            for (Partition partition : table.getPartitions()) {
+                partitions.put(partition.getId(), partition);
+            }
+            for (Partition partition : partitions.values()) {
+                sb.append(",p").append(partition.getId()).append(':').append(partition.getVisibleVersion())
+                        .append(':').append(partition.getVisibleVersionHash());
+            }
+        }
+        return sb.toString();
+    }
+
+    public synchronized CacheValue get(String key) {
+        return cache.get(key);
+    }
+
+    public synchronized void put(String key, CacheValue value) {
+        if (value.getBytes() > Config.query_result_cache_max_entry_bytes) {
+            return;
+        }
+        CacheValue old = cache.put(key, value);
+        if (old != null) {
+            totalBytes -= old.getBytes();
+        }
+        totalBytes += value.getBytes();
+
+        Iterator<Map.Entry<String, CacheValue>> iter = cache.entrySet().iterator();
+        while (totalBytes > Config.query_result_cache_max_bytes && iter.hasNext()) {
+            Map.Entry<String, CacheValue> eldest = iter.next();
+            totalBytes -= eldest.getValue().getBytes();
+            iter.remove();
+        }
+        LOG.debug("put query result cache. bytes: {}, total bytes: {}, entries: {}",
+                  value.getBytes(), totalBytes, cache.size());
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        totalBytes = 0;
+    }
+}
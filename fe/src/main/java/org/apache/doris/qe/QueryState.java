@@ -59,6 +59,11 @@ public class QueryState {
         return stateType;
     }
 
+    // the response has been sent by handler, or the command needs no response
+    public void setNoop() {
+        stateType = MysqlStateType.NOOP;
+    }
+
     public void setEof() {
         stateType = MysqlStateType.EOF;
     }
@@ -17,6 +17,8 @@
 
 package org.apache.doris.qe;
 
+import org.apache.doris.common.Config;
+import org.apache.doris.common.Pair;
 import org.apache.doris.common.Status;
 import org.apache.doris.proto.PFetchDataResult;
 import org.apache.doris.proto.PUniqueId;
@@ -28,16 +30,27 @@ import org.apache.doris.thrift.TResultBatch;
 import org.apache.doris.thrift.TStatusCode;
 import org.apache.doris.thrift.TUniqueId;
 
+import com.google.common.collect.Maps;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.thrift.TDeserializer;
 import org.apache.thrift.TException;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+/*
+ * Fetch result batches of a query from the result sink in backend.
+ * Up to Config.result_prefetch_batch_num fetch rpcs are kept in flight, so that backend can send
+ * the following batches while the previous one is being sent to client.
+ * Backend serves the fetch rpcs in the order they arrive, and batches are returned in the order of packet seq.
+ */
 public class ResultReceiver {
     private static final Logger LOG = LogManager.getLogger(ResultReceiver.class);
     private boolean isDone    = false;
@@ -49,6 +62,15 @@ public class ResultReceiver {
     private Long backendId;
     private Thread currentThread;
 
+    private final int prefetchBatchNum;
+    // fetch rpcs in flight, in the order they are sent
+    private final Deque<Pair<PFetchDataRequest, Future<PFetchDataResult>>> inflightFetches = new ArrayDeque<>();
+    // packet seq -> fetched results which are not returned yet
+    private final Map<Long, Pair<PFetchDataRequest, PFetchDataResult>> fetchedResults = Maps.newHashMap();
+    // no more fetch rpc is needed after the eos is fetched
+    private boolean eosFetched = false;
+    private final TDeserializer deserializer = new TDeserializer();
+
     public ResultReceiver(TUniqueId tid, Long backendId, TNetworkAddress address, int timeoutMs) {
         this.finstId = new PUniqueId();
         this.finstId.hi = tid.hi;
@@ -56,6 +78,7 @@ public class ResultReceiver {
         this.backendId = backendId;
         this.address = address;
         this.timeoutTs = System.currentTimeMillis() + timeoutMs;
+        this.prefetchBatchNum = Math.max(1, Config.result_prefetch_batch_num);
     }
 
     public RowBatch getNext(Status status) throws TException {
@@ -65,48 +88,57 @@ public class ResultReceiver {
         final RowBatch rowBatch = new RowBatch();
         try {
             while (!isDone && !isCancel) {
-                PFetchDataRequest request = new PFetchDataRequest(finstId);
-
                 currentThread = Thread.currentThread();
-                Future<PFetchDataResult> future = BackendServiceProxy.getInstance().fetchDataAsync(address, request);
-                PFetchDataResult pResult = null;
-                while (pResult == null) {
-                    long currentTs = System.currentTimeMillis();
-                    if (currentTs >= timeoutTs) {
-                        throw new TimeoutException("query timeout");
+                Pair<PFetchDataRequest, PFetchDataResult> fetched = fetchedResults.remove(packetIdx);
+                if (fetched == null) {
+                    while (!eosFetched && inflightFetches.size() + fetchedResults.size() < prefetchBatchNum) {
+                        PFetchDataRequest request = new PFetchDataRequest(finstId);
+                        inflightFetches.add(Pair.create(request,
+                                BackendServiceProxy.getInstance().fetchDataAsync(address, request)));
+                    }
+                    if (inflightFetches.isEmpty()) {
+                        LOG.warn("receive packet failed, expect={}, receive={}", packetIdx, fetchedResults.keySet());
+                        status.setRpcStatus("receive error packet");
+                        return null;
+                    }
+
+                    Pair<PFetchDataRequest, Future<PFetchDataResult>> inflight = inflightFetches.poll();
+                    PFetchDataResult pResult = waitResult(inflight.second);
+                    if (pResult == null) {
+                        status.setStatus(Status.CANCELLED);
+                        return null;
+                    }
+                    TStatusCode code = TStatusCode.findByValue(pResult.status.status_code);
+                    if (code != TStatusCode.OK) {
+                        status.setPstatus(pResult.status);
+                        return null;
+                    }
+                    if (pResult.packet_seq < packetIdx) {
+                        LOG.warn("receive packet failed, expect={}, receive={}", packetIdx, pResult.packet_seq);
+                        status.setRpcStatus("receive error packet");
+                        return null;
                     }
-                    try {
-                        pResult = future.get(timeoutTs - currentTs, TimeUnit.MILLISECONDS);
-                    } catch (InterruptedException e) {
-                        // continue to get result
-                        LOG.info("future get interrupted Exception");
-                        if (isCancel) {
-                            status.setStatus(Status.CANCELLED);
-                            return null;
-                        }
+                    if (pResult.eos) {
+                        eosFetched = true;
                     }
+                    // the rpcs sent after the eos get the eos again
+                    fetchedResults.putIfAbsent(pResult.packet_seq, Pair.create(inflight.first, pResult));
+                    continue;
                 }
-                TStatusCode code = TStatusCode.findByValue(pResult.status.status_code);
-                if (code != TStatusCode.OK) {
-                    status.setPstatus(pResult.status);
-                    return null;
-                } 
- 
+
+                PFetchDataResult pResult = fetched.second;
                 rowBatch.setQueryStatistics(pResult.query_statistics);
 
-                if (packetIdx != pResult.packet_seq) {
-                    LOG.warn("receive packet failed, expect={}, receive={}", packetIdx, pResult.packet_seq);
-                    status.setRpcStatus("receive error packet");
-                    return null;
-                }
-    
                 packetIdx++;
                 isDone = pResult.eos;
+                if (isDone) {
+                    inflightFetches.clear();
+                    fetchedResults.clear();
+                }
 
-                byte[] serialResult = request.getSerializedResult();
+                byte[] serialResult = fetched.first.getSerializedResult();
                 if (serialResult != null && serialResult.length > 0) {
                     TResultBatch resultBatch = new TResultBatch();
-                    TDeserializer deserializer = new TDeserializer();
                     deserializer.deserialize(resultBatch, serialResult);
                     rowBatch.setBatch(resultBatch);
                     rowBatch.setEos(pResult.eos);
@@ -141,6 +173,28 @@ public class ResultReceiver {
         return rowBatch;
     }
 
+    // return null if cancelled
+    private PFetchDataResult waitResult(Future<PFetchDataResult> future)
+            throws ExecutionException, TimeoutException {
+        PFetchDataResult pResult = null;
+        while (pResult == null) {
+            long currentTs = System.currentTimeMillis();
+            if (currentTs >= timeoutTs) {
+                throw new TimeoutException("query timeout");
+            }
+            try {
+                pResult = future.get(timeoutTs - currentTs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // continue to get result
+                LOG.info("future get interrupted Exception");
+                if (isCancel) {
+                    return null;
+                }
+            }
+        }
+        return pResult;
+    }
+
     public void cancel() {
         isCancel = true;
         synchronized (this) {
@@ -18,23 +18,25 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.FeConstants;
 import org.apache.doris.common.Reference;
+import org.apache.doris.metric.LongCounterMetric;
+import org.apache.doris.metric.MetricLabel;
+import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.system.Backend;
 import org.apache.doris.system.SystemInfoService;
 import org.apache.doris.thrift.TNetworkAddress;
 import org.apache.doris.thrift.TScanRangeLocation;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
@@ -43,8 +45,11 @@ public class SimpleScheduler {
     private static AtomicLong nextId = new AtomicLong(0);
     private static final Logger LOG = LogManager.getLogger(SimpleScheduler.class);
 
-    private static Map<Long, Integer> blacklistBackends = Maps.newHashMap();
-    private static Lock lock = new ReentrantLock();
+    // latency of fragment instances finished long ago is not a sign of current load
+    private static final long FRAGMENT_LATENCY_EXPIRE_MS = 60 * 1000L;
+
+    private static Map<Long, Integer> blacklistBackends = Maps.newConcurrentMap();
+    private static Map<Long, BackendLoad> backendLoads = Maps.newConcurrentMap();
     private static UpdateBlacklistThread updateBlacklistThread;
 
     static {
@@ -56,34 +61,84 @@ public class SimpleScheduler {
                                           List<TScanRangeLocation> locations,
                                           ImmutableMap<Long, Backend> backends,
                                           Reference<Long> backendIdRef) {
+        return getHost(backendId, locations, backends, backendIdRef, null);
+    }
+
+    // assignedNums is the number of scan ranges assigned to each backend by current query, or null.
+    // The chosen backend is charged one more scan range in it, so that the scan ranges of a query are spread
+    // over the replicas by load, instead of all going to the backend with the lowest load.
+    public static TNetworkAddress getHost(long backendId,
+                                          List<TScanRangeLocation> locations,
+                                          ImmutableMap<Long, Backend> backends,
+                                          Reference<Long> backendIdRef,
+                                          Map<Long, Long> assignedNums) {
         if (locations == null || backends == null) {
             return null;
         }
         LOG.debug("getHost backendID={}, backendSize={}", backendId, backends.size());
-        Backend backend = backends.get(backendId);
-        lock.lock();
-        try {
-            if (backend != null && backend.isAlive() && !blacklistBackends.containsKey(backendId)) {
-                backendIdRef.setRef(backendId);
-                return new TNetworkAddress(backend.getHost(), backend.getBePort());
-            } else {
-                for (TScanRangeLocation location : locations) {
-                    if (location.backend_id == backendId) {
-                        continue;
-                    } 
-                    // choose the first alive backend(in analysis stage, the locations are random)
-                    Backend candidateBackend = backends.get(location.backend_id);
-                    if (candidateBackend != null && candidateBackend.isAlive()
-                            && !blacklistBackends.containsKey(location.backend_id)) {
-                        backendIdRef.setRef(location.backend_id);
-                        return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
-                    }
+        Backend backend = chooseBackend(backendId, locations, backends, assignedNums);
+        if (backend == null) {
+            // no backend returned
+            return null;
+        }
+        if (assignedNums != null) {
+            assignedNums.merge(backend.getId(), 1L, Long::sum);
+        }
+        getBackendLoad(backend).selectedCounter.increase(1L);
+        backendIdRef.setRef(backend.getId());
+        return new TNetworkAddress(backend.getHost(), backend.getBePort());
+    }
+
+    // Choose the backend to scan the replicas in locations. The given backend is preferred if it is available.
+    // If load aware replica selection is enabled, the less loaded one of the preferred backend and a random
+    // available backend of the other replicas is chosen (power of two choices). If the preferred backend is
+    // unavailable, two random available backends are compared instead.
+    private static Backend chooseBackend(long backendId, List<TScanRangeLocation> locations,
+                                         ImmutableMap<Long, Backend> backends, Map<Long, Long> assignedNums) {
+        boolean loadAware = Config.enable_load_aware_replica_selection;
+        Backend first = getAvailableBackend(backendId, backends);
+        if (first != null && !loadAware) {
+            return first;
+        }
+        Backend second = null;
+        int size = locations.size();
+        // choose the first alive backend if not load aware (in analysis stage, the locations are random)
+        int offset = loadAware && size > 1 ? ThreadLocalRandom.current().nextInt(size) : 0;
+        for (int i = 0; i < size && second == null; i++) {
+            TScanRangeLocation location = locations.get((offset + i) % size);
+            if (location.backend_id == backendId) {
+                continue;
+            }
+            Backend candidateBackend = getAvailableBackend(location.backend_id, backends);
+            if (candidateBackend == null) {
+                continue;
+            }
+            if (first == null) {
+                first = candidateBackend;
+                if (!loadAware) {
+                    break;
                 }
-            } 
-        } finally {
-            lock.unlock();
+            } else {
+                second = candidateBackend;
+            }
+        }
+        if (second == null || getLoadScore(first, assignedNums) <= getLoadScore(second, assignedNums)) {
+            return first;
+        }
+        return second;
+    }
+
+    // load score of the backend multiplied by the scan ranges it will scan for current query
+    private static double getLoadScore(Backend backend, Map<Long, Long> assignedNums) {
+        long assignedNum = assignedNums == null ? 0L : assignedNums.getOrDefault(backend.getId(), 0L);
+        return getLoadScore(backend) * (1 + assignedNum);
+    }
+
+    private static Backend getAvailableBackend(long backendId, ImmutableMap<Long, Backend> backends) {
+        Backend backend = backends.get(backendId);
+        if (backend != null && backend.isAlive() && !blacklistBackends.containsKey(backendId)) {
+            return backend;
         }
-        // no backend returned
         return null;
     }
     
@@ -98,13 +153,11 @@ public class SimpleScheduler {
         }
         long id = nextId.getAndIncrement() % backendSize;
 
-        List<Long> idToBackendId = Lists.newArrayList();
-        idToBackendId.addAll(backends.keySet());
-        Long backendId = idToBackendId.get((int) id);
-        Backend backend = backends.get(backendId);
+        List<Backend> idToBackend = backends.values().asList();
+        Backend backend = idToBackend.get((int) id);
         
-        if (backend != null && backend.isAlive() && !blacklistBackends.containsKey(backendId)) {
-            backendIdRef.setRef(backendId);
+        if (backend.isAlive() && !blacklistBackends.containsKey(backend.getId())) {
+            backendIdRef.setRef(backend.getId());
             return new TNetworkAddress(backend.getHost(), backend.getBePort());
         } else {
             long candidateId = id + 1;  // get next candidate id
@@ -116,12 +169,10 @@ public class SimpleScheduler {
                 if (candidateId == id) {
                     continue;
                 }
-                Long candidatebackendId = idToBackendId.get((int) candidateId);
-                LOG.debug("candidatebackendId={}", candidatebackendId);
-                Backend candidateBackend = backends.get(candidatebackendId);
-                if (candidateBackend != null && candidateBackend.isAlive()
-                        && !blacklistBackends.containsKey(candidatebackendId)) {
-                    backendIdRef.setRef(candidatebackendId);
+                Backend candidateBackend = idToBackend.get((int) candidateId);
+                LOG.debug("candidatebackendId={}", candidateBackend.getId());
+                if (candidateBackend.isAlive() && !blacklistBackends.containsKey(candidateBackend.getId())) {
+                    backendIdRef.setRef(candidateBackend.getId());
                     return new TNetworkAddress(candidateBackend.getHost(), candidateBackend.getBePort());
                 }
             }
@@ -129,19 +180,97 @@ public class SimpleScheduler {
         // no backend returned
         return null;
     }
+
+    // a fragment instance is sent to the backend by this frontend
+    public static void fragmentStarted(Backend backend) {
+        getBackendLoad(backend).inflightFragmentNum.incrementAndGet();
+    }
+
+    // a fragment instance sent by this frontend is finished or abandoned.
+    // latencyMs is the execution time of the finished instance, or -1 if unknown.
+    public static void fragmentFinished(Backend backend, long latencyMs) {
+        BackendLoad load = getBackendLoad(backend);
+        load.inflightFragmentNum.updateAndGet(num -> num > 0 ? num - 1 : 0);
+        if (latencyMs >= 0) {
+            // exponentially weighted moving average, with weight 1/8 of the new sample
+            load.fragmentLatencyMs.updateAndGet(avg -> avg + (latencyMs - avg) / 8);
+            load.lastLatencyUpdateTimeMs = System.currentTimeMillis();
+        }
+    }
+
+    // Load reported by backend in heartbeat. It is only known by master, and not persisted or synchronized
+    // to other frontends.
+    public static void updateBackendLoad(Backend backend, long maxDiskIoUtilPercent, long runningFragmentNum) {
+        BackendLoad load = getBackendLoad(backend);
+        load.maxDiskIoUtilPercent = maxDiskIoUtilPercent;
+        load.runningFragmentNum = runningFragmentNum;
+        load.inflightNumAtReport = load.inflightFragmentNum.get();
+    }
+
+    // remove the load of a dropped backend
+    public static void removeBackendLoad(long backendId) {
+        BackendLoad load = backendLoads.remove(backendId);
+        if (load != null) {
+            MetricRepo.removeMetric(load.selectedCounter);
+        }
+    }
+
+    // The larger the score, the more loaded the backend is.
+    public static double getLoadScore(Backend backend) {
+        BackendLoad load = backendLoads.get(backend.getId());
+        if (load == null) {
+            return 1.0;
+        }
+        long latencyMs = 0;
+        if (System.currentTimeMillis() - load.lastLatencyUpdateTimeMs < FRAGMENT_LATENCY_EXPIRE_MS) {
+            latencyMs = load.fragmentLatencyMs.get();
+        }
+        // Instances in flight of this frontend are also counted by backend in runningFragmentNum, so those
+        // in flight when the load is recorded are not counted twice. It is not exact, because they may
+        // finish or be sent after backend counts them.
+        long reportedNum = Math.max(0L, load.runningFragmentNum - load.inflightNumAtReport);
+        long fragmentNum = load.inflightFragmentNum.get() + reportedNum;
+        return (1 + fragmentNum) * (1 + load.maxDiskIoUtilPercent / 100.0) * (1 + latencyMs / 1000.0);
+    }
+
+    private static BackendLoad getBackendLoad(Backend backend) {
+        BackendLoad load = backendLoads.get(backend.getId());
+        if (load == null) {
+            load = backendLoads.computeIfAbsent(backend.getId(), id -> new BackendLoad(backend));
+        }
+        return load;
+    }
+
+    // load of a backend seen by this frontend, all fields are updated without lock
+    private static class BackendLoad {
+        // fragment instances sent by this frontend and not finished
+        private final AtomicLong inflightFragmentNum = new AtomicLong(0L);
+        private final AtomicLong fragmentLatencyMs = new AtomicLong(0L);
+        private volatile long lastLatencyUpdateTimeMs = 0L;
+        // reported by heartbeat, only available in master
+        private volatile long maxDiskIoUtilPercent = 0L;
+        private volatile long runningFragmentNum = 0L;
+        // inflightFragmentNum when the load above is recorded
+        private volatile long inflightNumAtReport = 0L;
+        // times the backend is chosen to scan replicas
+        private final LongCounterMetric selectedCounter;
+
+        public BackendLoad(Backend backend) {
+            selectedCounter = new LongCounterMetric("replica_selected", "times of being chosen to scan replicas");
+            selectedCounter.addLabel(new MetricLabel("backend", backend.getHost() + ":" + backend.getHeartbeatPort()));
+            if (MetricRepo.isInit.get()) {
+                MetricRepo.addMetric(selectedCounter);
+            }
+        }
+    }
     
     public static void updateBlacklistBackends(Long backendID) {
         if (backendID == null) {
             return;
         }
-        lock.lock();
-        try {
-            int tryTime = FeConstants.heartbeat_interval_second + 1;
-            blacklistBackends.put(backendID, tryTime);
-            LOG.warn("add black list " + backendID);
-        } finally {
-            lock.unlock();
-        }
+        int tryTime = FeConstants.heartbeat_interval_second + 1;
+        blacklistBackends.put(backendID, tryTime);
+        LOG.warn("add black list " + backendID);
     }
     
     private static class UpdateBlacklistThread implements Runnable {
@@ -165,37 +294,32 @@ public class SimpleScheduler {
                     Thread.sleep(1000L);
                     SystemInfoService clusterInfoService = Catalog.getCurrentSystemInfo();
                     LOG.debug("UpdateBlacklistThread retry begin");
-                    lock.lock();
-                    try {
-                        Iterator<Map.Entry<Long, Integer>> iterator = blacklistBackends.entrySet().iterator();
-                        while (iterator.hasNext()) {
-                            Map.Entry<Long, Integer> entry = iterator.next();
-                            Long backendId = entry.getKey();
-                            
-                            // remove from blacklist if
-                            // 1. backend does not exist antmore
-                            // 2. backend is alive
-                            if (clusterInfoService.getBackend(backendId) == null
-                                    || clusterInfoService.checkBackendAvailable(backendId)) {
+                    Iterator<Map.Entry<Long, Integer>> iterator = blacklistBackends.entrySet().iterator();
+                    while (iterator.hasNext()) {
+                        Map.Entry<Long, Integer> entry = iterator.next();
+                        Long backendId = entry.getKey();
+                        
+                        // remove from blacklist if
+                        // 1. backend does not exist antmore
+                        // 2. backend is alive
+                        if (clusterInfoService.getBackend(backendId) == null
+                                || clusterInfoService.checkBackendAvailable(backendId)) {
+                            iterator.remove();
+                            LOG.debug("remove backendID {} which is alive", backendId);
+                        } else {
+                            // 3. max try time is reach
+                            Integer retryTimes = entry.getValue();
+                            retryTimes = retryTimes - 1;
+                            if (retryTimes <= 0) {
                                 iterator.remove();
-                                LOG.debug("remove backendID {} which is alive", backendId);
+                                LOG.warn("remove backendID {}. reach max try time", backendId);
                             } else {
-                                // 3. max try time is reach
-                                Integer retryTimes = entry.getValue();
-                                retryTimes = retryTimes - 1;
-                                if (retryTimes <= 0) {
-                                    iterator.remove();
-                                    LOG.warn("remove backendID {}. reach max try time", backendId);
-                                } else {
-                                    entry.setValue(retryTimes);
-                                    LOG.debug("blacklistBackends backendID={} retryTimes={}", backendId, retryTimes);
-                                }
+                                entry.setValue(retryTimes);
+                                LOG.debug("blacklistBackends backendID={} retryTimes={}", backendId, retryTimes);
                             }
                         }
-                    } finally {
-                        lock.unlock();
-                        LOG.debug("UpdateBlacklistThread retry end");
                     }
+                    LOG.debug("UpdateBlacklistThread retry end");
                     
                 } catch (Throwable ex) {
                     LOG.warn("blacklist thread exception" + ex);
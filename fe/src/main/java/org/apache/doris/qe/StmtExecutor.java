@@ -25,6 +25,7 @@ import org.apache.doris.analysis.ExportStmt;
 import org.apache.doris.analysis.Expr;
 import org.apache.doris.analysis.InsertStmt;
 import org.apache.doris.analysis.KillStmt;
+import org.apache.doris.analysis.PlaceHolderExpr;
 import org.apache.doris.analysis.QueryStmt;
 import org.apache.doris.analysis.RedirectStatus;
 import org.apache.doris.analysis.SelectStmt;
@@ -56,8 +57,10 @@ import org.apache.doris.common.util.ProfileManager;
 import org.apache.doris.common.util.RuntimeProfile;
 import org.apache.doris.common.util.TimeUtils;
 import org.apache.doris.load.EtlJobType;
-import org.apache.doris.mysql.MysqlChannel;
+import org.apache.doris.metric.MetricRepo;
+import org.apache.doris.mysql.MysqlColType;
 import org.apache.doris.mysql.MysqlEofPacket;
+import org.apache.doris.mysql.MysqlProto;
 import org.apache.doris.mysql.MysqlSerializer;
 import org.apache.doris.mysql.privilege.PrivPredicate;
 import org.apache.doris.planner.Planner;
@@ -86,6 +89,7 @@ import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 // Do one COM_QEURY process.
@@ -110,6 +114,15 @@ public class StmtExecutor {
     private boolean isProxy;
     private ShowResultSet proxyResultSet = null;
     private PQueryStatistics statisticsForAuditLog;
+    // time of waiting for result batches from backend and sending them to client
+    private long resultFetchWaitNs = 0;
+    private long resultSendNs = 0;
+    // types of result columns, used to send rows in binary protocol
+    private List<MysqlColType> resultColTypes = null;
+    // key of the query result cache, null if the result can not be cached
+    private String resultCacheKey = null;
+    // cached result found when analyzing, the query is not planned if found
+    private QueryResultCache.CacheValue resultCacheValue = null;
 
     public StmtExecutor(ConnectContext context, String stmt, boolean isProxy) {
         this.context = context;
@@ -122,6 +135,12 @@ public class StmtExecutor {
         this(context, stmt, false);
     }
 
+    // execute a statement which is already parsed, such as a prepared statement bound with parameters
+    public StmtExecutor(ConnectContext context, String stmt, StatementBase parsedStmt) {
+        this(context, stmt, false);
+        this.parsedStmt = parsedStmt;
+    }
+
     // At the end of query execution, we begin to add up profile
     public void initProfile(long beginTimeInNanoSecond) {
         profile = new RuntimeProfile("Query");
@@ -140,6 +159,10 @@ public class StmtExecutor {
         summaryProfile.addInfoString(ProfileManager.USER, context.getQualifiedUser());
         summaryProfile.addInfoString(ProfileManager.DEFAULT_DB, context.getDatabase());
         summaryProfile.addInfoString(ProfileManager.SQL_STATEMENT, originStmt);
+        summaryProfile.addInfoString("Result Fetch Wait Time",
+                DebugUtil.getPrettyStringMs(TimeUnit.NANOSECONDS.toMillis(resultFetchWaitNs)));
+        summaryProfile.addInfoString("Result Send Time",
+                DebugUtil.getPrettyStringMs(TimeUnit.NANOSECONDS.toMillis(resultSendNs)));
         profile.addChild(summaryProfile);
         if (coord != null) {
             coord.getQueryProfile().getCounterTotalTime().setValue(TimeUtils.getEstimatedTime(beginTimeInNanoSecond));
@@ -210,9 +233,14 @@ public class StmtExecutor {
         context.setStmtId(STMT_ID_GENERATOR.incrementAndGet());
         try {
             // analyze this query
-            analyze(context.getSessionVariable().toThrift());
+            analyze(context.getSessionVariable().toThrift(), true);
 
             if (isForwardToMaster()) {
+                if (context.isBinaryProtocol()) {
+                    // result of master is in text protocol
+                    context.getState().setError("Prepared statement can not be forwarded to master");
+                    return;
+                }
                 forwardToMaster();
                 return;
             }  else {
@@ -319,7 +347,7 @@ public class StmtExecutor {
     }
 
     // Lock all database before analyze
-    private void lock(Map<String, Database> dbs) {
+    private static void lock(Map<String, Database> dbs) {
         if (dbs == null) {
             return;
         }
@@ -329,7 +357,7 @@ public class StmtExecutor {
     }
 
     // unLock all database after analyze
-    private void unLock(Map<String, Database> dbs) {
+    private static void unLock(Map<String, Database> dbs) {
         if (dbs == null) {
             return;
         }
@@ -338,24 +366,26 @@ public class StmtExecutor {
         }
     }
 
-    // Analyze one statement to structure in memory.
-    public void analyze(TQueryOptions tQueryOptions) throws AnalysisException, UserException,
-                                               NotImplementedException {
-        LOG.info("begin to analyze stmt: {}", context.getStmtId());
+    // Parse statement with parser generated by CUP&FLEX
+    public static StatementBase parse(String stmt) throws AnalysisException {
+        return parse(stmt, null);
+    }
 
-        // Parse statement with parser generated by CUP&FLEX
-        SqlScanner input = new SqlScanner(new StringReader(originStmt));
+    // Parse statement, placeholders '?' are only allowed if placeHolders is not null,
+    // and they are added to placeHolders.
+    public static StatementBase parse(String stmt, List<PlaceHolderExpr> placeHolders) throws AnalysisException {
+        SqlScanner input = new SqlScanner(new StringReader(stmt));
         SqlParser parser = new SqlParser(input);
+        StatementBase parsedStmt;
         try {
             parsedStmt = (StatementBase) parser.parse().value;
-            redirectStatus = parsedStmt.getRedirectStatus();
         } catch (Error e) {
-            LOG.info("error happened when parsing stmt {}, id: {}", originStmt, context.getStmtId(), e);
+            LOG.info("error happened when parsing stmt {}", stmt, e);
             throw new AnalysisException("sql parsing error, please check your sql");
         } catch (AnalysisException e) {
-            LOG.info("analysis exception happened when parsing stmt {}, id: {}, error: {}",
-                     originStmt, context.getStmtId(), parser.getErrorMsg(originStmt), e);
-            String errorMessage = parser.getErrorMsg(originStmt);
+            LOG.info("analysis exception happened when parsing stmt {}, error: {}",
+                     stmt, parser.getErrorMsg(stmt), e);
+            String errorMessage = parser.getErrorMsg(stmt);
             if (errorMessage == null) {
                 throw  e;
             } else {
@@ -364,11 +394,53 @@ public class StmtExecutor {
         } catch (Exception e) {
             // TODO(lingbin): we catch 'Exception' to prevent unexpected error,
             // should be removed this try-catch clause future.
-            LOG.info("unexpected exception happened when parsing stmt {}, id: {}, error: {}",
-                     originStmt, context.getStmtId(), parser.getErrorMsg(originStmt), e);
+            LOG.info("unexpected exception happened when parsing stmt {}, error: {}",
+                     stmt, parser.getErrorMsg(stmt), e);
             throw new AnalysisException("Unexpected exception: " + e.getMessage());
         }
 
+        if (placeHolders != null) {
+            placeHolders.addAll(parser.getPlaceHolders());
+        } else if (!parser.getPlaceHolders().isEmpty()) {
+            throw new AnalysisException("Placeholder '?' is only allowed in prepared statement");
+        }
+        return parsedStmt;
+    }
+
+    // Analyze a clone of the prepared query, to get its result metadata and types of parameters.
+    // Placeholders are analyzed as NULL, and the query is not rewritten or planned.
+    public static QueryStmt analyzePreparedStmt(ConnectContext context, PreparedStatementContext preparedStmt)
+            throws UserException {
+        QueryStmt queryStmt = preparedStmt.cloneStmt();
+        Analyzer analyzer = new Analyzer(context.getCatalog(), context);
+        Map<String, Database> dbs = Maps.newTreeMap();
+        queryStmt.getDbs(analyzer, dbs);
+        lock(dbs);
+        try {
+            queryStmt.analyze(analyzer);
+        } finally {
+            unLock(dbs);
+        }
+        return queryStmt;
+    }
+
+    // Analyze one statement to structure in memory.
+    public void analyze(TQueryOptions tQueryOptions) throws AnalysisException, UserException,
+                                               NotImplementedException {
+        analyze(tQueryOptions, false);
+    }
+
+    // If lookupResultCache is true, look up the result of a query in the result cache before planning it,
+    // and do not plan the query if its result is cached.
+    private void analyze(TQueryOptions tQueryOptions, boolean lookupResultCache) throws AnalysisException,
+            UserException, NotImplementedException {
+        LOG.info("begin to analyze stmt: {}", context.getStmtId());
+
+        if (parsedStmt == null) {
+            parsedStmt = parse(originStmt);
+        }
+        redirectStatus = parsedStmt.getRedirectStatus();
+
         // yiguolei: insertstmt's grammer analysis will write editlog, so that we check if the stmt should be forward to master here
         // if the stmt should be forward to master, then just return here and the master will do analysis again
         if (isForwardToMaster()) {
@@ -447,6 +519,17 @@ public class StmtExecutor {
                     }
                 }
 
+                // the versions of partitions are read while holding the db locks, same as planning
+                if (lookupResultCache && parsedStmt instanceof QueryStmt) {
+                    resultCacheKey = QueryResultCache.buildKey(context, analyzer, (QueryStmt) parsedStmt);
+                    if (resultCacheKey != null) {
+                        resultCacheValue = QueryResultCache.INSTANCE.get(resultCacheKey);
+                        if (resultCacheValue != null) {
+                            return;
+                        }
+                    }
+                }
+
                 // create plan
                 planner = new Planner();
                 if (parsedStmt instanceof QueryStmt || parsedStmt instanceof InsertStmt) {
@@ -541,6 +624,20 @@ public class StmtExecutor {
             handleExplainStmt(explainString);
             return;
         }
+        if (resultCacheValue != null) {
+            MetricRepo.COUNTER_QUERY_RESULT_CACHE_HIT.increase(1L);
+            sendFields(queryStmt.getColLabels(), queryStmt.getResultExprs());
+            for (byte[] row : resultCacheValue.getRows()) {
+                sendRow(ByteBuffer.wrap(row), queryStmt);
+            }
+            context.updateReturnRows(resultCacheValue.getRows().size());
+            context.getState().setEof();
+            return;
+        }
+        if (resultCacheKey != null) {
+            MetricRepo.COUNTER_QUERY_RESULT_CACHE_MISS.increase(1L);
+        }
+
         coord = new Coordinator(context, analyzer, planner);
 
         QeProcessorImpl.INSTANCE.registerQuery(context.queryId(), 
@@ -553,25 +650,74 @@ public class StmtExecutor {
 
         // send result
         RowBatch batch;
-        MysqlChannel channel = context.getMysqlChannel();
+        // rows to put into result cache, set to null if result is too large
+        List<byte[]> cacheRows = resultCacheKey == null ? null : Lists.newArrayList();
+        long cacheBytes = 0;
         sendFields(queryStmt.getColLabels(), queryStmt.getResultExprs());
         while (true) {
+            long fetchStart = System.nanoTime();
             batch = coord.getNext();
+            long sendStart = System.nanoTime();
+            resultFetchWaitNs += sendStart - fetchStart;
             if (batch.getBatch() != null) {
                 for (ByteBuffer row : batch.getBatch().getRows()) {
-                    channel.sendOnePacket(row);
-                }            
+                    if (cacheRows == null) {
+                        break;
+                    }
+                    byte[] rowBytes = new byte[row.remaining()];
+                    row.duplicate().get(rowBytes);
+                    cacheRows.add(rowBytes);
+                    cacheBytes += rowBytes.length;
+                    if (cacheBytes > Config.query_result_cache_max_entry_bytes) {
+                        cacheRows = null;
+                    }
+                }
+                sendRows(batch.getBatch().getRows(), queryStmt);
                 context.updateReturnRows(batch.getBatch().getRows().size());    
             }
+            resultSendNs += System.nanoTime() - sendStart;
             if (batch.isEos()) {
                 break;
             }
         }
 
+        if (cacheRows != null) {
+            QueryResultCache.INSTANCE.put(resultCacheKey, new QueryResultCache.CacheValue(cacheRows, cacheBytes));
+        }
         statisticsForAuditLog = batch.getQueryStatistics();
         context.getState().setEof();
     }
 
+    // send rows of a batch without copying them to the send buffer of channel
+    private void sendRows(List<ByteBuffer> rows, QueryStmt queryStmt) throws IOException {
+        if (context.isBinaryProtocol()) {
+            List<MysqlColType> colTypes = getResultColTypes(queryStmt);
+            List<ByteBuffer> binaryRows = Lists.newArrayListWithCapacity(rows.size());
+            for (ByteBuffer row : rows) {
+                binaryRows.add(MysqlProto.textRowToBinaryRow(row, colTypes));
+            }
+            rows = binaryRows;
+        }
+        context.getMysqlChannel().sendPackets(rows);
+    }
+
+    private void sendRow(ByteBuffer row, QueryStmt queryStmt) throws IOException {
+        if (context.isBinaryProtocol()) {
+            row = MysqlProto.textRowToBinaryRow(row, getResultColTypes(queryStmt));
+        }
+        context.getMysqlChannel().sendOnePacket(row);
+    }
+
+    private List<MysqlColType> getResultColTypes(QueryStmt queryStmt) {
+        if (resultColTypes == null) {
+            resultColTypes = Lists.newArrayList();
+            for (Expr expr : queryStmt.getResultExprs()) {
+                resultColTypes.add(expr.getType().getPrimitiveType().toMysqlType());
+            }
+        }
+        return resultColTypes;
+    }
+
     // Process a select statement.
     private void handleInsertStmt() throws Exception {
         // Every time set no send flag and clean all data in buffer
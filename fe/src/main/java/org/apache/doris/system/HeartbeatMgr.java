@@ -25,7 +25,9 @@ import org.apache.doris.common.FeConstants;
 import org.apache.doris.common.util.Daemon;
 import org.apache.doris.common.util.Util;
 import org.apache.doris.http.rest.BootstrapFinishAction;
+import org.apache.doris.metric.MetricRepo;
 import org.apache.doris.persist.HbPackage;
+import org.apache.doris.qe.SimpleScheduler;
 import org.apache.doris.service.FrontendOptions;
 import org.apache.doris.system.HeartbeatResponse.HbStatus;
 import org.apache.doris.thrift.HeartbeatService;
@@ -43,19 +45,26 @@ import org.apache.doris.thrift.TStatusCode;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.JSONObject;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /*
  * Heartbeat manager run as a daemon at a fix interval.
@@ -64,15 +73,27 @@ import java.util.concurrent.atomic.AtomicReference;
 public class HeartbeatMgr extends Daemon {
     private static final Logger LOG = LogManager.getLogger(HeartbeatMgr.class);
 
+    // same as the rpc timeout of heartbeat
+    private static final long HEARTBEAT_TIMEOUT_MS = FeConstants.heartbeat_interval_second * 1000;
+
     private final ExecutorService executor;
+    private final ScheduledExecutorService staggerTimer;
     private SystemInfoService nodeMgr;
 
+    // nodes whose heartbeat rpc is running
+    private final Set<String> inflightNodes = Sets.newConcurrentHashSet();
+    // nodes having rtt metrics, only accessed by heartbeat mgr thread
+    private final Set<String> rttNodes = Sets.newHashSet();
+
     private static volatile AtomicReference<TMasterInfo> masterInfo = new AtomicReference<TMasterInfo>();
 
     public HeartbeatMgr(SystemInfoService nodeMgr) {
         super("heartbeat mgr", FeConstants.heartbeat_interval_second * 1000);
         this.nodeMgr = nodeMgr;
-        this.executor = Executors.newCachedThreadPool();
+        this.executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("heartbeat-sender-%d").build());
+        this.staggerTimer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("heartbeat-stagger-timer").build());
     }
 
     public void setMaster(int clusterId, String token, long epoch) {
@@ -85,17 +106,19 @@ public class HeartbeatMgr extends Daemon {
 
     /*
      * At each round:
-     * 1. send heartbeat to all nodes
-     * 2. collect the heartbeat response from all nodes, and handle them
+     * 1. send heartbeat to all nodes, spread over Config.heartbeat_stagger_ms
+     * 2. handle each heartbeat response as soon as it arrives. If a node does not response within
+     *    the heartbeat timeout, it is handled as failed without waiting for the rpc.
      */
     @Override
     protected void runOneCycle() {
-        List<Future<HeartbeatResponse>> hbResponses = Lists.newArrayList();
-        
+        List<HeartbeatTask> tasks = Lists.newArrayList();
+
         // send backend heartbeat
         for (Backend backend : nodeMgr.getIdToBackend().values()) {
-            BackendHeartbeatHandler handler = new BackendHeartbeatHandler(backend);
-            hbResponses.add(executor.submit(handler));
+            long backendId = backend.getId();
+            tasks.add(new HeartbeatTask("be_" + backendId, new BackendHeartbeatHandler(backend),
+                    msg -> new BackendHbResponse(backendId, msg)));
         }
 
         // send frontend heartbeat
@@ -108,40 +131,70 @@ public class HeartbeatMgr extends Daemon {
             FrontendHeartbeatHandler handler = new FrontendHeartbeatHandler(frontend,
                     Catalog.getCurrentCatalog().getClusterId(),
                     Catalog.getCurrentCatalog().getToken());
-            hbResponses.add(executor.submit(handler));
+            tasks.add(new HeartbeatTask("fe_" + frontend.getNodeName(), handler,
+                    msg -> new FrontendHbResponse(frontend.getNodeName(), msg)));
         }
 
         // send broker heartbeat;
         Map<String, List<FsBroker>> brokerMap = Maps.newHashMap(
                 Catalog.getCurrentCatalog().getBrokerMgr().getBrokerListMap());
         for (Map.Entry<String, List<FsBroker>> entry : brokerMap.entrySet()) {
+            String brokerName = entry.getKey();
             for (FsBroker brokerAddress : entry.getValue()) {
-                BrokerHeartbeatHandler handler = new BrokerHeartbeatHandler(entry.getKey(), brokerAddress,
+                BrokerHeartbeatHandler handler = new BrokerHeartbeatHandler(brokerName, brokerAddress,
                         masterInfo.get().getNetwork_address().getHostname());
-                hbResponses.add(executor.submit(handler));
+                tasks.add(new HeartbeatTask("broker_" + brokerName + "_" + brokerAddress.ip + "_" + brokerAddress.port,
+                        handler, msg -> new BrokerHbResponse(brokerName, brokerAddress.ip, brokerAddress.port, msg)));
             }
         }
 
-        // collect all heartbeat responses and handle them.
+        // handle heartbeat responses as they arrive.
         // and also we find which node's info is changed, if is changed, we need collect them and write
         // an edit log to synchronize the info to other Frontends
         HbPackage hbPackage = new HbPackage();
-        for (Future<HeartbeatResponse> future : hbResponses) {
-            boolean isChanged = false;
+        BlockingQueue<HeartbeatTask> finishedTasks = new LinkedBlockingQueue<>();
+        Set<HeartbeatTask> pendingTasks = sendHeartbeats(tasks, finishedTasks);
+        while (!pendingTasks.isEmpty()) {
+            long nextDeadlineMs = Long.MAX_VALUE;
+            for (HeartbeatTask task : pendingTasks) {
+                nextDeadlineMs = Math.min(nextDeadlineMs, task.deadlineMs);
+            }
+            HeartbeatTask finishedTask;
             try {
-                // the heartbeat rpc's timeout is 5 seconds, so we will not be blocked here very long.
-                HeartbeatResponse response = future.get();
-                LOG.info("get heartbeat response: {}", response);
-                isChanged = handleHbResponse(response, false);
-
-                if (isChanged) {
-                    hbPackage.addHbResponse(response);
+                finishedTask = finishedTasks.poll(nextDeadlineMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                LOG.warn("interrupted when waiting heartbeat responses", e);
+                break;
+            }
+            if (finishedTask != null) {
+                if (pendingTasks.remove(finishedTask)) {
+                    LOG.info("get heartbeat response: {}", finishedTask.response);
+                    handleHbResponse(finishedTask.response, hbPackage);
                 }
-            } catch (InterruptedException | ExecutionException e) {
-                LOG.warn("got exception when doing heartbeat", e);
                 continue;
             }
-        } // end for all results
+            // the rpc of timeout nodes may be still running, they are skipped in next rounds until the rpc returns
+            long now = System.currentTimeMillis();
+            Iterator<HeartbeatTask> iter = pendingTasks.iterator();
+            while (iter.hasNext()) {
+                HeartbeatTask task = iter.next();
+                if (task.deadlineMs <= now) {
+                    iter.remove();
+                    LOG.warn("heartbeat of {} timeout", task.node);
+                    handleHbResponse(task.failResponseFactory.apply("heartbeat timeout"), hbPackage);
+                }
+            }
+        } // end while
+
+        // remove rtt metrics of dropped nodes
+        Set<String> nodes = Sets.newHashSet();
+        for (HeartbeatTask task : tasks) {
+            nodes.add(task.node);
+        }
+        for (String node : Sets.difference(rttNodes, nodes).immutableCopy()) {
+            MetricRepo.removeHeartbeatRtt(node);
+            rttNodes.remove(node);
+        }
 
         // we also add a 'mocked' master Frontends heartbeat response to synchronize master info to other Frontends.
         hbPackage.addHbResponse(new FrontendHbResponse(masterFeNodeName,
@@ -152,6 +205,50 @@ public class HeartbeatMgr extends Daemon {
         Catalog.getCurrentCatalog().getEditLog().logHeartbeat(hbPackage);
     }
 
+    // send heartbeats spread over Config.heartbeat_stagger_ms, return the tasks sent
+    private Set<HeartbeatTask> sendHeartbeats(List<HeartbeatTask> tasks, BlockingQueue<HeartbeatTask> finishedTasks) {
+        Set<HeartbeatTask> sentTasks = Sets.newHashSet();
+        long staggerMs = Math.max(0, Math.min(Config.heartbeat_stagger_ms, getInterval() / 2));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < tasks.size(); i++) {
+            HeartbeatTask task = tasks.get(i);
+            if (!inflightNodes.add(task.node)) {
+                LOG.warn("last heartbeat of {} is not finished, skip it", task.node);
+                continue;
+            }
+            long delayMs = staggerMs * i / tasks.size();
+            task.deadlineMs = now + delayMs + HEARTBEAT_TIMEOUT_MS;
+            Runnable send = () -> executor.submit(() -> {
+                long startMs = System.currentTimeMillis();
+                try {
+                    task.response = task.handler.call();
+                } catch (Exception e) {
+                    task.response = task.failResponseFactory.apply(
+                            Strings.isNullOrEmpty(e.getMessage()) ? "got exception" : e.getMessage());
+                }
+                if (MetricRepo.isInit.get()) {
+                    MetricRepo.updateHeartbeatRtt(task.node, System.currentTimeMillis() - startMs);
+                }
+                inflightNodes.remove(task.node);
+                finishedTasks.add(task);
+            });
+            if (delayMs == 0) {
+                send.run();
+            } else {
+                staggerTimer.schedule(send, delayMs, TimeUnit.MILLISECONDS);
+            }
+            sentTasks.add(task);
+            rttNodes.add(task.node);
+        }
+        return sentTasks;
+    }
+
+    private void handleHbResponse(HeartbeatResponse response, HbPackage hbPackage) {
+        if (handleHbResponse(response, false)) {
+            hbPackage.addHbResponse(response);
+        }
+    }
+
     private boolean handleHbResponse(HeartbeatResponse response, boolean isReplay) {
         switch (response.getType()) {
             case FRONTEND: {
@@ -195,6 +292,24 @@ public class HeartbeatMgr extends Daemon {
         return false;
     }
 
+    // heartbeat to one node in one round
+    private static class HeartbeatTask {
+        // unique name of the node, also used as name of rtt metric
+        private final String node;
+        private final Callable<HeartbeatResponse> handler;
+        // create a failed response with error msg
+        private final Function<String, HeartbeatResponse> failResponseFactory;
+        private long deadlineMs;
+        private volatile HeartbeatResponse response;
+
+        HeartbeatTask(String node, Callable<HeartbeatResponse> handler,
+                      Function<String, HeartbeatResponse> failResponseFactory) {
+            this.node = node.replaceAll("[^a-zA-Z0-9_]", "_");
+            this.handler = handler;
+            this.failResponseFactory = failResponseFactory;
+        }
+    }
+
     // backend heartbeat
     private class BackendHeartbeatHandler implements Callable<HeartbeatResponse> {
         private Backend backend;
@@ -226,6 +341,12 @@ public class HeartbeatMgr extends Daemon {
                         brpcPort = tBackendInfo.getBrpc_port();
                     }
                     // backend.updateOnce(bePort, httpPort, beRpcPort, brpcPort);
+                    // load is only used to choose replicas in master, not kept in the persisted response.
+                    // old backends do not report load
+                    if (tBackendInfo.isSetMax_disk_io_util_percent() && tBackendInfo.isSetRunning_fragment_num()) {
+                        SimpleScheduler.updateBackendLoad(backend, tBackendInfo.getMax_disk_io_util_percent(),
+                                tBackendInfo.getRunning_fragment_num());
+                    }
                     return new BackendHbResponse(backendId, bePort, httpPort, brpcPort, System.currentTimeMillis());
                 } else {
                     return new BackendHbResponse(backendId, result.getStatus().getError_msgs().isEmpty() ? "Unknown error"
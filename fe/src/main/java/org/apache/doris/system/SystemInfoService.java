@@ -27,7 +27,9 @@ import org.apache.doris.common.FeMetaVersion;
 import org.apache.doris.common.Pair;
 import org.apache.doris.common.Status;
 import org.apache.doris.metric.MetricRepo;
+import org.apache.doris.qe.SimpleScheduler;
 import org.apache.doris.system.Backend.BackendState;
+import org.apache.doris.task.AgentTaskExecutor;
 import org.apache.doris.thrift.TStatusCode;
 
 import com.google.common.base.Preconditions;
@@ -234,6 +236,8 @@ public class SystemInfoService {
         } else {
             LOG.error("Cluster " + droppedBackend.getOwnerClusterName() + " no exist.");
         }
+        SimpleScheduler.removeBackendLoad(droppedBackend.getId());
+        AgentTaskExecutor.removeBackend(droppedBackend.getId());
         // log
         Catalog.getInstance().getEditLog().logDropBackend(droppedBackend);
         LOG.info("finished to drop {}", droppedBackend);
@@ -1041,6 +1045,8 @@ public class SystemInfoService {
         } else {
             LOG.error("Cluster " + backend.getOwnerClusterName() + " no exist.");
         }
+        SimpleScheduler.removeBackendLoad(backend.getId());
+        AgentTaskExecutor.removeBackend(backend.getId());
     }
 
     public void updateBackendState(Backend be) {
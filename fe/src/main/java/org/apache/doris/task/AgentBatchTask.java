@@ -145,46 +145,56 @@ public class AgentBatchTask implements Runnable {
         return count;
     }
 
+    // backend id -> tasks of backend
+    public Map<Long, List<AgentTask>> getBackendIdToTasks() {
+        return backendIdToTasks;
+    }
+
     @Override
     public void run() {
         for (Long backendId : this.backendIdToTasks.keySet()) {
-            BackendService.Client client = null;
-            TNetworkAddress address = null;
-            boolean ok = false;
-            try {
-                Backend backend = Catalog.getCurrentSystemInfo().getBackend(backendId);
-                if (backend == null || !backend.isAlive()) {
-                    continue;
-                }
-                List<AgentTask> tasks = this.backendIdToTasks.get(backendId);
-                // create AgentClient
-                address = new TNetworkAddress(backend.getHost(), backend.getBePort());
-                client = ClientPool.backendPool.borrowObject(address);
-                List<TAgentTaskRequest> agentTaskRequests = new LinkedList<TAgentTaskRequest>();
+            submitTasks(backendId, this.backendIdToTasks.get(backendId));
+        } // end for backend
+    }
+
+    // send the tasks to the backend in one rpc, return false if failed
+    public static boolean submitTasks(long backendId, List<AgentTask> tasks) {
+        BackendService.Client client = null;
+        TNetworkAddress address = null;
+        boolean ok = false;
+        try {
+            Backend backend = Catalog.getCurrentSystemInfo().getBackend(backendId);
+            if (backend == null || !backend.isAlive()) {
+                return false;
+            }
+            // create AgentClient
+            address = new TNetworkAddress(backend.getHost(), backend.getBePort());
+            client = ClientPool.backendPool.borrowObject(address);
+            List<TAgentTaskRequest> agentTaskRequests = new LinkedList<TAgentTaskRequest>();
+            for (AgentTask task : tasks) {
+                agentTaskRequests.add(toAgentTaskRequest(task));
+            }
+            client.submit_tasks(agentTaskRequests);
+            if (LOG.isDebugEnabled()) {
                 for (AgentTask task : tasks) {
-                    agentTaskRequests.add(toAgentTaskRequest(task));
-                }
-                client.submit_tasks(agentTaskRequests);
-                if (LOG.isDebugEnabled()) {
-                    for (AgentTask task : tasks) {
-                        LOG.debug("send task: type[{}], backend[{}], signature[{}]",
-                                task.getTaskType(), backendId, task.getSignature());
-                    }
-                }
-                ok = true;
-            } catch (Exception e) {
-                LOG.warn("task exec error. backend[{}]", backendId, e);
-            } finally {
-                if (ok) {
-                    ClientPool.backendPool.returnObject(address, client);
-                } else {
-                    ClientPool.backendPool.invalidateObject(address, client);
+                    LOG.debug("send task: type[{}], backend[{}], signature[{}]",
+                            task.getTaskType(), backendId, task.getSignature());
                 }
             }
-        } // end for backend
+            ok = true;
+        } catch (Exception e) {
+            LOG.warn("task exec error. backend[{}]", backendId, e);
+        } finally {
+            if (ok) {
+                ClientPool.backendPool.returnObject(address, client);
+            } else if (client != null) {
+                ClientPool.backendPool.invalidateObject(address, client);
+            }
+        }
+        return ok;
     }
 
-    private TAgentTaskRequest toAgentTaskRequest(AgentTask task) {
+    private static TAgentTaskRequest toAgentTaskRequest(AgentTask task) {
         TAgentTaskRequest tAgentTaskRequest = new TAgentTaskRequest();
         tAgentTaskRequest.setProtocol_version(TAgentServiceVersion.V1);
         tAgentTaskRequest.setSignature(task.getSignature());
@@ -17,11 +17,51 @@
 
 package org.apache.doris.task;
 
-import java.util.concurrent.ExecutorService;
+import org.apache.doris.common.Config;
+import org.apache.doris.metric.MetricRepo;
+import org.apache.doris.thrift.TTaskType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/*
+ * Send agent tasks to backends with a bounded thread pool.
+ *
+ * Tasks are queued by backend. Tasks submitted to a backend within Config.agent_task_batch_window_ms
+ * are sent in one submit_tasks rpc. When threads are all busy, the backends having tasks of higher priority
+ * are sent first, eg. publish and push tasks are sent before clone and consistency check tasks.
+ * If a task of higher priority is added to a backend whose tasks are already waiting for a thread,
+ * another job of the higher priority is queued, so that it does not wait behind tasks of lower priority.
+ */
 public class AgentTaskExecutor {
-    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool();
+    private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            Config.agent_task_executor_thread_num, Config.agent_task_executor_thread_num,
+            60, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("agent-task-sender-%d").build());
+    // delays sending tasks to a backend to wait for more tasks
+    private static final ScheduledExecutorService BATCH_TIMER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("agent-task-batch-timer").build());
+
+    // backend id -> tasks waiting to be sent to the backend
+    private static final Map<Long, BackendQueue> backendQueues = Maps.newConcurrentMap();
+    // to keep order of sending jobs with same priority
+    private static final AtomicLong sendJobSeq = new AtomicLong(0);
+
+    static {
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
 
     public AgentTaskExecutor() {
     }
@@ -30,7 +70,151 @@ public class AgentTaskExecutor {
         if (task == null) {
             return;
         }
-        EXECUTOR.submit(task);
+        for (Map.Entry<Long, List<AgentTask>> entry : task.getBackendIdToTasks().entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            backendQueues.computeIfAbsent(entry.getKey(), BackendQueue::new).add(entry.getValue());
+        }
+    }
+
+    // Remove the queue of a dropped backend. Tasks already waiting in it are still sent, and fail.
+    public static void removeBackend(long backendId) {
+        backendQueues.remove(backendId);
     }
 
+    // smaller is higher
+    static int getPriority(TTaskType taskType) {
+        switch (taskType) {
+            case PUBLISH_VERSION:
+            case PUSH:
+            case REALTIME_PUSH:
+                return 0;
+            case CLONE:
+                return 2;
+            case CHECK_CONSISTENCY:
+                return 3;
+            default:
+                return 1;
+        }
+    }
+
+    private static class PendingTask {
+        private final AgentTask task;
+        private final long submitTimeMs;
+
+        PendingTask(AgentTask task, long submitTimeMs) {
+            this.task = task;
+            this.submitTimeMs = submitTimeMs;
+        }
+    }
+
+    // tasks waiting to be sent to one backend
+    static class BackendQueue {
+        private final long backendId;
+        private final Executor executor;
+        // guarded by this
+        private List<PendingTask> pendingTasks = Lists.newArrayList();
+        private boolean scheduled = false;
+        // highest priority of the send jobs waiting in executor, MAX_VALUE if there is none
+        private int jobPriority = Integer.MAX_VALUE;
+
+        BackendQueue(long backendId) {
+            this(backendId, EXECUTOR);
+        }
+
+        BackendQueue(long backendId, Executor executor) {
+            this.backendId = backendId;
+            this.executor = executor;
+        }
+
+        synchronized void add(List<AgentTask> tasks) {
+            long now = System.currentTimeMillis();
+            int priority = Integer.MAX_VALUE;
+            for (AgentTask task : tasks) {
+                pendingTasks.add(new PendingTask(task, now));
+                priority = Math.min(priority, getPriority(task.getTaskType()));
+            }
+            if (scheduled) {
+                // Will be sent with the tasks already waiting. But if the send job is waiting in executor
+                // with a lower priority, queue a job of this priority. The job which runs first sends
+                // all the tasks, and the other one finds nothing to send.
+                if (priority < jobPriority && jobPriority != Integer.MAX_VALUE) {
+                    jobPriority = priority;
+                    executor.execute(new SendJob(this, priority));
+                }
+                return;
+            }
+            scheduled = true;
+            int windowMs = Config.agent_task_batch_window_ms;
+            if (windowMs <= 0) {
+                execute();
+            } else {
+                BATCH_TIMER.schedule(this::execute, windowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private synchronized void execute() {
+            int priority = Integer.MAX_VALUE;
+            for (PendingTask pendingTask : pendingTasks) {
+                priority = Math.min(priority, getPriority(pendingTask.task.getTaskType()));
+            }
+            jobPriority = priority;
+            executor.execute(new SendJob(this, priority));
+        }
+
+        synchronized List<PendingTask> drain() {
+            List<PendingTask> tasks = pendingTasks;
+            pendingTasks = Lists.newArrayList();
+            scheduled = false;
+            jobPriority = Integer.MAX_VALUE;
+            return tasks;
+        }
+
+        void send(List<AgentTask> tasks) {
+            AgentBatchTask.submitTasks(backendId, tasks);
+        }
+    }
+
+    private static class SendJob implements Runnable, Comparable<SendJob> {
+        private static final Comparator<SendJob> COMPARATOR =
+                Comparator.<SendJob>comparingInt(job -> job.priority).thenComparingLong(job -> job.seq);
+
+        private final BackendQueue queue;
+        private final int priority;
+        private final long seq;
+
+        SendJob(BackendQueue queue, int priority) {
+            this.queue = queue;
+            this.priority = priority;
+            this.seq = sendJobSeq.incrementAndGet();
+        }
+
+        @Override
+        public int compareTo(SendJob other) {
+            return COMPARATOR.compare(this, other);
+        }
+
+        @Override
+        public void run() {
+            List<PendingTask> pendingTasks = queue.drain();
+            if (pendingTasks.isEmpty()) {
+                return;
+            }
+            pendingTasks.sort(Comparator.comparingInt(t -> getPriority(t.task.getTaskType())));
+            List<AgentTask> tasks = Lists.newArrayListWithCapacity(pendingTasks.size());
+            long now = System.currentTimeMillis();
+            for (PendingTask pendingTask : pendingTasks) {
+                tasks.add(pendingTask.task);
+                if (MetricRepo.isInit.get()) {
+                    MetricRepo.HISTO_AGENT_TASK_QUEUE_WAIT.update(now - pendingTask.submitTimeMs);
+                }
+            }
+            if (MetricRepo.isInit.get()) {
+                MetricRepo.COUNTER_AGENT_TASK_RPC.increase(1L);
+                MetricRepo.HISTO_AGENT_TASK_RPC_BATCH_SIZE.update(tasks.size());
+            }
+            queue.send(tasks);
+        }
+    }
 }
@@ -20,53 +20,134 @@ package org.apache.doris.task;
 import org.apache.doris.thrift.TPushType;
 import org.apache.doris.thrift.TTaskType;
 
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Table;
+import com.google.common.collect.Sets;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Task queue
+ *
+ * Tasks are striped by backend, each backend has its own task set protected by itself,
+ * so that operations on different backends do not block each other.
  */
 public class AgentTaskQueue {
     private static final Logger LOG = LogManager.getLogger(AgentTaskQueue.class);
 
-    // backend id -> (task type -> (signature -> agent task))
-    private static Table<Long, TTaskType, Map<Long, AgentTask>> tasks = HashBasedTable.create();
-    private static int taskNum = 0;
+    // backend id -> tasks of backend
+    private static final ConcurrentMap<Long, BackendTasks> tasks = Maps.newConcurrentMap();
+    private static final AtomicInteger taskNum = new AtomicInteger(0);
+    // task type -> task num of the type
+    private static final Map<TTaskType, AtomicInteger> typeToTaskNum = new EnumMap<>(TTaskType.class);
 
-    public static synchronized void addBatchTask(AgentBatchTask batchTask) {
+    static {
+        for (TTaskType type : TTaskType.values()) {
+            typeToTaskNum.put(type, new AtomicInteger(0));
+        }
+    }
+
+    // tasks of one backend
+    private static class BackendTasks {
+        // task type -> (signature -> agent task)
+        private final Map<TTaskType, Map<Long, AgentTask>> typeToTasks = new EnumMap<>(TTaskType.class);
+        // tablet id -> agent tasks of tablet
+        private final Map<Long, Set<AgentTask>> tabletToTasks = Maps.newHashMap();
+
+        // all following methods must be called with the lock of this object held
+
+        private Map<Long, AgentTask> getTasks(TTaskType type) {
+            return typeToTasks.get(type);
+        }
+
+        private AgentTask getTask(TTaskType type, long signature) {
+            Map<Long, AgentTask> signatureMap = typeToTasks.get(type);
+            return signatureMap == null ? null : signatureMap.get(signature);
+        }
+
+        private boolean add(AgentTask task) {
+            Map<Long, AgentTask> signatureMap = typeToTasks.computeIfAbsent(task.getTaskType(),
+                    k -> Maps.newHashMap());
+            if (signatureMap.putIfAbsent(task.getSignature(), task) != null) {
+                return false;
+            }
+            tabletToTasks.computeIfAbsent(task.getTabletId(), k -> Sets.newHashSet()).add(task);
+            taskNum.incrementAndGet();
+            typeToTaskNum.get(task.getTaskType()).incrementAndGet();
+            return true;
+        }
+
+        private AgentTask remove(TTaskType type, long signature) {
+            Map<Long, AgentTask> signatureMap = typeToTasks.get(type);
+            if (signatureMap == null) {
+                return null;
+            }
+            AgentTask task = signatureMap.remove(signature);
+            if (task == null) {
+                return null;
+            }
+            if (signatureMap.isEmpty()) {
+                typeToTasks.remove(type);
+            }
+            Set<AgentTask> tabletTasks = tabletToTasks.get(task.getTabletId());
+            if (tabletTasks != null) {
+                tabletTasks.remove(task);
+                if (tabletTasks.isEmpty()) {
+                    tabletToTasks.remove(task.getTabletId());
+                }
+            }
+            taskNum.decrementAndGet();
+            typeToTaskNum.get(type).decrementAndGet();
+            LOG.debug("remove task: type[{}], backend[{}], signature[{}]", type, task.getBackendId(), signature);
+            return task;
+        }
+
+        private List<AgentTask> getTabletTasks(long tabletId) {
+            Set<AgentTask> tabletTasks = tabletToTasks.get(tabletId);
+            return tabletTasks == null ? Lists.newArrayList() : Lists.newArrayList(tabletTasks);
+        }
+
+        private void clear() {
+            for (Map.Entry<TTaskType, Map<Long, AgentTask>> entry : typeToTasks.entrySet()) {
+                taskNum.addAndGet(-entry.getValue().size());
+                typeToTaskNum.get(entry.getKey()).addAndGet(-entry.getValue().size());
+            }
+            typeToTasks.clear();
+            tabletToTasks.clear();
+        }
+    }
+
+    private static BackendTasks getBackendTasks(long backendId) {
+        return tasks.computeIfAbsent(backendId, k -> new BackendTasks());
+    }
+
+    public static void addBatchTask(AgentBatchTask batchTask) {
         for (AgentTask task : batchTask.getAllTasks()) {
             addTask(task);
         }
     }
  
-    public static synchronized boolean addTask(AgentTask task) {
+    public static boolean addTask(AgentTask task) {
         long backendId = task.getBackendId();
         TTaskType type = task.getTaskType();
-
-        Map<Long, AgentTask> signatureMap = tasks.get(backendId, type);
-        if (signatureMap == null) {
-            signatureMap = Maps.newHashMap();
-            tasks.put(backendId, type, signatureMap);
-        }
-        
         long signature = task.getSignature();
-        if (signatureMap.containsKey(signature)) {
-            return false;
+
+        BackendTasks backendTasks = getBackendTasks(backendId);
+        synchronized (backendTasks) {
+            if (!backendTasks.add(task)) {
+                return false;
+            }
         }
-        signatureMap.put(signature, task);
-        ++taskNum;
         LOG.debug("add task: type[{}], backend[{}], signature[{}]", type, backendId, signature);
         if (type == TTaskType.PUSH) {
             PushTask pushTask = (PushTask) task;
@@ -78,172 +159,164 @@ public class AgentTaskQueue {
     
     // remove all task in AgentBatchTask.
     // the caller should make sure all tasks in AgentBatchTask is type of 'type'
-    public static synchronized void removeBatchTask(AgentBatchTask batchTask, TTaskType type) {
+    public static void removeBatchTask(AgentBatchTask batchTask, TTaskType type) {
         for (AgentTask task : batchTask.getAllTasks()) {
             removeTask(task.getBackendId(), type, task.getSignature());
         }
     }
 
-    public static synchronized void removeTask(long backendId, TTaskType type, long signature) {
-        if (!tasks.contains(backendId, type)) {
+    public static void removeTask(long backendId, TTaskType type, long signature) {
+        BackendTasks backendTasks = tasks.get(backendId);
+        if (backendTasks == null) {
             return;
         }
-
-        Map<Long, AgentTask> signatureMap = tasks.get(backendId, type);
-        if (!signatureMap.containsKey(signature)) {
-            return;
+        synchronized (backendTasks) {
+            backendTasks.remove(type, signature);
         }
-        signatureMap.remove(signature);
-        LOG.debug("remove task: type[{}], backend[{}], signature[{}]", type, backendId, signature);
-        --taskNum;
     }
     
     /*
      * we cannot define a push task with only 'backendId', 'signature' and 'TTaskType'
      * add version, versionHash and TPushType to help
      */
-    public static synchronized void removePushTask(long backendId, long signature, long version, long versionHash,
-                                                   TPushType pushType, TTaskType taskType) {
-        if (!tasks.contains(backendId, taskType)) {
+    public static void removePushTask(long backendId, long signature, long version, long versionHash,
+                                      TPushType pushType, TTaskType taskType) {
+        BackendTasks backendTasks = tasks.get(backendId);
+        if (backendTasks == null) {
             return;
         }
+        synchronized (backendTasks) {
+            AgentTask task = backendTasks.getTask(taskType, signature);
+            if (task == null) {
+                return;
+            }
 
-        Map<Long, AgentTask> signatureMap = tasks.get(backendId, taskType);
-        AgentTask task = signatureMap.get(signature);
-        if (task == null) {
-            return;
-        }
+            PushTask pushTask = (PushTask) task;
+            if (pushTask.getVersion() != version || pushTask.getVersionHash() != versionHash
+                    || pushTask.getPushType() != pushType) {
+                return;
+            }
 
-        PushTask pushTask = (PushTask) task;
-        if (pushTask.getVersion() != version || pushTask.getVersionHash() != versionHash
-                || pushTask.getPushType() != pushType) {
-            return;
+            backendTasks.remove(taskType, signature);
         }
-
-        signatureMap.remove(signature);
-        LOG.debug("remove task: type[{}], backend[{}], signature[{}]", taskType, backendId, signature);
-        --taskNum;
     }
 
-    public static synchronized void removeTaskOfType(TTaskType type, long signature) {
-        // be id -> (signature -> task)
-        Map<Long, Map<Long, AgentTask>> map = tasks.column(type);
-        for (Map<Long, AgentTask> innerMap : map.values()) {
-            innerMap.remove(signature);
+    public static void removeTaskOfType(TTaskType type, long signature) {
+        for (BackendTasks backendTasks : tasks.values()) {
+            synchronized (backendTasks) {
+                backendTasks.remove(type, signature);
+            }
         }
     }
 
-    public static synchronized AgentTask getTask(long backendId, TTaskType type, long signature) {
-        if (!tasks.contains(backendId, type)) {
+    public static AgentTask getTask(long backendId, TTaskType type, long signature) {
+        BackendTasks backendTasks = tasks.get(backendId);
+        if (backendTasks == null) {
             return null;
         }
-
-        Map<Long, AgentTask> signatureMap = tasks.get(backendId, type);
-        return signatureMap.get(signature);
+        synchronized (backendTasks) {
+            return backendTasks.getTask(type, signature);
+        }
     }
     
     // this is just for unit test
-    public static synchronized List<AgentTask> getTask(TTaskType type) {
+    public static List<AgentTask> getTask(TTaskType type) {
         List<AgentTask> res = Lists.newArrayList();
-        for (Map<Long, AgentTask> agentTasks : tasks.column(TTaskType.ALTER).values()) {
-            res.addAll(agentTasks.values());
+        for (BackendTasks backendTasks : tasks.values()) {
+            synchronized (backendTasks) {
+                Map<Long, AgentTask> typeTasks = backendTasks.getTasks(type);
+                if (typeTasks != null) {
+                    res.addAll(typeTasks.values());
+                }
+            }
         }
         return res;
     }
 
-    public static synchronized List<AgentTask> getDiffTasks(long backendId, Map<TTaskType, Set<Long>> runningTasks) {
+    public static List<AgentTask> getDiffTasks(long backendId, Map<TTaskType, Set<Long>> runningTasks) {
         List<AgentTask> diffTasks = new ArrayList<AgentTask>();
-        if (!tasks.containsRow(backendId)) {
+        BackendTasks backendTasks = tasks.get(backendId);
+        if (backendTasks == null) {
             return diffTasks;
         }
         
-        Map<TTaskType, Map<Long, AgentTask>> backendAllTasks = tasks.row(backendId);
-        for (Map.Entry<TTaskType, Map<Long, AgentTask>> entry : backendAllTasks.entrySet()) {
-            TTaskType taskType = entry.getKey();
-            Map<Long, AgentTask> tasks = entry.getValue();
-            Set<Long> excludeSignatures = new HashSet<Long>();
-            if (runningTasks.containsKey(taskType)) {
-                excludeSignatures = runningTasks.get(taskType);
-            }
-            
-            for (Map.Entry<Long, AgentTask> taskEntry : tasks.entrySet()) {
-                long signature = taskEntry.getKey();
-                AgentTask task = taskEntry.getValue();
-                if (!excludeSignatures.contains(signature)) {
-                    diffTasks.add(task);
+        synchronized (backendTasks) {
+            for (Map.Entry<TTaskType, Map<Long, AgentTask>> entry : backendTasks.typeToTasks.entrySet()) {
+                TTaskType taskType = entry.getKey();
+                Map<Long, AgentTask> tasks = entry.getValue();
+                Set<Long> excludeSignatures = new HashSet<Long>();
+                if (runningTasks.containsKey(taskType)) {
+                    excludeSignatures = runningTasks.get(taskType);
                 }
-            } // end for tasks
-        } // end for backendAllTasks
+
+                for (Map.Entry<Long, AgentTask> taskEntry : tasks.entrySet()) {
+                    long signature = taskEntry.getKey();
+                    AgentTask task = taskEntry.getValue();
+                    if (!excludeSignatures.contains(signature)) {
+                        diffTasks.add(task);
+                    }
+                } // end for tasks
+            } // end for backendAllTasks
+        }
 
         return diffTasks;
     }
 
-    public static synchronized void removeReplicaRelatedTasks(long backendId, long tabletId) {
-        if (!tasks.containsRow(backendId)) {
+    public static void removeReplicaRelatedTasks(long backendId, long tabletId) {
+        BackendTasks backendTasks = tasks.get(backendId);
+        if (backendTasks == null) {
             return;
         }
 
-        Map<TTaskType, Map<Long, AgentTask>> backendTasks = tasks.row(backendId);
-        for (TTaskType type : TTaskType.values()) {
-            if (backendTasks.containsKey(type)) {
-                Map<Long, AgentTask> typeTasks = backendTasks.get(type);
-                if (type == TTaskType.REALTIME_PUSH) {
-                    Iterator<AgentTask> taskIterator = typeTasks.values().iterator();
-                    while (taskIterator.hasNext()) {
-                        PushTask realTimePushTask = (PushTask) taskIterator.next();
-                        if (tabletId == realTimePushTask.getTabletId()) {
-                            taskIterator.remove();
-                        }
-                    }
-                } else {
-                    if (typeTasks.containsKey(tabletId)) {
-                        typeTasks.remove(tabletId);
-                        LOG.debug("remove task: type[{}], backend[{}], signature[{}]", type, backendId, tabletId);
-                        --taskNum;
-                    }
+        synchronized (backendTasks) {
+            // realtime push tasks of the tablet
+            for (AgentTask task : backendTasks.getTabletTasks(tabletId)) {
+                if (task.getTaskType() == TTaskType.REALTIME_PUSH) {
+                    backendTasks.remove(task.getTaskType(), task.getSignature());
+                }
+            }
+            // other tasks whose signature is the tablet id
+            for (TTaskType type : TTaskType.values()) {
+                if (type != TTaskType.REALTIME_PUSH) {
+                    backendTasks.remove(type, tabletId);
                 }
             }
-        } // end for types
+        }
     }
 
     // only for test now
-    public static synchronized void clearAllTasks() {
-        tasks.clear();
-        taskNum = 0;
+    public static void clearAllTasks() {
+        for (BackendTasks backendTasks : tasks.values()) {
+            synchronized (backendTasks) {
+                backendTasks.clear();
+            }
+        }
     }
 
-    public static synchronized int getTaskNum() {
-        return taskNum;
+    public static int getTaskNum() {
+        return taskNum.get();
+    }
+
+    // task num of the type on all backends
+    public static int getTaskNum(TTaskType type) {
+        return typeToTaskNum.get(type).get();
     }
 
-    public static synchronized int getTaskNum(long backendId, TTaskType type, boolean isFailed) {
+    public static int getTaskNum(long backendId, TTaskType type, boolean isFailed) {
         int taskNum = 0;
         if (backendId != -1) {
-            Map<Long, AgentTask> taskMap = tasks.get(backendId, type);
-            if (taskMap != null) {
-                if (isFailed) {
-                    for (AgentTask task : taskMap.values()) {
-                        if (task.getFailedTimes() > 0) {
-                            ++taskNum;
-                        }
-                    }
-                } else {
-                    taskNum += taskMap.size();
+            BackendTasks backendTasks = tasks.get(backendId);
+            if (backendTasks != null) {
+                synchronized (backendTasks) {
+                    taskNum += countTasks(backendTasks.getTasks(type), isFailed);
                 }
             }
+        } else if (!isFailed) {
+            taskNum = getTaskNum(type);
         } else {
-            Map<Long, Map<Long, AgentTask>> taskMap = tasks.column(type);
-            if (taskMap != null) {
-                for (Map<Long, AgentTask> signatureMap : taskMap.values()) {
-                    if (isFailed) {
-                        for (AgentTask task : signatureMap.values()) {
-                            if (task.getFailedTimes() > 0) {
-                                ++taskNum;
-                            }
-                        }
-                    } else {
-                        taskNum += signatureMap.size();
-                    }
+            for (BackendTasks backendTasks : tasks.values()) {
+                synchronized (backendTasks) {
+                    taskNum += countTasks(backendTasks.getTasks(type), isFailed);
                 }
             }
         }
@@ -253,17 +326,38 @@ public class AgentTaskQueue {
         return taskNum;
     }
 
-    public static synchronized List<AgentTask> getFailedTask(long backendId, TTaskType type) {
-        Map<Long, AgentTask> taskMap = tasks.get(backendId, type);
+    private static int countTasks(Map<Long, AgentTask> taskMap, boolean isFailed) {
+        if (taskMap == null) {
+            return 0;
+        }
+        if (!isFailed) {
+            return taskMap.size();
+        }
+        int num = 0;
+        for (AgentTask task : taskMap.values()) {
+            if (task.getFailedTimes() > 0) {
+                ++num;
+            }
+        }
+        return num;
+    }
+
+    public static List<AgentTask> getFailedTask(long backendId, TTaskType type) {
         List<AgentTask> tasks = Lists.newArrayList();
-        if (taskMap != null) {
-            for (AgentTask task : taskMap.values()) {
-                if (task.getFailedTimes() > 0) {
-                    tasks.add(task);
+        BackendTasks backendTasks = AgentTaskQueue.tasks.get(backendId);
+        if (backendTasks == null) {
+            return tasks;
+        }
+        synchronized (backendTasks) {
+            Map<Long, AgentTask> taskMap = backendTasks.getTasks(type);
+            if (taskMap != null) {
+                for (AgentTask task : taskMap.values()) {
+                    if (task.getFailedTimes() > 0) {
+                        tasks.add(task);
+                    }
                 }
             }
         }
         return tasks;
     }
 }
-
@@ -33,7 +33,8 @@ public class PublishVersionTask extends AgentTask {
     private long transactionId;
     private List<TPartitionVersionInfo> partitionVersionInfos;
     private List<Long> errorTablets;
-    private boolean isFinished;
+    // set by the thread handling finish report, and read by publish version daemon
+    private volatile boolean isFinished;
 
     public PublishVersionTask(long backendId, long transactionId, long dbId,
             List<TPartitionVersionInfo> partitionVersionInfos) {
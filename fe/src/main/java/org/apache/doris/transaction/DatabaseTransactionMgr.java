@@ -0,0 +1,150 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.transaction;
+
+import org.apache.doris.metric.MetricRepo;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Transaction states of one database, protected by the lock of this database,
+ * so that transactions of different databases do not contend with each other.
+ * All methods except the lock methods must be called with the lock held.
+ */
+public class DatabaseTransactionMgr {
+    private static final Logger LOG = LogManager.getLogger(DatabaseTransactionMgr.class);
+
+    private final long dbId;
+
+    // the lock is used to control the access to transaction states of this database
+    // no other locks should be inside this lock
+    private final ReentrantReadWriteLock transactionLock = new ReentrantReadWriteLock(true);
+
+    // transactionId -> TransactionState
+    private final Map<Long, TransactionState> idToTransactionState = Maps.newHashMap();
+    // label -> txn id
+    private final Map<String, Long> labelToTxnId = Maps.newHashMap();
+    private int runningTxnNum = 0;
+
+    public DatabaseTransactionMgr(long dbId) {
+        this.dbId = dbId;
+    }
+
+    public long getDbId() {
+        return dbId;
+    }
+
+    public void readLock() {
+        long start = System.nanoTime();
+        transactionLock.readLock().lock();
+        updateLockWaitMetric(start);
+    }
+
+    public void readUnlock() {
+        transactionLock.readLock().unlock();
+    }
+
+    public void writeLock() {
+        long start = System.nanoTime();
+        transactionLock.writeLock().lock();
+        updateLockWaitMetric(start);
+    }
+
+    public void writeUnlock() {
+        transactionLock.writeLock().unlock();
+    }
+
+    private void updateLockWaitMetric(long startNanos) {
+        if (MetricRepo.isInit.get()) {
+            MetricRepo.HISTO_TXN_LOCK_WAIT.update((System.nanoTime() - startNanos) / 1000);
+        }
+    }
+
+    public TransactionState getTransactionState(long transactionId) {
+        return idToTransactionState.get(transactionId);
+    }
+
+    public Long getTransactionIdByLabel(String label) {
+        return labelToTxnId.get(label);
+    }
+
+    public int getRunningTxnNum() {
+        return runningTxnNum;
+    }
+
+    public List<TransactionState> getTransactionStates() {
+        return Lists.newArrayList(idToTransactionState.values());
+    }
+
+    public int getTransactionNum() {
+        return idToTransactionState.size();
+    }
+
+    public void putTransactionState(TransactionStatus preStatus, TransactionState transactionState) {
+        idToTransactionState.put(transactionState.getTransactionId(), transactionState);
+        updateTxnLabels(transactionState);
+        updateRunningTxnNum(preStatus, transactionState);
+    }
+
+    public void removeTransactionState(TransactionState transactionState) {
+        idToTransactionState.remove(transactionState.getTransactionId());
+        // the label may be reused by another transaction
+        Long txnId = labelToTxnId.get(transactionState.getLabel());
+        if (txnId != null && txnId == transactionState.getTransactionId()) {
+            labelToTxnId.remove(transactionState.getLabel());
+        }
+    }
+
+    private void updateTxnLabels(TransactionState transactionState) {
+        // if the transaction is aborted, then its label could be reused
+        if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED) {
+            labelToTxnId.remove(transactionState.getLabel());
+        } else {
+            labelToTxnId.put(transactionState.getLabel(), transactionState.getTransactionId());
+        }
+    }
+
+    private void updateRunningTxnNum(TransactionStatus preStatus, TransactionState curTxnState) {
+        if (preStatus == null
+                && (curTxnState.getTransactionStatus() == TransactionStatus.PREPARE
+                || curTxnState.getTransactionStatus() == TransactionStatus.COMMITTED)) {
+            ++runningTxnNum;
+        } else if (preStatus != null
+                && (preStatus == TransactionStatus.PREPARE
+                || preStatus == TransactionStatus.COMMITTED)
+                && (curTxnState.getTransactionStatus() == TransactionStatus.VISIBLE
+                || curTxnState.getTransactionStatus() == TransactionStatus.ABORTED)) {
+            --runningTxnNum;
+            if (runningTxnNum < 0) {
+                // a running transaction is finished twice, or was not counted when it was added.
+                // keep the number exact, so that the error is not hidden by the following transactions.
+                LOG.warn("running transaction number of db {} is {} after transaction {} changes from {} to {}",
+                         dbId, runningTxnNum, curTxnState.getTransactionId(), preStatus,
+                         curTxnState.getTransactionStatus());
+            }
+        }
+    }
+}
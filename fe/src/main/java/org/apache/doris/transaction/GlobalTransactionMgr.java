@@ -48,7 +48,6 @@ import org.apache.doris.transaction.TransactionState.LoadJobSourceType;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.HashBasedTable;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
@@ -65,7 +64,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
@@ -73,30 +71,30 @@ import java.util.stream.Collectors;
  * 1. begin
  * 2. commit
  * 3. abort
- * Attention: all api in txn manager should get db lock or load lock first, then get txn manager's lock, or there will be dead lock
+ * Transaction states are partitioned by database, each database has its own DatabaseTransactionMgr and lock.
+ * Attention: all api in txn manager should get db lock or load lock first, then get the transaction lock
+ * of the db, or there will be dead lock. Transaction locks of different dbs should never be held at the same time.
  */
 public class GlobalTransactionMgr {
     private static final Logger LOG = LogManager.getLogger(GlobalTransactionMgr.class);
-    
-    // the lock is used to control the access to transaction states
-    // no other locks should be inside this lock
-    private ReentrantReadWriteLock transactionLock = new ReentrantReadWriteLock(true);
+
     private EditLog editLog;
     
-    // transactionId -> TransactionState
+    // transactionId -> TransactionState of all dbs, to find transactions by id without lock.
+    // it is modified only with the transaction lock of the transaction's db held.
     private Map<Long, TransactionState> idToTransactionState;
-    // db id -> (label -> txn id)
-    private com.google.common.collect.Table<Long, String, Long> dbIdToTxnLabels;
-    private Map<Long, Integer> runningTxnNums;
+    // db id -> transaction states of the db
+    private Map<Long, DatabaseTransactionMgr> dbIdToDatabaseTransactionMgrs;
     private TransactionIdGenerator idGenerator;
     private TxnStateCallbackFactory callbackFactory = new TxnStateCallbackFactory();
+    // woken up when a transaction is committed, so that it is published without waiting for the interval
+    private PublishVersionDaemon publishVersionDaemon;
     
     private Catalog catalog;
 
     public GlobalTransactionMgr(Catalog catalog) {
         idToTransactionState = Maps.newConcurrentMap();
-        dbIdToTxnLabels = HashBasedTable.create();
-        runningTxnNums = Maps.newHashMap();
+        dbIdToDatabaseTransactionMgrs = Maps.newConcurrentMap();
         this.catalog = catalog;
         this.idGenerator = new TransactionIdGenerator();
     }
@@ -105,6 +103,42 @@ public class GlobalTransactionMgr {
         return callbackFactory;
     }
 
+    // return null if there is no transaction of the db
+    private DatabaseTransactionMgr getDatabaseTransactionMgr(long dbId) {
+        return dbIdToDatabaseTransactionMgrs.get(dbId);
+    }
+
+    // only called when a transaction is begun or replayed
+    private DatabaseTransactionMgr getOrCreateDatabaseTransactionMgr(long dbId) {
+        return dbIdToDatabaseTransactionMgrs.computeIfAbsent(dbId, DatabaseTransactionMgr::new);
+    }
+
+    /*
+     * Remove the transaction manager of a dropped db once it has no transaction left,
+     * so that managers of dropped dbs are not kept forever.
+     * Caller should hold the write lock of dbTransactionMgr.
+     */
+    private void removeDatabaseTransactionMgrIfUnused(DatabaseTransactionMgr dbTransactionMgr) {
+        long dbId = dbTransactionMgr.getDbId();
+        if (dbTransactionMgr.getTransactionNum() == 0 && catalog.getDb(dbId) == null) {
+            dbIdToDatabaseTransactionMgrs.remove(dbId, dbTransactionMgr);
+        }
+    }
+
+    // called after the db is dropped
+    public void removeDatabaseTransactionMgr(long dbId) {
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            return;
+        }
+        dbTransactionMgr.writeLock();
+        try {
+            removeDatabaseTransactionMgrIfUnused(dbTransactionMgr);
+        } finally {
+            dbTransactionMgr.writeUnlock();
+        }
+    }
+
     public long beginTransaction(long dbId, String label, String coordinator, LoadJobSourceType sourceType,
             long timeoutSecond) throws AnalysisException, LabelAlreadyUsedException, BeginTransactionException {
         return beginTransaction(dbId, label, null, coordinator, sourceType, -1, timeoutSecond);
@@ -137,28 +171,33 @@ public class GlobalTransactionMgr {
                     + " seconds");
         }
         
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getOrCreateDatabaseTransactionMgr(dbId);
+        dbTransactionMgr.writeLock();
         try {
+            if (dbIdToDatabaseTransactionMgrs.get(dbId) != dbTransactionMgr) {
+                // removed because the db is dropped
+                throw new BeginTransactionException("database " + dbId + " does not exist");
+            }
             Preconditions.checkNotNull(coordinator);
             Preconditions.checkNotNull(label);
             FeNameFormat.checkLabel(label);
-            Map<String, Long> txnLabels = dbIdToTxnLabels.row(dbId);
-            if (txnLabels != null && txnLabels.containsKey(label)) {
-                TransactionState existTxn = getTransactionState(txnLabels.get(label));
+            Long existTxnId = dbTransactionMgr.getTransactionIdByLabel(label);
+            if (existTxnId != null) {
+                TransactionState existTxn = dbTransactionMgr.getTransactionState(existTxnId);
                 // check timestamp
                 if (requestId != null) {
                     if (existTxn != null && existTxn.getTransactionStatus() == TransactionStatus.PREPARE
                             && existTxn.getRequsetId() != null && existTxn.getRequsetId().equals(requestId)) {
                         // this may be a retry request for same job, just return existing txn id.
-                        return txnLabels.get(label);
+                        return existTxnId;
                     }
                 }
                 throw new LabelAlreadyUsedException(label, existTxn.getTransactionStatus());
             }
-            if (runningTxnNums.get(dbId) != null
-                    && runningTxnNums.get(dbId) > Config.max_running_txn_num_per_db) {
+            if (dbTransactionMgr.getRunningTxnNum() > Config.max_running_txn_num_per_db) {
                 throw new BeginTransactionException("current running txns on db " + dbId + " is "
-                        + runningTxnNums.get(dbId) + ", larger than limit " + Config.max_running_txn_num_per_db);
+                        + dbTransactionMgr.getRunningTxnNum() + ", larger than limit "
+                        + Config.max_running_txn_num_per_db);
             }
             long tid = idGenerator.getNextTransactionId();
             LOG.info("begin transaction: txn id {} with label {} from coordinator {}", tid, label, coordinator);
@@ -178,38 +217,45 @@ public class GlobalTransactionMgr {
             }
             throw e;
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
         }
     }
     
     public TransactionStatus getLabelState(long dbId, String label) {
-        readLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            return TransactionStatus.UNKNOWN;
+        }
+        dbTransactionMgr.readLock();
         try {
-            Map<String, Long> txnLabels = dbIdToTxnLabels.row(dbId);
-            if (txnLabels == null) {
-                return TransactionStatus.UNKNOWN;
-            }
-            Long transactionId = txnLabels.get(label);
+            Long transactionId = dbTransactionMgr.getTransactionIdByLabel(label);
             if (transactionId == null) {
                 return TransactionStatus.UNKNOWN;
             }
-            return idToTransactionState.get(transactionId).getTransactionStatus();
+            return dbTransactionMgr.getTransactionState(transactionId).getTransactionStatus();
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
     }
     
     public void deleteTransaction(long transactionId) {
-        writeLock();
+        TransactionState state = idToTransactionState.get(transactionId);
+        if (state == null) {
+            return;
+        }
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(state.getDbId());
+        if (dbTransactionMgr == null) {
+            return;
+        }
+        dbTransactionMgr.writeLock();
         try {
-            TransactionState state = idToTransactionState.get(transactionId);
-            if (state == null) {
+            if (dbTransactionMgr.getTransactionState(transactionId) == null) {
                 return;
             }
             editLog.logDeleteTransactionState(state);
             replayDeleteTransactionState(state);
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
         }
     }
 
@@ -413,13 +459,18 @@ public class GlobalTransactionMgr {
         transactionState.beforeStateTransform(TransactionStatus.COMMITTED);
         // transaction state transform
         boolean txnOperated = false;
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            transactionState.afterStateTransform(TransactionStatus.COMMITTED, txnOperated);
+            throw new UserException("transaction not found");
+        }
+        dbTransactionMgr.writeLock();
         try {
             unprotectedCommitTransaction(transactionState, errorReplicaIds, tableToPartition, totalInvolvedBackends,
                                          db);
             txnOperated = true;
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
             // after state transform
             transactionState.afterStateTransform(TransactionStatus.COMMITTED, txnOperated);
         }
@@ -427,6 +478,9 @@ public class GlobalTransactionMgr {
         // 6. update nextVersion because of the failure of persistent transaction resulting in error version
         updateCatalogAfterCommitted(transactionState, db);
         LOG.info("transaction:[{}] successfully committed", transactionState);
+        if (publishVersionDaemon != null) {
+            publishVersionDaemon.wakeup();
+        }
     }
     
     public boolean commitAndPublishTransaction(Database db, long transactionId,
@@ -472,18 +526,18 @@ public class GlobalTransactionMgr {
     public void abortTransaction(Long dbId, String label, String reason) throws UserException {
         Preconditions.checkNotNull(label);
         Long transactionId = null;
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            throw new UserException("transaction not found, label=" + label);
+        }
+        dbTransactionMgr.readLock();
         try {
-            Map<String, Long> dbTxns = dbIdToTxnLabels.row(dbId);
-            if (dbTxns == null) {
-                throw new UserException("transaction not found, label=" + label);
-            }
-            transactionId = dbTxns.get(label);
+            transactionId = dbTransactionMgr.getTransactionIdByLabel(label);
             if (transactionId == null) {
                 throw new UserException("transaction not found, label=" + label);
             }
         } finally {
-            writeUnlock();
+            dbTransactionMgr.readUnlock();
         }
         abortTransaction(transactionId, reason);
     }
@@ -510,11 +564,16 @@ public class GlobalTransactionMgr {
         // before state transform
         transactionState.beforeStateTransform(TransactionStatus.ABORTED);
         boolean txnOperated = false;
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            transactionState.afterStateTransform(TransactionStatus.ABORTED, txnOperated, reason);
+            throw new UserException("transaction not found");
+        }
+        dbTransactionMgr.writeLock();
         try {
             txnOperated = unprotectAbortTransaction(transactionId, reason);
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
             transactionState.afterStateTransform(TransactionStatus.ABORTED, txnOperated, reason);
         }
         return;
@@ -523,27 +582,38 @@ public class GlobalTransactionMgr {
     /*
      * get all txns which is ready to publish
      * a ready-to-publish txn's partition's visible version should be ONE less than txn's commit version.
+     * transaction locks of dbs are held one by one, so that a busy db does not block the others.
      */
     public List<TransactionState> getReadyToPublishTransactions() throws UserException {
         List<TransactionState> readyPublishTransactionState = new ArrayList<>();
-        List<TransactionState> allCommittedTransactionState = null;
-        writeLock();
-        try {
-            // only send task to committed transaction
-            allCommittedTransactionState = idToTransactionState.values().stream()
-                    .filter(transactionState -> (transactionState.getTransactionStatus() == TransactionStatus.COMMITTED))
-                    .collect(Collectors.toList());
-            for (TransactionState transactionState : allCommittedTransactionState) {
-                long dbId = transactionState.getDbId();
-                Database db = catalog.getDb(dbId);
-                if (null == db) {
-                    transactionState.setTransactionStatus(TransactionStatus.ABORTED);
-                    unprotectUpsertTransactionState(transactionState);
-                    continue;
+        List<TransactionState> allCommittedTransactionState = Lists.newArrayList();
+        for (DatabaseTransactionMgr dbTransactionMgr : dbIdToDatabaseTransactionMgrs.values()) {
+            Database db = catalog.getDb(dbTransactionMgr.getDbId());
+            if (null == db) {
+                dbTransactionMgr.writeLock();
+                try {
+                    for (TransactionState transactionState : dbTransactionMgr.getTransactionStates()) {
+                        if (transactionState.getTransactionStatus() == TransactionStatus.COMMITTED) {
+                            transactionState.setTransactionStatus(TransactionStatus.ABORTED);
+                            unprotectUpsertTransactionState(transactionState);
+                        }
+                    }
+                } finally {
+                    dbTransactionMgr.writeUnlock();
                 }
+                continue;
+            }
+            dbTransactionMgr.readLock();
+            try {
+                // only send task to committed transaction
+                for (TransactionState transactionState : dbTransactionMgr.getTransactionStates()) {
+                    if (transactionState.getTransactionStatus() == TransactionStatus.COMMITTED) {
+                        allCommittedTransactionState.add(transactionState);
+                    }
+                }
+            } finally {
+                dbTransactionMgr.readUnlock();
             }
-        } finally {
-            writeUnlock();
         }
         
         for (TransactionState transactionState : allCommittedTransactionState) {
@@ -553,9 +623,13 @@ public class GlobalTransactionMgr {
             if (null == db) {
                 continue;
             }
+            DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+            if (dbTransactionMgr == null) {
+                continue;
+            }
             db.readLock();
             try {
-                readLock();
+                dbTransactionMgr.readLock();
                 try {
                     for (TableCommitInfo tableCommitInfo : transactionState.getIdToTableCommitInfos().values()) {
                         OlapTable table = (OlapTable) db.getTable(tableCommitInfo.getTableId());
@@ -585,7 +659,7 @@ public class GlobalTransactionMgr {
                         readyPublishTransactionState.add(transactionState);
                     }
                 } finally {
-                    readUnlock();
+                    dbTransactionMgr.readUnlock();
                 }
             } finally {
                 db.readUnlock();
@@ -612,9 +686,13 @@ public class GlobalTransactionMgr {
             errorReplicaIds.addAll(originalErrorReplicas);
         }
         
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            throw new UserException("transaction not found");
+        }
         Database db = catalog.getDb(transactionState.getDbId());
         if (db == null) {
-            writeLock();
+            dbTransactionMgr.writeLock();
             try {
                 transactionState.setTransactionStatus(TransactionStatus.ABORTED);
                 transactionState.setReason("db is dropped");
@@ -622,7 +700,7 @@ public class GlobalTransactionMgr {
                 unprotectUpsertTransactionState(transactionState);
                 return;
             } finally {
-                writeUnlock();
+                dbTransactionMgr.writeUnlock();
             }
         }
         db.writeLock();
@@ -729,7 +807,7 @@ public class GlobalTransactionMgr {
                 return;
             }
             boolean txnOperated = false;
-            writeLock();
+            dbTransactionMgr.writeLock();
             try {
                 transactionState.setErrorReplicas(errorReplicaIds);
                 transactionState.setFinishTime(System.currentTimeMillis());
@@ -737,7 +815,7 @@ public class GlobalTransactionMgr {
                 unprotectUpsertTransactionState(transactionState);
                 txnOperated = true;
             } finally {
-                writeUnlock();
+                dbTransactionMgr.writeUnlock();
                 transactionState.afterStateTransform(TransactionStatus.VISIBLE, txnOperated);
             }
             updateCatalogAfterVisible(transactionState, db);
@@ -751,20 +829,24 @@ public class GlobalTransactionMgr {
     // check if there exists a load job before the endTransactionId have all finished
     // load job maybe started but could not know the affected table id, so that we not check by table
     public boolean isPreviousTransactionsFinished(long endTransactionId, long dbId) {
-        readLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            return true;
+        }
+        dbTransactionMgr.readLock();
         try {
-            for (Map.Entry<Long, TransactionState> entry : idToTransactionState.entrySet()) {
-                if (entry.getValue().getDbId() != dbId || !entry.getValue().isRunning()) {
+            for (TransactionState transactionState : dbTransactionMgr.getTransactionStates()) {
+                if (!transactionState.isRunning()) {
                     continue;
                 }
-                if (entry.getKey() <= endTransactionId) {
+                if (transactionState.getTransactionId() <= endTransactionId) {
                     LOG.debug("find a running txn with txn_id={} on db: {}, less than watermark txn_id {}",
-                            entry.getKey(), dbId, endTransactionId);
+                            transactionState.getTransactionId(), dbId, endTransactionId);
                     return false;
                 }
             }
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
         return true;
     }
@@ -782,26 +864,31 @@ public class GlobalTransactionMgr {
         // to avoid dead lock (transaction lock and load lock), we do this in 3 phases
         // 1. get all related db ids of txn in idToTransactionState
         Set<Long> dbIds = Sets.newHashSet();
-        readLock();
-        try {
-            for (TransactionState transactionState : idToTransactionState.values()) {
-                if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED
-                        || transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
-                    if ((currentMillis - transactionState.getFinishTime()) / 1000 > Config.label_keep_max_second) {
-                        dbIds.add(transactionState.getDbId());
-                    }
-                } else {
-                    // check if job is also deleted
-                    // streaming insert stmt not add to fe load job, should use this method to
-                    // recycle the timeout insert stmt load job
-                    if (transactionState.getTransactionStatus() == TransactionStatus.PREPARE
-                            && currentMillis - transactionState.getPrepareTime() > transactionState.getTimeoutMs()) {
-                        dbIds.add(transactionState.getDbId());
+        for (DatabaseTransactionMgr dbTransactionMgr : dbIdToDatabaseTransactionMgrs.values()) {
+            dbTransactionMgr.readLock();
+            try {
+                for (TransactionState transactionState : dbTransactionMgr.getTransactionStates()) {
+                    if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED
+                            || transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
+                        if ((currentMillis - transactionState.getFinishTime()) / 1000 > Config.label_keep_max_second) {
+                            dbIds.add(transactionState.getDbId());
+                            break;
+                        }
+                    } else {
+                        // check if job is also deleted
+                        // streaming insert stmt not add to fe load job, should use this method to
+                        // recycle the timeout insert stmt load job
+                        if (transactionState.getTransactionStatus() == TransactionStatus.PREPARE
+                                && currentMillis - transactionState.getPrepareTime()
+                                > transactionState.getTimeoutMs()) {
+                            dbIds.add(transactionState.getDbId());
+                            break;
+                        }
                     }
                 }
+            } finally {
+                dbTransactionMgr.readUnlock();
             }
-        } finally {
-            readUnlock();
         }
 
         // 2. get all load jobs' txn id of these databases
@@ -814,44 +901,50 @@ public class GlobalTransactionMgr {
 
         // 3. use dbIdToTxnIds to remove old transactions, without holding load locks again
         List<TransactionState> abortedTxns = Lists.newArrayList();
-        writeLock();
-        try {
-            List<Long> transactionsToDelete = Lists.newArrayList();
-            for (TransactionState transactionState : idToTransactionState.values()) {
-                if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED
-                        || transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
-                    if ((currentMillis - transactionState.getFinishTime()) / 1000 > Config.label_keep_max_second) {
-                        // if this txn is not from front end then delete it immediately
-                        // if this txn is from front end but could not find in job list, then delete it immediately
-                        if (transactionState.getSourceType() != LoadJobSourceType.FRONTEND
-                                || !checkTxnHasRelatedJob(transactionState, dbIdToTxnIds)) {
-                            transactionsToDelete.add(transactionState.getTransactionId());
+        for (DatabaseTransactionMgr dbTransactionMgr : dbIdToDatabaseTransactionMgrs.values()) {
+            if (!dbIds.contains(dbTransactionMgr.getDbId())) {
+                continue;
+            }
+            dbTransactionMgr.writeLock();
+            try {
+                List<Long> transactionsToDelete = Lists.newArrayList();
+                for (TransactionState transactionState : dbTransactionMgr.getTransactionStates()) {
+                    if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED
+                            || transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
+                        if ((currentMillis - transactionState.getFinishTime()) / 1000 > Config.label_keep_max_second) {
+                            // if this txn is not from front end then delete it immediately
+                            // if this txn is from front end but could not find in job list, then delete it immediately
+                            if (transactionState.getSourceType() != LoadJobSourceType.FRONTEND
+                                    || !checkTxnHasRelatedJob(transactionState, dbIdToTxnIds)) {
+                                transactionsToDelete.add(transactionState.getTransactionId());
+                            }
                         }
-                    }
-                } else {
-                    // check if job is also deleted
-                    // streaming insert stmt not add to fe load job, should use this method to
-                    // recycle the timeout insert stmt load job
-                    if (transactionState.getTransactionStatus() == TransactionStatus.PREPARE
-                            && currentMillis - transactionState.getPrepareTime() > transactionState.getTimeoutMs()) {
-                        if ((transactionState.getSourceType() != LoadJobSourceType.FRONTEND
-                                || !checkTxnHasRelatedJob(transactionState, dbIdToTxnIds))) {
-                            transactionState.setTransactionStatus(TransactionStatus.ABORTED);
-                            transactionState.setFinishTime(System.currentTimeMillis());
-                            transactionState.setReason("transaction is timeout and is cancelled automatically");
-                            unprotectUpsertTransactionState(transactionState);
-                            abortedTxns.add(transactionState);
+                    } else {
+                        // check if job is also deleted
+                        // streaming insert stmt not add to fe load job, should use this method to
+                        // recycle the timeout insert stmt load job
+                        if (transactionState.getTransactionStatus() == TransactionStatus.PREPARE
+                                && currentMillis - transactionState.getPrepareTime()
+                                > transactionState.getTimeoutMs()) {
+                            if ((transactionState.getSourceType() != LoadJobSourceType.FRONTEND
+                                    || !checkTxnHasRelatedJob(transactionState, dbIdToTxnIds))) {
+                                transactionState.setTransactionStatus(TransactionStatus.ABORTED);
+                                transactionState.setFinishTime(System.currentTimeMillis());
+                                transactionState.setReason("transaction is timeout and is cancelled automatically");
+                                unprotectUpsertTransactionState(transactionState);
+                                abortedTxns.add(transactionState);
+                            }
                         }
                     }
                 }
+
+                for (Long transId : transactionsToDelete) {
+                    deleteTransaction(transId);
+                    LOG.info("transaction [" + transId + "] is expired, remove it from transaction table");
+                }
+            } finally {
+                dbTransactionMgr.writeUnlock();
             }
-            
-            for (Long transId : transactionsToDelete) {
-                deleteTransaction(transId);
-                LOG.info("transaction [" + transId + "] is expired, remove it from transaction table");
-            }
-        } finally {
-            writeUnlock();
         }
 
         for (TransactionState abortedTxn : abortedTxns) {
@@ -878,36 +971,20 @@ public class GlobalTransactionMgr {
     }
 
     public TransactionState getTransactionState(long transactionId) {
-        readLock();
-        try {
-            return idToTransactionState.get(transactionId);
-        } finally {
-            readUnlock();
-        }
+        return idToTransactionState.get(transactionId);
     }
     
     public void setEditLog(EditLog editLog) {
         this.editLog = editLog;
         this.idGenerator.setEditLog(editLog);
     }
-    
-    private void readLock() {
-        this.transactionLock.readLock().lock();
-    }
-    
-    private void readUnlock() {
-        this.transactionLock.readLock().unlock();
-    }
-    
-    private void writeLock() {
-        this.transactionLock.writeLock().lock();
-    }
-    
-    private void writeUnlock() {
-        this.transactionLock.writeLock().unlock();
+
+    public void setPublishVersionDaemon(PublishVersionDaemon publishVersionDaemon) {
+        this.publishVersionDaemon = publishVersionDaemon;
     }
     
     // for add/update/delete TransactionState
+    // must hold the write lock of the db's DatabaseTransactionMgr
     private void unprotectUpsertTransactionState(TransactionState transactionState) {
         if (transactionState.getTransactionStatus() != TransactionStatus.PREPARE
                 || transactionState.getSourceType() == LoadJobSourceType.FRONTEND) {
@@ -917,9 +994,14 @@ public class GlobalTransactionMgr {
             // The FRONTEND type txn is committed and running asynchronously, so we have to persist it.
             editLog.logInsertTransactionState(transactionState);
         }
+        putTransactionState(getOrCreateDatabaseTransactionMgr(transactionState.getDbId()),
+                            transactionState.getPreStatus(), transactionState);
+    }
+
+    private void putTransactionState(DatabaseTransactionMgr dbTransactionMgr, TransactionStatus preStatus,
+                                     TransactionState transactionState) {
+        dbTransactionMgr.putTransactionState(preStatus, transactionState);
         idToTransactionState.put(transactionState.getTransactionId(), transactionState);
-        updateTxnLabels(transactionState);
-        updateDBRunningTxnNum(transactionState.getPreStatus(), transactionState);
     }
 
     private void unprotectedCommitTransaction(TransactionState transactionState, Set<Long> errorReplicaIds,
@@ -981,7 +1063,8 @@ public class GlobalTransactionMgr {
     // for replay idToTransactionState
     // check point also run transaction cleaner, the cleaner maybe concurrently modify id to 
     public void replayUpsertTransactionState(TransactionState transactionState) {
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getOrCreateDatabaseTransactionMgr(transactionState.getDbId());
+        dbTransactionMgr.writeLock();
         try {
             // set transaction status will call txn state change listener
             transactionState.replaySetTransactionStatus();
@@ -993,23 +1076,27 @@ public class GlobalTransactionMgr {
                 LOG.debug("replay a visible transaction {}", transactionState);
                 updateCatalogAfterVisible(transactionState, db);
             }
-            TransactionState preTxnState = idToTransactionState.get(transactionState.getTransactionId());
-            idToTransactionState.put(transactionState.getTransactionId(), transactionState);
-            updateTxnLabels(transactionState);
-            updateDBRunningTxnNum(preTxnState == null ? null : preTxnState.getTransactionStatus(),
-                                  transactionState);
+            TransactionState preTxnState = dbTransactionMgr.getTransactionState(transactionState.getTransactionId());
+            putTransactionState(dbTransactionMgr, preTxnState == null ? null : preTxnState.getTransactionStatus(),
+                                transactionState);
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
         }
     }
     
     public void replayDeleteTransactionState(TransactionState transactionState) {
-        writeLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            idToTransactionState.remove(transactionState.getTransactionId());
+            return;
+        }
+        dbTransactionMgr.writeLock();
         try {
+            dbTransactionMgr.removeTransactionState(transactionState);
             idToTransactionState.remove(transactionState.getTransactionId());
-            dbIdToTxnLabels.remove(transactionState.getDbId(), transactionState.getLabel());
+            removeDatabaseTransactionMgrIfUnused(dbTransactionMgr);
         } finally {
-            writeUnlock();
+            dbTransactionMgr.writeUnlock();
         }
     }
     
@@ -1118,91 +1205,66 @@ public class GlobalTransactionMgr {
         return true;
     }
     
-    private void updateTxnLabels(TransactionState transactionState) {
-        // if the transaction is aborted, then its label could be reused
-        if (transactionState.getTransactionStatus() == TransactionStatus.ABORTED) {
-            dbIdToTxnLabels.remove(transactionState.getDbId(), transactionState.getLabel());
-        } else {
-            dbIdToTxnLabels.put(transactionState.getDbId(), transactionState.getLabel(),
-                                transactionState.getTransactionId());
-        }
-    }
-    
-    private void updateDBRunningTxnNum(TransactionStatus preStatus, TransactionState curTxnState) {
-        int dbRunningTxnNum = 0;
-        if (runningTxnNums.get(curTxnState.getDbId()) != null) {
-            dbRunningTxnNum = runningTxnNums.get(curTxnState.getDbId());
-        }
-        if (preStatus == null
-                && (curTxnState.getTransactionStatus() == TransactionStatus.PREPARE
-                || curTxnState.getTransactionStatus() == TransactionStatus.COMMITTED)) {
-            ++dbRunningTxnNum;
-            runningTxnNums.put(curTxnState.getDbId(), dbRunningTxnNum);
-        } else if (preStatus != null
-                && (preStatus == TransactionStatus.PREPARE
-                || preStatus == TransactionStatus.COMMITTED)
-                && (curTxnState.getTransactionStatus() == TransactionStatus.VISIBLE
-                || curTxnState.getTransactionStatus() == TransactionStatus.ABORTED)) {
-            --dbRunningTxnNum;
-            if (dbRunningTxnNum < 1) {
-                runningTxnNums.remove(curTxnState.getDbId());
-            } else {
-                runningTxnNums.put(curTxnState.getDbId(), dbRunningTxnNum);
-            }
-        }
-    }
-    
     public List<List<Comparable>> getDbInfo() {
         List<List<Comparable>> infos = new ArrayList<List<Comparable>>();
-        readLock();
-        try {
-            Set<Long> dbIds = new HashSet<>();
-            for (TransactionState transactionState : idToTransactionState.values()) {
-                dbIds.add(transactionState.getDbId());
-            }
-            for (long dbId : dbIds) {
-                List<Comparable> info = new ArrayList<Comparable>();
-                info.add(dbId);
-                Database db = Catalog.getInstance().getDb(dbId);
-                if (db == null) {
+        for (DatabaseTransactionMgr dbTransactionMgr : dbIdToDatabaseTransactionMgrs.values()) {
+            dbTransactionMgr.readLock();
+            try {
+                if (dbTransactionMgr.getTransactionNum() == 0) {
                     continue;
                 }
-                info.add(db.getFullName());
-                infos.add(info);
+            } finally {
+                dbTransactionMgr.readUnlock();
             }
-        } finally {
-            readUnlock();
+            long dbId = dbTransactionMgr.getDbId();
+            List<Comparable> info = new ArrayList<Comparable>();
+            info.add(dbId);
+            Database db = Catalog.getInstance().getDb(dbId);
+            if (db == null) {
+                continue;
+            }
+            info.add(db.getFullName());
+            infos.add(info);
         }
         return infos;
     }
     
     public List<List<String>> getDbTransStateInfo(long dbId) {
         List<List<String>> infos = Lists.newArrayList();
-        readLock();
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            infos.add(Lists.newArrayList("running", "0"));
+            infos.add(Lists.newArrayList("finished", "0"));
+            return infos;
+        }
+        dbTransactionMgr.readLock();
         try {
-            infos.add(Lists.newArrayList("running", String.valueOf(runningTxnNums.getOrDefault(dbId, 0))));
-            long finishedNum = idToTransactionState.values().stream().filter(
-                    t -> (t.getDbId() == dbId && t.getTransactionStatus().isFinalStatus())).count();
+            infos.add(Lists.newArrayList("running", String.valueOf(dbTransactionMgr.getRunningTxnNum())));
+            long finishedNum = dbTransactionMgr.getTransactionStates().stream().filter(
+                    t -> t.getTransactionStatus().isFinalStatus()).count();
             infos.add(Lists.newArrayList("finished", String.valueOf(finishedNum)));
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
         return infos;
     }
 
     public List<List<String>> getDbTransInfo(long dbId, boolean running, int limit) throws AnalysisException {
         List<List<String>> infos = new ArrayList<List<String>>();
-        readLock();
+        Database db = Catalog.getInstance().getDb(dbId);
+        if (db == null) {
+            throw new AnalysisException("Database[" + dbId + "] does not exist");
+        }
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(dbId);
+        if (dbTransactionMgr == null) {
+            return infos;
+        }
+        dbTransactionMgr.readLock();
         try {
-            Database db = Catalog.getInstance().getDb(dbId);
-            if (db == null) {
-                throw new AnalysisException("Database[" + dbId + "] does not exist");
-            }
-
             // get transaction order by txn id desc limit 'limit'
-            idToTransactionState.values().stream()
-                    .filter(t -> (t.getDbId() == dbId && (running ? !t.getTransactionStatus().isFinalStatus()
-                            : t.getTransactionStatus().isFinalStatus()))).sorted(TransactionState.TXN_ID_COMPARATOR)
+            dbTransactionMgr.getTransactionStates().stream()
+                    .filter(t -> (running ? !t.getTransactionStatus().isFinalStatus()
+                            : t.getTransactionStatus().isFinalStatus())).sorted(TransactionState.TXN_ID_COMPARATOR)
                     .limit(limit)
                     .forEach(t -> {
                         List<String> info = new ArrayList<String>();
@@ -1221,20 +1283,23 @@ public class GlobalTransactionMgr {
                         infos.add(info);
                     });
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
         return infos;
     }
     
     public List<List<Comparable>> getTableTransInfo(long txnId) throws AnalysisException {
         List<List<Comparable>> tableInfos = new ArrayList<List<Comparable>>();
-        readLock();
+        TransactionState transactionState = idToTransactionState.get(txnId);
+        if (null == transactionState) {
+            throw new AnalysisException("Transaction[" + txnId + "] does not exist.");
+        }
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            throw new AnalysisException("Transaction[" + txnId + "] does not exist.");
+        }
+        dbTransactionMgr.readLock();
         try {
-            TransactionState transactionState = idToTransactionState.get(txnId);
-            if (null == transactionState) {
-                throw new AnalysisException("Transaction[" + txnId + "] does not exist.");
-            }
-
             for (Map.Entry<Long, TableCommitInfo> entry : transactionState.getIdToTableCommitInfos().entrySet()) {
                 List<Comparable> tableInfo = new ArrayList<Comparable>();
                 tableInfo.add(entry.getKey());
@@ -1243,7 +1308,7 @@ public class GlobalTransactionMgr {
                 tableInfos.add(tableInfo);
             }
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
         return tableInfos;
     }
@@ -1251,12 +1316,16 @@ public class GlobalTransactionMgr {
     public List<List<Comparable>> getPartitionTransInfo(long tid, long tableId)
             throws AnalysisException {
         List<List<Comparable>> partitionInfos = new ArrayList<List<Comparable>>();
-        readLock();
+        TransactionState transactionState = idToTransactionState.get(tid);
+        if (null == transactionState) {
+            throw new AnalysisException("Transaction[" + tid + "] does not exist.");
+        }
+        DatabaseTransactionMgr dbTransactionMgr = getDatabaseTransactionMgr(transactionState.getDbId());
+        if (dbTransactionMgr == null) {
+            throw new AnalysisException("Transaction[" + tid + "] does not exist.");
+        }
+        dbTransactionMgr.readLock();
         try {
-            TransactionState transactionState = idToTransactionState.get(tid);
-            if (null == transactionState) {
-                throw new AnalysisException("Transaction[" + tid + "] does not exist.");
-            }
             TableCommitInfo tableCommitInfo = transactionState.getIdToTableCommitInfos().get(tableId);
             Map<Long, PartitionCommitInfo> idToPartitionCommitInfo = tableCommitInfo.getIdToPartitionCommitInfo();
             for (Map.Entry<Long, PartitionCommitInfo> entry : idToPartitionCommitInfo.entrySet()) {
@@ -1267,7 +1336,7 @@ public class GlobalTransactionMgr {
                 partitionInfos.add(partitionInfo);
             }
         } finally {
-            readUnlock();
+            dbTransactionMgr.readUnlock();
         }
         return partitionInfos;
     }
@@ -1295,11 +1364,10 @@ public class GlobalTransactionMgr {
         for (int i = 0; i < numTransactions; ++i) {
             TransactionState transactionState = new TransactionState();
             transactionState.readFields(in);
-            TransactionState preTxnState = idToTransactionState.get(transactionState.getTransactionId());
-            idToTransactionState.put(transactionState.getTransactionId(), transactionState);
-            updateTxnLabels(transactionState);
-            updateDBRunningTxnNum(preTxnState == null ? null : preTxnState.getTransactionStatus(),
-                                  transactionState);
+            DatabaseTransactionMgr dbTransactionMgr = getOrCreateDatabaseTransactionMgr(transactionState.getDbId());
+            TransactionState preTxnState = dbTransactionMgr.getTransactionState(transactionState.getTransactionId());
+            putTransactionState(dbTransactionMgr, preTxnState == null ? null : preTxnState.getTransactionStatus(),
+                                transactionState);
         }
         idGenerator.readFields(in);
     }
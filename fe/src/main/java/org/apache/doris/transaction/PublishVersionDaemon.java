@@ -18,7 +18,13 @@
 package org.apache.doris.transaction;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.Database;
+import org.apache.doris.catalog.MaterializedIndex;
+import org.apache.doris.catalog.MaterializedIndex.IndexExtState;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
 import org.apache.doris.catalog.Replica;
+import org.apache.doris.catalog.Tablet;
 import org.apache.doris.catalog.TabletInvertedIndex;
 import org.apache.doris.common.Config;
 import org.apache.doris.common.UserException;
@@ -31,12 +37,14 @@ import org.apache.doris.thrift.TPartitionVersionInfo;
 import org.apache.doris.thrift.TTaskType;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,10 +52,24 @@ import java.util.Set;
 public class PublishVersionDaemon extends Daemon {
     
     private static final Logger LOG = LogManager.getLogger(PublishVersionDaemon.class);
+
+    // transactions having publish tasks reported finished since last round.
+    // they are checked in next round without waiting, see publishVersion().
+    private final Set<Long> publishReportedTxnIds = Sets.newConcurrentHashSet();
     
     public PublishVersionDaemon() {
         super("PUBLISH_VERSION", Config.publish_version_interval_ms);
     }
+
+    /*
+     * Called when a backend reports that a publish version task is finished.
+     * Wake up the daemon to try to finish the transaction, so that the load is visible
+     * as soon as all backends have published it, instead of after the next rounds.
+     */
+    public void onPublishTaskFinished(PublishVersionTask task) {
+        publishReportedTxnIds.add(task.getTransactionId());
+        wakeup();
+    }
     
     protected void runOneCycle() {
         try {
@@ -58,22 +80,24 @@ public class PublishVersionDaemon extends Daemon {
     }
     
     private void publishVersion() throws UserException {
+        // take the reported transactions before getting ready transactions, so that no report is missed
+        Set<Long> reportedTxnIds = Sets.newHashSet();
+        Iterator<Long> iter = publishReportedTxnIds.iterator();
+        while (iter.hasNext()) {
+            reportedTxnIds.add(iter.next());
+            iter.remove();
+        }
+
         GlobalTransactionMgr globalTransactionMgr = Catalog.getCurrentGlobalTransactionMgr();
         List<TransactionState> readyTransactionStates = globalTransactionMgr.getReadyToPublishTransactions();
         if (readyTransactionStates == null || readyTransactionStates.isEmpty()) {
             return;
         }
-        // TODO yiguolei: could publish transaction state according to multi-tenant cluster info
-        // but should do more work. for example, if a table is migrate from one cluster to another cluster
-        // should publish to two clusters.
-        // attention here, we publish transaction state to all backends including dead backend, if not publish to dead backend
-        // then transaction manager will treat it as success
-        List<Long> allBackends = Catalog.getCurrentSystemInfo().getBackendIds(false);
-        if (allBackends.isEmpty()) {
-            LOG.warn("some transaction state need to publish, but no backend exists");
-            return;
-        }
-        // every backend-transaction identified a single task
+        // attention here, we publish transaction state to all backends having replicas of the committed partitions,
+        // including dead backend, if not publish to dead backend then transaction manager will treat it as success
+        Map<Long, Set<Long>> partitionToBackends = getBackendsOfUnrecordedTransactions(readyTransactionStates);
+        // every backend-transaction identified a single task.
+        // tasks of all ready transactions are sent in one batch, so a backend receives all of them in one rpc.
         AgentBatchTask batchTask = new AgentBatchTask();
         // traverse all ready transactions and dispatch the publish version task to all backends
         for (TransactionState transactionState : readyTransactionStates) {
@@ -99,11 +123,16 @@ public class PublishVersionDaemon extends Daemon {
             }
             Set<Long> publishBackends = transactionState.getPublishVersionTasks().keySet();
             // public version tasks are not persisted in catalog, so publishBackends may be empty.
-            // so we have to try publish to all backends;
+            // so we have to publish to the backends found in tablet inverted index.
             if (publishBackends.isEmpty()) {
                 // could not just add to it, should new a new object, or the back map will destroyed
                 publishBackends = Sets.newHashSet();
-                publishBackends.addAll(allBackends);
+                for (PartitionCommitInfo commitInfo : partitionCommitInfos) {
+                    Set<Long> backendIds = partitionToBackends.get(commitInfo.getPartitionId());
+                    if (backendIds != null) {
+                        publishBackends.addAll(backendIds);
+                    }
+                }
             }
 
             for (long backendId : publishBackends) {
@@ -127,9 +156,12 @@ public class PublishVersionDaemon extends Daemon {
         TabletInvertedIndex tabletInvertedIndex = Catalog.getCurrentInvertedIndex();
         // try to finish the transaction, if failed just retry in next loop
         long currentTime = System.currentTimeMillis();
+        boolean hasVisibleTxn = false;
         for (TransactionState transactionState : readyTransactionStates) {
-            if (currentTime - transactionState.getPublishVersionTime() < Config.publish_version_interval_ms * 2) {
-                // wait 2 rounds before handling publish result
+            boolean justReported = reportedTxnIds.contains(transactionState.getTransactionId());
+            long publishWaitMs = currentTime - transactionState.getPublishVersionTime();
+            if (!justReported && publishWaitMs < Config.publish_version_interval_ms * 2) {
+                // wait 2 rounds before handling publish result, unless some tasks are just reported finished
                 continue;
             }
             Map<Long, PublishVersionTask> transTasks = transactionState.getPublishVersionTasks();
@@ -217,10 +249,63 @@ public class PublishVersionDaemon extends Daemon {
             }
 
             if (transactionState.getTransactionStatus() == TransactionStatus.VISIBLE) {
+                hasVisibleTxn = true;
                 for (PublishVersionTask task : transactionState.getPublishVersionTasks().values()) {
                     AgentTaskQueue.removeTask(task.getBackendId(), TTaskType.PUBLISH_VERSION, task.getSignature());
+                    if (!task.isFinished() || (task.getErrorTablets() != null && !task.getErrorTablets().isEmpty())) {
+                        // the version is published again after it is found by a full tablet report
+                        Catalog.getCurrentCatalog().getReportHandler().requestFullTabletReport(task.getBackendId());
+                    }
                 }
             }
         } // end for readyTransactionStates
+
+        if (hasVisibleTxn) {
+            // the following transactions on the same partitions are ready to publish now
+            wakeup();
+        }
+    }
+
+    /*
+     * The backends to publish are recorded when transactions are committed, but they are not persisted.
+     * For the transactions without them, eg. replayed after FE restarts, find the backends having replicas
+     * of the committed partitions from the tablets of the partitions in catalog.
+     */
+    private Map<Long, Set<Long>> getBackendsOfUnrecordedTransactions(List<TransactionState> transactionStates) {
+        Map<Long, Set<Long>> partitionToBackends = Maps.newHashMap();
+        for (TransactionState transactionState : transactionStates) {
+            if (transactionState.hasSendTask() || !transactionState.getPublishVersionTasks().isEmpty()) {
+                continue;
+            }
+            Database db = Catalog.getCurrentCatalog().getDb(transactionState.getDbId());
+            if (db == null) {
+                continue;
+            }
+            db.readLock();
+            try {
+                for (TableCommitInfo tableCommitInfo : transactionState.getIdToTableCommitInfos().values()) {
+                    OlapTable table = (OlapTable) db.getTable(tableCommitInfo.getTableId());
+                    if (table == null) {
+                        continue;
+                    }
+                    for (long partitionId : tableCommitInfo.getIdToPartitionCommitInfo().keySet()) {
+                        Partition partition = table.getPartition(partitionId);
+                        if (partition == null || partitionToBackends.containsKey(partitionId)) {
+                            continue;
+                        }
+                        Set<Long> backendIds = Sets.newHashSet();
+                        for (MaterializedIndex index : partition.getMaterializedIndices(IndexExtState.ALL)) {
+                            for (Tablet tablet : index.getTablets()) {
+                                backendIds.addAll(tablet.getBackendIds());
+                            }
+                        }
+                        partitionToBackends.put(partitionId, backendIds);
+                    }
+                }
+            } finally {
+                db.readUnlock();
+            }
+        }
+        return partitionToBackends;
     }
 }
@@ -36,6 +36,7 @@ import org.apache.doris.persist.EditLog;
 import org.apache.doris.qe.ConnectContext;
 import org.apache.doris.system.SystemInfoService;
 import org.apache.doris.task.AgentBatchTask;
+import org.apache.doris.task.AgentTask;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
@@ -164,6 +165,12 @@ public class ColocateTableTest {
             void run() {
                 return;
             }
+
+            // tasks submitted by AgentTaskExecutor are sent by this
+            @Mock
+            boolean submitTasks(long backendId, List<AgentTask> tasks) {
+                return true;
+            }
         };
 
         new MockUp<CountDownLatch>() {
@@ -33,6 +33,7 @@ import org.apache.doris.persist.EditLog;
 import org.apache.doris.qe.ConnectContext;
 import org.apache.doris.system.SystemInfoService;
 import org.apache.doris.task.AgentBatchTask;
+import org.apache.doris.task.AgentTask;
 
 import com.google.common.collect.Lists;
 
@@ -128,6 +129,12 @@ public class CreateTableTest {
             void run() {
                 return;
             }
+
+            // tasks submitted by AgentTaskExecutor are sent by this
+            @Mock
+            boolean submitTasks(long backendId, List<AgentTask> tasks) {
+                return true;
+            }
         };
 
         new MockUp<CountDownLatch>() {
@@ -0,0 +1,128 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.common.FeConstants;
+import org.apache.doris.meta.MetaContext;
+import org.apache.doris.persist.SectionedImage;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LazyDatabaseIndexTest {
+    private File file;
+    private File newFile;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("lazy_db_image", ".test");
+        newFile = File.createTempFile("lazy_db_image_new", ".test");
+        executor = Executors.newFixedThreadPool(2);
+        MetaContext metaContext = new MetaContext();
+        metaContext.setMetaVersion(FeConstants.meta_version);
+        metaContext.setThreadLocalInfo();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        file.delete();
+        newFile.delete();
+        MetaContext.remove();
+    }
+
+    private void writeImage(File imageFile, List<Database> dbs) throws IOException {
+        List<LazyDatabaseIndex.Entry> entries = Lists.newArrayList();
+        for (Database db : dbs) {
+            entries.add(LazyDatabaseIndex.Entry.of(db));
+        }
+        SectionedImage.Writer writer = new SectionedImage.Writer(imageFile, executor, 2);
+        writer.addSection("dbIndex", dos -> LazyDatabaseIndex.writeEntries(dos, entries));
+        for (Database db : dbs) {
+            writer.addSection("db", dos -> db.write(dos));
+        }
+        writer.finish();
+    }
+
+    @Test
+    public void testLoadWhenAccessed() throws IOException {
+        writeImage(file, Lists.newArrayList(new Database(10001, "default_cluster:db1"),
+                new Database(10002, "default_cluster:db2"), new Database(10003, "default_cluster:db3")));
+
+        SectionedImage.Reader reader = new SectionedImage.Reader(file);
+        List<LazyDatabaseIndex.Entry> entries = LazyDatabaseIndex.readEntries(reader, "dbIndex", "db");
+        Assert.assertEquals(3, entries.size());
+        Assert.assertNull(LazyDatabaseIndex.readEntries(reader, "noSuchIndex", "db"));
+
+        LazyDatabaseIndex index = new LazyDatabaseIndex(reader, FeConstants.meta_version, entries);
+        Assert.assertEquals(0, index.getLoadedDatabases().size());
+
+        // access by name or id only loads that database
+        Database db2 = index.getFullNameToDb().get("default_cluster:db2");
+        Assert.assertEquals(10002, db2.getId());
+        Assert.assertSame(db2, index.getIdToDb().get(10002L));
+        Assert.assertNull(index.getIdToDb().get(10004L));
+        Assert.assertEquals(1, index.getLoadedDatabases().size());
+        Assert.assertEquals(2, index.getUnloadedEntries().size());
+
+        // new database does not load the others
+        index.getIdToDb().put(10004L, new Database(10004, "default_cluster:db4"));
+        Assert.assertEquals(2, index.getLoadedDatabases().size());
+
+        // copy unloaded databases to a new image, and save the loaded ones
+        List<Database> loaded = index.getLoadedDatabases();
+        List<LazyDatabaseIndex.Entry> unloaded = index.getUnloadedEntries();
+        List<LazyDatabaseIndex.Entry> newEntries = Lists.newArrayList();
+        for (Database db : loaded) {
+            newEntries.add(LazyDatabaseIndex.Entry.of(db));
+        }
+        newEntries.addAll(unloaded);
+        SectionedImage.Writer writer = new SectionedImage.Writer(newFile, executor, 2);
+        writer.addSection("dbIndex", dos -> LazyDatabaseIndex.writeEntries(dos, newEntries));
+        for (Database db : loaded) {
+            writer.addSection("db", dos -> db.write(dos));
+        }
+        for (LazyDatabaseIndex.Entry entry : unloaded) {
+            writer.addRawSection("db", index.getImageFile(), entry.getSection());
+        }
+        writer.finish();
+
+        // iteration loads all databases
+        Assert.assertEquals(4, index.getIdToDb().size());
+        Assert.assertEquals(4, index.getFullNameToDb().values().size());
+        Assert.assertEquals(0, index.getUnloadedEntries().size());
+
+        SectionedImage.Reader newReader = new SectionedImage.Reader(newFile);
+        LazyDatabaseIndex newIndex = new LazyDatabaseIndex(newReader, FeConstants.meta_version,
+                LazyDatabaseIndex.readEntries(newReader, "dbIndex", "db"));
+        Assert.assertEquals(4, newIndex.getIdToDb().size());
+        Assert.assertEquals(10001, newIndex.getFullNameToDb().get("default_cluster:db1").getId());
+        Assert.assertEquals(10004, newIndex.getFullNameToDb().get("default_cluster:db4").getId());
+    }
+}
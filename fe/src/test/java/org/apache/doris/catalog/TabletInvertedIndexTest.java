@@ -0,0 +1,166 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.catalog;
+
+import org.apache.doris.catalog.Replica.ReplicaState;
+import org.apache.doris.thrift.TPartitionVersionInfo;
+import org.apache.doris.thrift.TStorageMedium;
+import org.apache.doris.thrift.TTablet;
+import org.apache.doris.thrift.TTabletInfo;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+public class TabletInvertedIndexTest {
+    private static final long BACKEND_ID = 10001L;
+    private static final int SCHEMA_HASH = 1234;
+    private static final int TABLET_NUM = 20;
+
+    private TabletInvertedIndex invertedIndex;
+
+    @Before
+    public void setUp() {
+        invertedIndex = new TabletInvertedIndex(4);
+        TabletMeta tabletMeta = new TabletMeta(1, 2, 3, 4, SCHEMA_HASH, TStorageMedium.HDD);
+        for (long tabletId = 0; tabletId < TABLET_NUM; tabletId++) {
+            invertedIndex.addTablet(tabletId, tabletMeta);
+            invertedIndex.addReplica(tabletId, new Replica(100 + tabletId, BACKEND_ID, 10L, 0L, SCHEMA_HASH,
+                    1024L, 10L, ReplicaState.NORMAL, 0, 0, 0, 0));
+        }
+    }
+
+    @Test
+    public void testShardedIndex() {
+        Assert.assertEquals(TABLET_NUM, invertedIndex.getTabletNumByBackendId(BACKEND_ID));
+        Assert.assertEquals(TABLET_NUM, invertedIndex.getTabletIdsByBackendId(BACKEND_ID).size());
+        Assert.assertEquals(TABLET_NUM,
+                invertedIndex.getTabletIdsByBackendIdAndStorageMedium(BACKEND_ID, TStorageMedium.HDD).size());
+        Assert.assertEquals(Long.valueOf(TABLET_NUM),
+                invertedIndex.getReplicaNumByBeIdAndStorageMedium(BACKEND_ID).get(TStorageMedium.HDD));
+        Assert.assertEquals(Long.valueOf(7), invertedIndex.getTabletIdByReplica(107));
+        Assert.assertEquals(3, invertedIndex.getPartitionId(7));
+        Assert.assertEquals(Sets.newHashSet(BACKEND_ID), invertedIndex.getTabletBackends(7));
+
+        invertedIndex.deleteReplica(7, BACKEND_ID);
+        Assert.assertNull(invertedIndex.getTabletIdByReplica(107));
+        Assert.assertEquals(TABLET_NUM - 1, invertedIndex.getTabletNumByBackendId(BACKEND_ID));
+
+        invertedIndex.deleteTablet(8);
+        Assert.assertEquals(TabletInvertedIndex.NOT_EXIST_VALUE, invertedIndex.getDbId(8));
+        Assert.assertNull(invertedIndex.getTabletMetaByReplica(108));
+        Assert.assertEquals(TABLET_NUM - 2, invertedIndex.getTabletNumByBackendId(BACKEND_ID));
+    }
+
+    @Test
+    public void testTabletReport() {
+        // backend only reports the first half of tablets
+        Map<Long, TTablet> backendTablets = Maps.newHashMap();
+        for (long tabletId = 0; tabletId < TABLET_NUM / 2; tabletId++) {
+            TTabletInfo tabletInfo = new TTabletInfo();
+            tabletInfo.setTablet_id(tabletId);
+            tabletInfo.setSchema_hash(SCHEMA_HASH);
+            tabletInfo.setPartition_id(3);
+            tabletInfo.setVersion(tabletId % 2 == 0 ? 10L : 11L);
+            tabletInfo.setVersion_hash(0L);
+            TTablet tablet = new TTablet();
+            tablet.setTablet_infos(Lists.newArrayList(tabletInfo));
+            backendTablets.put(tabletId, tablet);
+        }
+
+        ListMultimap<Long, Long> tabletSyncMap = ArrayListMultimap.create();
+        ListMultimap<Long, Long> tabletDeleteFromMeta = ArrayListMultimap.create();
+        Set<Long> foundTabletsWithValidSchema = Sets.newHashSet();
+        Map<Long, TTabletInfo> foundTabletsWithInvalidSchema = Maps.newHashMap();
+        ListMultimap<TStorageMedium, Long> tabletMigrationMap = ArrayListMultimap.create();
+        Map<Long, ListMultimap<Long, TPartitionVersionInfo>> transactionsToPublish = Maps.newHashMap();
+        ListMultimap<Long, Long> transactionsToClear = ArrayListMultimap.create();
+        ListMultimap<Long, Long> tabletRecoveryMap = ArrayListMultimap.create();
+        invertedIndex.tabletReport(BACKEND_ID, backendTablets, null, Maps.newHashMap(), tabletSyncMap,
+                tabletDeleteFromMeta, foundTabletsWithValidSchema, foundTabletsWithInvalidSchema,
+                tabletMigrationMap, transactionsToPublish, transactionsToClear, tabletRecoveryMap,
+                HashMultimap.create());
+
+        Assert.assertEquals(TABLET_NUM / 2, foundTabletsWithValidSchema.size());
+        Assert.assertEquals(TABLET_NUM / 2, tabletDeleteFromMeta.get(1L).size());
+        // tablets with odd id have newer version on backend
+        Assert.assertEquals(TABLET_NUM / 4, tabletSyncMap.get(1L).size());
+        Assert.assertTrue(foundTabletsWithInvalidSchema.isEmpty());
+        Assert.assertTrue(tabletRecoveryMap.isEmpty());
+    }
+
+    @Test
+    public void testDeltaTabletReport() {
+        // backend reports a changed tablet, a tablet not in meta, and drops a tablet
+        Map<Long, TTablet> backendTablets = Maps.newHashMap();
+        for (long tabletId : new long[] {1L, TABLET_NUM + 1}) {
+            TTabletInfo tabletInfo = new TTabletInfo();
+            tabletInfo.setTablet_id(tabletId);
+            tabletInfo.setSchema_hash(SCHEMA_HASH);
+            tabletInfo.setPartition_id(3);
+            tabletInfo.setVersion(11L);
+            tabletInfo.setVersion_hash(0L);
+            TTablet tablet = new TTablet();
+            tablet.setTablet_infos(Lists.newArrayList(tabletInfo));
+            backendTablets.put(tabletId, tablet);
+        }
+
+        ListMultimap<Long, Long> tabletSyncMap = ArrayListMultimap.create();
+        ListMultimap<Long, Long> tabletDeleteFromMeta = ArrayListMultimap.create();
+        Set<Long> foundTabletsWithValidSchema = Sets.newHashSet();
+        invertedIndex.tabletReport(BACKEND_ID, backendTablets, Lists.newArrayList(2L), Maps.newHashMap(),
+                tabletSyncMap, tabletDeleteFromMeta, foundTabletsWithValidSchema, Maps.newHashMap(),
+                ArrayListMultimap.create(), Maps.newHashMap(), ArrayListMultimap.create(), ArrayListMultimap.create(),
+                HashMultimap.create());
+
+        // tablets not in the delta report are not diffed
+        Assert.assertEquals(Sets.newHashSet(1L), foundTabletsWithValidSchema);
+        Assert.assertEquals(Lists.newArrayList(1L), tabletSyncMap.get(1L));
+        Assert.assertEquals(Lists.newArrayList(2L), tabletDeleteFromMeta.get(1L));
+    }
+
+    @Test
+    public void testPartitionDirtyEpoch() {
+        long epoch = invertedIndex.getPartitionDirtyEpoch(3);
+        Assert.assertTrue(epoch > 0);
+        Assert.assertEquals(0, invertedIndex.getPartitionDirtyEpoch(5));
+
+        invertedIndex.deleteReplica(7, BACKEND_ID);
+        long newEpoch = invertedIndex.getPartitionDirtyEpoch(3);
+        Assert.assertTrue(newEpoch > epoch);
+
+        // other partitions are not affected
+        invertedIndex.addTablet(TABLET_NUM, new TabletMeta(1, 2, 5, 4, SCHEMA_HASH, TStorageMedium.HDD));
+        Assert.assertTrue(invertedIndex.getPartitionDirtyEpoch(5) > newEpoch);
+        Assert.assertEquals(newEpoch, invertedIndex.getPartitionDirtyEpoch(3));
+
+        // epoch is removed with the last tablet of the partition
+        invertedIndex.deleteTablet(TABLET_NUM);
+        Assert.assertEquals(0, invertedIndex.getPartitionDirtyEpoch(5));
+    }
+}
@@ -0,0 +1,95 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.clone;
+
+import org.apache.doris.clone.TabletSchedCtx.Priority;
+import org.apache.doris.clone.TabletSchedCtx.Type;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class PendingTabletQueueTest {
+
+    private TabletSchedCtx newTabletCtx(long partitionId, long tabletId, Priority priority, long lastVisitedTime) {
+        TabletSchedCtx tabletCtx = new TabletSchedCtx(Type.REPAIR, "default_cluster",
+                1, 2, partitionId, 4, tabletId, System.currentTimeMillis());
+        tabletCtx.setOrigPriority(priority);
+        tabletCtx.setLastVisitedTime(lastVisitedTime);
+        return tabletCtx;
+    }
+
+    @Test
+    public void testPollInPriorityOrder() {
+        PendingTabletQueue queue = new PendingTabletQueue();
+        Random random = new Random(0);
+        Priority[] priorities = Priority.values();
+        for (long tabletId = 0; tabletId < 1000; tabletId++) {
+            queue.offer(newTabletCtx(tabletId % 10, tabletId, priorities[random.nextInt(priorities.length)],
+                    random.nextInt(100)));
+        }
+        Assert.assertEquals(1000, queue.size());
+
+        TabletSchedCtx last = queue.poll();
+        for (int i = 1; i < 1000; i++) {
+            TabletSchedCtx tabletCtx = queue.poll();
+            Assert.assertTrue(last.compareTo(tabletCtx) <= 0);
+            last = tabletCtx;
+        }
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testSetPriority() {
+        PendingTabletQueue queue = new PendingTabletQueue();
+        for (long tabletId = 0; tabletId < 100; tabletId++) {
+            queue.offer(newTabletCtx(tabletId % 10, tabletId, Priority.NORMAL, tabletId));
+        }
+
+        Assert.assertEquals(20, queue.setPriority(1, 2, Lists.newArrayList(3L, 7L), Priority.VERY_HIGH));
+        // other table is not changed
+        Assert.assertEquals(0, queue.setPriority(1, 5, Lists.newArrayList(4L), Priority.VERY_HIGH));
+        for (int i = 0; i < 20; i++) {
+            TabletSchedCtx tabletCtx = queue.poll();
+            Assert.assertEquals(Priority.VERY_HIGH, tabletCtx.getDynamicPriority());
+            Assert.assertTrue(tabletCtx.getPartitionId() == 3L || tabletCtx.getPartitionId() == 7L);
+        }
+        Assert.assertEquals(Priority.NORMAL, queue.poll().getDynamicPriority());
+        Assert.assertEquals(79, queue.size());
+    }
+
+    @Test
+    public void testReplace() {
+        PendingTabletQueue queue = new PendingTabletQueue();
+        queue.offer(newTabletCtx(1, 1, Priority.LOW, 1));
+        queue.offer(newTabletCtx(1, 2, Priority.NORMAL, 1));
+        queue.offer(newTabletCtx(1, 1, Priority.HIGH, 1));
+        Assert.assertEquals(2, queue.count(t -> true));
+        Assert.assertEquals(2, queue.size());
+
+        TabletSchedCtx tabletCtx = queue.poll();
+        Assert.assertEquals(1, tabletCtx.getTabletId());
+        Assert.assertEquals(Priority.HIGH, tabletCtx.getDynamicPriority());
+        Assert.assertEquals(2, queue.poll().getTabletId());
+        Assert.assertNull(queue.poll());
+    }
+}
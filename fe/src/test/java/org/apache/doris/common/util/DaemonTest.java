@@ -0,0 +1,74 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class DaemonTest {
+
+    private static class CycleCounter extends Daemon {
+        private final Semaphore cycles = new Semaphore(0);
+
+        CycleCounter(long intervalMs) {
+            super("test daemon", intervalMs);
+        }
+
+        @Override
+        protected void runOneCycle() {
+            cycles.release();
+        }
+    }
+
+    @Test
+    public void testWakeup() throws InterruptedException {
+        // much longer than the test
+        CycleCounter daemon = new CycleCounter(3600 * 1000L);
+        daemon.start();
+        try {
+            Assert.assertTrue(daemon.cycles.tryAcquire(10, TimeUnit.SECONDS));
+            Assert.assertFalse(daemon.cycles.tryAcquire(500, TimeUnit.MILLISECONDS));
+
+            // next cycle runs without waiting for the interval
+            daemon.wakeup();
+            Assert.assertTrue(daemon.cycles.tryAcquire(10, TimeUnit.SECONDS));
+            Assert.assertFalse(daemon.cycles.tryAcquire(500, TimeUnit.MILLISECONDS));
+        } finally {
+            daemon.exit();
+            daemon.wakeup();
+        }
+    }
+
+    @Test
+    public void testWakeupDuringCycle() throws InterruptedException {
+        CycleCounter daemon = new CycleCounter(3600 * 1000L);
+        // requested before the first cycle, so the second cycle runs right after it
+        daemon.wakeup();
+        daemon.start();
+        try {
+            Assert.assertTrue(daemon.cycles.tryAcquire(2, 10, TimeUnit.SECONDS));
+            Assert.assertFalse(daemon.cycles.tryAcquire(500, TimeUnit.MILLISECONDS));
+        } finally {
+            daemon.exit();
+            daemon.wakeup();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.collect.Maps;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+public class LongLongHashMapTest {
+    @Test
+    public void testZeroKey() {
+        LongLongHashMap map = new LongLongHashMap();
+        Assert.assertEquals(-1L, map.get(0L, -1L));
+        map.put(0L, 5L);
+        map.put(1L, 6L);
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals(5L, map.get(0L, -1L));
+        Assert.assertTrue(map.remove(0L));
+        Assert.assertFalse(map.remove(0L));
+        Assert.assertEquals(1, map.size());
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertFalse(map.containsKey(1L));
+    }
+
+    @Test
+    public void testRandom() {
+        LongLongHashMap map = new LongLongHashMap();
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(1234);
+        for (int i = 0; i < 200000; i++) {
+            long key = random.nextInt(5000) - 100;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                expected.put(key, (long) i);
+                map.put(key, i);
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        for (long key = -100; key < 4900; key++) {
+            Long value = expected.get(key);
+            Assert.assertEquals(value == null ? -1L : value, map.get(key, -1L));
+        }
+    }
+}
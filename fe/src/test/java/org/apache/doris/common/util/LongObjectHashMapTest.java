@@ -0,0 +1,73 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.common.util;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+public class LongObjectHashMapTest {
+    @Test
+    public void testBasic() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(0L, "a"));
+        Assert.assertNull(map.put(-1L, "b"));
+        Assert.assertEquals("a", map.put(0L, "c"));
+        Assert.assertEquals(2, map.size());
+        Assert.assertEquals("c", map.get(0L));
+        Assert.assertEquals("b", map.get(-1L));
+        Assert.assertNull(map.get(1L));
+        Assert.assertEquals(Sets.newHashSet(0L, -1L), Sets.newHashSet(map.keyList()));
+
+        Assert.assertEquals("b", map.remove(-1L));
+        Assert.assertNull(map.remove(-1L));
+        Assert.assertFalse(map.containsKey(-1L));
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertNull(map.get(0L));
+    }
+
+    @Test
+    public void testRandom() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = Maps.newHashMap();
+        Random random = new Random(1234);
+        for (int i = 0; i < 200000; i++) {
+            // small key range, so there are many collisions and removals
+            long key = random.nextInt(5000) * 1024L;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                Assert.assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+        Assert.assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5000 * 1024L; key += 1024) {
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+        Map<Long, Long> actual = Maps.newHashMap();
+        map.forEach((key, value) -> actual.put(key, value));
+        Assert.assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,72 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.journal;
+
+import org.apache.doris.common.io.DataOutputBuffer;
+import org.apache.doris.common.io.Text;
+import org.apache.doris.persist.OperationType;
+
+import com.google.common.base.Strings;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+
+public class JournalEntityTest {
+
+    private DataOutputBuffer serialize(String text) throws IOException {
+        JournalEntity entity = new JournalEntity();
+        entity.setOpCode(OperationType.OP_SAVE_NEXTID);
+        entity.setData(new Text(text));
+        DataOutputBuffer buffer = new DataOutputBuffer(128);
+        entity.write(buffer);
+        return buffer;
+    }
+
+    private JournalEntity deserialize(byte[] data) throws IOException {
+        JournalEntity entity = new JournalEntity();
+        entity.readFields(new DataInputStream(new ByteArrayInputStream(data)));
+        return entity;
+    }
+
+    @Test
+    public void testCompress() throws IOException {
+        String text = Strings.repeat("load_label_20191010_", 1000);
+        DataOutputBuffer buffer = serialize(text);
+        byte[] compressed = JournalEntity.compress(buffer.getData(), buffer.getLength());
+        Assert.assertNotNull(compressed);
+        Assert.assertTrue(compressed.length < buffer.getLength() / 10);
+
+        JournalEntity entity = deserialize(compressed);
+        Assert.assertEquals(OperationType.OP_SAVE_NEXTID, entity.getOpCode());
+        Assert.assertEquals(text, entity.getData().toString());
+
+        // uncompressed entity can still be read
+        entity = deserialize(buffer.getData());
+        Assert.assertEquals(text, entity.getData().toString());
+    }
+
+    @Test
+    public void testNotCompressIfNotSmaller() throws IOException {
+        DataOutputBuffer buffer = serialize("1001");
+        Assert.assertNull(JournalEntity.compress(buffer.getData(), buffer.getLength()));
+    }
+}
@@ -0,0 +1,110 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.journal;
+
+import org.apache.doris.common.FeConstants;
+import org.apache.doris.common.io.DataOutputBuffer;
+import org.apache.doris.common.io.Text;
+import org.apache.doris.meta.MetaContext;
+import org.apache.doris.persist.OperationType;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+public class PrefetchJournalCursorTest {
+    private static final int JOURNAL_NUM = 1000;
+
+    private ExecutorService executor;
+    private MetaContext metaContext;
+    // journal of key i is at i - 1
+    private List<byte[]> journals = Lists.newArrayList();
+    private AtomicInteger sourceNum = new AtomicInteger(0);
+
+    @Before
+    public void setUp() throws IOException {
+        executor = Executors.newFixedThreadPool(4);
+        metaContext = new MetaContext();
+        metaContext.setMetaVersion(FeConstants.meta_version);
+        metaContext.setThreadLocalInfo();
+        for (int i = 1; i <= JOURNAL_NUM; i++) {
+            JournalEntity entity = new JournalEntity();
+            entity.setOpCode(OperationType.OP_SAVE_NEXTID);
+            entity.setData(new Text(Integer.toString(i)));
+            DataOutputBuffer buffer = new DataOutputBuffer(128);
+            entity.write(buffer);
+            journals.add(Arrays.copyOf(buffer.getData(), buffer.getLength()));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        MetaContext.remove();
+    }
+
+    private LongFunction<Supplier<byte[]>> sourceFactory(long toKey) {
+        return fromKey -> {
+            sourceNum.incrementAndGet();
+            long[] key = {fromKey};
+            return () -> key[0] > toKey ? null : journals.get((int) (key[0]++ - 1));
+        };
+    }
+
+    @Test
+    public void testInOrder() {
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(1, sourceFactory(JOURNAL_NUM), executor, 16);
+        for (int i = 1; i <= JOURNAL_NUM; i++) {
+            JournalEntity entity = cursor.next();
+            Assert.assertNotNull(entity);
+            Assert.assertEquals(Integer.toString(i), entity.getData().toString());
+        }
+        Assert.assertNull(cursor.next());
+        Assert.assertNull(cursor.next());
+        cursor.close();
+        Assert.assertEquals(1, sourceNum.get());
+    }
+
+    @Test
+    public void testMetaVersionChanged() {
+        PrefetchJournalCursor cursor = new PrefetchJournalCursor(101, sourceFactory(500), executor, 16);
+        for (int i = 101; i <= 200; i++) {
+            Assert.assertEquals(Integer.toString(i), cursor.next().getData().toString());
+        }
+        // journals are read again from 201 with the new meta version
+        metaContext.setMetaVersion(FeConstants.meta_version - 1);
+        for (int i = 201; i <= 500; i++) {
+            Assert.assertEquals(Integer.toString(i), cursor.next().getData().toString());
+        }
+        Assert.assertNull(cursor.next());
+        cursor.close();
+        Assert.assertEquals(2, sourceNum.get());
+    }
+}
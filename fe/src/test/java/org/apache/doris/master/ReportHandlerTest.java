@@ -0,0 +1,85 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.master;
+
+import org.apache.doris.common.Pair;
+import org.apache.doris.thrift.TTablet;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class ReportHandlerTest {
+
+    private static Map<Long, TTablet> tablets(long... tabletIds) {
+        Map<Long, TTablet> tablets = Maps.newHashMap();
+        for (long tabletId : tabletIds) {
+            tablets.put(tabletId, new TTablet());
+        }
+        return tablets;
+    }
+
+    @Test
+    public void testMergeDeltaIntoFullReport() {
+        Map<Long, TTablet> older = tablets(1L, 2L, 3L);
+        Map<Long, TTablet> newer = tablets(2L, 4L);
+        Pair<Map<Long, TTablet>, List<Long>> merged = ReportHandler.mergeTabletReports(older, null,
+                newer, Lists.newArrayList(3L));
+
+        // still a full report, with the changes of the delta report applied
+        Assert.assertNull(merged.second);
+        Assert.assertEquals(Sets.newHashSet(1L, 2L, 4L), merged.first.keySet());
+        Assert.assertSame(older.get(1L), merged.first.get(1L));
+        Assert.assertSame(newer.get(2L), merged.first.get(2L));
+        Assert.assertSame(newer.get(4L), merged.first.get(4L));
+    }
+
+    @Test
+    public void testMergeDeltaIntoDeltaReport() {
+        Map<Long, TTablet> older = tablets(1L, 2L);
+        Map<Long, TTablet> newer = tablets(2L, 5L);
+        Pair<Map<Long, TTablet>, List<Long>> merged = ReportHandler.mergeTabletReports(older,
+                Lists.newArrayList(5L, 6L), newer, Lists.newArrayList(1L, 7L));
+
+        Assert.assertEquals(Sets.newHashSet(2L, 5L), merged.first.keySet());
+        Assert.assertSame(newer.get(2L), merged.first.get(2L));
+        // tablet 5 is reported again after dropped, tablet 1 is dropped after reported
+        Assert.assertEquals(Sets.newHashSet(1L, 6L, 7L), Sets.newHashSet(merged.second));
+    }
+
+    @Test
+    public void testMergeFullReport() {
+        Map<Long, TTablet> newer = tablets(1L);
+        // older full report
+        Pair<Map<Long, TTablet>, List<Long>> merged = ReportHandler.mergeTabletReports(tablets(1L, 2L), null,
+                newer, null);
+        Assert.assertSame(newer, merged.first);
+        Assert.assertNull(merged.second);
+
+        // older delta report
+        merged = ReportHandler.mergeTabletReports(tablets(2L), Lists.newArrayList(3L), newer, null);
+        Assert.assertSame(newer, merged.first);
+        Assert.assertNull(merged.second);
+    }
+}
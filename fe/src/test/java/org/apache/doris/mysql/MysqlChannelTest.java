@@ -17,15 +17,21 @@
 
 package org.apache.doris.mysql;
 
+import com.google.common.collect.Lists;
+
 import org.easymock.EasyMock;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 
 public class MysqlChannelTest {
     int packetId = 0;
@@ -138,6 +144,54 @@ public class MysqlChannelTest {
         }
     }
 
+    @Test
+    public void testReadPacketNonBlocking() throws IOException {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt3(5);
+        serializer.writeInt1(0);
+        serializer.writeBytes("hello".getBytes());
+        ByteBuffer data = ByteBuffer.wrap(serializer.toArray());
+        // bytes received by each read, 0 means no data is available now
+        Deque<Integer> chunks = new ArrayDeque<>(Arrays.asList(2, 0, 2, 3, 0, 2));
+        // mock
+        EasyMock.expect(channel.read(EasyMock.anyObject(ByteBuffer.class))).andDelegateTo(new WrapperSocketChannel() {
+            @Override
+            public int read(ByteBuffer buffer) {
+                if (chunks.isEmpty()) {
+                    return -1;
+                }
+                int readLen = Math.min(chunks.poll(), buffer.remaining());
+                for (int i = 0; i < readLen; ++i) {
+                    buffer.put(data.get());
+                }
+                return readLen;
+            }
+        }).anyTimes();
+        EasyMock.replay(channel);
+
+        MysqlChannel channel1 = new MysqlChannel(channel);
+        // part of header
+        Assert.assertFalse(channel1.readPacketNonBlocking());
+        Assert.assertFalse(channel1.readPacketNonBlocking());
+        // whole header and part of content
+        Assert.assertFalse(channel1.readPacketNonBlocking());
+        Assert.assertFalse(channel1.readPacketNonBlocking());
+        Assert.assertTrue(channel1.readPacketNonBlocking());
+        // packet is kept until fetched
+        Assert.assertTrue(channel1.readPacketNonBlocking());
+
+        ByteBuffer buf = channel1.fetchOnePacket();
+        Assert.assertEquals("hello", new String(buf.array(), buf.position(), buf.remaining()));
+
+        // remote closed the channel
+        try {
+            channel1.readPacketNonBlocking();
+            Assert.fail("No Exception throws.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
     @Test(expected = IOException.class)
     public void testBadSeq() throws IOException {
         // mock
@@ -226,6 +280,50 @@ public class MysqlChannelTest {
         channel1.sendOnePacket(buf);
     }
 
+    @Test
+    public void testSendPackets() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // mock
+        EasyMock.expect(channel.write(EasyMock.anyObject(ByteBuffer[].class), EasyMock.anyInt(), EasyMock.anyInt()))
+                .andDelegateTo(new WrapperSocketChannel() {
+                    @Override
+                    public long write(ByteBuffer[] srcs, int offset, int length) {
+                        // only write part of the buffers each time
+                        long writeLen = 0;
+                        for (int i = offset; i < offset + Math.min(length, 3); i++) {
+                            writeLen += srcs[i].remaining();
+                            while (srcs[i].hasRemaining()) {
+                                output.write(srcs[i].get());
+                            }
+                        }
+                        return writeLen;
+                    }
+                }).anyTimes();
+        EasyMock.replay(channel);
+        MysqlChannel channel1 = new MysqlChannel(channel);
+
+        int maxLen = 0xffffff;
+        ByteBuffer bigPacket = ByteBuffer.allocate(maxLen);
+        channel1.sendPackets(Lists.newArrayList(ByteBuffer.wrap("abc".getBytes()), bigPacket,
+                ByteBuffer.wrap("xy".getBytes())));
+        Assert.assertFalse(bigPacket.hasRemaining());
+
+        ByteBuffer result = ByteBuffer.wrap(output.toByteArray());
+        Assert.assertEquals(4 + 3 + 4 + maxLen + 4 + 4 + 2, result.remaining());
+        Assert.assertArrayEquals(new byte[] {3, 0, 0, 0, 'a', 'b', 'c'}, getBytes(result, 7));
+        // packet of max length is followed by an empty packet
+        Assert.assertArrayEquals(new byte[] {-1, -1, -1, 1}, getBytes(result, 4));
+        result.position(result.position() + maxLen);
+        Assert.assertArrayEquals(new byte[] {0, 0, 0, 2}, getBytes(result, 4));
+        Assert.assertArrayEquals(new byte[] {2, 0, 0, 3, 'x', 'y'}, getBytes(result, 6));
+    }
+
+    private byte[] getBytes(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     @Test(expected = IOException.class)
     public void testSendException() throws IOException {
         // mock
@@ -0,0 +1,115 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.persist;
+
+import org.apache.doris.common.Pair;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SectionedImageTest {
+    private File file;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("sectioned_image", ".test");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        file.delete();
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        SectionedImage.Writer writer = new SectionedImage.Writer(file, executor, 2);
+        writer.addSection("meta", dos -> dos.writeInt(100));
+        for (long i = 1; i <= 10; i++) {
+            final long id = i;
+            writer.addSection("db", dos -> {
+                dos.writeLong(id);
+                dos.writeUTF("db" + id);
+            });
+        }
+        writer.finish();
+        Assert.assertTrue(SectionedImage.isSectionedImage(file));
+
+        SectionedImage.Reader reader = new SectionedImage.Reader(file);
+        reader.load("meta", dis -> Assert.assertEquals(100, dis.readInt()));
+
+        List<SectionedImage.Section> sections = reader.getSections("db");
+        Assert.assertEquals(10, sections.size());
+        ConcurrentLinkedQueue<String> names = new ConcurrentLinkedQueue<>();
+        List<Pair<List<SectionedImage.Section>, SectionedImage.SectionLoader>> tasks = Lists.newArrayList();
+        for (SectionedImage.Section section : sections) {
+            tasks.add(Pair.create(Lists.newArrayList(section), dis -> {
+                dis.readLong();
+                names.add(dis.readUTF());
+            }));
+        }
+        reader.loadInParallel(executor, tasks);
+        Assert.assertEquals(10, names.size());
+        Assert.assertTrue(names.contains("db7"));
+
+        // section which is not read completely is still verified
+        reader.load("db", dis -> dis.readLong());
+
+        // corrupted section
+        SectionedImage.Section section = sections.get(6);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(section.getOffset() + section.getLength() - 1);
+            raf.writeByte('x');
+        }
+        try {
+            reader.load(section, dis -> {
+                dis.readLong();
+                dis.readUTF();
+            });
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void testOldImage() throws IOException {
+        try (DataOutputStream dos = new DataOutputStream(new FileOutputStream(file))) {
+            // old image begins with meta version
+            dos.writeInt(60);
+            dos.writeLong(1000L);
+        }
+        Assert.assertFalse(SectionedImage.isSectionedImage(file));
+    }
+}
@@ -0,0 +1,144 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.mysql.MysqlSerializer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class ConnectIdleSelectorTest {
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel serverSideChannel;
+    private ExecutorService workerPool;
+    private ConnectIdleSelector idleSelector;
+    // packets of commands processed by worker pool
+    private BlockingQueue<String> commands;
+
+    @Before
+    public void setUp() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+        serverSideChannel = serverChannel.accept();
+
+        workerPool = Executors.newFixedThreadPool(1);
+        idleSelector = new ConnectIdleSelector(new ConnectScheduler(10), workerPool);
+        Thread selectorThread = new Thread(idleSelector, "test idle selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        commands = new LinkedBlockingQueue<>();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        workerPool.shutdownNow();
+        clientChannel.close();
+        serverSideChannel.close();
+        serverChannel.close();
+    }
+
+    private ConnectProcessor newProcessor(ConnectContext ctx) {
+        return new ConnectProcessor(ctx) {
+            @Override
+            public void processOnce() throws IOException {
+                ctx.getMysqlChannel().setSequenceId(0);
+                ByteBuffer packet = ctx.getMysqlChannel().fetchOnePacket();
+                commands.add(new String(packet.array(), packet.position(), packet.remaining()));
+            }
+        };
+    }
+
+    private byte[] packet(String content) {
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        serializer.writeInt3(content.length());
+        serializer.writeInt1(0);
+        serializer.writeBytes(content.getBytes());
+        return serializer.toArray();
+    }
+
+    private void send(byte[] bytes, int offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining()) {
+            clientChannel.write(buffer);
+        }
+    }
+
+    @Test
+    public void testReregisterAfterCommand() throws Exception {
+        ConnectContext ctx = new ConnectContext(serverSideChannel);
+        idleSelector.register(newProcessor(ctx));
+
+        for (int i = 0; i < 3; i++) {
+            byte[] bytes = packet("select " + i);
+            send(bytes, 0, bytes.length);
+            // connection is registered again after each command, so the next command is received
+            Assert.assertEquals("select " + i, commands.poll(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testHalfPacket() throws Exception {
+        ConnectContext ctx = new ConnectContext(serverSideChannel);
+        idleSelector.register(newProcessor(ctx));
+
+        byte[] bytes = packet("select 1");
+        // part of header
+        send(bytes, 0, 2);
+        Assert.assertNull(commands.poll(500, TimeUnit.MILLISECONDS));
+        // rest of header and part of content
+        send(bytes, 2, 5);
+        Assert.assertNull(commands.poll(500, TimeUnit.MILLISECONDS));
+        // reading is resumed when the rest arrives
+        send(bytes, 7, bytes.length - 7);
+        Assert.assertEquals("select 1", commands.poll(10, TimeUnit.SECONDS));
+        Assert.assertFalse(ctx.isKilled());
+    }
+
+    @Test
+    public void testCloseKilledConnection() throws Exception {
+        ConnectContext ctx = new ConnectContext(serverSideChannel);
+        idleSelector.register(newProcessor(ctx));
+        byte[] bytes = packet("select 1");
+        send(bytes, 0, 2);
+
+        ctx.setKilled();
+        // swept by selector thread
+        long deadline = System.currentTimeMillis() + 10000;
+        while (serverSideChannel.isOpen() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Assert.assertFalse(serverSideChannel.isOpen());
+        Assert.assertTrue(commands.isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.DateLiteral;
+import org.apache.doris.analysis.Expr;
+import org.apache.doris.analysis.IntLiteral;
+import org.apache.doris.analysis.NullLiteral;
+import org.apache.doris.analysis.PlaceHolderExpr;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.SelectStmt;
+import org.apache.doris.analysis.StringLiteral;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.mysql.MysqlSerializer;
+
+import com.google.common.collect.Lists;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+public class PreparedStatementContextTest {
+    private static final String STMT = "select * from t where k1 = ? and k2 = ? and k3 = ? and k4 = ? and k5 = '?'";
+
+    private static <T extends Expr> List<T> collect(QueryStmt stmt, Class<T> cl) {
+        List<T> exprs = Lists.newArrayList();
+        ((SelectStmt) stmt).getWhereClause().collect(cl, exprs);
+        return exprs;
+    }
+
+    private PreparedStatementContext prepare() throws AnalysisException {
+        List<PlaceHolderExpr> placeHolders = Lists.newArrayList();
+        QueryStmt parsedStmt = (QueryStmt) StmtExecutor.parse(STMT, placeHolders);
+        return new PreparedStatementContext(1, STMT, parsedStmt, placeHolders);
+    }
+
+    @Test
+    public void testParsePlaceHolder() throws AnalysisException {
+        PreparedStatementContext stmt = prepare();
+        Assert.assertEquals(4, stmt.getNumParams());
+        List<PlaceHolderExpr> placeHolders = collect(stmt.cloneStmt(), PlaceHolderExpr.class);
+        Assert.assertEquals(4, placeHolders.size());
+        for (int i = 0; i < placeHolders.size(); i++) {
+            Assert.assertEquals(i, placeHolders.get(i).getIndex());
+        }
+
+        // placeholder is not allowed in normal statement
+        try {
+            StmtExecutor.parse(STMT);
+            Assert.fail();
+        } catch (AnalysisException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBindParams() throws AnalysisException {
+        PreparedStatementContext stmt = prepare();
+
+        MysqlSerializer serializer = MysqlSerializer.newInstance();
+        // null bitmap, the 4th parameter is null
+        serializer.writeInt1(0x08);
+        // new params bound
+        serializer.writeInt1(1);
+        // LONGLONG, VAR_STRING, DATE, LONG
+        serializer.writeInt2(8);
+        serializer.writeInt2(253);
+        serializer.writeInt2(10);
+        serializer.writeInt2(3);
+        serializer.writeInt8(-10L);
+        serializer.writeLenEncodedString("it's");
+        serializer.writeInt1(4);
+        serializer.writeInt2(2019);
+        serializer.writeInt1(3);
+        serializer.writeInt1(5);
+        ByteBuffer packet = serializer.toByteBuffer();
+
+        QueryStmt boundStmt = stmt.bindParams(packet);
+        Assert.assertTrue(collect(boundStmt, PlaceHolderExpr.class).isEmpty());
+        List<IntLiteral> intLiterals = collect(boundStmt, IntLiteral.class);
+        Assert.assertEquals(1, intLiterals.size());
+        Assert.assertEquals(-10L, intLiterals.get(0).getLongValue());
+        List<StringLiteral> stringLiterals = collect(boundStmt, StringLiteral.class);
+        Assert.assertEquals(2, stringLiterals.size());
+        // value is bound as it is, without escaping
+        Assert.assertEquals("it's", stringLiterals.get(0).getValue());
+        Assert.assertEquals("?", stringLiterals.get(1).getValue());
+        List<DateLiteral> dateLiterals = collect(boundStmt, DateLiteral.class);
+        Assert.assertEquals(1, dateLiterals.size());
+        Assert.assertEquals("2019-03-05", dateLiterals.get(0).getStringValue());
+        Assert.assertEquals(1, collect(boundStmt, NullLiteral.class).size());
+
+        // types are remembered when not bound again
+        serializer.reset();
+        serializer.writeInt1(0x0E);
+        serializer.writeInt1(0);
+        serializer.writeInt8(7L);
+        QueryStmt newBoundStmt = stmt.bindParams(serializer.toByteBuffer());
+        intLiterals = collect(newBoundStmt, IntLiteral.class);
+        Assert.assertEquals(1, intLiterals.size());
+        Assert.assertEquals(7L, intLiterals.get(0).getLongValue());
+        Assert.assertEquals(3, collect(newBoundStmt, NullLiteral.class).size());
+
+        // each execution gets its own copy of the statement
+        Assert.assertEquals(-10L, collect(boundStmt, IntLiteral.class).get(0).getLongValue());
+    }
+}
@@ -0,0 +1,188 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.qe;
+
+import org.apache.doris.analysis.Analyzer;
+import org.apache.doris.analysis.InformationFunction;
+import org.apache.doris.analysis.QueryStmt;
+import org.apache.doris.analysis.UserIdentity;
+import org.apache.doris.catalog.KeysType;
+import org.apache.doris.catalog.MaterializedIndex;
+import org.apache.doris.catalog.MaterializedIndex.IndexState;
+import org.apache.doris.catalog.MysqlTable;
+import org.apache.doris.catalog.OlapTable;
+import org.apache.doris.catalog.Partition;
+import org.apache.doris.catalog.Table;
+import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Config;
+
+import com.google.common.collect.Lists;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class QueryResultCacheTest {
+    private long maxBytes;
+    private long maxEntryBytes;
+    private boolean enableCache;
+
+    @Before
+    public void setUp() {
+        maxBytes = Config.query_result_cache_max_bytes;
+        maxEntryBytes = Config.query_result_cache_max_entry_bytes;
+        enableCache = Config.enable_query_result_cache;
+        Config.enable_query_result_cache = true;
+        QueryResultCache.INSTANCE.clear();
+    }
+
+    @After
+    public void tearDown() {
+        Config.query_result_cache_max_bytes = maxBytes;
+        Config.query_result_cache_max_entry_bytes = maxEntryBytes;
+        Config.enable_query_result_cache = enableCache;
+        QueryResultCache.INSTANCE.clear();
+    }
+
+    private QueryResultCache.CacheValue newValue(int bytes) {
+        return new QueryResultCache.CacheValue(Lists.newArrayList(new byte[bytes]), bytes);
+    }
+
+    @Test
+    public void testLruEviction() {
+        Config.query_result_cache_max_bytes = 100;
+        Config.query_result_cache_max_entry_bytes = 60;
+        QueryResultCache cache = QueryResultCache.INSTANCE;
+
+        cache.put("k1", newValue(40));
+        cache.put("k2", newValue(40));
+        Assert.assertEquals(80, cache.getTotalBytes());
+        // k1 is used recently, so k2 is evicted
+        Assert.assertNotNull(cache.get("k1"));
+        cache.put("k3", newValue(40));
+        Assert.assertNull(cache.get("k2"));
+        Assert.assertNotNull(cache.get("k1"));
+        Assert.assertNotNull(cache.get("k3"));
+        Assert.assertEquals(80, cache.getTotalBytes());
+
+        // too large to cache
+        cache.put("k4", newValue(61));
+        Assert.assertNull(cache.get("k4"));
+        Assert.assertEquals(2, cache.size());
+
+        // replace
+        cache.put("k1", newValue(10));
+        Assert.assertEquals(50, cache.getTotalBytes());
+    }
+
+    private ConnectContext newContext(String db, String user) {
+        ConnectContext context = new ConnectContext(null);
+        context.setCluster("testCluster");
+        context.setDatabase(db);
+        UserIdentity userIdentity = new UserIdentity(user, "%");
+        userIdentity.setIsAnalyzed();
+        context.setCurrentUserIdentitfy(userIdentity);
+        return context;
+    }
+
+    private OlapTable newTable(long partitionId, long version, long indexId, int schemaHash) {
+        OlapTable table = new OlapTable(1000L, "t", Lists.newArrayList(), KeysType.DUP_KEYS, null, null);
+        table.setIndexSchemaInfo(indexId, "t", Lists.newArrayList(), 0, schemaHash, (short) 1);
+        Partition partition = new Partition(partitionId, "p", new MaterializedIndex(indexId, IndexState.NORMAL),
+                null);
+        partition.updateVisibleVersionAndVersionHash(version, 0L);
+        table.addPartition(partition);
+        return table;
+    }
+
+    private OlapTable newTable(long partitionId, long version) {
+        return newTable(partitionId, version, 2000L, 1234);
+    }
+
+    // analyzer which has analyzed a scan of the tables
+    private Analyzer newAnalyzer(ConnectContext context, Table... tables) {
+        Analyzer analyzer = new Analyzer(null, context);
+        // tuple of an inline view has no table
+        analyzer.getDescTbl().createTupleDescriptor();
+        for (Table table : tables) {
+            analyzer.getDescTbl().createTupleDescriptor().setTable(table);
+        }
+        return analyzer;
+    }
+
+    private String buildKey(ConnectContext context, String sql, Table... tables) throws AnalysisException {
+        QueryStmt stmt = (QueryStmt) StmtExecutor.parse(sql);
+        return QueryResultCache.buildKey(context, newAnalyzer(context, tables), stmt);
+    }
+
+    @Test
+    public void testBuildKey() throws AnalysisException {
+        String sql = "select k1, now_ts from t";
+        ConnectContext context = newContext("testCluster:db1", "user1");
+        String key = buildKey(context, sql, newTable(1L, 2L));
+        // identifier which looks like a function is not a function call
+        Assert.assertNotNull(key);
+        Assert.assertEquals(key, buildKey(context, sql, newTable(1L, 2L)));
+        // same table scanned twice
+        Assert.assertEquals(key, buildKey(context, sql, newTable(1L, 2L), newTable(1L, 2L)));
+
+        // database
+        Assert.assertNotEquals(key, buildKey(newContext("testCluster:db2", "user1"), sql, newTable(1L, 2L)));
+        // user
+        Assert.assertNotEquals(key, buildKey(newContext("testCluster:db1", "user2"), sql, newTable(1L, 2L)));
+        // partition and version
+        Assert.assertNotEquals(key, buildKey(context, sql, newTable(1L, 3L)));
+        Assert.assertNotEquals(key, buildKey(context, sql, newTable(2L, 2L)));
+        // schema change, and rollup which keep the versions of partitions
+        Assert.assertNotEquals(key, buildKey(context, sql, newTable(1L, 2L, 2000L, 5678)));
+        Assert.assertNotEquals(key, buildKey(context, sql, newTable(1L, 2L, 3000L, 1234)));
+        OlapTable rollupTable = newTable(1L, 2L);
+        rollupTable.setIndexSchemaInfo(3000L, "r1", Lists.newArrayList(), 0, 1234, (short) 1);
+        Assert.assertNotEquals(key, buildKey(context, sql, rollupTable));
+
+        // session variables
+        context.getSessionVariable().setTimeZone("+08:00");
+        String tzKey = buildKey(context, sql, newTable(1L, 2L));
+        Assert.assertNotEquals(key, tzKey);
+        context.getSessionVariable().setSqlMode("PIPES_AS_CONCAT");
+        Assert.assertNotEquals(tzKey, buildKey(context, sql, newTable(1L, 2L)));
+
+        // no table
+        Assert.assertNull(buildKey(context, sql));
+        // not an olap table
+        Assert.assertNull(buildKey(context, sql, newTable(1L, 2L), new MysqlTable()));
+        // disabled
+        Config.enable_query_result_cache = false;
+        Assert.assertNull(buildKey(context, sql, newTable(1L, 2L)));
+    }
+
+    @Test
+    public void testNondeterministicFunction() throws AnalysisException {
+        ConnectContext context = newContext("testCluster:db1", "user1");
+        QueryStmt stmt = (QueryStmt) StmtExecutor.parse("select k1 from t");
+        Analyzer analyzer = newAnalyzer(context, newTable(1L, 2L));
+        Assert.assertNotNull(QueryResultCache.buildKey(context, analyzer, stmt));
+
+        // marked when the function call is analyzed, no matter how it is written in sql
+        new InformationFunction("CONNECTION_ID").analyze(analyzer);
+        Assert.assertTrue(analyzer.hasNondeterministicFn());
+        Assert.assertNull(QueryResultCache.buildKey(context, analyzer, stmt));
+    }
+}
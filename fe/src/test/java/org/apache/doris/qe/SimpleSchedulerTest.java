@@ -18,6 +18,7 @@
 package org.apache.doris.qe;
 
 import org.apache.doris.catalog.Catalog;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.FeConstants;
 import org.apache.doris.common.Reference;
 import org.apache.doris.persist.EditLog;
@@ -29,8 +30,10 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
 import org.easymock.EasyMock;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.easymock.PowerMock;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
@@ -70,6 +73,14 @@ public class SimpleSchedulerTest {
         PowerMock.replay(Catalog.class);
     }
 
+    @After
+    public void tearDown() {
+        // backends of load aware tests
+        for (long backendId = 200; backendId < 203; backendId++) {
+            SimpleScheduler.removeBackendLoad(backendId);
+        }
+    }
+
     // TODO(lingbin): PALO-2051.
     // Comment out these code temporatily.
     // @Test
@@ -199,4 +210,94 @@ public class SimpleSchedulerTest {
         address = SimpleScheduler.getHost(immutableThreeBackends, ref);
         Assert.assertNull(address);
     }
+
+    @Test
+    public void testLoadAwareReplicaSelection() {
+        Backend backendA = new Backend(200, "addressA", 0);
+        backendA.updateOnce(0, 0, 0);
+        Backend backendB = new Backend(201, "addressB", 0);
+        backendB.updateOnce(0, 0, 0);
+        ImmutableMap<Long, Backend> backends = ImmutableMap.of(200L, backendA, 201L, backendB);
+
+        List<TScanRangeLocation> locations = new ArrayList<TScanRangeLocation>();
+        TScanRangeLocation locationA = new TScanRangeLocation();
+        locationA.setBackend_id(200);
+        TScanRangeLocation locationB = new TScanRangeLocation();
+        locationB.setBackend_id(201);
+        locations.add(locationA);
+        locations.add(locationB);
+
+        boolean loadAware = Config.enable_load_aware_replica_selection;
+        try {
+            Config.enable_load_aware_replica_selection = true;
+            // preferred backend is chosen if loads are the same
+            Assert.assertEquals("addressA", SimpleScheduler.getHost(200, locations, backends, ref).hostname);
+            Assert.assertEquals(200L, ref.getRef().longValue());
+
+            // preferred backend is heavily loaded
+            SimpleScheduler.updateBackendLoad(backendA, 90, 10);
+            Assert.assertEquals("addressB", SimpleScheduler.getHost(200, locations, backends, ref).hostname);
+            Assert.assertEquals(201L, ref.getRef().longValue());
+
+            // fragments in flight of this frontend are counted
+            SimpleScheduler.updateBackendLoad(backendA, 0, 0);
+            SimpleScheduler.fragmentStarted(backendA);
+            Assert.assertEquals("addressB", SimpleScheduler.getHost(200, locations, backends, ref).hostname);
+            SimpleScheduler.fragmentFinished(backendA, 0);
+            Assert.assertEquals("addressA", SimpleScheduler.getHost(200, locations, backends, ref).hostname);
+
+            // slow fragments
+            SimpleScheduler.fragmentStarted(backendB);
+            SimpleScheduler.fragmentFinished(backendB, 80000);
+            Assert.assertTrue(SimpleScheduler.getLoadScore(backendB) > SimpleScheduler.getLoadScore(backendA));
+            Assert.assertEquals("addressA", SimpleScheduler.getHost(201, locations, backends, ref).hostname);
+
+            // the preferred backend is always chosen if not load aware
+            Config.enable_load_aware_replica_selection = false;
+            Assert.assertEquals("addressB", SimpleScheduler.getHost(201, locations, backends, ref).hostname);
+        } finally {
+            Config.enable_load_aware_replica_selection = loadAware;
+        }
+    }
+
+    @Test
+    public void testLoadAwareReplicaSelectionOfQuery() {
+        ImmutableMap.Builder<Long, Backend> backendsBuilder = ImmutableMap.builder();
+        // every scan range has 3 replicas
+        List<TScanRangeLocation> locations = new ArrayList<TScanRangeLocation>();
+        for (long backendId = 200; backendId < 203; backendId++) {
+            Backend backend = new Backend(backendId, "address" + backendId, 0);
+            backend.updateOnce(0, 0, 0);
+            backendsBuilder.put(backendId, backend);
+            TScanRangeLocation location = new TScanRangeLocation();
+            location.setBackend_id(backendId);
+            locations.add(location);
+        }
+        ImmutableMap<Long, Backend> backends = backendsBuilder.build();
+
+        boolean loadAware = Config.enable_load_aware_replica_selection;
+        try {
+            Config.enable_load_aware_replica_selection = true;
+            // backend 200 is a little less loaded than the others
+            SimpleScheduler.updateBackendLoad(backends.get(201L), 10, 0);
+            SimpleScheduler.updateBackendLoad(backends.get(202L), 10, 0);
+
+            Map<Long, Long> assignedNums = Maps.newHashMap();
+            for (int i = 0; i < 300; i++) {
+                // each replica is preferred in turn, like the one with fewest assigned bytes in coordinator
+                Assert.assertNotNull(SimpleScheduler.getHost(200 + i % 3, locations, backends, ref, assignedNums));
+            }
+            // scan ranges of the query do not all go to the least loaded backend
+            long total = 0;
+            for (long backendId = 200; backendId < 203; backendId++) {
+                long assignedNum = assignedNums.get(backendId);
+                Assert.assertTrue("backend " + backendId + " is assigned " + assignedNum,
+                        assignedNum >= 80 && assignedNum <= 120);
+                total += assignedNum;
+            }
+            Assert.assertEquals(300, total);
+        } finally {
+            Config.enable_load_aware_replica_selection = loadAware;
+        }
+    }
 }
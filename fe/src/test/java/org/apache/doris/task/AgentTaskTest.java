@@ -25,7 +25,9 @@ import org.apache.doris.catalog.PartitionKey;
 import org.apache.doris.catalog.PrimitiveType;
 import org.apache.doris.catalog.ScalarType;
 import org.apache.doris.common.AnalysisException;
+import org.apache.doris.common.Config;
 import org.apache.doris.common.MarkedCountDownLatch;
+import org.apache.doris.common.Pair;
 import org.apache.doris.thrift.TAgentTaskRequest;
 import org.apache.doris.thrift.TBackend;
 import org.apache.doris.thrift.TKeysType;
@@ -35,6 +37,7 @@ import org.apache.doris.thrift.TStorageMedium;
 import org.apache.doris.thrift.TStorageType;
 import org.apache.doris.thrift.TTaskType;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 
 import org.junit.Assert;
@@ -43,12 +46,19 @@ import org.junit.Test;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import mockit.Deencapsulation;
 
 public class AgentTaskTest {
 
@@ -247,6 +257,23 @@ public class AgentTaskTest {
         Assert.assertEquals(0, AgentTaskQueue.getTaskNum());
     }
 
+    @Test
+    public void removeReplicaRelatedTasksTest() {
+        AgentTaskQueue.clearAllTasks();
+        AgentTaskQueue.addTask(createReplicaTask);
+        AgentTaskQueue.addTask(dropTask);
+        AgentTaskQueue.addTask(rollupTask);
+        Assert.assertEquals(3, AgentTaskQueue.getTaskNum());
+        Assert.assertEquals(1, AgentTaskQueue.getTaskNum(TTaskType.CREATE));
+
+        // only tasks of tabletId1 are removed
+        AgentTaskQueue.removeReplicaRelatedTasks(backendId1, tabletId1);
+        Assert.assertEquals(1, AgentTaskQueue.getTaskNum());
+        Assert.assertEquals(0, AgentTaskQueue.getTaskNum(TTaskType.CREATE));
+        Assert.assertEquals(0, AgentTaskQueue.getTaskNum(TTaskType.DROP));
+        Assert.assertEquals(rollupTask, AgentTaskQueue.getTask(backendId1, TTaskType.ROLLUP, tabletId2));
+    }
+
     @Test
     public void failedAgentTaskTest() {
         AgentTaskQueue.clearAllTasks();
@@ -268,4 +295,95 @@ public class AgentTaskTest {
         Assert.assertEquals(1, AgentTaskQueue.getTaskNum(backendId1, TTaskType.DROP, true));
         Assert.assertEquals(2, AgentTaskQueue.getTaskNum(-1, TTaskType.DROP, true));
     }
+
+    @Test
+    public void taskPriorityTest() {
+        Assert.assertTrue(AgentTaskExecutor.getPriority(TTaskType.PUBLISH_VERSION)
+                < AgentTaskExecutor.getPriority(TTaskType.CREATE));
+        Assert.assertEquals(AgentTaskExecutor.getPriority(TTaskType.PUSH),
+                AgentTaskExecutor.getPriority(TTaskType.REALTIME_PUSH));
+        Assert.assertTrue(AgentTaskExecutor.getPriority(TTaskType.CREATE)
+                < AgentTaskExecutor.getPriority(TTaskType.CLONE));
+        Assert.assertTrue(AgentTaskExecutor.getPriority(TTaskType.CLONE)
+                < AgentTaskExecutor.getPriority(TTaskType.CHECK_CONSISTENCY));
+    }
+
+    @Test
+    public void taskPriorityRaisedTest() throws InterruptedException {
+        int windowMs = Config.agent_task_batch_window_ms;
+        Config.agent_task_batch_window_ms = 0;
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>());
+        try {
+            // backend id and task types of each rpc
+            List<Pair<Long, List<TTaskType>>> sent = Collections.synchronizedList(Lists.newArrayList());
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch allSent = new CountDownLatch(2);
+            // keep the only thread busy, so that send jobs wait in the queue
+            executor.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            AgentTaskExecutor.BackendQueue[] queues = new AgentTaskExecutor.BackendQueue[2];
+            for (int i = 0; i < queues.length; i++) {
+                final long backendId = i == 0 ? backendId1 : backendId2;
+                queues[i] = new AgentTaskExecutor.BackendQueue(backendId, executor) {
+                    @Override
+                    void send(List<AgentTask> tasks) {
+                        List<TTaskType> taskTypes = Lists.newArrayList();
+                        for (AgentTask task : tasks) {
+                            taskTypes.add(task.getTaskType());
+                        }
+                        sent.add(Pair.create(backendId, taskTypes));
+                        allSent.countDown();
+                    }
+                };
+            }
+            // clone task of backend1 waits behind ...
+            queues[0].add(Lists.newArrayList(cloneTask));
+            // ... create replica task of backend2, which is of higher priority
+            queues[1].add(Lists.newArrayList(new CreateReplicaTask(backendId2, dbId, tableId, partitionId,
+                    indexId1, tabletId1, shortKeyNum, schemaHash1, version, versionHash, KeysType.AGG_KEYS,
+                    storageType, TStorageMedium.SSD, columns, null, 0, latch)));
+            // then a push task of backend1 arrives, backend1 should be sent first
+            queues[0].add(Lists.newArrayList(pushTask));
+
+            blocked.countDown();
+            Assert.assertTrue(allSent.await(10, TimeUnit.SECONDS));
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            // the job queued with lower priority finds nothing to send
+            Assert.assertEquals(2, sent.size());
+            Assert.assertEquals(backendId1, sent.get(0).first.longValue());
+            Assert.assertEquals(Lists.newArrayList(TTaskType.PUSH, TTaskType.CLONE), sent.get(0).second);
+            Assert.assertEquals(backendId2, sent.get(1).first.longValue());
+        } finally {
+            executor.shutdownNow();
+            Config.agent_task_batch_window_ms = windowMs;
+        }
+    }
+
+    @Test
+    public void removeBackendQueueTest() {
+        int windowMs = Config.agent_task_batch_window_ms;
+        // keep the tasks waiting in the queue
+        Config.agent_task_batch_window_ms = 3600 * 1000;
+        try {
+            AgentBatchTask batchTask = new AgentBatchTask();
+            batchTask.addTask(cloneTask);
+            AgentTaskExecutor.submit(batchTask);
+            Map<Long, ?> backendQueues = Deencapsulation.getField(AgentTaskExecutor.class, "backendQueues");
+            Assert.assertTrue(backendQueues.containsKey(cloneTask.getBackendId()));
+
+            AgentTaskExecutor.removeBackend(cloneTask.getBackendId());
+            Assert.assertFalse(backendQueues.containsKey(cloneTask.getBackendId()));
+        } finally {
+            Config.agent_task_batch_window_ms = windowMs;
+        }
+    }
 }
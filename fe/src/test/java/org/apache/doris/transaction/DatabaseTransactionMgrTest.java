@@ -0,0 +1,90 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.transaction;
+
+import org.apache.doris.transaction.TransactionState.LoadJobSourceType;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DatabaseTransactionMgrTest {
+
+    private TransactionState newTxn(long txnId, String label) {
+        return new TransactionState(1L, txnId, label, null, LoadJobSourceType.BACKEND_STREAMING,
+                "127.0.0.1", -1, 10000);
+    }
+
+    private void update(DatabaseTransactionMgr mgr, TransactionState txn, TransactionStatus status) {
+        txn.setTransactionStatus(status);
+        mgr.putTransactionState(txn.getPreStatus(), txn);
+    }
+
+    @Test
+    public void testRunningTxnNum() {
+        DatabaseTransactionMgr mgr = new DatabaseTransactionMgr(1L);
+        mgr.writeLock();
+        try {
+            TransactionState txn1 = newTxn(1L, "label1");
+            TransactionState txn2 = newTxn(2L, "label2");
+            mgr.putTransactionState(null, txn1);
+            mgr.putTransactionState(null, txn2);
+            Assert.assertEquals(2, mgr.getRunningTxnNum());
+
+            update(mgr, txn1, TransactionStatus.COMMITTED);
+            Assert.assertEquals(2, mgr.getRunningTxnNum());
+            update(mgr, txn1, TransactionStatus.VISIBLE);
+            Assert.assertEquals(1, mgr.getRunningTxnNum());
+            update(mgr, txn2, TransactionStatus.ABORTED);
+            Assert.assertEquals(0, mgr.getRunningTxnNum());
+            Assert.assertEquals(2, mgr.getTransactionNum());
+
+            // a wrong transition is not hidden by clamping the number to 0
+            mgr.putTransactionState(TransactionStatus.COMMITTED, txn2);
+            Assert.assertEquals(-1, mgr.getRunningTxnNum());
+        } finally {
+            mgr.writeUnlock();
+        }
+    }
+
+    @Test
+    public void testLabel() {
+        DatabaseTransactionMgr mgr = new DatabaseTransactionMgr(1L);
+        mgr.writeLock();
+        try {
+            TransactionState txn1 = newTxn(1L, "label");
+            mgr.putTransactionState(null, txn1);
+            Assert.assertEquals(Long.valueOf(1L), mgr.getTransactionIdByLabel("label"));
+
+            // label of an aborted txn can be reused
+            update(mgr, txn1, TransactionStatus.ABORTED);
+            Assert.assertNull(mgr.getTransactionIdByLabel("label"));
+            TransactionState txn2 = newTxn(2L, "label");
+            mgr.putTransactionState(null, txn2);
+            Assert.assertEquals(Long.valueOf(2L), mgr.getTransactionIdByLabel("label"));
+
+            // removing the old txn does not remove the label of the new one
+            mgr.removeTransactionState(txn1);
+            Assert.assertNull(mgr.getTransactionState(1L));
+            Assert.assertEquals(Long.valueOf(2L), mgr.getTransactionIdByLabel("label"));
+            mgr.removeTransactionState(txn2);
+            Assert.assertNull(mgr.getTransactionIdByLabel("label"));
+        } finally {
+            mgr.writeUnlock();
+        }
+    }
+}
@@ -616,4 +616,30 @@ public class GlobalTransactionMgrTest {
         transactionState = masterTransMgr.getTransactionState(transactionId);
         assertNull(transactionState);
     }
+
+    @Test
+    public void testDatabaseTransactionMgrOfDroppedDb() throws AnalysisException {
+        FakeCatalog.setCatalog(masterCatalog);
+        long droppedDbId = CatalogTestUtil.testDbId1 + 10000;
+        Map<Long, DatabaseTransactionMgr> dbIdToDatabaseTransactionMgrs = Deencapsulation.getField(masterTransMgr,
+                "dbIdToDatabaseTransactionMgrs");
+
+        // read paths do not create transaction manager
+        assertEquals(TransactionStatus.UNKNOWN, masterTransMgr.getLabelState(droppedDbId, "label"));
+        assertTrue(masterTransMgr.isPreviousTransactionsFinished(1000L, droppedDbId));
+        assertEquals("0", masterTransMgr.getDbTransStateInfo(droppedDbId).get(0).get(1));
+        assertNull(dbIdToDatabaseTransactionMgrs.get(droppedDbId));
+
+        // replay creates it, and it is removed with the last transaction since the db does not exist
+        TransactionState transactionState = new TransactionState(droppedDbId, 1000L, "label", null,
+                LoadJobSourceType.FRONTEND, transactionSource, -1, 1000L);
+        masterTransMgr.replayUpsertTransactionState(transactionState);
+        assertNotNull(dbIdToDatabaseTransactionMgrs.get(droppedDbId));
+        assertEquals(TransactionStatus.PREPARE, masterTransMgr.getLabelState(droppedDbId, "label"));
+        masterTransMgr.removeDatabaseTransactionMgr(droppedDbId);
+        assertNotNull(dbIdToDatabaseTransactionMgrs.get(droppedDbId));
+        masterTransMgr.replayDeleteTransactionState(transactionState);
+        assertNull(dbIdToDatabaseTransactionMgrs.get(droppedDbId));
+        assertNull(masterTransMgr.getTransactionState(1000L));
+    }
 }
@@ -0,0 +1,163 @@
+// Licensed to the Apache Software Foundation (ASF) under one
+// or more contributor license agreements.  See the NOTICE file
+// distributed with this work for additional information
+// regarding copyright ownership.  The ASF licenses this file
+// to you under the Apache License, Version 2.0 (the
+// "License"); you may not use this file except in compliance
+// with the License.  You may obtain a copy of the License at
+//
+//   http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing,
+// software distributed under the License is distributed on an
+// "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+// KIND, either express or implied.  See the License for the
+// specific language governing permissions and limitations
+// under the License.
+
+package org.apache.doris.transaction;
+
+import org.apache.doris.catalog.Catalog;
+import org.apache.doris.catalog.CatalogTestUtil;
+import org.apache.doris.catalog.FakeCatalog;
+import org.apache.doris.catalog.FakeEditLog;
+import org.apache.doris.common.Config;
+import org.apache.doris.common.FeConstants;
+import org.apache.doris.common.UserException;
+import org.apache.doris.common.io.FastByteArrayOutputStream;
+import org.apache.doris.meta.MetaContext;
+import org.apache.doris.task.AgentBatchTask;
+import org.apache.doris.task.AgentTaskExecutor;
+import org.apache.doris.task.PublishVersionTask;
+import org.apache.doris.transaction.TransactionState.LoadJobSourceType;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mockit.Deencapsulation;
+import mockit.Mock;
+import mockit.MockUp;
+
+public class PublishVersionDaemonTest {
+
+    private static FakeEditLog fakeEditLog;
+    private static FakeCatalog fakeCatalog;
+    private static FakeTransactionIDGenerator fakeTransactionIDGenerator;
+    private static GlobalTransactionMgr masterTransMgr;
+    private static Catalog masterCatalog;
+
+    @Before
+    public void setUp() throws Exception {
+        fakeEditLog = new FakeEditLog();
+        fakeCatalog = new FakeCatalog();
+        fakeTransactionIDGenerator = new FakeTransactionIDGenerator();
+        masterCatalog = CatalogTestUtil.createTestCatalog();
+        MetaContext metaContext = new MetaContext();
+        metaContext.setMetaVersion(FeConstants.meta_version);
+        metaContext.setThreadLocalInfo();
+
+        masterTransMgr = masterCatalog.getGlobalTransactionMgr();
+        masterTransMgr.setEditLog(masterCatalog.getEditLog());
+        FakeCatalog.setCatalog(masterCatalog);
+    }
+
+    private long commitTransaction(String label) throws UserException {
+        long transactionId = masterTransMgr.beginTransaction(CatalogTestUtil.testDbId1, label, "localfe",
+                LoadJobSourceType.FRONTEND, Config.stream_load_default_timeout_second);
+        List<TabletCommitInfo> transTablets = Lists.newArrayList();
+        transTablets.add(new TabletCommitInfo(CatalogTestUtil.testTabletId1, CatalogTestUtil.testBackendId1));
+        transTablets.add(new TabletCommitInfo(CatalogTestUtil.testTabletId1, CatalogTestUtil.testBackendId2));
+        transTablets.add(new TabletCommitInfo(CatalogTestUtil.testTabletId1, CatalogTestUtil.testBackendId3));
+        masterTransMgr.commitTransaction(CatalogTestUtil.testDbId1, transactionId, transTablets);
+        return transactionId;
+    }
+
+    // transaction state read from edit log or image, as after FE restarts
+    private TransactionState replay(TransactionState transactionState) throws IOException {
+        FastByteArrayOutputStream byteArrayOutputStream = new FastByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(byteArrayOutputStream);
+        transactionState.write(out);
+        out.flush();
+        out.close();
+
+        TransactionState replayedState = new TransactionState();
+        replayedState.readFields(new DataInputStream(byteArrayOutputStream.getInputStream()));
+        return replayedState;
+    }
+
+    @Test
+    public void testBackendsOfReplayedTransaction() throws Exception {
+        long transactionId = commitTransaction(CatalogTestUtil.testTxnLable1);
+        TransactionState committedState = fakeEditLog.getTransaction(transactionId);
+        TransactionState replayedState = replay(committedState);
+        Assert.assertEquals(TransactionStatus.COMMITTED, replayedState.getTransactionStatus());
+        // publish backends are not persisted
+        Assert.assertTrue(replayedState.getPublishVersionTasks().isEmpty());
+
+        PublishVersionDaemon publishVersionDaemon = new PublishVersionDaemon();
+        Map<Long, Set<Long>> partitionToBackends = Deencapsulation.invoke(publishVersionDaemon,
+                "getBackendsOfUnrecordedTransactions", Lists.newArrayList(replayedState));
+        Assert.assertEquals(1, partitionToBackends.size());
+        Assert.assertEquals(Sets.newHashSet(CatalogTestUtil.testBackendId1, CatalogTestUtil.testBackendId2,
+                CatalogTestUtil.testBackendId3), partitionToBackends.get(CatalogTestUtil.testPartitionId1));
+
+        // backends recorded at commit are used as they are
+        Assert.assertEquals(3, committedState.getPublishVersionTasks().size());
+        partitionToBackends = Deencapsulation.invoke(publishVersionDaemon,
+                "getBackendsOfUnrecordedTransactions", Lists.newArrayList(committedState));
+        Assert.assertTrue(partitionToBackends.isEmpty());
+    }
+
+    @Test
+    public void testFinishOnPublishReport() throws Exception {
+        new MockUp<AgentTaskExecutor>() {
+            @Mock
+            public void submit(AgentBatchTask task) {
+                // tasks are reported finished by the test
+            }
+        };
+
+        int publishIntervalMs = Config.publish_version_interval_ms;
+        // much longer than the test, the transaction is finished only if the report is handled at once
+        Config.publish_version_interval_ms = 3600 * 1000;
+        try {
+            long transactionId = commitTransaction(CatalogTestUtil.testTxnLable1);
+            TransactionState transactionState = masterTransMgr.getTransactionState(transactionId);
+            PublishVersionDaemon publishVersionDaemon = new PublishVersionDaemon();
+
+            // send publish tasks
+            Deencapsulation.invoke(publishVersionDaemon, "runOneCycle");
+            Assert.assertTrue(transactionState.hasSendTask());
+            Assert.assertEquals(TransactionStatus.COMMITTED, transactionState.getTransactionStatus());
+
+            // all tasks are finished, but not reported yet
+            for (PublishVersionTask task : transactionState.getPublishVersionTasks().values()) {
+                task.setIsFinished(true);
+            }
+            Deencapsulation.invoke(publishVersionDaemon, "runOneCycle");
+            Assert.assertEquals(TransactionStatus.COMMITTED, transactionState.getTransactionStatus());
+
+            for (PublishVersionTask task : transactionState.getPublishVersionTasks().values()) {
+                publishVersionDaemon.onPublishTaskFinished(task);
+            }
+            Deencapsulation.invoke(publishVersionDaemon, "runOneCycle");
+            Assert.assertEquals(TransactionStatus.VISIBLE, transactionState.getTransactionStatus());
+            Assert.assertEquals(CatalogTestUtil.testStartVersion + 1, masterCatalog.getDb(CatalogTestUtil.testDbId1)
+                    .getTable(CatalogTestUtil.testTableId1).getPartition(CatalogTestUtil.testPartition1)
+                    .getVisibleVersion());
+        } finally {
+            Config.publish_version_interval_ms = publishIntervalMs;
+        }
+    }
+}
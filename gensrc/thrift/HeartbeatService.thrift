@@ -32,6 +32,8 @@ struct TBackendInfo {
     2: required Types.TPort http_port
     3: optional Types.TPort be_rpc_port
     4: optional Types.TPort brpc_port
+    5: optional i64 max_disk_io_util_percent
+    6: optional i64 running_fragment_num
 }
 
 struct THeartbeatResult {
@@ -80,11 +80,21 @@ struct TReportRequest {
     5: optional map<string, TDisk> disks // string root_path
     6: optional bool force_recovery
     7: optional list<TTablet> tablet_list
+    // changed if any tablet of the backend is changed
+    8: optional i64 tablet_report_generation
+    // if set, 'tablets' only contains the tablets changed since the tablet report of this generation
+    9: optional i64 base_tablet_report_generation
+    // tablets dropped since the tablet report of base generation
+    10: optional list<Types.TTabletId> dropped_tablets
 }
 
 struct TMasterResult {
     // required in V1
     1: required Status.TStatus status
+    // set if the delta tablet report is not accepted, and the backend should send a full tablet report
+    2: optional bool need_full_tablet_report
+    // set by frontends supporting delta tablet reports, backends send delta tablet reports only after seeing it
+    3: optional bool support_delta_tablet_report
 }
 
 // Now we only support CPU share.
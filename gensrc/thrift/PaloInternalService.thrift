@@ -246,6 +246,16 @@ struct TExecPlanFragmentParams {
   14: optional TLoadErrorHubInfo load_error_hub_info
 }
 
+// Instances of one fragment sent to a backend in one rpc.
+struct TExecPlanFragmentBatchParams {
+  // serialized TExecPlanFragmentParams shared by all instances, with params and backend_num unset
+  1: required binary common_params
+
+  // params and backend_num of each instance
+  2: required list<TPlanFragmentExecParams> instance_params
+  3: required list<i32> backend_nums
+}
+
 struct TExecPlanFragmentResult {
   // required in V1
   1: optional Status.TStatus status